@@ -0,0 +1,46 @@
+package com.personal.g_photos;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.personal.g_photos.corpus.TakeoutCorpusGenerator;
+import com.personal.g_photos.corpus.TakeoutCorpusOptions;
+import com.utils.log.Logger;
+
+/**
+ * The synthetic Takeout trees that the benchmarks run against. They are the trees of the "Synthetic" inputs of the
+ * tests, in the same folder and with the same seed, so they are generated once and shared.
+ */
+final class BenchmarkCorpus {
+
+	private BenchmarkCorpus() {
+	}
+
+	static Path prepare(
+			final int mediaFileCount) throws Exception {
+
+		Logger.setMessageConsumer(new QuietMessageConsumer());
+
+		final Path inputFolderPath = Paths.get(System.getProperty("java.io.tmpdir"),
+				"GooglePhotosOrganizer", "Synthetic" + mediaFileCount + "Orig");
+		return TakeoutCorpusGenerator.generateIfMissing(inputFolderPath,
+				TakeoutCorpusOptions.createDefault(mediaFileCount, mediaFileCount));
+	}
+
+	static List<String> listFilePathStrings(
+			final Path folderPath) throws Exception {
+
+		final List<String> filePathStringList = new ArrayList<>();
+		try (Stream<Path> pathStream = Files.walk(folderPath)) {
+
+			pathStream.filter(Files::isRegularFile)
+					.map(Path::toString)
+					.forEach(filePathStringList::add);
+		}
+		return filePathStringList;
+	}
+}
@@ -0,0 +1,90 @@
+package com.personal.g_photos;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The photo taken time of a sidecar per operation, the sidecars of a synthetic tree taken in turn. The sidecar is read
+ * before its time is parsed, as the process stage does; after the first pass, it is read from the page cache. The
+ * formatted times, which are parsed when a sidecar has no timestamp, are parsed on their own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhotoTakenTimeBenchmark {
+
+	@Param("10000")
+	private int mediaFileCount;
+
+	private String[] jsonFilePathStrings;
+	private String[] formattedPhotoTakenTimes;
+	private SidecarReader sidecarReader;
+	private int jsonFileIndex;
+	private int formattedPhotoTakenTimeIndex;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		final Path inputFolderPath = BenchmarkCorpus.prepare(mediaFileCount);
+
+		sidecarReader = new SidecarReader();
+		final List<String> jsonFilePathStringList = new ArrayList<>();
+		final List<String> formattedPhotoTakenTimeList = new ArrayList<>();
+		for (final String filePathString : BenchmarkCorpus.listFilePathStrings(inputFolderPath)) {
+
+			if (filePathString.endsWith(".json") && sidecarReader.read(Paths.get(filePathString))) {
+
+				final String formattedPhotoTakenTime = sidecarReader.parseFormattedPhotoTakenTime();
+				if (formattedPhotoTakenTime != null) {
+
+					jsonFilePathStringList.add(filePathString);
+					formattedPhotoTakenTimeList.add(formattedPhotoTakenTime);
+				}
+			}
+		}
+		jsonFilePathStrings = jsonFilePathStringList.toArray(new String[0]);
+		formattedPhotoTakenTimes = formattedPhotoTakenTimeList.toArray(new String[0]);
+	}
+
+	@Benchmark
+	public Instant parsePhotoTakenTimeInstant() {
+
+		final String jsonFilePathString = jsonFilePathStrings[jsonFileIndex];
+		jsonFileIndex = (jsonFileIndex + 1) % jsonFilePathStrings.length;
+
+		Instant photoTakenTimeInstant = null;
+		if (sidecarReader.read(Paths.get(jsonFilePathString))) {
+			photoTakenTimeInstant = FileProcessor.parsePhotoTakenTimeInstant(jsonFilePathString, sidecarReader);
+		}
+		return photoTakenTimeInstant;
+	}
+
+	@Benchmark
+	public Instant parseInstantFromString() {
+
+		final String formattedPhotoTakenTime = formattedPhotoTakenTimes[formattedPhotoTakenTimeIndex];
+		formattedPhotoTakenTimeIndex = (formattedPhotoTakenTimeIndex + 1) % formattedPhotoTakenTimes.length;
+
+		return PhotoTakenTimeParser.parse(formattedPhotoTakenTime);
+	}
+}
@@ -0,0 +1,23 @@
+package com.personal.g_photos;
+
+import com.utils.log.AbstractMessageConsumer;
+import com.utils.log.MessageLevel;
+
+/**
+ * Drops the progress and the info messages, which the benchmarked code prints for every file, so that the benchmarks
+ * measure the code and not the console. The warnings and the errors are still printed.
+ */
+final class QuietMessageConsumer extends AbstractMessageConsumer {
+
+	@Override
+	public void printMessageSpecific(
+			final MessageLevel messageLevel,
+			final String message) {
+
+		if (messageLevel == MessageLevel.WARNING ||
+				messageLevel == MessageLevel.ERROR ||
+				messageLevel == MessageLevel.THROWABLE) {
+			System.err.println(message);
+		}
+	}
+}
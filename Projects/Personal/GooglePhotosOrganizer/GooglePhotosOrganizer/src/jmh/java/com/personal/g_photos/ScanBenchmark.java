@@ -0,0 +1,76 @@
+package com.personal.g_photos;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.personal.g_photos.archives.FactoryArchiveFileSystems;
+
+/**
+ * The scan stage, on a whole synthetic tree per operation: the directory walk together with the pairing of the media
+ * files with their sidecars, and the pairing alone, on the paths that the walk found. The larger trees are run with
+ * "-p mediaFileCount=100000,1000000".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ScanBenchmark {
+
+	@Param("10000")
+	private int mediaFileCount;
+
+	private Path inputFolderPath;
+	private List<String> filePathStringList;
+	private ArchiveFileSystems archiveFileSystems;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		inputFolderPath = BenchmarkCorpus.prepare(mediaFileCount);
+		filePathStringList = BenchmarkCorpus.listFilePathStrings(inputFolderPath);
+		archiveFileSystems = FactoryArchiveFileSystems.newInstance();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+
+		archiveFileSystems.close();
+	}
+
+	@Benchmark
+	public void scanInputFolder(
+			final Blackhole blackhole) {
+
+		final InputFolderScanner inputFolderScanner = new InputFolderScanner(inputFolderPath.toString(), null,
+				archiveFileSystems, null, false, true, null, 0, false, 1);
+		inputFolderScanner.scan(blackhole::consume);
+	}
+
+	@Benchmark
+	public List<FileData> fillToProcessFileDataList() {
+
+		final List<FileData> toProcessFileDataList = new ArrayList<>();
+		InputFolderScanner.fillToProcessFileDataList(filePathStringList, false, toProcessFileDataList);
+		return toProcessFileDataList;
+	}
+}
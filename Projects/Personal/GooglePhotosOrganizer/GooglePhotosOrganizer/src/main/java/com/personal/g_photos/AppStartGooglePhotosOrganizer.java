@@ -1,31 +1,54 @@
 package com.personal.g_photos;
 
-import java.io.File;
-import java.nio.file.FileVisitResult;
-import java.text.SimpleDateFormat;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
+import java.time.ZoneId;
 import java.util.List;
-import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.Strings;
-import org.json.JSONObject;
 
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.personal.g_photos.archives.FactoryArchiveFileSystems;
+import com.personal.g_photos.dedup.NearDuplicateMode;
+import com.personal.g_photos.layout.FactoryFolderCreationCache;
+import com.personal.g_photos.layout.FactoryOutputNameRegistry;
+import com.personal.g_photos.layout.OutputLayout;
+import com.personal.g_photos.links.FactoryFileLinker;
+import com.personal.g_photos.links.FileLinker;
+import com.personal.g_photos.links.LinkMode;
+import com.personal.g_photos.manifest.FactoryProcessingManifest;
+import com.personal.g_photos.manifest.ProcessingManifest;
+import com.personal.g_photos.metadata.TimeSource;
+import com.personal.g_photos.metrics.FactoryRunMetrics;
+import com.personal.g_photos.metrics.RunMetrics;
+import com.personal.g_photos.pipeline.Pipeline;
+import com.personal.g_photos.pipeline.PipelineSource;
+import com.personal.g_photos.plan.FactoryThroughputHistory;
+import com.personal.g_photos.plan.RunPlanner;
+import com.personal.g_photos.plan.ThroughputHistory;
+import com.personal.g_photos.thumbnails.FactoryThumbnailCache;
+import com.personal.g_photos.thumbnails.ThumbnailCache;
+import com.personal.g_photos.videos.FactoryVideoTranscodeScheduler;
+import com.personal.g_photos.videos.VideoTranscodeScheduler;
+import com.utils.concurrency.ConcurrencyUtils;
 import com.utils.io.IoUtils;
-import com.utils.io.ListFileUtils;
 import com.utils.io.PathUtils;
-import com.utils.io.ReaderUtils;
-import com.utils.io.file_copiers.FactoryFileCopier;
-import com.utils.io.file_deleters.FactoryFileDeleter;
-import com.utils.io.file_movers.FactoryFileMover;
 import com.utils.io.folder_creators.FactoryFolderCreator;
 import com.utils.log.Logger;
+import com.utils.string.StrUtils;
 
 final class AppStartGooglePhotosOrganizer {
 
+	private static final int DEFAULT_VIDEO_JOB_COUNT = 2;
+	private static final int DEFAULT_VIDEO_TIMEOUT_SECONDS = 30 * 60;
+	private static final int DEFAULT_VIDEO_RETRY_COUNT = 1;
+	/**
+	 * The copies of a photo that were resized or recompressed differ in a few bits of the 64, while different photos
+	 * differ in about half of them.
+	 */
+	private static final int DEFAULT_MAX_NEAR_DUPLICATE_DISTANCE = 6;
+	private static final int DEFAULT_THUMBNAIL_CACHE_SIZE_MB = 1024;
+	private static final int DEFAULT_WATCH_QUIET_PERIOD_SECONDS = 10;
+
 	private AppStartGooglePhotosOrganizer() {
 	}
 
@@ -57,8 +80,17 @@ final class AppStartGooglePhotosOrganizer {
 
 	private static String createUsageMessage() {
 
-		return "usage: google_photos_organizer <INPUT_FOLDER_PATH> <OUTPUT_FOLDER_PATH> " +
-				"(-verbose) (-keep_live_photo_videos)";
+		return "usage: google_photos_organizer <INPUT_FOLDER_OR_ZIP_PATH> <OUTPUT_FOLDER_PATH> " +
+				"(-verbose) (-keep_live_photo_videos) (-threads <THREAD_COUNT>) " +
+				"(-remux_videos) (-ffmpeg_path <FFMPEG_PATH>) (-video_jobs <VIDEO_JOB_COUNT>) " +
+				"(-video_timeout <VIDEO_TIMEOUT_SECONDS>) (-video_retries <VIDEO_RETRY_COUNT>) " +
+				"(-keep_duplicates) (-link_mode <copy|hardlink|reflink>) (-streaming_scan) " +
+				"(-layout <OUTPUT_FOLDER_PATTERN, for example yyyy/MM>) (-skip_exif) " +
+				"(-time_sources <sidecar,embedded|embedded,sidecar|sidecar|embedded>) " +
+				"(-near_duplicates <skip|group>) (-near_duplicate_distance <MAX_HASH_DISTANCE>) " +
+				"(-thumbnails) (-thumbnail_cache_size <MAX_CACHE_SIZE_MB>) " +
+				"(-watch) (-watch_quiet_period <QUIET_PERIOD_SECONDS>) (-plan) " +
+				"(-metrics_interval <SUMMARY_INTERVAL_SECONDS>)";
 	}
 
 	static void work(
@@ -81,304 +113,286 @@ final class AppStartGooglePhotosOrganizer {
 			System.exit(3);
 		}
 
-		final boolean verbose = args.length >= 3 && "-verbose".equals(args[2]);
-		final boolean keepLivePhotoVideos = args.length >= 4 && "-keep_live_photo_videos".equals(args[3]);
+		boolean verbose = false;
+		boolean keepLivePhotoVideos = false;
+		int threadCount = computeDefaultThreadCount();
+		boolean remuxVideos = false;
+		String ffmpegPathString = "ffmpeg";
+		int videoJobCount = DEFAULT_VIDEO_JOB_COUNT;
+		int videoTimeoutSeconds = DEFAULT_VIDEO_TIMEOUT_SECONDS;
+		int videoRetryCount = DEFAULT_VIDEO_RETRY_COUNT;
+		boolean keepDuplicates = false;
+		NearDuplicateMode nearDuplicateMode = null;
+		int maxNearDuplicateDistance = DEFAULT_MAX_NEAR_DUPLICATE_DISTANCE;
+		LinkMode linkMode = LinkMode.COPY;
+		boolean streamingScan = false;
+		boolean writeExif = true;
+		List<TimeSource> timeSourceList = List.of(TimeSource.SIDECAR, TimeSource.EMBEDDED);
+		boolean thumbnails = false;
+		boolean watch = false;
+		boolean plan = false;
+		int metricsIntervalSeconds = 0;
+		int watchQuietPeriodSeconds = DEFAULT_WATCH_QUIET_PERIOD_SECONDS;
+		int thumbnailCacheSizeMb = DEFAULT_THUMBNAIL_CACHE_SIZE_MB;
+		OutputLayout outputLayout = OutputLayout.parse("", ZoneId.systemDefault());
+		for (int i = 2; i < args.length; i++) {
 
-		if (!IoUtils.fileExists(inputFolderPathString)) {
+			final String arg = args[i];
+			if ("-verbose".equals(arg)) {
+				verbose = true;
 
-			Logger.printError("input folder does not exist");
-			System.exit(3);
-		}
+			} else if ("-keep_live_photo_videos".equals(arg)) {
+				keepLivePhotoVideos = true;
 
-		final boolean success = FactoryFolderCreator.getInstance()
-				.createDirectories(outputFolderPathString, false, true);
-		if (!success) {
-			System.exit(4);
-		}
+			} else if ("-threads".equals(arg) && i + 1 < args.length) {
 
-		final List<FileData> toProcessFileDataList = new ArrayList<>();
-		final List<String> filePathStringList = new ArrayList<>();
-		ListFileUtils.visitFilesRecursively(inputFolderPathString,
-				dirPath -> FileVisitResult.CONTINUE,
-				filePath -> {
-					final String filePathString = filePath.toString();
-					filePathStringList.add(filePathString);
-					return FileVisitResult.CONTINUE;
-				});
+				i++;
+				threadCount = parseIntArgument("thread count", args[i], 1);
 
-		fillToProcessFileDataList(filePathStringList, toProcessFileDataList);
+			} else if ("-remux_videos".equals(arg)) {
+				remuxVideos = true;
 
-		if (keepLivePhotoVideos) {
-			addLivePhotoVideosFileData(toProcessFileDataList);
-		}
+			} else if ("-ffmpeg_path".equals(arg) && i + 1 < args.length) {
 
-		for (int i = 0; i < toProcessFileDataList.size(); i++) {
+				i++;
+				ffmpegPathString = args[i];
 
-			final FileData fileData = toProcessFileDataList.get(i);
-			final String filePathString = fileData.filePathString();
-			final String jsonFilePathString = fileData.jsonFilePathString();
-			processFile(filePathString, jsonFilePathString, i, toProcessFileDataList.size(),
-					outputFolderPathString, verbose);
-		}
-	}
+			} else if ("-video_jobs".equals(arg) && i + 1 < args.length) {
 
-	private static void addLivePhotoVideosFileData(
-			final List<FileData> toProcessFileDataList) {
+				i++;
+				videoJobCount = parseIntArgument("video job count", args[i], 1);
 
-		for (final FileData toProcessFileData : toProcessFileDataList) {
+			} else if ("-video_timeout".equals(arg) && i + 1 < args.length) {
 
-			final String filePathString = toProcessFileData.filePathString();
-			final String jsonFilePathString = toProcessFileData.jsonFilePathString();
+				i++;
+				videoTimeoutSeconds = parseIntArgument("video timeout", args[i], 1);
 
-			final String extension = PathUtils.computeExtension(filePathString);
-			if (!Strings.CI.equals(extension, "mp4")) {
+			} else if ("-video_retries".equals(arg) && i + 1 < args.length) {
 
-				final String mp4FilePathString = PathUtils.computePathWoExt(filePathString) + ".mp4";
-				if (IoUtils.fileExists(mp4FilePathString)) {
+				i++;
+				videoRetryCount = parseIntArgument("video retry count", args[i], 0);
 
-					final FileData fileData = new FileData(mp4FilePathString, jsonFilePathString);
-					toProcessFileDataList.add(fileData);
-				}
-			}
-			if (!Strings.CI.equals(extension, "mov")) {
+			} else if ("-keep_duplicates".equals(arg)) {
+				keepDuplicates = true;
+
+			} else if ("-near_duplicates".equals(arg) && i + 1 < args.length) {
 
-				final String movFilePathString = PathUtils.computePathWoExt(filePathString) + ".mov";
-				if (IoUtils.fileExists(movFilePathString)) {
+				i++;
+				nearDuplicateMode = NearDuplicateMode.parse(args[i]);
+				if (nearDuplicateMode == null) {
 
-					final FileData fileData = new FileData(movFilePathString, jsonFilePathString);
-					toProcessFileDataList.add(fileData);
+					Logger.printError("invalid near-duplicate mode " + args[i]);
+					System.exit(5);
 				}
-			}
-		}
-	}
 
-	private static void fillToProcessFileDataList(
-			final List<String> filePathStringList,
-			final List<FileData> toProcessFileDataList) {
+			} else if ("-near_duplicate_distance".equals(arg) && i + 1 < args.length) {
 
-		final Set<String> filePathStringSet = new HashSet<>(filePathStringList);
-		for (final String jsonFilePathString : filePathStringList) {
+				i++;
+				maxNearDuplicateDistance = parseIntArgument("near-duplicate distance", args[i], 0);
 
-			if (Strings.CI.endsWith(jsonFilePathString, ".json")) {
+			} else if ("-link_mode".equals(arg) && i + 1 < args.length) {
 
-				boolean mediaFile = false;
-				String mediaFilePathString = jsonFilePathString;
-				while (true) {
+				i++;
+				linkMode = LinkMode.parse(args[i]);
+				if (linkMode == null) {
 
-					final int lastIndex = mediaFilePathString.lastIndexOf('.');
-					if (lastIndex < 0) {
-						break;
+					Logger.printError("invalid link mode " + args[i]);
+					System.exit(5);
+				}
 
-					} else {
-						mediaFilePathString = mediaFilePathString.substring(0, lastIndex);
-						if (filePathStringSet.contains(mediaFilePathString)) {
+			} else if ("-streaming_scan".equals(arg)) {
+				streamingScan = true;
 
-							mediaFile = true;
-							break;
-						}
-					}
-				}
-				if (mediaFile) {
+			} else if ("-skip_exif".equals(arg)) {
+				writeExif = false;
 
-					final FileData fileData = new FileData(mediaFilePathString, jsonFilePathString);
-					toProcessFileDataList.add(fileData);
-				}
-			}
-		}
-	}
+			} else if ("-time_sources".equals(arg) && i + 1 < args.length) {
 
-	private static void processFile(
-			final String filePathStringParam,
-			final String jsonFilePathStringParam,
-			final int fileIndex,
-			final int fileCount,
-			final String outputFolderPathString,
-			final boolean verbose) {
+				i++;
+				timeSourceList = TimeSource.parseList(args[i]);
+				if (timeSourceList == null) {
 
-		try {
-			Logger.printNewLine();
-			Logger.printProgress("processing file " + fileIndex + "/" + fileCount + ":");
-			Logger.printLine(filePathStringParam);
+					Logger.printError("invalid time sources " + args[i]);
+					System.exit(5);
+				}
 
-			String filePathString = filePathStringParam;
-			String jsonFilePathString = jsonFilePathStringParam;
+			} else if ("-thumbnails".equals(arg)) {
+				thumbnails = true;
 
-			final char nnbspChar = '\u202F';
-			if (StringUtils.contains(filePathString, nnbspChar)) {
+			} else if ("-thumbnail_cache_size".equals(arg) && i + 1 < args.length) {
 
-				final String processedFilePathString =
-						StringUtils.replaceChars(filePathString, nnbspChar, ' ');
-				FactoryFileMover.getInstance()
-						.moveFile(filePathString, processedFilePathString, true, true);
-				filePathString = processedFilePathString;
-			}
-			if (StringUtils.contains(jsonFilePathString, nnbspChar)) {
+				i++;
+				thumbnailCacheSizeMb = parseIntArgument("thumbnail cache size", args[i], 1);
 
-				final String processedJsonFilePathString =
-						StringUtils.replaceChars(jsonFilePathString, nnbspChar, ' ');
-				FactoryFileMover.getInstance()
-						.moveFile(jsonFilePathString, processedJsonFilePathString, true, true);
-				jsonFilePathString = processedJsonFilePathString;
-			}
+			} else if ("-watch".equals(arg)) {
+				watch = true;
 
-			final String fileName = PathUtils.computeFileName(filePathString);
-			String outputFilePathString = PathUtils.computePath(outputFolderPathString, fileName);
+			} else if ("-watch_quiet_period".equals(arg) && i + 1 < args.length) {
 
-			final boolean success;
-			if (Strings.CI.endsWith(filePathString, ".mp4___") ||
-					Strings.CI.endsWith(filePathString, ".mov___")) {
+				i++;
+				watchQuietPeriodSeconds = parseIntArgument("watch quiet period", args[i], 1);
 
-				success = copyVideoFile(filePathString, outputFilePathString, verbose);
+			} else if ("-plan".equals(arg)) {
+				plan = true;
 
-			} else if (Strings.CI.endsWith(filePathString, ".jpg") ||
-					Strings.CI.endsWith(filePathString, ".jpeg") ||
-					Strings.CI.endsWith(filePathString, ".heic") ||
-					Strings.CI.endsWith(filePathString, ".png") ||
-					Strings.CI.endsWith(filePathString, ".webp")) {
+			} else if ("-metrics_interval".equals(arg) && i + 1 < args.length) {
 
-				outputFilePathString = PathUtils.computePathWoExt(outputFilePathString) + ".jpg";
-				success = copyImageFile(filePathString, outputFilePathString, verbose);
+				i++;
+				metricsIntervalSeconds = parseIntArgument("metrics interval", args[i], 1);
 
-			} else {
-				success = FactoryFileCopier.getInstance()
-						.copyFile(filePathString, outputFilePathString, true, true, true);
-			}
-			if (success) {
+			} else if ("-layout".equals(arg) && i + 1 < args.length) {
 
-				final Instant photoTakenTimeInstant = parsePhotoTakenTimeInstant(jsonFilePathString);
-				if (photoTakenTimeInstant != null) {
+				i++;
+				outputLayout = OutputLayout.parse(args[i], ZoneId.systemDefault());
+				if (outputLayout == null) {
 
-					IoUtils.configureFileLastModifiedTime(outputFilePathString, photoTakenTimeInstant);
+					Logger.printError("invalid layout " + args[i]);
+					System.exit(5);
 				}
+
+			} else {
+				Logger.printWarning("ignoring unknown argument " + arg);
 			}
+		}
+
+		if (!IoUtils.fileExists(inputFolderPathString)) {
 
-		} catch (final Throwable throwable) {
-			Logger.printError("failed to process file:" + System.lineSeparator() + filePathStringParam);
-			Logger.printThrowable(throwable);
+			Logger.printError("input folder does not exist");
+			System.exit(3);
 		}
-	}
 
-	private static boolean copyVideoFile(
-			final String filePathString,
-			final String outputFilePathString,
-			final boolean verbose) {
+		if (plan) {
 
-		boolean success = false;
-		try {
-			Logger.printProgress("copying video file:");
-			Logger.printLine(filePathString);
-			Logger.printLine("to:");
-			Logger.printLine(outputFilePathString);
+			planRun(inputFolderPathString, outputFolderPathString, keepLivePhotoVideos, remuxVideos, threadCount);
 
-			success = FactoryFileDeleter.getInstance().deleteFile(outputFilePathString, false, true);
-			if (success) {
+		} else {
+			final boolean success = FactoryFolderCreator.getInstance()
+					.createDirectories(outputFolderPathString, false, true);
+			if (!success) {
+				System.exit(4);
+			}
 
-				final ProcessBuilder.Redirect processBuilderRedirect;
-				if (verbose) {
-					processBuilderRedirect = ProcessBuilder.Redirect.INHERIT;
-				} else {
-					processBuilderRedirect = ProcessBuilder.Redirect.DISCARD;
+			try (ArchiveFileSystems archiveFileSystems = FactoryArchiveFileSystems.newInstance();
+					ProcessingManifest processingManifest =
+							FactoryProcessingManifest.newInstance(outputFolderPathString);
+					RunMetrics runMetrics = FactoryRunMetrics.newInstance(outputFolderPathString,
+							1000L * metricsIntervalSeconds)) {
+
+				final VideoTranscodeScheduler videoTranscodeScheduler =
+						FactoryVideoTranscodeScheduler.newInstance(ffmpegPathString, videoJobCount,
+								1000L * videoTimeoutSeconds, videoRetryCount, verbose);
+				final FileLinker fileLinker = FactoryFileLinker.newInstance(linkMode);
+				final ThroughputHistory throughputHistory =
+						FactoryThroughputHistory.newInstance(outputFolderPathString);
+				ThumbnailCache thumbnailCache = null;
+				if (thumbnails) {
+					thumbnailCache = FactoryThumbnailCache.newInstance(outputFolderPathString,
+							1024L * 1024 * thumbnailCacheSizeMb);
 				}
+				final FileProcessor fileProcessor = new FileProcessor(outputFolderPathString, outputLayout,
+						FactoryFolderCreationCache.newInstance(),
+						FactoryOutputNameRegistry.newInstance(processingManifest), archiveFileSystems,
+						processingManifest, videoTranscodeScheduler, fileLinker, timeSourceList, thumbnailCache,
+						throughputHistory, remuxVideos, writeExif, verbose);
+
+				final InputFolderScanner inputFolderScanner = new InputFolderScanner(inputFolderPathString,
+						outputFolderPathString, archiveFileSystems, processingManifest, keepLivePhotoVideos,
+						keepDuplicates, nearDuplicateMode, maxNearDuplicateDistance, streamingScan, threadCount);
+				final PipelineSource<FileProcessingData> pipelineSource;
+				if (watch) {
+
+					final InputFolderWatcher inputFolderWatcher = new InputFolderWatcher(inputFolderPathString,
+							outputFolderPathString, inputFolderScanner, 1000L * watchQuietPeriodSeconds);
+					pipelineSource = inputFolderWatcher::watch;
 
-				final Process process = new ProcessBuilder()
-						.command("ffmpeg", "-i", filePathString,
-								"-movflags", "use_metadata_tags", "-map_metadata", "0",
-								"-vcodec", "copy", "-c:a", "aac", outputFilePathString)
-						.directory(new File(outputFilePathString).getParentFile())
-						.redirectOutput(processBuilderRedirect)
-						.redirectError(processBuilderRedirect).start();
+				} else {
+					pipelineSource = inputFolderScanner::scan;
+				}
 
-				final int exitCode = process.waitFor();
-				success = exitCode == 0;
+				final int queueCapacity = 4 * threadCount;
+				final Pipeline<FileProcessingData> pipeline = new Pipeline<>("organize files");
+				final PipelineSource<FileProcessingData> claimingPipelineSource = fileProcessingDataConsumer ->
+						pipelineSource.produce(fileProcessingData -> {
+
+							fileProcessor.claimOutputFileName(fileProcessingData);
+							fileProcessingDataConsumer.accept(fileProcessingData);
+						});
+				final PipelineSource<FileProcessingData> meteredPipelineSource =
+						FileProcessingMeters.meterSource(runMetrics, "scan input", claimingPipelineSource);
+				// the sidecars are small and mostly wait for the disk, so half of the threads keep the next stage fed;
+				// the images are decoded and encoded, which takes every core; the videos run in ffmpeg, at most as
+				// many at a time as the scheduler allows, so their branch has that many threads, and the threads of
+				// the images never wait for a free ffmpeg slot; finalizing only sets a time and appends a line to the
+				// manifest, so a quarter of the threads keep up with the others
+				FileProcessingMeters.addMeteredStage(pipeline, runMetrics, "parse sidecar",
+						threadCount / 2, queueCapacity, fileProcessor::parseSidecar);
+				FileProcessingMeters.addMeteredStage(pipeline, runMetrics, "resize or copy",
+						threadCount, queueCapacity, fileProcessor::processFile);
+				FileProcessingMeters.addMeteredBranchStage(pipeline, runMetrics, "transcode video",
+						videoJobCount, queueCapacity, fileProcessor::checkVideo, fileProcessor::processFile);
+				FileProcessingMeters.addMeteredStage(pipeline, runMetrics, "finalize timestamp",
+						threadCount / 4, queueCapacity, fileProcessor::finalizeFile);
+
+				runMetrics.startSampling();
+				pipeline.run(meteredPipelineSource);
+
+				throughputHistory.save();
+				videoTranscodeScheduler.printStatistics();
+				fileLinker.printStatistics();
+				if (thumbnailCache != null) {
+					thumbnailCache.printStatistics();
+				}
 			}
-
-		} catch (final Throwable throwable) {
-			Logger.printError("failed to copy file " +
-					System.lineSeparator() + filePathString +
-					System.lineSeparator() + "to:" +
-					System.lineSeparator() + outputFilePathString);
-			Logger.printThrowable(throwable);
 		}
-		return success;
 	}
 
-	private static boolean copyImageFile(
-			final String filePathString,
-			final String outputFilePathString,
-			final boolean verbose) {
-
-		boolean success = false;
-		try {
-			final List<String> commandPartList = new ArrayList<>();
-			Collections.addAll(commandPartList, "cmd",
-					"/c", "img_resizer", "1920", filePathString, outputFilePathString);
-			if (verbose) {
-				commandPartList.add("-verbose");
-			}
+	/**
+	 * Only lists the input and adds up the sizes of the files, without reading them and without writing anything, and
+	 * prints the estimates computed from the throughput of the earlier runs into the output folder. The duplicates
+	 * cannot be told apart without reading the files, so they are kept.
+	 */
+	private static void planRun(
+			final String inputFolderPathString,
+			final String outputFolderPathString,
+			final boolean keepLivePhotoVideos,
+			final boolean remuxVideos,
+			final int threadCount) {
 
-			final Process process = new ProcessBuilder()
-					.command(commandPartList)
-					.directory(new File(outputFilePathString).getParentFile())
-					.redirectOutput(ProcessBuilder.Redirect.INHERIT)
-					.redirectError(ProcessBuilder.Redirect.INHERIT)
-					.start();
+		try (ArchiveFileSystems archiveFileSystems = FactoryArchiveFileSystems.newInstance()) {
 
-			final int exitCode = process.waitFor();
-			success = exitCode == 0;
+			final RunPlanner runPlanner = new RunPlanner(archiveFileSystems, remuxVideos);
+			final InputFolderScanner inputFolderScanner = new InputFolderScanner(inputFolderPathString,
+					outputFolderPathString, archiveFileSystems, null, keepLivePhotoVideos, true, null, 0, false,
+					threadCount);
+			inputFolderScanner.scan(fileProcessingData ->
+					runPlanner.addFile(fileProcessingData.getFileData().filePathString()));
 
-		} catch (final Throwable throwable) {
-			Logger.printThrowable(throwable);
+			final ThroughputHistory throughputHistory = FactoryThroughputHistory.newInstance(outputFolderPathString);
+			runPlanner.printPlan(throughputHistory, threadCount);
 		}
-		return success;
 	}
 
-	private static Instant parsePhotoTakenTimeInstant(
-			final String jsonFilePathString) {
+	private static int parseIntArgument(
+			final String name,
+			final String valueString,
+			final int minValue) {
 
-		Instant photoTakenTimeInstant = null;
-		try {
-			Logger.printProgress("parsing photo taken time from JSON file:");
-			Logger.printLine(jsonFilePathString);
+		final int value = StrUtils.tryParsePositiveInt(valueString);
+		if (value < minValue) {
 
-			final String jsonFileContent = ReaderUtils.fileToString(jsonFilePathString);
-			final JSONObject jsonObject = new JSONObject(jsonFileContent);
-			final JSONObject photoTakenTimeJsonObject = jsonObject.getJSONObject("photoTakenTime");
-			final String formattedPhotoTakenTime = photoTakenTimeJsonObject.getString("formatted");
-
-			photoTakenTimeInstant = parseInstantFromString(formattedPhotoTakenTime);
-
-		} catch (final Throwable throwable) {
-			Logger.printProgress("failed to parse photo taken time from JSON file:" +
-					System.lineSeparator() + jsonFilePathString);
-			Logger.printThrowable(throwable);
+			Logger.printError("invalid " + name + " " + valueString);
+			System.exit(5);
 		}
-		return photoTakenTimeInstant;
+		return value;
 	}
 
-	static Instant parseInstantFromString(
-			final String formattedPhotoTakenTime) {
-
-		Instant instant = null;
-		final String[] dateFormatStringArray = {
-				"MMM dd, yyyy, HH:mm:ss a z",
-				"dd MMM yyyy, HH:mm:ss z"
-		};
-		for (final String dateFormatString : dateFormatStringArray) {
-
-			try {
-				String processedFormattedPhotoTakenTime =
-						StringUtils.replaceChars(formattedPhotoTakenTime, '\u202f', ' ');
-				processedFormattedPhotoTakenTime =
-						Strings.CS.replace(processedFormattedPhotoTakenTime, "Sept", "Sep");
-				instant = new SimpleDateFormat(dateFormatString)
-						.parse(processedFormattedPhotoTakenTime).toInstant();
-
-			} catch (final Throwable ignored) {
-			}
-		}
-		if (instant == null) {
-			Logger.printError("failed to parse instant from string " + formattedPhotoTakenTime);
-		}
-		return instant;
+	/**
+	 * The video and image conversions are CPU bound, so they can use all the cores, while the plain copies are bound by
+	 * the disk, which starts to thrash when too many files are read at the same time.
+	 */
+	private static int computeDefaultThreadCount() {
+
+		final int processorCount = Runtime.getRuntime().availableProcessors();
+		return Math.min(processorCount, ConcurrencyUtils.DEFAULT_THREAD_COUNT);
 	}
 }
@@ -2,6 +2,10 @@ package com.personal.g_photos;
 
 import com.utils.string.StrUtils;
 
+/**
+ * @param jsonFilePathString
+ *            the path of the sidecar, or null if the media file has none
+ */
 record FileData(
 		String filePathString,
 		String jsonFilePathString) {
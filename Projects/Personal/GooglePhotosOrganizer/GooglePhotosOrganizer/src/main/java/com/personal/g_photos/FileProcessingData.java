@@ -0,0 +1,141 @@
+package com.personal.g_photos;
+
+import java.time.Instant;
+import java.util.Locale;
+
+import com.personal.g_photos.images.GeoLocation;
+import com.utils.io.PathUtils;
+import com.utils.string.StrUtils;
+
+class FileProcessingData {
+
+	private final FileData fileData;
+	private final int fileIndex;
+	private final int fileCount;
+
+	private long sourceFileSize;
+	private long sourceLastModifiedTime;
+	private String sidecarHash;
+	private Instant photoTakenTimeInstant;
+	private GeoLocation geoLocation;
+	private String nearDuplicateOfFilePathString;
+	private String outputFilePathString;
+	private boolean success;
+
+	FileProcessingData(
+			final FileData fileData,
+			final int fileIndex,
+			final int fileCount) {
+
+		this.fileData = fileData;
+		this.fileIndex = fileIndex;
+		this.fileCount = fileCount;
+	}
+
+	/**
+	 * @return the extension of the media file, in lower case, or "none" if it has none
+	 */
+	String computeFileType() {
+
+		String fileType = PathUtils.computeExtension(fileData.filePathString()).toLowerCase(Locale.ROOT);
+		if (fileType.isEmpty()) {
+			fileType = "none";
+		}
+		return fileType;
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+
+	FileData getFileData() {
+		return fileData;
+	}
+
+	int getFileIndex() {
+		return fileIndex;
+	}
+
+	/**
+	 * @return the number of files, or -1 if the input is scanned one folder at a time and the count is not known
+	 */
+	int getFileCount() {
+		return fileCount;
+	}
+
+	void setSourceFileSize(
+			final long sourceFileSize) {
+		this.sourceFileSize = sourceFileSize;
+	}
+
+	long getSourceFileSize() {
+		return sourceFileSize;
+	}
+
+	void setSourceLastModifiedTime(
+			final long sourceLastModifiedTime) {
+		this.sourceLastModifiedTime = sourceLastModifiedTime;
+	}
+
+	long getSourceLastModifiedTime() {
+		return sourceLastModifiedTime;
+	}
+
+	void setSidecarHash(
+			final String sidecarHash) {
+		this.sidecarHash = sidecarHash;
+	}
+
+	String getSidecarHash() {
+		return sidecarHash;
+	}
+
+	void setPhotoTakenTimeInstant(
+			final Instant photoTakenTimeInstant) {
+		this.photoTakenTimeInstant = photoTakenTimeInstant;
+	}
+
+	Instant getPhotoTakenTimeInstant() {
+		return photoTakenTimeInstant;
+	}
+
+	void setGeoLocation(
+			final GeoLocation geoLocation) {
+		this.geoLocation = geoLocation;
+	}
+
+	GeoLocation getGeoLocation() {
+		return geoLocation;
+	}
+
+	void setNearDuplicateOfFilePathString(
+			final String nearDuplicateOfFilePathString) {
+		this.nearDuplicateOfFilePathString = nearDuplicateOfFilePathString;
+	}
+
+	/**
+	 * @return the path of the photo that this photo looks like, or null if it is not a near-duplicate that is grouped
+	 */
+	String getNearDuplicateOfFilePathString() {
+		return nearDuplicateOfFilePathString;
+	}
+
+	void setOutputFilePathString(
+			final String outputFilePathString) {
+		this.outputFilePathString = outputFilePathString;
+	}
+
+	String getOutputFilePathString() {
+		return outputFilePathString;
+	}
+
+	void setSuccess(
+			final boolean success) {
+		this.success = success;
+	}
+
+	boolean isSuccess() {
+		return success;
+	}
+}
@@ -0,0 +1,88 @@
+package com.personal.g_photos;
+
+import java.util.function.Predicate;
+
+import com.personal.g_photos.metrics.RunMetrics;
+import com.personal.g_photos.metrics.StageMetrics;
+import com.personal.g_photos.pipeline.Pipeline;
+import com.personal.g_photos.pipeline.PipelineSource;
+import com.personal.g_photos.pipeline.PipelineStageProcessor;
+
+/**
+ * Times the scan and the stages of the pipeline that organizes the files, by file type. The scan has no item to time,
+ * so every file is given the time that the scan spent since it handed over the file before, leaving out the time that
+ * it waited for room in the queue of the first stage. In watch mode, this also counts the wait for the next batch.
+ */
+final class FileProcessingMeters {
+
+	private FileProcessingMeters() {
+	}
+
+	static PipelineSource<FileProcessingData> meterSource(
+			final RunMetrics runMetrics,
+			final String stageName,
+			final PipelineSource<FileProcessingData> pipelineSource) {
+
+		final StageMetrics stageMetrics = runMetrics.addStage(stageName, null);
+		return fileProcessingDataConsumer -> {
+
+			final long[] handOverEndNanosArray = { System.nanoTime() };
+			pipelineSource.produce(fileProcessingData -> {
+
+				stageMetrics.record(fileProcessingData.computeFileType(), 0,
+						System.nanoTime() - handOverEndNanosArray[0]);
+				fileProcessingDataConsumer.accept(fileProcessingData);
+				handOverEndNanosArray[0] = System.nanoTime();
+			});
+		};
+	}
+
+	/**
+	 * Adds the stage to the pipeline, recording the time of every file and the depth of the queue of the stage.
+	 */
+	static void addMeteredStage(
+			final Pipeline<FileProcessingData> pipeline,
+			final RunMetrics runMetrics,
+			final String stageName,
+			final int threadCount,
+			final int queueCapacity,
+			final PipelineStageProcessor<FileProcessingData> pipelineStageProcessor) {
+
+		pipeline.addStage(stageName, threadCount, queueCapacity,
+				meterProcessor(pipeline, runMetrics, stageName, pipelineStageProcessor));
+	}
+
+	/**
+	 * Adds the branch stage to the pipeline, recording the time of every file and the depth of the queue of the stage.
+	 */
+	static void addMeteredBranchStage(
+			final Pipeline<FileProcessingData> pipeline,
+			final RunMetrics runMetrics,
+			final String stageName,
+			final int threadCount,
+			final int queueCapacity,
+			final Predicate<FileProcessingData> branchPredicate,
+			final PipelineStageProcessor<FileProcessingData> pipelineStageProcessor) {
+
+		pipeline.addBranchStage(stageName, threadCount, queueCapacity, branchPredicate,
+				meterProcessor(pipeline, runMetrics, stageName, pipelineStageProcessor));
+	}
+
+	private static PipelineStageProcessor<FileProcessingData> meterProcessor(
+			final Pipeline<FileProcessingData> pipeline,
+			final RunMetrics runMetrics,
+			final String stageName,
+			final PipelineStageProcessor<FileProcessingData> pipelineStageProcessor) {
+
+		final StageMetrics stageMetrics =
+				runMetrics.addStage(stageName, () -> pipeline.computeQueueSize(stageName));
+		return fileProcessingData -> {
+
+			final long startNanos = System.nanoTime();
+			final boolean handOver = pipelineStageProcessor.process(fileProcessingData);
+			stageMetrics.record(fileProcessingData.computeFileType(), fileProcessingData.getSourceFileSize(),
+					System.nanoTime() - startNanos);
+			return handOver;
+		};
+	}
+}
@@ -0,0 +1,600 @@
+package com.personal.g_photos;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.SystemUtils;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.personal.g_photos.images.ExifData;
+import com.personal.g_photos.images.ImageResizer;
+import com.personal.g_photos.layout.FolderCreationCache;
+import com.personal.g_photos.layout.OutputLayout;
+import com.personal.g_photos.layout.OutputNameRegistry;
+import com.personal.g_photos.links.FileLinker;
+import com.personal.g_photos.manifest.ManifestEntry;
+import com.personal.g_photos.manifest.ProcessingManifest;
+import com.personal.g_photos.metadata.EmbeddedTimeReader;
+import com.personal.g_photos.metadata.TimeSource;
+import com.personal.g_photos.plan.FileClass;
+import com.personal.g_photos.plan.ThroughputHistory;
+import com.personal.g_photos.thumbnails.ThumbnailCache;
+import com.personal.g_photos.videos.VideoTranscodeScheduler;
+import com.utils.io.IoUtils;
+import com.utils.io.PathUtils;
+import com.utils.io.file_deleters.FactoryFileDeleter;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Holds the work done for a single file, split in the steps that run as separate pipeline stages. The methods are
+ * called concurrently for different files, so they must not share mutable state, apart from the sidecar reader and the
+ * image resizer that every thread reuses. The output files are reserved in the output name registry before anything is
+ * written, so that two source files never write the same output file.
+ * <p>
+ * Every output file is written under a temporary name, in the same folder, and renamed atomically to its final name
+ * once it is complete, so a run that is killed never leaves a truncated file under a final name. The temporary name
+ * keeps the extension, which the external tools need to pick the output format.
+ */
+class FileProcessor {
+
+	private static final ThreadLocal<SidecarReader> SIDECAR_READER_THREAD_LOCAL =
+			ThreadLocal.withInitial(SidecarReader::new);
+	private static final ThreadLocal<ImageResizer> IMAGE_RESIZER_THREAD_LOCAL =
+			ThreadLocal.withInitial(ImageResizer::new);
+	private static final ThreadLocal<EmbeddedTimeReader> EMBEDDED_TIME_READER_THREAD_LOCAL =
+			ThreadLocal.withInitial(() -> new EmbeddedTimeReader(ZoneId.systemDefault()));
+
+	private static final String NEAR_DUPLICATES_FOLDER_NAME = "near_duplicates";
+	private static final String TMP_OUTPUT_FILE_NAME_PREFIX = ".partial.";
+	private static final char NARROW_NO_BREAK_SPACE_CHAR = '\u202F';
+
+	private final String outputFolderPathString;
+	private final OutputLayout outputLayout;
+	private final FolderCreationCache folderCreationCache;
+	private final OutputNameRegistry outputNameRegistry;
+	private final ArchiveFileSystems archiveFileSystems;
+	private final ProcessingManifest processingManifest;
+	private final VideoTranscodeScheduler videoTranscodeScheduler;
+	private final FileLinker fileLinker;
+	private final List<TimeSource> timeSourceList;
+	private final ThumbnailCache thumbnailCache;
+	private final ThroughputHistory throughputHistory;
+	private final boolean remuxVideos;
+	private final boolean writeExif;
+	private final boolean verbose;
+
+	FileProcessor(
+			final String outputFolderPathString,
+			final OutputLayout outputLayout,
+			final FolderCreationCache folderCreationCache,
+			final OutputNameRegistry outputNameRegistry,
+			final ArchiveFileSystems archiveFileSystems,
+			final ProcessingManifest processingManifest,
+			final VideoTranscodeScheduler videoTranscodeScheduler,
+			final FileLinker fileLinker,
+			final List<TimeSource> timeSourceList,
+			final ThumbnailCache thumbnailCache,
+			final ThroughputHistory throughputHistory,
+			final boolean remuxVideos,
+			final boolean writeExif,
+			final boolean verbose) {
+
+		this.outputFolderPathString = outputFolderPathString;
+		this.outputLayout = outputLayout;
+		this.folderCreationCache = folderCreationCache;
+		this.outputNameRegistry = outputNameRegistry;
+		this.archiveFileSystems = archiveFileSystems;
+		this.processingManifest = processingManifest;
+		this.videoTranscodeScheduler = videoTranscodeScheduler;
+		this.fileLinker = fileLinker;
+		this.timeSourceList = timeSourceList;
+		this.thumbnailCache = thumbnailCache;
+		this.throughputHistory = throughputHistory;
+		this.remuxVideos = remuxVideos;
+		this.writeExif = writeExif;
+		this.verbose = verbose;
+	}
+
+	boolean parseSidecar(
+			final FileProcessingData fileProcessingData) {
+
+		final FileData fileData = fileProcessingData.getFileData();
+		Path filePath = null;
+		try {
+			filePath = archiveFileSystems.resolvePath(fileData.filePathString());
+			final BasicFileAttributes basicFileAttributes =
+					Files.readAttributes(filePath, BasicFileAttributes.class);
+			fileProcessingData.setSourceFileSize(basicFileAttributes.size());
+			fileProcessingData.setSourceLastModifiedTime(basicFileAttributes.lastModifiedTime().toMillis());
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to read attributes of file:" +
+					System.lineSeparator() + fileData.filePathString());
+			Logger.printThrowable(throwable);
+		}
+
+		try {
+			fileProcessingData.setSidecarHash("");
+			for (final TimeSource timeSource : timeSourceList) {
+
+				if (fileProcessingData.getPhotoTakenTimeInstant() == null) {
+
+					switch (timeSource) {
+						case SIDECAR:
+							readSidecar(fileProcessingData);
+							break;
+						case EMBEDDED:
+							// the path is null if its name cannot be encoded by the file system
+							if (filePath != null) {
+								fileProcessingData.setPhotoTakenTimeInstant(
+										EMBEDDED_TIME_READER_THREAD_LOCAL.get().readTime(filePath));
+							}
+							break;
+						default:
+							break;
+					}
+				}
+			}
+
+			if (filePath != null) {
+
+				final String outputFileName = computeOutputFileName(
+						PathUtils.computeFileName(filePath), fileData.filePathString());
+				final String outputFileFolderPathString = computeOutputFileFolderPathString(fileProcessingData);
+				final String outputFilePathString = outputNameRegistry.reserve(fileData.filePathString(),
+						PathUtils.computePath(outputFileFolderPathString, outputFileName));
+				fileProcessingData.setOutputFilePathString(outputFilePathString);
+			}
+
+		} finally {
+			outputNameRegistry.release(fileData.filePathString());
+		}
+		return true;
+	}
+
+	/**
+	 * Runs on the thread that hands the files over to the pipeline, in their order, so that of the files that ask for
+	 * the same output file, the first one handed over gets it, whatever the order in which the worker threads reach
+	 * them. The output file is reserved at the end of {@link #parseSidecar}, the first stage, whose worker threads
+	 * take the files in the same order, so a file only waits for files that a worker thread is already on.
+	 */
+	void claimOutputFileName(
+			final FileProcessingData fileProcessingData) {
+
+		final String filePathString = fileProcessingData.getFileData().filePathString();
+		try {
+			outputNameRegistry.claim(filePathString,
+					computeOutputFileName(PathUtils.computeFileName(filePathString), filePathString));
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to claim output file name of file:" +
+					System.lineSeparator() + filePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	private String computeOutputFileName(
+			final String sourceFileName,
+			final String filePathString) {
+
+		final String fileName = normalizeFileName(sourceFileName);
+		final FileClass fileClass = classifyFile(filePathString);
+		final String outputFileName;
+		if (fileClass == FileClass.IMAGE) {
+			outputFileName = PathUtils.computePathWoExt(fileName) + ".jpg";
+		} else {
+			outputFileName = fileName;
+		}
+		return outputFileName;
+	}
+
+	/**
+	 * @return true if the file is a video that ffmpeg processes, false otherwise
+	 */
+	boolean checkVideo(
+			final FileProcessingData fileProcessingData) {
+
+		return classifyFile(fileProcessingData.getFileData().filePathString()) == FileClass.VIDEO;
+	}
+
+	/**
+	 * The images that no decoder can read on this system, such as the HEIC and the WEBP images outside of Windows,
+	 * are copied or linked as they are, under their own extension, instead of being dropped.
+	 */
+	private FileClass classifyFile(
+			final String filePathString) {
+
+		FileClass fileClass = FileClass.classify(filePathString, remuxVideos);
+		if (fileClass == FileClass.IMAGE && !ImageResizer.checkSupported(filePathString) &&
+				!SystemUtils.IS_OS_WINDOWS) {
+			fileClass = FileClass.COPY;
+		}
+		return fileClass;
+	}
+
+	/**
+	 * The sidecar is only read when the time sources before it had no photo taken time, so the location and the hash
+	 * of the sidecar are not known when the time was embedded in the media file and the embedded time comes first.
+	 */
+	private void readSidecar(
+			final FileProcessingData fileProcessingData) {
+
+		final String jsonFilePathString = fileProcessingData.getFileData().jsonFilePathString();
+		if (jsonFilePathString != null) {
+
+			final SidecarReader sidecarReader = SIDECAR_READER_THREAD_LOCAL.get();
+			if (sidecarReader.read(archiveFileSystems.resolvePath(jsonFilePathString))) {
+
+				fileProcessingData.setSidecarHash(sidecarReader.computeHash());
+				final Instant photoTakenTimeInstant =
+						parsePhotoTakenTimeInstant(jsonFilePathString, sidecarReader);
+				fileProcessingData.setPhotoTakenTimeInstant(photoTakenTimeInstant);
+				fileProcessingData.setGeoLocation(sidecarReader.parseGeoLocation());
+			}
+		}
+	}
+
+	boolean processFile(
+			final FileProcessingData fileProcessingData) {
+
+		final String filePathString = fileProcessingData.getFileData().filePathString();
+		boolean upToDate = false;
+		try {
+			final StringBuilder sbProgress = new StringBuilder("processing file ");
+			sbProgress.append(fileProcessingData.getFileIndex());
+			if (fileProcessingData.getFileCount() >= 0) {
+				sbProgress.append('/').append(fileProcessingData.getFileCount());
+			}
+			sbProgress.append(':').append(System.lineSeparator()).append(filePathString);
+			Logger.printProgress(sbProgress.toString());
+
+			final Path filePath = archiveFileSystems.resolvePath(filePathString);
+			final FileClass fileClass = classifyFile(filePathString);
+			final String outputFilePathString = fileProcessingData.getOutputFilePathString();
+			if (outputFilePathString == null) {
+				Logger.printError("no output file was reserved for file:" +
+						System.lineSeparator() + filePathString);
+
+			} else if (processingManifest.checkUpToDate(createManifestEntry(fileProcessingData, true))) {
+
+				Logger.printLine("skipping file that is already up to date:" +
+						System.lineSeparator() + filePathString);
+				upToDate = true;
+
+			} else {
+				if (fileClass == FileClass.COPY && FileClass.classify(filePathString, remuxVideos) == FileClass.IMAGE) {
+					Logger.printWarning("no image decoder is available, copying file as it is:" +
+							System.lineSeparator() + filePathString);
+				}
+
+				final long startNanos = System.nanoTime();
+				final String tmpOutputFilePathString = computeTmpOutputFilePathString(outputFilePathString);
+				boolean success;
+				if (!folderCreationCache.createParentDirectories(outputFilePathString)) {
+					success = false;
+
+				} else if (fileClass == FileClass.VIDEO) {
+
+					success = processWithExternalTool(filePathString, filePath, localFilePathString ->
+							videoTranscodeScheduler.transcode(localFilePathString, tmpOutputFilePathString).success());
+
+				} else if (fileClass == FileClass.IMAGE) {
+					success = resizeImageFile(filePathString, filePath, tmpOutputFilePathString,
+							createExifData(fileProcessingData));
+
+				} else if (ArchiveFileSystems.checkArchiveEntry(filePathString)) {
+					success = copyArchiveEntry(filePath, tmpOutputFilePathString);
+
+				} else {
+					success = fileLinker.linkOrCopyFile(filePathString, tmpOutputFilePathString,
+							fileProcessingData.getSourceLastModifiedTime(),
+							fileProcessingData.getPhotoTakenTimeInstant());
+				}
+
+				if (success) {
+					success = publishOutputFile(tmpOutputFilePathString, outputFilePathString);
+				} else {
+					FactoryFileDeleter.getInstance().deleteFile(tmpOutputFilePathString, false, true);
+				}
+				if (success) {
+					recordThroughput(fileClass, fileProcessingData, System.nanoTime() - startNanos);
+				}
+				fileProcessingData.setSuccess(success);
+			}
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to process file:" + System.lineSeparator() + filePathString);
+			Logger.printThrowable(throwable);
+		}
+
+		final boolean success = fileProcessingData.isSuccess();
+		if (!success && !upToDate && fileProcessingData.getOutputFilePathString() != null) {
+			processingManifest.record(createManifestEntry(fileProcessingData, false));
+		}
+		return success;
+	}
+
+	boolean finalizeFile(
+			final FileProcessingData fileProcessingData) {
+
+		final Instant photoTakenTimeInstant = fileProcessingData.getPhotoTakenTimeInstant();
+		if (photoTakenTimeInstant != null) {
+
+			final String outputFilePathString = fileProcessingData.getOutputFilePathString();
+			IoUtils.configureFileLastModifiedTime(outputFilePathString, photoTakenTimeInstant);
+		}
+		processingManifest.record(createManifestEntry(fileProcessingData, true));
+		return true;
+	}
+
+	/**
+	 * The near-duplicates that are grouped go to a folder named after the photo that they look like, so that they can
+	 * be reviewed together, instead of the folder of the layout.
+	 */
+	private String computeOutputFileFolderPathString(
+			final FileProcessingData fileProcessingData) {
+
+		final String outputFileFolderPathString;
+		final String nearDuplicateOfFilePathString = fileProcessingData.getNearDuplicateOfFilePathString();
+		if (nearDuplicateOfFilePathString != null) {
+
+			final String keptFileName = normalizeFileName(PathUtils.computeFileName(nearDuplicateOfFilePathString));
+			outputFileFolderPathString = PathUtils.computePath(outputFolderPathString,
+					NEAR_DUPLICATES_FOLDER_NAME, PathUtils.computePathWoExt(keptFileName));
+
+		} else {
+			outputFileFolderPathString = outputLayout.computeOutputFolderPathString(
+					outputFolderPathString, fileProcessingData.getPhotoTakenTimeInstant());
+		}
+		return outputFileFolderPathString;
+	}
+
+	/**
+	 * The input is never written to, so the names that recent Takeout exports write with narrow no-break spaces, such
+	 * as the names of the screenshots, are only changed in the output, for the programs that do not handle them. The
+	 * source files are still read through their original paths, whether they are loose files or archive entries.
+	 */
+	private static String normalizeFileName(
+			final String fileName) {
+
+		return StringUtils.replaceChars(fileName, NARROW_NO_BREAK_SPACE_CHAR, ' ');
+	}
+
+	private static String computeTmpOutputFilePathString(
+			final String outputFilePathString) {
+
+		final Path outputFilePath = Paths.get(outputFilePathString);
+		return outputFilePath.resolveSibling(TMP_OUTPUT_FILE_NAME_PREFIX + outputFilePath.getFileName()).toString();
+	}
+
+	/**
+	 * Adds the file to the throughput of its class, which the plans of the later runs are computed from.
+	 */
+	private void recordThroughput(
+			final FileClass fileClass,
+			final FileProcessingData fileProcessingData,
+			final long busyTimeNanos) {
+
+		final String outputFilePathString = fileProcessingData.getOutputFilePathString();
+		try {
+			final long outputFileSize = Files.size(Paths.get(outputFilePathString));
+			throughputHistory.record(fileClass, fileProcessingData.getSourceFileSize(), outputFileSize,
+					busyTimeNanos);
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to read size of output file:" +
+					System.lineSeparator() + outputFilePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	/**
+	 * Renames the complete output file to its final name, replacing the output of an earlier run, if there is one.
+	 */
+	private static boolean publishOutputFile(
+			final String tmpOutputFilePathString,
+			final String outputFilePathString) {
+
+		boolean success = false;
+		try {
+			Files.move(Paths.get(tmpOutputFilePathString), Paths.get(outputFilePathString),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			success = true;
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to publish output file:" +
+					System.lineSeparator() + outputFilePathString);
+			Logger.printThrowable(throwable);
+			FactoryFileDeleter.getInstance().deleteFile(tmpOutputFilePathString, false, true);
+		}
+		return success;
+	}
+
+	private static ManifestEntry createManifestEntry(
+			final FileProcessingData fileProcessingData,
+			final boolean success) {
+
+		return new ManifestEntry(fileProcessingData.getFileData().filePathString(),
+				fileProcessingData.getSourceFileSize(), fileProcessingData.getSourceLastModifiedTime(),
+				fileProcessingData.getSidecarHash(), fileProcessingData.getOutputFilePathString(), success);
+	}
+
+	private static boolean copyArchiveEntry(
+			final Path filePath,
+			final String outputFilePathString) {
+
+		boolean success = false;
+		try {
+			Files.copy(filePath, Paths.get(outputFilePathString), StandardCopyOption.REPLACE_EXISTING);
+			success = true;
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to copy archive entry:" +
+					System.lineSeparator() + filePath +
+					System.lineSeparator() + "to:" +
+					System.lineSeparator() + outputFilePathString);
+			Logger.printThrowable(throwable);
+		}
+		return success;
+	}
+
+	/**
+	 * The external tools can only read regular files, so the archive entries are first copied to the staging folder
+	 * and deleted once the tool is done with them.
+	 */
+	private boolean processWithExternalTool(
+			final String filePathString,
+			final Path filePath,
+			final Predicate<String> externalToolPredicate) {
+
+		boolean success = false;
+		if (!ArchiveFileSystems.checkArchiveEntry(filePathString)) {
+			success = externalToolPredicate.test(filePathString);
+
+		} else {
+			String stagedFilePathString = null;
+			try {
+				final Path stagingFolderPath =
+						Paths.get(PathUtils.computePath(outputFolderPathString, ".google_photos_organizer", "staging"));
+				Files.createDirectories(stagingFolderPath);
+				final Path stagedFilePath = Files.createTempFile(stagingFolderPath, "entry_",
+						"." + PathUtils.computeExtension(filePathString));
+				stagedFilePathString = stagedFilePath.toString();
+				Files.copy(filePath, stagedFilePath, StandardCopyOption.REPLACE_EXISTING);
+
+				success = externalToolPredicate.test(stagedFilePathString);
+
+			} catch (final Throwable throwable) {
+				Logger.printError("failed to stage archive entry:" +
+						System.lineSeparator() + filePathString);
+				Logger.printThrowable(throwable);
+
+			} finally {
+				if (stagedFilePathString != null) {
+					FactoryFileDeleter.getInstance().deleteFile(stagedFilePathString, false, true);
+				}
+			}
+		}
+		return success;
+	}
+
+	/**
+	 * @return the data to write in the EXIF segment of the output image, or null if there is none
+	 */
+	private ExifData createExifData(
+			final FileProcessingData fileProcessingData) {
+
+		ExifData exifData = null;
+		if (writeExif) {
+
+			final Instant photoTakenTimeInstant = fileProcessingData.getPhotoTakenTimeInstant();
+			if (photoTakenTimeInstant != null || fileProcessingData.getGeoLocation() != null) {
+
+				ZonedDateTime dateTimeOriginal = null;
+				if (photoTakenTimeInstant != null) {
+					dateTimeOriginal = photoTakenTimeInstant.atZone(ZoneId.systemDefault());
+				}
+				exifData = new ExifData(dateTimeOriginal, fileProcessingData.getGeoLocation());
+			}
+		}
+		return exifData;
+	}
+
+	private boolean resizeImageFile(
+			final String filePathString,
+			final Path filePath,
+			final String outputFilePathString,
+			final ExifData exifData) {
+
+		final boolean success;
+		if (ImageResizer.checkSupported(filePathString)) {
+			success = IMAGE_RESIZER_THREAD_LOCAL.get().resize(filePath, outputFilePathString, exifData, thumbnailCache);
+		} else {
+			success = processWithExternalTool(filePathString, filePath, localFilePathString ->
+					resizeImageFileWithImgResizer(localFilePathString, outputFilePathString));
+		}
+		return success;
+	}
+
+	/**
+	 * The JVM has no HEIC or WEBP decoder, so these images are still resized by the external tool, where it is
+	 * available.
+	 */
+	private boolean resizeImageFileWithImgResizer(
+			final String filePathString,
+			final String outputFilePathString) {
+
+		boolean success = false;
+		try {
+			final List<String> commandPartList = new ArrayList<>();
+			Collections.addAll(commandPartList, "cmd",
+					"/c", "img_resizer", "1920", filePathString, outputFilePathString);
+			if (verbose) {
+				commandPartList.add("-verbose");
+			}
+
+			final Process process = new ProcessBuilder()
+					.command(commandPartList)
+					.directory(new File(outputFilePathString).getParentFile())
+					.redirectOutput(ProcessBuilder.Redirect.INHERIT)
+					.redirectError(ProcessBuilder.Redirect.INHERIT)
+					.start();
+
+			final int exitCode = process.waitFor();
+			success = exitCode == 0;
+
+		} catch (final Throwable throwable) {
+			Logger.printThrowable(throwable);
+		}
+		return success;
+	}
+
+	static Instant parsePhotoTakenTimeInstant(
+			final String jsonFilePathString,
+			final SidecarReader sidecarReader) {
+
+		Instant photoTakenTimeInstant = null;
+		try {
+			Logger.printProgress("parsing photo taken time from JSON file:" +
+					System.lineSeparator() + jsonFilePathString);
+
+			final long photoTakenTimestamp = sidecarReader.parsePhotoTakenTimestamp();
+			if (photoTakenTimestamp >= 0) {
+				photoTakenTimeInstant = Instant.ofEpochSecond(photoTakenTimestamp);
+
+			} else {
+				final String formattedPhotoTakenTime = sidecarReader.parseFormattedPhotoTakenTime();
+				if (formattedPhotoTakenTime != null) {
+					photoTakenTimeInstant = PhotoTakenTimeParser.parse(formattedPhotoTakenTime);
+				} else {
+					Logger.printWarning("JSON file has no photo taken time:" +
+							System.lineSeparator() + jsonFilePathString);
+				}
+			}
+
+		} catch (final Throwable throwable) {
+			Logger.printProgress("failed to parse photo taken time from JSON file:" +
+					System.lineSeparator() + jsonFilePathString);
+			Logger.printThrowable(throwable);
+		}
+		return photoTakenTimeInstant;
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
@@ -0,0 +1,440 @@
+package com.personal.g_photos;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.personal.g_photos.dedup.DeduplicationIndex;
+import com.personal.g_photos.dedup.FactoryDeduplicationIndex;
+import com.personal.g_photos.dedup.FactoryNearDuplicateIndex;
+import com.personal.g_photos.dedup.NearDuplicateIndex;
+import com.personal.g_photos.dedup.NearDuplicateMode;
+import com.personal.g_photos.manifest.ProcessingManifest;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Lists the input folder, pairs the media files with their sidecars, drops the duplicates and hands the files to the
+ * pipeline.
+ * <p>
+ * By default, the whole input is listed before the first file is handed over, so the file count is known. In
+ * streaming mode, the files of every folder are handed over as soon as the folder was listed, so only the folders on
+ * the current path are held in memory and the processing starts right away. The sidecars are always in the same folder
+ * as their media files, so nothing is lost by pairing one folder at a time. The ZIP archives are the exception: a
+ * media file and its sidecar can be in different archive parts, so the entries of all the archives are paired
+ * together, after the folders.
+ * <p>
+ * The near-duplicates, the photos that look like a photo that is kept, are looked for after the exact duplicates were
+ * dropped. They are either dropped as well or handed over with the path of the photo they look like.
+ * <p>
+ * The indexes are loaded by the first scan and kept in memory for the later ones, so that the watch mode, which hands
+ * over the changed files batch after batch, does not load them again.
+ */
+final class InputFolderScanner {
+
+	private final String inputFolderPathString;
+	private final String outputFolderPathString;
+	private final ArchiveFileSystems archiveFileSystems;
+	private final ProcessingManifest processingManifest;
+	private final boolean keepLivePhotoVideos;
+	private final boolean keepDuplicates;
+	private final NearDuplicateMode nearDuplicateMode;
+	private final int maxNearDuplicateDistance;
+	private final boolean streaming;
+	private final int threadCount;
+
+	private DeduplicationIndex deduplicationIndex;
+	private NearDuplicateIndex nearDuplicateIndex;
+	private int fileIndex;
+	private int duplicateFileCount;
+	private int nearDuplicateFileCount;
+
+	InputFolderScanner(
+			final String inputFolderPathString,
+			final String outputFolderPathString,
+			final ArchiveFileSystems archiveFileSystems,
+			final ProcessingManifest processingManifest,
+			final boolean keepLivePhotoVideos,
+			final boolean keepDuplicates,
+			final NearDuplicateMode nearDuplicateMode,
+			final int maxNearDuplicateDistance,
+			final boolean streaming,
+			final int threadCount) {
+
+		this.inputFolderPathString = inputFolderPathString;
+		this.outputFolderPathString = outputFolderPathString;
+		this.archiveFileSystems = archiveFileSystems;
+		this.processingManifest = processingManifest;
+		this.keepLivePhotoVideos = keepLivePhotoVideos;
+		this.keepDuplicates = keepDuplicates;
+		this.nearDuplicateMode = nearDuplicateMode;
+		this.maxNearDuplicateDistance = maxNearDuplicateDistance;
+		this.streaming = streaming;
+		this.threadCount = threadCount;
+	}
+
+	void scan(
+			final Consumer<FileProcessingData> fileProcessingDataConsumer) {
+
+		Logger.printProgress("scanning input folder:" + System.lineSeparator() + inputFolderPathString);
+
+		loadIndexes();
+		fileIndex = 0;
+
+		final List<String> filePathStringList = new ArrayList<>();
+		final List<String> archiveEntryPathStringList = new ArrayList<>();
+		final Deque<List<String>> folderFilePathStringListDeque = new ArrayDeque<>();
+		try {
+			Files.walkFileTree(Paths.get(inputFolderPathString), new SimpleFileVisitor<>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(
+						final Path dirPath,
+						final BasicFileAttributes basicFileAttributes) {
+
+					if (streaming) {
+						folderFilePathStringListDeque.push(new ArrayList<>());
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(
+						final Path filePath,
+						final BasicFileAttributes basicFileAttributes) {
+
+					final String filePathString = filePath.toString();
+					if (ArchiveFileSystems.checkZipArchive(filePathString)) {
+						archiveFileSystems.openArchive(filePathString, archiveEntryPathStringList);
+
+					} else if (ArchiveFileSystems.checkTarArchive(filePathString)) {
+						Logger.printWarning("skipping TAR archive, which can only be read once extracted:" +
+								System.lineSeparator() + filePathString);
+
+					} else if (streaming && !folderFilePathStringListDeque.isEmpty()) {
+						folderFilePathStringListDeque.peek().add(filePathString);
+
+					} else {
+						filePathStringList.add(filePathString);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(
+						final Path filePath,
+						final IOException exc) {
+
+					Logger.printError("failed to access path:" + System.lineSeparator() + filePath);
+					Logger.printThrowable(exc);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(
+						final Path dirPath,
+						final IOException exc) {
+
+					if (streaming) {
+						processFilePathStringList(folderFilePathStringListDeque.pop(), false, null,
+								fileProcessingDataConsumer);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to scan input folder:" + System.lineSeparator() + inputFolderPathString);
+			Logger.printThrowable(throwable);
+		}
+
+		if (streaming) {
+			processFilePathStringList(filePathStringList, false, null, fileProcessingDataConsumer);
+			processFilePathStringList(archiveEntryPathStringList, false, null, fileProcessingDataConsumer);
+
+		} else {
+			filePathStringList.addAll(archiveEntryPathStringList);
+			processFilePathStringList(filePathStringList, true, null, fileProcessingDataConsumer);
+		}
+
+		saveIndexes();
+	}
+
+	/**
+	 * Hands over the media files that were added or changed since the last scan, together with the media files whose
+	 * sidecars were. The whole folder of every changed file is listed, so that a new media file finds a sidecar that
+	 * was already there, and a new sidecar finds its media file. The new ZIP archives are handed over whole, and the
+	 * archives that are already open are left out.
+	 */
+	void scanChangedFiles(
+			final Collection<String> changedFilePathStringCollection,
+			final Consumer<FileProcessingData> fileProcessingDataConsumer) {
+
+		Logger.printProgress("processing changed files: " + changedFilePathStringCollection.size());
+
+		loadIndexes();
+
+		final Set<String> changedFilePathStringSet = new HashSet<>();
+		final Set<String> folderPathStringSet = new LinkedHashSet<>();
+		final List<String> archiveEntryPathStringList = new ArrayList<>();
+		for (final String filePathString : changedFilePathStringCollection) {
+
+			if (ArchiveFileSystems.checkZipArchive(filePathString)) {
+
+				if (!archiveFileSystems.checkArchiveOpen(filePathString)) {
+					archiveFileSystems.openArchive(filePathString, archiveEntryPathStringList);
+				}
+
+			} else if (ArchiveFileSystems.checkTarArchive(filePathString)) {
+				Logger.printWarning("skipping TAR archive, which can only be read once extracted:" +
+						System.lineSeparator() + filePathString);
+
+			} else {
+				changedFilePathStringSet.add(filePathString);
+				folderPathStringSet.add(Paths.get(filePathString).getParent().toString());
+			}
+		}
+
+		for (final String folderPathString : folderPathStringSet) {
+
+			final List<String> folderFilePathStringList = new ArrayList<>();
+			try (Stream<Path> pathStream = Files.list(Paths.get(folderPathString))) {
+
+				pathStream.filter(Files::isRegularFile)
+						.map(Path::toString)
+						.filter(pathString -> !ArchiveFileSystems.checkZipArchive(pathString) &&
+								!ArchiveFileSystems.checkTarArchive(pathString))
+						.forEach(folderFilePathStringList::add);
+
+			} catch (final Throwable throwable) {
+				Logger.printError("failed to list folder:" + System.lineSeparator() + folderPathString);
+				Logger.printThrowable(throwable);
+			}
+			processFilePathStringList(folderFilePathStringList, false, changedFilePathStringSet,
+					fileProcessingDataConsumer);
+		}
+		processFilePathStringList(archiveEntryPathStringList, false, null, fileProcessingDataConsumer);
+
+		saveIndexes();
+	}
+
+	private void loadIndexes() {
+
+		if (!keepDuplicates && deduplicationIndex == null) {
+			deduplicationIndex = FactoryDeduplicationIndex.newInstance(outputFolderPathString);
+		}
+		if (nearDuplicateMode != null && nearDuplicateIndex == null) {
+			nearDuplicateIndex =
+					FactoryNearDuplicateIndex.newInstance(outputFolderPathString, maxNearDuplicateDistance);
+		}
+		duplicateFileCount = 0;
+		nearDuplicateFileCount = 0;
+	}
+
+	private void saveIndexes() {
+
+		if (deduplicationIndex != null) {
+
+			Logger.printLine("(duplicate files: " + duplicateFileCount + ")");
+			deduplicationIndex.save();
+		}
+		if (nearDuplicateIndex != null) {
+
+			Logger.printLine("(near-duplicate files: " + nearDuplicateFileCount + ")");
+			nearDuplicateIndex.save();
+		}
+	}
+
+	/**
+	 * @param wholeInput
+	 *            true if the list holds the files of the whole input, so that their count is known, false if it holds
+	 *            the files of a single folder
+	 * @param changedFilePathStringSet
+	 *            the files that changed, so that only the media files that changed or whose sidecar changed are
+	 *            handed over, or null to hand over all of them
+	 */
+	private void processFilePathStringList(
+			final List<String> filePathStringList,
+			final boolean wholeInput,
+			final Set<String> changedFilePathStringSet,
+			final Consumer<FileProcessingData> fileProcessingDataConsumer) {
+
+		if (!filePathStringList.isEmpty()) {
+
+			List<FileData> toProcessFileDataList = new ArrayList<>();
+			fillToProcessFileDataList(filePathStringList, keepLivePhotoVideos, toProcessFileDataList);
+			if (changedFilePathStringSet != null) {
+				toProcessFileDataList.removeIf(fileData ->
+						!changedFilePathStringSet.contains(fileData.filePathString()) &&
+								!changedFilePathStringSet.contains(fileData.jsonFilePathString()));
+			}
+
+			if (deduplicationIndex != null && !toProcessFileDataList.isEmpty()) {
+				toProcessFileDataList = removeDuplicates(toProcessFileDataList);
+			}
+
+			Map<String, String> keptFilePathStringsByNearDuplicateFilePathString = Map.of();
+			if (nearDuplicateIndex != null && !toProcessFileDataList.isEmpty()) {
+
+				keptFilePathStringsByNearDuplicateFilePathString = findNearDuplicates(toProcessFileDataList);
+				if (nearDuplicateMode == NearDuplicateMode.SKIP) {
+					toProcessFileDataList = removeNearDuplicates(toProcessFileDataList,
+							keptFilePathStringsByNearDuplicateFilePathString);
+				}
+			}
+
+			int fileCount = -1;
+			if (wholeInput) {
+				fileCount = toProcessFileDataList.size();
+			}
+
+			sortToProcessFileDataList(filePathStringList, toProcessFileDataList);
+
+			for (final FileData fileData : toProcessFileDataList) {
+
+				final FileProcessingData fileProcessingData =
+						new FileProcessingData(fileData, fileIndex, fileCount);
+				fileProcessingData.setNearDuplicateOfFilePathString(
+						keptFilePathStringsByNearDuplicateFilePathString.get(fileData.filePathString()));
+				fileProcessingDataConsumer.accept(fileProcessingData);
+				fileIndex++;
+			}
+		}
+	}
+
+	/**
+	 * Puts the files in an order that does not depend on the file system, so that the source files claim their output
+	 * file names in the same order on every run. The loose files are sorted by their paths. The entries of a ZIP
+	 * archive are sorted by the path of their archive, and keep the order in which they are stored in it, so that
+	 * every archive is still read from start to end.
+	 */
+	static void sortToProcessFileDataList(
+			final List<String> filePathStringList,
+			final List<FileData> toProcessFileDataList) {
+
+		final Map<String, Integer> entryIndicesByEntryPathString = new HashMap<>();
+		for (int i = 0; i < filePathStringList.size(); i++) {
+
+			final String filePathString = filePathStringList.get(i);
+			if (ArchiveFileSystems.checkArchiveEntry(filePathString)) {
+				entryIndicesByEntryPathString.put(filePathString, i);
+			}
+		}
+
+		toProcessFileDataList.sort(Comparator
+				.comparing((final FileData fileData) -> computeSortPathString(fileData.filePathString()))
+				.thenComparing(fileData -> entryIndicesByEntryPathString.getOrDefault(fileData.filePathString(), -1)));
+	}
+
+	private static String computeSortPathString(
+			final String filePathString) {
+
+		String sortPathString = filePathString;
+		final int entrySeparatorIndex = ArchiveFileSystems.computeEntrySeparatorIndex(filePathString);
+		if (entrySeparatorIndex >= 0) {
+			sortPathString = filePathString.substring(0, entrySeparatorIndex);
+		}
+		return sortPathString;
+	}
+
+	static void fillToProcessFileDataList(
+			final List<String> filePathStringList,
+			final boolean keepLivePhotoVideos,
+			final List<FileData> toProcessFileDataList) {
+
+		final SidecarMatcher sidecarMatcher = new SidecarMatcher();
+		for (final String filePathString : filePathStringList) {
+			sidecarMatcher.addFilePath(filePathString);
+		}
+		sidecarMatcher.fillFileDataList(keepLivePhotoVideos, toProcessFileDataList);
+	}
+
+	/**
+	 * Only the first file of every group of files with the same content is kept, in the order of the scan, unless an
+	 * earlier run, or an earlier folder of this run, already processed a file with that content.
+	 */
+	private List<FileData> removeDuplicates(
+			final List<FileData> fileDataList) {
+
+		final List<String> filePathStringList = new ArrayList<>();
+		for (final FileData fileData : fileDataList) {
+			filePathStringList.add(fileData.filePathString());
+		}
+
+		final Map<String, String> keptFilePathStringsByDuplicateFilePathString =
+				deduplicationIndex.findDuplicates(filePathStringList, archiveFileSystems,
+						processingManifest, threadCount);
+		duplicateFileCount += keptFilePathStringsByDuplicateFilePathString.size();
+
+		final List<FileData> uniqueFileDataList = new ArrayList<>();
+		for (final FileData fileData : fileDataList) {
+
+			final String filePathString = fileData.filePathString();
+			final String keptFilePathString = keptFilePathStringsByDuplicateFilePathString.get(filePathString);
+			if (keptFilePathString == null) {
+				uniqueFileDataList.add(fileData);
+			} else {
+				Logger.printLine("skipping duplicate file:" + System.lineSeparator() + filePathString +
+						System.lineSeparator() + "of file:" + System.lineSeparator() + keptFilePathString);
+			}
+		}
+		return uniqueFileDataList;
+	}
+
+	private Map<String, String> findNearDuplicates(
+			final List<FileData> fileDataList) {
+
+		final List<String> filePathStringList = new ArrayList<>();
+		for (final FileData fileData : fileDataList) {
+			filePathStringList.add(fileData.filePathString());
+		}
+
+		final Map<String, String> keptFilePathStringsByNearDuplicateFilePathString =
+				nearDuplicateIndex.findNearDuplicates(filePathStringList, archiveFileSystems,
+						processingManifest, threadCount);
+		nearDuplicateFileCount += keptFilePathStringsByNearDuplicateFilePathString.size();
+		return keptFilePathStringsByNearDuplicateFilePathString;
+	}
+
+	private static List<FileData> removeNearDuplicates(
+			final List<FileData> fileDataList,
+			final Map<String, String> keptFilePathStringsByNearDuplicateFilePathString) {
+
+		final List<FileData> keptFileDataList = new ArrayList<>();
+		for (final FileData fileData : fileDataList) {
+
+			final String filePathString = fileData.filePathString();
+			final String keptFilePathString = keptFilePathStringsByNearDuplicateFilePathString.get(filePathString);
+			if (keptFilePathString == null) {
+				keptFileDataList.add(fileData);
+			} else {
+				Logger.printLine("skipping near-duplicate file:" + System.lineSeparator() + filePathString +
+						System.lineSeparator() + "of file:" + System.lineSeparator() + keptFilePathString);
+			}
+		}
+		return keptFileDataList;
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
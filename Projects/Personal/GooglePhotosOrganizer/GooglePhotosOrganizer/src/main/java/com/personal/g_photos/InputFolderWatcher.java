@@ -0,0 +1,295 @@
+package com.personal.g_photos;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.Strings;
+
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Keeps organizing the files that are dropped in the input folder, for as long as the process runs. The whole input is
+ * scanned first, and then the folders are watched for new and changed files, which are handed over in batches through
+ * the same scanner and the same pipeline, so the indexes, the manifest and the worker threads stay warm from one batch
+ * to the next.
+ * <p>
+ * The watch service reports a file as soon as it is created, long before a large archive is fully copied, so the events
+ * are debounced: the pending files are checked once every quiet period, on a deadline that the events do not push back,
+ * so that a steady stream of changes elsewhere does not hold them, and a file is only taken once its size and its last
+ * modified time did not change between two such checks. An event of a pending file starts its checks over. The files
+ * with the extensions of the downloads in progress are ignored, since they are renamed once complete. The watch service
+ * does not watch the subfolders, so every new folder is registered as it appears, and its files are added, since they
+ * may have been written before it was registered.
+ */
+final class InputFolderWatcher {
+
+	private static final String[] PARTIAL_FILE_EXTENSION_ARRAY = { ".part", ".partial", ".crdownload", ".download",
+			".tmp" };
+
+	private final String inputFolderPathString;
+	private final String outputFolderPathString;
+	private final InputFolderScanner inputFolderScanner;
+	private final long quietPeriodMillis;
+
+	private final Map<WatchKey, Path> folderPathsByWatchKey;
+	private final Map<String, FileState> pendingFileStatesByPathString;
+	private long nextCheckTimeMillis;
+
+	InputFolderWatcher(
+			final String inputFolderPathString,
+			final String outputFolderPathString,
+			final InputFolderScanner inputFolderScanner,
+			final long quietPeriodMillis) {
+
+		this.inputFolderPathString = inputFolderPathString;
+		this.outputFolderPathString = outputFolderPathString;
+		this.inputFolderScanner = inputFolderScanner;
+		this.quietPeriodMillis = quietPeriodMillis;
+
+		folderPathsByWatchKey = new HashMap<>();
+		pendingFileStatesByPathString = new LinkedHashMap<>();
+	}
+
+	void watch(
+			final Consumer<FileProcessingData> fileProcessingDataConsumer) {
+
+		try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+
+			registerFolderTree(Paths.get(inputFolderPathString), watchService, false);
+			inputFolderScanner.scan(fileProcessingDataConsumer);
+
+			Logger.printProgress("watching input folder:" + System.lineSeparator() + inputFolderPathString);
+			while (!folderPathsByWatchKey.isEmpty()) {
+
+				final WatchKey watchKey = watchService.poll(
+						computePollTimeoutMillis(System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				if (watchKey != null) {
+					handleEvents(watchKey, watchService);
+				}
+
+				final List<String> stableFilePathStringList = takeStableFiles(System.currentTimeMillis());
+				if (!stableFilePathStringList.isEmpty()) {
+					inputFolderScanner.scanChangedFiles(stableFilePathStringList, fileProcessingDataConsumer);
+				}
+			}
+			Logger.printWarning("the input folder is not watched anymore:" +
+					System.lineSeparator() + inputFolderPathString);
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to watch input folder:" + System.lineSeparator() + inputFolderPathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	private void handleEvents(
+			final WatchKey watchKey,
+			final WatchService watchService) {
+
+		final Path folderPath = folderPathsByWatchKey.get(watchKey);
+		for (final WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+
+			if (folderPath != null) {
+
+				if (watchEvent.kind() == StandardWatchEventKinds.OVERFLOW) {
+
+					Logger.printWarning("too many changes at once, listing the whole folder again:" +
+							System.lineSeparator() + folderPath);
+					registerFolderTree(folderPath, watchService, true);
+
+				} else {
+					final Path path = folderPath.resolve((Path) watchEvent.context());
+					if (Files.isDirectory(path)) {
+						registerFolderTree(path, watchService, true);
+					} else {
+						addPendingFile(path.toString(), System.currentTimeMillis());
+					}
+				}
+			}
+		}
+
+		if (!watchKey.reset()) {
+			folderPathsByWatchKey.remove(watchKey);
+		}
+	}
+
+	/**
+	 * Registers the folder and its subfolders, leaving out the output folder, in case it is inside the input folder.
+	 *
+	 * @param addFiles
+	 *            true to add the files of the folders to the pending files, false otherwise
+	 */
+	private void registerFolderTree(
+			final Path folderPath,
+			final WatchService watchService,
+			final boolean addFiles) {
+
+		try {
+			final Path outputFolderPath = Paths.get(outputFolderPathString);
+			Files.walkFileTree(folderPath, new SimpleFileVisitor<>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(
+						final Path dirPath,
+						final BasicFileAttributes basicFileAttributes) throws IOException {
+
+					final FileVisitResult fileVisitResult;
+					if (dirPath.equals(outputFolderPath)) {
+						fileVisitResult = FileVisitResult.SKIP_SUBTREE;
+
+					} else {
+						final WatchKey watchKey = dirPath.register(watchService,
+								StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+						folderPathsByWatchKey.put(watchKey, dirPath);
+						fileVisitResult = FileVisitResult.CONTINUE;
+					}
+					return fileVisitResult;
+				}
+
+				@Override
+				public FileVisitResult visitFile(
+						final Path filePath,
+						final BasicFileAttributes basicFileAttributes) {
+
+					if (addFiles) {
+						addPendingFile(filePath.toString(), System.currentTimeMillis());
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(
+						final Path filePath,
+						final IOException exc) {
+
+					Logger.printError("failed to access path:" + System.lineSeparator() + filePath);
+					Logger.printThrowable(exc);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to watch folder:" + System.lineSeparator() + folderPath);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	/**
+	 * @return the time left until the next check of the pending files, or the quiet period if there are none
+	 */
+	long computePollTimeoutMillis(
+			final long timeMillis) {
+
+		final long pollTimeoutMillis;
+		if (pendingFileStatesByPathString.isEmpty()) {
+			pollTimeoutMillis = quietPeriodMillis;
+		} else {
+			pollTimeoutMillis = Math.max(nextCheckTimeMillis - timeMillis, 0);
+		}
+		return pollTimeoutMillis;
+	}
+
+	/**
+	 * A file that changes again loses the state seen by the earlier check, so it needs two more quiet checks. The
+	 * first pending file sets the deadline of the next check; the files that follow it do not move the deadline.
+	 */
+	void addPendingFile(
+			final String filePathString,
+			final long timeMillis) {
+
+		if (!Strings.CI.endsWithAny(filePathString, PARTIAL_FILE_EXTENSION_ARRAY)) {
+
+			if (pendingFileStatesByPathString.isEmpty()) {
+				nextCheckTimeMillis = timeMillis + quietPeriodMillis;
+			}
+			pendingFileStatesByPathString.put(filePathString, null);
+		}
+	}
+
+	/**
+	 * @return the pending files whose size and last modified time did not change since the previous check, or an empty
+	 *         list if the next check is not due yet; the files that are gone are dropped
+	 */
+	List<String> takeStableFiles(
+			final long timeMillis) {
+
+		final List<String> stableFilePathStringList = new ArrayList<>();
+		if (!pendingFileStatesByPathString.isEmpty() && timeMillis >= nextCheckTimeMillis) {
+
+			checkPendingFiles(stableFilePathStringList);
+			nextCheckTimeMillis = timeMillis + quietPeriodMillis;
+		}
+		return stableFilePathStringList;
+	}
+
+	private void checkPendingFiles(
+			final List<String> stableFilePathStringList) {
+
+		final Iterator<Map.Entry<String, FileState>> iterator = pendingFileStatesByPathString.entrySet().iterator();
+		while (iterator.hasNext()) {
+
+			final Map.Entry<String, FileState> mapEntry = iterator.next();
+			final FileState fileState = readFileState(mapEntry.getKey());
+			if (fileState == null) {
+				iterator.remove();
+
+			} else if (fileState.equals(mapEntry.getValue())) {
+
+				stableFilePathStringList.add(mapEntry.getKey());
+				iterator.remove();
+
+			} else {
+				mapEntry.setValue(fileState);
+			}
+		}
+	}
+
+	/**
+	 * @return the state of the file, or null if it is not a regular file anymore
+	 */
+	private static FileState readFileState(
+			final String filePathString) {
+
+		FileState fileState = null;
+		try {
+			final BasicFileAttributes basicFileAttributes =
+					Files.readAttributes(Paths.get(filePathString), BasicFileAttributes.class);
+			if (basicFileAttributes.isRegularFile()) {
+				fileState = new FileState(basicFileAttributes.size(),
+						basicFileAttributes.lastModifiedTime().toMillis());
+			}
+
+		} catch (final Throwable ignored) {
+			fileState = null;
+		}
+		return fileState;
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+
+	private record FileState(
+			long size,
+			long lastModifiedTime) {
+	}
+}
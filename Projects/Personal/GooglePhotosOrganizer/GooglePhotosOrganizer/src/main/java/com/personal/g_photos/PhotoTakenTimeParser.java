@@ -0,0 +1,167 @@
+package com.personal.g_photos;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoField;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.utils.log.Logger;
+
+/**
+ * Parses the "formatted" photo taken time of the sidecars, which depends on the language of the Google account. The
+ * formatters are immutable, so the parser can be used from any number of threads. All the files of an export use
+ * the same format, so the format that succeeded last is tried first.
+ */
+final class PhotoTakenTimeParser {
+
+	private static final DateTimeFormatter[] DATE_TIME_FORMATTER_ARRAY = createDateTimeFormatterArray();
+	private static final AtomicInteger LAST_DATE_TIME_FORMATTER_INDEX = new AtomicInteger();
+
+	private PhotoTakenTimeParser() {
+	}
+
+	/**
+	 * @return the instant, or null if the string does not match any of the known formats
+	 */
+	static Instant parse(
+			final String formattedPhotoTakenTime) {
+
+		Instant instant = null;
+		final int lastDateTimeFormatterIndex = LAST_DATE_TIME_FORMATTER_INDEX.get();
+		for (int i = 0; i < DATE_TIME_FORMATTER_ARRAY.length; i++) {
+
+			final int dateTimeFormatterIndex = (lastDateTimeFormatterIndex + i) % DATE_TIME_FORMATTER_ARRAY.length;
+			instant = tryParse(formattedPhotoTakenTime, DATE_TIME_FORMATTER_ARRAY[dateTimeFormatterIndex]);
+			if (instant != null) {
+
+				if (dateTimeFormatterIndex != lastDateTimeFormatterIndex) {
+					LAST_DATE_TIME_FORMATTER_INDEX.set(dateTimeFormatterIndex);
+				}
+				break;
+			}
+		}
+		if (instant == null) {
+			Logger.printError("failed to parse instant from string " + formattedPhotoTakenTime);
+		}
+		return instant;
+	}
+
+	private static Instant tryParse(
+			final String formattedPhotoTakenTime,
+			final DateTimeFormatter dateTimeFormatter) {
+
+		Instant instant = null;
+		try {
+			instant = dateTimeFormatter.parse(formattedPhotoTakenTime, ZonedDateTime::from).toInstant();
+
+		} catch (final DateTimeParseException ignored) {
+		}
+		return instant;
+	}
+
+	private static DateTimeFormatter[] createDateTimeFormatterArray() {
+
+		final Map<Long, String> shortMonthTextsByValue = createShortMonthTextsByValue(false);
+		final Map<Long, String> shortSeptMonthTextsByValue = createShortMonthTextsByValue(true);
+		return new DateTimeFormatter[] {
+				// en-US: "Dec 21, 2025, 7:23:45 PM UTC", with a narrow no-break space before "PM" in the newer exports
+				createMonthFirstDateTimeFormatter(shortMonthTextsByValue),
+				// en-GB: "13 Sept 2023, 13:31:27 UTC"
+				createDayFirstDateTimeFormatter(shortSeptMonthTextsByValue),
+				createDayFirstDateTimeFormatter(shortMonthTextsByValue),
+				createMonthFirstDateTimeFormatter(shortSeptMonthTextsByValue),
+				// numeric, as used by the German and Romanian accounts: "13.09.2023, 13:31:27 UTC"
+				createNumericDateTimeFormatter('.'),
+				createNumericDateTimeFormatter('/')
+		};
+	}
+
+	private static Map<Long, String> createShortMonthTextsByValue(
+			final boolean sept) {
+
+		final String[] shortMonthTextArray = {
+				"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+		};
+		if (sept) {
+			shortMonthTextArray[8] = "Sept";
+		}
+
+		final Map<Long, String> shortMonthTextsByValue = new HashMap<>();
+		for (int i = 0; i < shortMonthTextArray.length; i++) {
+			shortMonthTextsByValue.put((long) i + 1, shortMonthTextArray[i]);
+		}
+		return shortMonthTextsByValue;
+	}
+
+	private static DateTimeFormatter createMonthFirstDateTimeFormatter(
+			final Map<Long, String> shortMonthTextsByValue) {
+
+		return new DateTimeFormatterBuilder()
+				.parseCaseInsensitive()
+				.appendText(ChronoField.MONTH_OF_YEAR, shortMonthTextsByValue)
+				.appendLiteral(' ')
+				.appendValue(ChronoField.DAY_OF_MONTH)
+				.appendLiteral(", ")
+				.appendValue(ChronoField.YEAR, 4)
+				.appendLiteral(", ")
+				.appendValue(ChronoField.CLOCK_HOUR_OF_AMPM)
+				.appendLiteral(':')
+				.appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+				.appendLiteral(':')
+				.appendValue(ChronoField.SECOND_OF_MINUTE, 2)
+				.optionalStart().appendLiteral(' ').optionalEnd()
+				.optionalStart().appendLiteral('\u202f').optionalEnd()
+				.appendText(ChronoField.AMPM_OF_DAY, TextStyle.SHORT)
+				.appendLiteral(' ')
+				.appendZoneText(TextStyle.SHORT)
+				.toFormatter(Locale.ENGLISH);
+	}
+
+	private static DateTimeFormatter createDayFirstDateTimeFormatter(
+			final Map<Long, String> shortMonthTextsByValue) {
+
+		return new DateTimeFormatterBuilder()
+				.parseCaseInsensitive()
+				.appendValue(ChronoField.DAY_OF_MONTH)
+				.appendLiteral(' ')
+				.appendText(ChronoField.MONTH_OF_YEAR, shortMonthTextsByValue)
+				.appendLiteral(' ')
+				.appendValue(ChronoField.YEAR, 4)
+				.appendLiteral(", ")
+				.appendValue(ChronoField.HOUR_OF_DAY)
+				.appendLiteral(':')
+				.appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+				.appendLiteral(':')
+				.appendValue(ChronoField.SECOND_OF_MINUTE, 2)
+				.appendLiteral(' ')
+				.appendZoneText(TextStyle.SHORT)
+				.toFormatter(Locale.ENGLISH);
+	}
+
+	private static DateTimeFormatter createNumericDateTimeFormatter(
+			final char dateSeparator) {
+
+		return new DateTimeFormatterBuilder()
+				.appendValue(ChronoField.DAY_OF_MONTH)
+				.appendLiteral(dateSeparator)
+				.appendValue(ChronoField.MONTH_OF_YEAR)
+				.appendLiteral(dateSeparator)
+				.appendValue(ChronoField.YEAR, 4)
+				.appendLiteral(", ")
+				.appendValue(ChronoField.HOUR_OF_DAY)
+				.appendLiteral(':')
+				.appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+				.appendLiteral(':')
+				.appendValue(ChronoField.SECOND_OF_MINUTE, 2)
+				.appendLiteral(' ')
+				.appendZoneText(TextStyle.SHORT)
+				.toFormatter(Locale.ENGLISH);
+	}
+}
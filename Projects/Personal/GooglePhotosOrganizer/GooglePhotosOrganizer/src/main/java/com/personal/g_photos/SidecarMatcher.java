@@ -0,0 +1,353 @@
+package com.personal.g_photos;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.lang3.Strings;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.utils.string.StrUtils;
+
+/**
+ * Pairs the media files with their JSON sidecars, following the names that Google Takeout creates. The paths are
+ * indexed per folder in a single pass, after which every media file is matched with a few hash map lookups.
+ * <p>
+ * Google names the sidecar of "IMG_1234.jpg" "IMG_1234.jpg.json" or, in newer exports,
+ * "IMG_1234.jpg.supplemental-metadata.json". The sidecar file names are cut to 51 characters, which truncates the
+ * "supplemental-metadata" segment first and then the media file name itself ("IMG_1234.jp.json"). The duplicate
+ * counter of "IMG_1234(1).jpg" is moved after the extensions ("IMG_1234.jpg(1).json"). The edited copies
+ * ("IMG_1234-edited.jpg") share the sidecar of the original.
+ * <p>
+ * The entries of the ZIP archives are indexed by their folder inside the archive, so that a media file and its sidecar
+ * are still paired when Takeout put them in different archive parts.
+ * <p>
+ * The video of a live photo ("IMG_1234.MP4" next to "IMG_1234.HEIC") has no sidecar of its own. It is found in the
+ * same folder listing, ignoring the case, and paired with the sidecar of the image.
+ * <p>
+ * The other media files that have no sidecar are kept as well, without one, so that their time can still be read
+ * from their own metadata.
+ */
+final class SidecarMatcher {
+
+	private static final String SIDECAR_EXTENSION = ".json";
+	private static final String SUPPLEMENTAL_METADATA = "supplemental-metadata";
+	private static final int MAX_SIDECAR_BASE_NAME_LENGTH = 46;
+	private static final String[] LIVE_PHOTO_VIDEO_EXTENSION_ARRAY = { ".mp4", ".mov" };
+	private static final String[] MEDIA_EXTENSION_ARRAY = {
+			".jpg", ".jpeg", ".heic", ".heif", ".png", ".webp", ".gif", ".bmp", ".tif", ".tiff", ".dng",
+			".mp4", ".mov", ".m4v", ".3gp", ".avi", ".mkv", ".mpg", ".mts", ".wmv"
+	};
+	private static final String[] EDITED_SUFFIX_ARRAY = {
+			"-edited", "-bearbeitet", "-modifi\u00e9", "-modificato", "-editado", "-edytowane"
+	};
+
+	private final Map<String, FolderIndex> folderIndicesByFolderPathString;
+
+	SidecarMatcher() {
+
+		folderIndicesByFolderPathString = new LinkedHashMap<>();
+	}
+
+	void addFilePath(
+			final String filePathString) {
+
+		final int separatorIndex =
+				Math.max(filePathString.lastIndexOf(File.separatorChar), filePathString.lastIndexOf('/'));
+		final int entrySeparatorIndex = ArchiveFileSystems.computeEntrySeparatorIndex(filePathString);
+		final String folderPathString = filePathString.substring(Math.max(0, entrySeparatorIndex), separatorIndex + 1);
+		final String fileName = filePathString.substring(separatorIndex + 1);
+
+		final FolderIndex folderIndex =
+				folderIndicesByFolderPathString.computeIfAbsent(folderPathString, key -> new FolderIndex());
+		if (folderIndex.filePathStringsByFileName.putIfAbsent(fileName, filePathString) == null) {
+
+			if (Strings.CI.endsWith(fileName, SIDECAR_EXTENSION)) {
+				folderIndex.addSidecarFileName(fileName);
+			} else {
+				folderIndex.mediaFileNameList.add(fileName);
+			}
+		}
+	}
+
+	void fillFileDataList(
+			final boolean keepLivePhotoVideos,
+			final List<FileData> fileDataList) {
+
+		for (final FolderIndex folderIndex : folderIndicesByFolderPathString.values()) {
+			folderIndex.fillFileDataList(keepLivePhotoVideos, fileDataList);
+		}
+	}
+
+	/**
+	 * @return the name of the sidecar of the media file, or null if the folder has no sidecar for it
+	 */
+	String findSidecarFileName(
+			final String folderPathString,
+			final String mediaFileName) {
+
+		String sidecarFileName = null;
+		final FolderIndex folderIndex = folderIndicesByFolderPathString.get(folderPathString);
+		if (folderIndex != null) {
+			sidecarFileName = folderIndex.findSidecarFileName(mediaFileName);
+		}
+		return sidecarFileName;
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+
+	private static final class FolderIndex {
+
+		private final Map<String, String> filePathStringsByFileName;
+		private final List<String> mediaFileNameList;
+		private final Map<String, String> sidecarFileNamesByKey;
+		private final Map<String, List<StemSidecar>> stemSidecarListsByKey;
+
+		FolderIndex() {
+
+			filePathStringsByFileName = new HashMap<>();
+			mediaFileNameList = new ArrayList<>();
+			sidecarFileNamesByKey = new HashMap<>();
+			stemSidecarListsByKey = new HashMap<>();
+		}
+
+		void addSidecarFileName(
+				final String sidecarFileName) {
+
+			String baseName = sidecarFileName.substring(0, sidecarFileName.length() - SIDECAR_EXTENSION.length());
+
+			final int duplicateSuffixIndex = computeDuplicateSuffixIndex(baseName);
+			final String duplicateSuffix = baseName.substring(duplicateSuffixIndex);
+			baseName = baseName.substring(0, duplicateSuffixIndex);
+
+			final int lastDotIndex = baseName.lastIndexOf('.');
+			if (lastDotIndex >= 0 &&
+					SUPPLEMENTAL_METADATA.startsWith(baseName.substring(lastDotIndex + 1))) {
+				baseName = baseName.substring(0, lastDotIndex);
+			}
+
+			sidecarFileNamesByKey.merge(baseName + duplicateSuffix, sidecarFileName,
+					FolderIndex::selectSidecarFileName);
+
+			final int extensionDotIndex = baseName.lastIndexOf('.');
+			final String stem;
+			final String extensionPart;
+			if (extensionDotIndex >= 0) {
+				stem = baseName.substring(0, extensionDotIndex);
+				extensionPart = baseName.substring(extensionDotIndex + 1);
+			} else {
+				stem = baseName;
+				extensionPart = "";
+			}
+			stemSidecarListsByKey.computeIfAbsent(stem + duplicateSuffix, key -> new ArrayList<>())
+					.add(new StemSidecar(extensionPart, sidecarFileName));
+		}
+
+		/**
+		 * When several sidecars describe the same media file, the shortest name is kept, so that the result does
+		 * not depend on the order in which the files were listed.
+		 */
+		private static String selectSidecarFileName(
+				final String sidecarFileName,
+				final String otherSidecarFileName) {
+
+			final String selectedSidecarFileName;
+			final int lengthComparison = Integer.compare(sidecarFileName.length(), otherSidecarFileName.length());
+			if (lengthComparison < 0 ||
+					lengthComparison == 0 && sidecarFileName.compareTo(otherSidecarFileName) <= 0) {
+				selectedSidecarFileName = sidecarFileName;
+			} else {
+				selectedSidecarFileName = otherSidecarFileName;
+			}
+			return selectedSidecarFileName;
+		}
+
+		void fillFileDataList(
+				final boolean keepLivePhotoVideos,
+				final List<FileData> fileDataList) {
+
+			final Map<String, String> sidecarFileNamesByMediaFileName = new LinkedHashMap<>();
+			for (final String mediaFileName : mediaFileNameList) {
+
+				final String sidecarFileName = findSidecarFileName(mediaFileName);
+				if (sidecarFileName != null) {
+					sidecarFileNamesByMediaFileName.put(mediaFileName, sidecarFileName);
+				}
+			}
+
+			final Map<String, String> mediaFileNamesByLowerCaseFileName = new HashMap<>();
+			for (final String mediaFileName : mediaFileNameList) {
+				mediaFileNamesByLowerCaseFileName.put(mediaFileName.toLowerCase(Locale.ROOT), mediaFileName);
+			}
+
+			final Map<String, String> companionSidecarFileNamesByMediaFileName = new LinkedHashMap<>();
+			for (final Map.Entry<String, String> mapEntry : sidecarFileNamesByMediaFileName.entrySet()) {
+
+				final String mediaFileName = mapEntry.getKey();
+				final String lowerCaseMediaFileName = mediaFileName.toLowerCase(Locale.ROOT);
+				final int extensionDotIndex = lowerCaseMediaFileName.lastIndexOf('.');
+				if (extensionDotIndex >= 0) {
+
+					final String lowerCaseStem = lowerCaseMediaFileName.substring(0, extensionDotIndex);
+					for (final String videoExtension : LIVE_PHOTO_VIDEO_EXTENSION_ARRAY) {
+
+						final String videoFileName =
+								mediaFileNamesByLowerCaseFileName.get(lowerCaseStem + videoExtension);
+						if (videoFileName != null && !videoFileName.equals(mediaFileName) &&
+								!sidecarFileNamesByMediaFileName.containsKey(videoFileName)) {
+							companionSidecarFileNamesByMediaFileName.putIfAbsent(
+									videoFileName, mapEntry.getValue());
+						}
+					}
+				}
+			}
+			if (keepLivePhotoVideos) {
+				sidecarFileNamesByMediaFileName.putAll(companionSidecarFileNamesByMediaFileName);
+			}
+
+			for (final Map.Entry<String, String> mapEntry : sidecarFileNamesByMediaFileName.entrySet()) {
+
+				final FileData fileData = new FileData(filePathStringsByFileName.get(mapEntry.getKey()),
+						filePathStringsByFileName.get(mapEntry.getValue()));
+				fileDataList.add(fileData);
+			}
+
+			for (final String mediaFileName : mediaFileNameList) {
+
+				if (!sidecarFileNamesByMediaFileName.containsKey(mediaFileName) &&
+						!companionSidecarFileNamesByMediaFileName.containsKey(mediaFileName) &&
+						Strings.CI.endsWithAny(mediaFileName, MEDIA_EXTENSION_ARRAY)) {
+
+					final FileData fileData = new FileData(filePathStringsByFileName.get(mediaFileName), null);
+					fileDataList.add(fileData);
+				}
+			}
+		}
+
+		String findSidecarFileName(
+				final String mediaFileName) {
+
+			String sidecarFileName = sidecarFileNamesByKey.get(mediaFileName);
+			if (sidecarFileName == null) {
+
+				final int extensionDotIndex = mediaFileName.lastIndexOf('.');
+				String stem;
+				final String extension;
+				if (extensionDotIndex >= 0) {
+					stem = mediaFileName.substring(0, extensionDotIndex);
+					extension = mediaFileName.substring(extensionDotIndex);
+				} else {
+					stem = mediaFileName;
+					extension = "";
+				}
+
+				final int duplicateSuffixIndex = computeDuplicateSuffixIndex(stem);
+				final String duplicateSuffix = stem.substring(duplicateSuffixIndex);
+				stem = stem.substring(0, duplicateSuffixIndex);
+
+				sidecarFileName = findSidecarFileName(stem, extension, duplicateSuffix);
+				if (sidecarFileName == null) {
+
+					final String editedSuffix = findEditedSuffix(stem);
+					if (editedSuffix != null) {
+
+						final String originalStem = stem.substring(0, stem.length() - editedSuffix.length());
+						sidecarFileName = findSidecarFileName(originalStem, extension, duplicateSuffix);
+					}
+				}
+			}
+			return sidecarFileName;
+		}
+
+		private String findSidecarFileName(
+				final String stem,
+				final String extension,
+				final String duplicateSuffix) {
+
+			final String name = stem + extension;
+			String sidecarFileName = sidecarFileNamesByKey.get(name + duplicateSuffix);
+			if (sidecarFileName == null) {
+
+				final int maxNameLength = MAX_SIDECAR_BASE_NAME_LENGTH - duplicateSuffix.length();
+				if (name.length() > maxNameLength) {
+
+					final String truncatedName = Strings.CS.removeEnd(name.substring(0, maxNameLength), ".");
+					sidecarFileName = sidecarFileNamesByKey.get(truncatedName + duplicateSuffix);
+				}
+			}
+			if (sidecarFileName == null) {
+
+				final List<StemSidecar> stemSidecarList = stemSidecarListsByKey.get(stem + duplicateSuffix);
+				if (stemSidecarList != null) {
+
+					int bestExtensionPartLength = -1;
+					for (final StemSidecar stemSidecar : stemSidecarList) {
+
+						final String extensionPart = stemSidecar.extensionPart();
+						final int extensionPartLength = extensionPart.length();
+						if (extensionPartLength > bestExtensionPartLength &&
+								extension.regionMatches(true, 1, extensionPart, 0, extensionPartLength)) {
+
+							sidecarFileName = stemSidecar.sidecarFileName();
+							bestExtensionPartLength = extensionPartLength;
+						}
+					}
+				}
+			}
+			return sidecarFileName;
+		}
+
+		private static String findEditedSuffix(
+				final String stem) {
+
+			String editedSuffix = null;
+			for (final String suffix : EDITED_SUFFIX_ARRAY) {
+
+				if (Strings.CI.endsWith(stem, suffix)) {
+
+					editedSuffix = suffix;
+					break;
+				}
+			}
+			return editedSuffix;
+		}
+
+		/**
+		 * @return the index where the "(n)" duplicate counter starts, or the length of the name if it has none
+		 */
+		private static int computeDuplicateSuffixIndex(
+				final String name) {
+
+			int duplicateSuffixIndex = name.length();
+			final int length = name.length();
+			if (length >= 3 && name.charAt(length - 1) == ')') {
+
+				int index = length - 2;
+				while (index > 0 && Character.isDigit(name.charAt(index))) {
+					index--;
+				}
+				if (index < length - 2 && name.charAt(index) == '(') {
+					duplicateSuffixIndex = index;
+				}
+			}
+			return duplicateSuffixIndex;
+		}
+
+		@Override
+		public String toString() {
+			return StrUtils.reflectionToString(this);
+		}
+	}
+
+	private record StemSidecar(
+			String extensionPart,
+			String sidecarFileName) {
+	}
+}
@@ -0,0 +1,383 @@
+package com.personal.g_photos;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+import com.personal.g_photos.images.GeoLocation;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Reads the JSON sidecars into a buffer that is reused from one file to the next and extracts the few values that are
+ * needed by scanning the bytes, without building a JSON tree. An instance is not thread safe; every thread should
+ * use its own.
+ */
+final class SidecarReader {
+
+	private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+	private static final byte[] PHOTO_TAKEN_TIME_KEY = "photoTakenTime".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TIMESTAMP_KEY = "timestamp".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] FORMATTED_KEY = "formatted".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] GEO_DATA_KEY = "geoData".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] LATITUDE_KEY = "latitude".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] LONGITUDE_KEY = "longitude".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ALTITUDE_KEY = "altitude".getBytes(StandardCharsets.US_ASCII);
+
+	private final CRC32C crc32c;
+	private byte[] buffer;
+	private int length;
+
+	SidecarReader() {
+
+		crc32c = new CRC32C();
+		buffer = new byte[INITIAL_BUFFER_SIZE];
+	}
+
+	boolean read(
+			final Path jsonFilePath) {
+
+		boolean success = false;
+		length = 0;
+		try {
+			final long fileSize = Files.size(jsonFilePath);
+			if (fileSize > buffer.length) {
+				buffer = new byte[(int) Math.max(fileSize, 2L * buffer.length)];
+			}
+
+			try (InputStream inputStream = Files.newInputStream(jsonFilePath)) {
+
+				int readByteCount;
+				while ((readByteCount = inputStream.read(buffer, length, buffer.length - length)) > 0) {
+
+					length += readByteCount;
+					if (length == buffer.length) {
+
+						final byte[] newBuffer = new byte[2 * buffer.length];
+						System.arraycopy(buffer, 0, newBuffer, 0, length);
+						buffer = newBuffer;
+					}
+				}
+			}
+			success = true;
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to read JSON file:" +
+					System.lineSeparator() + jsonFilePath);
+			Logger.printThrowable(throwable);
+		}
+		return success;
+	}
+
+	String computeHash() {
+
+		crc32c.reset();
+		crc32c.update(buffer, 0, length);
+		return Long.toHexString(crc32c.getValue());
+	}
+
+	/**
+	 * @return the "photoTakenTime.timestamp" value, in seconds since the epoch, or -1 if it is missing or invalid
+	 */
+	long parsePhotoTakenTimestamp() {
+
+		long timestamp = -1;
+		final int valueIndex = findNestedMember(PHOTO_TAKEN_TIME_KEY, TIMESTAMP_KEY);
+		if (valueIndex >= 0) {
+
+			int index = valueIndex;
+			int endIndex = length;
+			if (buffer[index] == '"') {
+				index++;
+				endIndex = skipString(valueIndex);
+			}
+			long value = 0;
+			int digitCount = 0;
+			while (index < endIndex && buffer[index] >= '0' && buffer[index] <= '9' && digitCount < 18) {
+
+				value = 10 * value + buffer[index] - '0';
+				digitCount++;
+				index++;
+			}
+			if (digitCount > 0) {
+				timestamp = value;
+			}
+		}
+		return timestamp;
+	}
+
+	/**
+	 * @return the "photoTakenTime.formatted" value, or null if it is missing
+	 */
+	String parseFormattedPhotoTakenTime() {
+
+		String formattedPhotoTakenTime = null;
+		final int valueIndex = findNestedMember(PHOTO_TAKEN_TIME_KEY, FORMATTED_KEY);
+		if (valueIndex >= 0 && buffer[valueIndex] == '"') {
+			formattedPhotoTakenTime = decodeString(valueIndex);
+		}
+		return formattedPhotoTakenTime;
+	}
+
+	/**
+	 * Google writes zero coordinates for the photos that have no location, so those are treated as missing.
+	 *
+	 * @return the "geoData" location, or null if it is missing
+	 */
+	GeoLocation parseGeoLocation() {
+
+		GeoLocation geoLocation = null;
+		final double latitude = parseNumber(findNestedMember(GEO_DATA_KEY, LATITUDE_KEY));
+		final double longitude = parseNumber(findNestedMember(GEO_DATA_KEY, LONGITUDE_KEY));
+		if (!Double.isNaN(latitude) && !Double.isNaN(longitude) && (latitude != 0 || longitude != 0) &&
+				Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180) {
+
+			double altitude = parseNumber(findNestedMember(GEO_DATA_KEY, ALTITUDE_KEY));
+			if (Double.isNaN(altitude)) {
+				altitude = 0;
+			}
+			geoLocation = new GeoLocation(latitude, longitude, altitude);
+		}
+		return geoLocation;
+	}
+
+	/**
+	 * @return the value of the member of the object member of the root object, or -1 if it is missing
+	 */
+	private int findNestedMember(
+			final byte[] objectKey,
+			final byte[] key) {
+
+		int valueIndex = -1;
+		final int rootIndex = skipWhitespace(0);
+		if (rootIndex < length && buffer[rootIndex] == '{') {
+
+			final int objectIndex = findMember(rootIndex, objectKey);
+			if (objectIndex >= 0 && buffer[objectIndex] == '{') {
+				valueIndex = findMember(objectIndex, key);
+			}
+		}
+		return valueIndex;
+	}
+
+	/**
+	 * @return the number that starts at the given index, or NaN if there is none
+	 */
+	private double parseNumber(
+			final int valueIndex) {
+
+		double number = Double.NaN;
+		if (valueIndex >= 0) {
+
+			final int endIndex = skipValue(valueIndex);
+			final String numberString =
+					new String(buffer, valueIndex, endIndex - valueIndex, StandardCharsets.US_ASCII).strip();
+			try {
+				number = Double.parseDouble(numberString);
+
+			} catch (final NumberFormatException ignored) {
+				Logger.printWarning("invalid number in JSON file: " + numberString);
+			}
+		}
+		return number;
+	}
+
+	/**
+	 * @return the index of the value of the member with the given key, or -1 if the object does not have it
+	 */
+	private int findMember(
+			final int objectIndex,
+			final byte[] key) {
+
+		int valueIndex = -1;
+		int index = skipWhitespace(objectIndex + 1);
+		while (index < length && buffer[index] == '"') {
+
+			final int keyEndIndex = skipString(index);
+			final boolean keyMatches = keyEndIndex - index - 1 == key.length &&
+					regionEquals(index + 1, key);
+
+			index = skipWhitespace(keyEndIndex + 1);
+			if (index >= length || buffer[index] != ':') {
+				break;
+			}
+			index = skipWhitespace(index + 1);
+			if (keyMatches) {
+
+				valueIndex = index;
+				break;
+			}
+
+			index = skipWhitespace(skipValue(index));
+			if (index < length && buffer[index] == ',') {
+				index = skipWhitespace(index + 1);
+			}
+		}
+		return valueIndex;
+	}
+
+	private boolean regionEquals(
+			final int index,
+			final byte[] key) {
+
+		boolean equals = true;
+		for (int i = 0; i < key.length; i++) {
+
+			if (buffer[index + i] != key[i]) {
+
+				equals = false;
+				break;
+			}
+		}
+		return equals;
+	}
+
+	/**
+	 * @return the index right after the value
+	 */
+	private int skipValue(
+			final int valueIndex) {
+
+		int index = valueIndex;
+		if (index < length) {
+
+			final byte firstByte = buffer[index];
+			if (firstByte == '"') {
+				index = skipString(index) + 1;
+
+			} else if (firstByte == '{' || firstByte == '[') {
+
+				int depth = 0;
+				while (index < length) {
+
+					final byte b = buffer[index];
+					if (b == '"') {
+						index = skipString(index);
+
+					} else if (b == '{' || b == '[') {
+						depth++;
+
+					} else if (b == '}' || b == ']') {
+
+						depth--;
+						if (depth == 0) {
+
+							index++;
+							break;
+						}
+					}
+					index++;
+				}
+
+			} else {
+				while (index < length && buffer[index] != ',' && buffer[index] != '}' && buffer[index] != ']') {
+					index++;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * @return the index of the closing quote of the string that starts at the given index
+	 */
+	private int skipString(
+			final int stringIndex) {
+
+		int index = stringIndex + 1;
+		while (index < length && buffer[index] != '"') {
+
+			if (buffer[index] == '\\') {
+				index++;
+			}
+			index++;
+		}
+		return index;
+	}
+
+	private int skipWhitespace(
+			final int startIndex) {
+
+		int index = startIndex;
+		while (index < length &&
+				(buffer[index] == ' ' || buffer[index] == '\n' || buffer[index] == '\r' || buffer[index] == '\t')) {
+			index++;
+		}
+		return index;
+	}
+
+	private String decodeString(
+			final int stringIndex) {
+
+		final int endIndex = skipString(stringIndex);
+		boolean escaped = false;
+		for (int i = stringIndex + 1; i < endIndex; i++) {
+
+			if (buffer[i] == '\\') {
+
+				escaped = true;
+				break;
+			}
+		}
+
+		final String decodedString;
+		if (!escaped) {
+			decodedString = new String(buffer, stringIndex + 1, endIndex - stringIndex - 1, StandardCharsets.UTF_8);
+
+		} else {
+			final String rawString =
+					new String(buffer, stringIndex + 1, endIndex - stringIndex - 1, StandardCharsets.UTF_8);
+			final StringBuilder sbDecodedString = new StringBuilder(rawString.length());
+			for (int i = 0; i < rawString.length(); i++) {
+
+				final char c = rawString.charAt(i);
+				if (c == '\\' && i + 1 < rawString.length()) {
+
+					i++;
+					final char escapedChar = rawString.charAt(i);
+					switch (escapedChar) {
+						case 'n':
+							sbDecodedString.append('\n');
+							break;
+						case 'r':
+							sbDecodedString.append('\r');
+							break;
+						case 't':
+							sbDecodedString.append('\t');
+							break;
+						case 'b':
+							sbDecodedString.append('\b');
+							break;
+						case 'f':
+							sbDecodedString.append('\f');
+							break;
+						case 'u':
+							if (i + 4 < rawString.length()) {
+
+								final String hexString = rawString.substring(i + 1, i + 5);
+								sbDecodedString.append((char) Integer.parseInt(hexString, 16));
+								i += 4;
+							}
+							break;
+						default:
+							sbDecodedString.append(escapedChar);
+							break;
+					}
+
+				} else {
+					sbDecodedString.append(c);
+				}
+			}
+			decodedString = sbDecodedString.toString();
+		}
+		return decodedString;
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
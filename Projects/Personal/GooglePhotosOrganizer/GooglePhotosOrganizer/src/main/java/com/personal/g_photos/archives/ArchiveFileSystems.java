@@ -0,0 +1,155 @@
+package com.personal.g_photos.archives;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.lang3.Strings;
+
+import com.utils.io.zip.ZipUtils;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Keeps the Takeout ZIP archives open as file systems, so that their entries are read in place, without extracting
+ * them first. An entry is named by the path of the archive, followed by "!" and the path of the entry inside the
+ * archive, so it can travel through the pipeline like the path of a regular file and be resolved again when it is
+ * read.
+ */
+public class ArchiveFileSystems implements AutoCloseable {
+
+	private static final String ZIP_EXTENSION = ".zip";
+	private static final String ENTRY_SEPARATOR = "!";
+
+	private final Map<String, FileSystem> fileSystemsByArchiveFilePathString;
+
+	ArchiveFileSystems() {
+
+		fileSystemsByArchiveFilePathString = new ConcurrentHashMap<>();
+	}
+
+	public static boolean checkZipArchive(
+			final String filePathString) {
+
+		return Strings.CI.endsWith(filePathString, ZIP_EXTENSION);
+	}
+
+	public static boolean checkTarArchive(
+			final String filePathString) {
+
+		return Strings.CI.endsWithAny(filePathString, ".tgz", ".tar.gz", ".tar");
+	}
+
+	/**
+	 * @return the index of the "!" that separates the archive from the entry, or -1 if the path is not an archive
+	 *         entry
+	 */
+	public static int computeEntrySeparatorIndex(
+			final String pathString) {
+
+		int entrySeparatorIndex = Strings.CI.indexOf(pathString, ZIP_EXTENSION + ENTRY_SEPARATOR + "/");
+		if (entrySeparatorIndex >= 0) {
+			entrySeparatorIndex += ZIP_EXTENSION.length();
+		}
+		return entrySeparatorIndex;
+	}
+
+	public static boolean checkArchiveEntry(
+			final String pathString) {
+
+		return computeEntrySeparatorIndex(pathString) >= 0;
+	}
+
+	/**
+	 * Opens the archive and adds the paths of its entries to the list, in the order in which they are stored, so that
+	 * the archive is read from start to end.
+	 *
+	 * @return true if the archive was opened, false otherwise
+	 */
+	public boolean openArchive(
+			final String archiveFilePathString,
+			final List<String> entryPathStringList) {
+
+		boolean success = false;
+		try {
+			Logger.printProgress("opening ZIP archive:" + System.lineSeparator() + archiveFilePathString);
+
+			try (ZipFile zipFile = new ZipFile(archiveFilePathString)) {
+
+				zipFile.stream()
+						.filter(zipEntry -> !zipEntry.isDirectory())
+						.map(ZipEntry::getName)
+						.forEach(entryName -> entryPathStringList.add(
+								archiveFilePathString + ENTRY_SEPARATOR + "/" + entryName));
+			}
+
+			final FileSystem fileSystem = ZipUtils.openZipFileSystem(archiveFilePathString, false);
+			fileSystemsByArchiveFilePathString.put(archiveFilePathString, fileSystem);
+			success = true;
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to open ZIP archive:" +
+					System.lineSeparator() + archiveFilePathString);
+			Logger.printThrowable(throwable);
+		}
+		return success;
+	}
+
+	/**
+	 * @return true if the archive was already opened, false otherwise
+	 */
+	public boolean checkArchiveOpen(
+			final String archiveFilePathString) {
+
+		return fileSystemsByArchiveFilePathString.containsKey(archiveFilePathString);
+	}
+
+	/**
+	 * @return the path of the archive entry, in the file system of its archive, or the path of the regular file
+	 */
+	public Path resolvePath(
+			final String pathString) {
+
+		Path path = null;
+		final int entrySeparatorIndex = computeEntrySeparatorIndex(pathString);
+		if (entrySeparatorIndex >= 0) {
+
+			final FileSystem fileSystem =
+					fileSystemsByArchiveFilePathString.get(pathString.substring(0, entrySeparatorIndex));
+			if (fileSystem != null) {
+				path = fileSystem.getPath(pathString.substring(entrySeparatorIndex + ENTRY_SEPARATOR.length()));
+			}
+		}
+		if (path == null) {
+			path = Paths.get(pathString);
+		}
+		return path;
+	}
+
+	@Override
+	public void close() {
+
+		for (final Map.Entry<String, FileSystem> mapEntry : fileSystemsByArchiveFilePathString.entrySet()) {
+
+			try {
+				mapEntry.getValue().close();
+
+			} catch (final Throwable throwable) {
+				Logger.printError("failed to close ZIP archive:" +
+						System.lineSeparator() + mapEntry.getKey());
+				Logger.printThrowable(throwable);
+			}
+		}
+		fileSystemsByArchiveFilePathString.clear();
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
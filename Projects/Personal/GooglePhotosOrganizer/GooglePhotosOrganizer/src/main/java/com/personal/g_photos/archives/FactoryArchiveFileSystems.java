@@ -0,0 +1,12 @@
+package com.personal.g_photos.archives;
+
+public final class FactoryArchiveFileSystems {
+
+	private FactoryArchiveFileSystems() {
+	}
+
+	public static ArchiveFileSystems newInstance() {
+
+		return new ArchiveFileSystems();
+	}
+}
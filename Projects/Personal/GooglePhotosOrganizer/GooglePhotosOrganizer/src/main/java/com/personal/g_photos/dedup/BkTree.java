@@ -0,0 +1,151 @@
+package com.personal.g_photos.dedup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import com.utils.string.StrUtils;
+
+/**
+ * A Burkhard-Keller tree of 64 bit hashes, compared by their Hamming distance. Every child of a node is filed under its
+ * distance to the node, so, by the triangle inequality, a search only has to descend into the children whose distance
+ * is within the search radius of the distance between the node and the searched hash. For the small radiuses used to
+ * find near-duplicates, a search visits a small part of the tree, instead of comparing the hash to every other.
+ * <p>
+ * The distance from a child to its parent is recomputed when needed, since it takes a single instruction, so the nodes
+ * only hold their hash, their values and their children. The values with the same hash share a node. The tree is not
+ * thread safe.
+ */
+class BkTree<V> {
+
+	private Node<V> root;
+
+	BkTree() {
+	}
+
+	void add(
+			final long hash,
+			final V value) {
+
+		if (root == null) {
+			root = new Node<>(hash, value);
+
+		} else {
+			Node<V> node = root;
+			while (node != null) {
+
+				final int distance = computeDistance(node.hash, hash);
+				if (distance == 0) {
+
+					node.valueList.add(value);
+					node = null;
+
+				} else {
+					final Node<V> childNode = node.findChild(distance);
+					if (childNode == null) {
+
+						node.childList.add(new Node<>(hash, value));
+						node = null;
+
+					} else {
+						node = childNode;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the values whose hashes are at most the given distance from the hash, the nearest first
+	 */
+	List<Match<V>> search(
+			final long hash,
+			final int maxDistance) {
+
+		final List<Match<V>> matchList = new ArrayList<>();
+		if (root != null) {
+
+			final Deque<Node<V>> nodeDeque = new ArrayDeque<>();
+			nodeDeque.push(root);
+			while (!nodeDeque.isEmpty()) {
+
+				final Node<V> node = nodeDeque.pop();
+				final int distance = computeDistance(node.hash, hash);
+				if (distance <= maxDistance) {
+
+					for (final V value : node.valueList) {
+						matchList.add(new Match<>(value, node.hash, distance));
+					}
+				}
+
+				for (final Node<V> childNode : node.childList) {
+
+					final int childDistance = computeDistance(node.hash, childNode.hash);
+					if (Math.abs(childDistance - distance) <= maxDistance) {
+						nodeDeque.push(childNode);
+					}
+				}
+			}
+			matchList.sort(Comparator.comparingInt(Match::distance));
+		}
+		return matchList;
+	}
+
+	static int computeDistance(
+			final long firstHash,
+			final long secondHash) {
+
+		return Long.bitCount(firstHash ^ secondHash);
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+
+	record Match<V>(
+			V value,
+			long hash,
+			int distance) {
+	}
+
+	private static final class Node<V> {
+
+		private final long hash;
+		private final List<V> valueList;
+		private final List<Node<V>> childList;
+
+		Node(
+				final long hash,
+				final V value) {
+
+			this.hash = hash;
+
+			valueList = new ArrayList<>(1);
+			valueList.add(value);
+			childList = new ArrayList<>(2);
+		}
+
+		Node<V> findChild(
+				final int distance) {
+
+			Node<V> childNode = null;
+			for (final Node<V> node : childList) {
+
+				if (computeDistance(hash, node.hash) == distance) {
+
+					childNode = node;
+					break;
+				}
+			}
+			return childNode;
+		}
+
+		@Override
+		public String toString() {
+			return StrUtils.reflectionToString(this);
+		}
+	}
+}
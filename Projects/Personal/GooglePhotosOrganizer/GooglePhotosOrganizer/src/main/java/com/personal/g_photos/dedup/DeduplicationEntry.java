@@ -0,0 +1,42 @@
+package com.personal.g_photos.dedup;
+
+import com.utils.string.StrUtils;
+
+/**
+ * The hashes are only computed for the files that share their size with other files, so they can be empty.
+ */
+record DeduplicationEntry(
+		String filePathString,
+		long fileSize,
+		long lastModifiedTime,
+		String partialHash,
+		String fullHash) {
+
+	private static final String FIELD_SEPARATOR = "\t";
+
+	String toLine() {
+
+		return String.join(FIELD_SEPARATOR, filePathString, String.valueOf(fileSize),
+				String.valueOf(lastModifiedTime), partialHash, fullHash);
+	}
+
+	/**
+	 * @return the entry, or null if the line is not a valid index line
+	 */
+	static DeduplicationEntry parseLine(
+			final String line) {
+
+		DeduplicationEntry deduplicationEntry = null;
+		final String[] fieldArray = line.split(FIELD_SEPARATOR, -1);
+		if (fieldArray.length == 5) {
+
+			final long fileSize = StrUtils.tryParsePositiveLong(fieldArray[1]);
+			final long lastModifiedTime = StrUtils.tryParsePositiveLong(fieldArray[2]);
+			if (fileSize >= 0 && lastModifiedTime >= 0) {
+				deduplicationEntry = new DeduplicationEntry(fieldArray[0], fileSize, lastModifiedTime,
+						fieldArray[3], fieldArray[4]);
+			}
+		}
+		return deduplicationEntry;
+	}
+}
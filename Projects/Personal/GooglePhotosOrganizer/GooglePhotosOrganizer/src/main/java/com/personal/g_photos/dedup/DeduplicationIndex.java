@@ -0,0 +1,539 @@
+package com.personal.g_photos.dedup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.personal.g_photos.manifest.ProcessingManifest;
+import com.utils.concurrency.no_progress.ConcurrencyUtilsSimpleRegular;
+import com.utils.io.IoUtils;
+import com.utils.io.PathUtils;
+import com.utils.io.ReaderUtils;
+import com.utils.io.folder_creators.FactoryFolderCreator;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Finds the media files that have the same content as other files, so that the overlapping Takeout exports are only
+ * processed once. The files are compared by size first, then by a hash of a few chunks and only then by a hash of the
+ * whole content, so most files are never read. The hashes of the files that are not duplicates are kept in the
+ * output folder, so that the files of the earlier runs and of the earlier batches win over the new files.
+ * <p>
+ * An indexed file only wins once the processing manifest says that it reached the output: a file that failed, or
+ * that was never processed because the run was killed, keeps its hashes in the index, but its duplicates are
+ * processed. Among the new files, a file whose last attempt failed only wins if all its copies failed too.
+ * <p>
+ * A file is only reported as a duplicate when its full hash matches. If the full hash of a file from an earlier run
+ * is missing and the file is gone or changed, the new file is processed, since a photo is better processed twice
+ * than lost.
+ */
+public class DeduplicationIndex {
+
+	private static final int PARTIAL_HASH_CHUNK_SIZE = 64 * 1024;
+	private static final String PARTIAL_HASH_ALGORITHM = "MD5";
+	private static final String FULL_HASH_ALGORITHM = "SHA-256";
+	private static final int FULL_HASH_BUFFER_SIZE = 1024 * 1024;
+
+	private final String indexFilePathString;
+	private final Map<String, DeduplicationEntry> deduplicationEntriesByFilePathString;
+	private final Map<Long, Set<String>> filePathStringSetsByFileSize;
+
+	DeduplicationIndex(
+			final String indexFilePathString) {
+
+		this.indexFilePathString = indexFilePathString;
+
+		deduplicationEntriesByFilePathString = new LinkedHashMap<>();
+		filePathStringSetsByFileSize = new HashMap<>();
+	}
+
+	void load() {
+
+		if (IoUtils.fileExists(indexFilePathString)) {
+
+			Logger.printProgress("loading deduplication index:" +
+					System.lineSeparator() + indexFilePathString);
+
+			try (BufferedReader bufferedReader = ReaderUtils.openBufferedReader(indexFilePathString)) {
+
+				String line;
+				while ((line = bufferedReader.readLine()) != null) {
+
+					final DeduplicationEntry deduplicationEntry = DeduplicationEntry.parseLine(line);
+					if (deduplicationEntry != null) {
+						putEntry(deduplicationEntry);
+					}
+				}
+
+			} catch (final Throwable throwable) {
+				Logger.printError("failed to load deduplication index:" +
+						System.lineSeparator() + indexFilePathString);
+				Logger.printThrowable(throwable);
+			}
+			Logger.printLine("(deduplication index entries: " + deduplicationEntriesByFilePathString.size() + ")");
+		}
+	}
+
+	/**
+	 * Adds the files that are not duplicates to the index. The files can be passed in several batches, for example
+	 * one folder at a time; the files of the earlier batches are then treated like the files of the earlier runs.
+	 * Only the indexed files that have the size of one of the new files are looked at.
+	 * <p>
+	 * The files of an earlier batch that are still in the pipeline are not in the manifest yet, so their duplicates
+	 * in a later batch are processed too.
+	 *
+	 * @return the paths of the duplicate files, mapped to the paths of the files with the same content that are kept
+	 */
+	public Map<String, String> findDuplicates(
+			final List<String> filePathStringList,
+			final ArchiveFileSystems archiveFileSystems,
+			final ProcessingManifest processingManifest,
+			final int threadCount) {
+
+		final List<Candidate> fileCandidateList = new ArrayList<>();
+		final Set<Long> fileSizeSet = new LinkedHashSet<>();
+		for (final String filePathString : filePathStringList) {
+
+			final Candidate candidate = createCandidate(filePathString, archiveFileSystems);
+			if (candidate != null) {
+
+				fileCandidateList.add(candidate);
+				fileSizeSet.add(candidate.fileSize);
+			}
+		}
+
+		final Set<String> filePathStringSet = new HashSet<>(filePathStringList);
+		final List<Candidate> candidateList = new ArrayList<>();
+		for (final long fileSize : fileSizeSet) {
+
+			final Set<String> indexedFilePathStringSet = filePathStringSetsByFileSize.get(fileSize);
+			if (indexedFilePathStringSet != null) {
+
+				for (final String indexedFilePathString : indexedFilePathStringSet) {
+
+					if (!filePathStringSet.contains(indexedFilePathString)) {
+
+						final DeduplicationEntry deduplicationEntry =
+								deduplicationEntriesByFilePathString.get(indexedFilePathString);
+						final Path filePath = archiveFileSystems.resolvePath(indexedFilePathString);
+						candidateList.add(new Candidate(deduplicationEntry, filePath, true));
+					}
+				}
+			}
+		}
+		candidateList.addAll(fileCandidateList);
+
+		final List<List<Candidate>> sizeGroupList = new ArrayList<>();
+		fillGroupList(candidateList, Candidate::getFileSize, sizeGroupList);
+		computeHashes(sizeGroupList, false, threadCount);
+
+		final List<List<Candidate>> partialHashGroupList = new ArrayList<>();
+		for (final List<Candidate> sizeGroup : sizeGroupList) {
+			fillGroupList(sizeGroup, Candidate::getPartialHash, partialHashGroupList);
+		}
+		computeHashes(partialHashGroupList, true, threadCount);
+
+		final List<List<Candidate>> fullHashGroupList = new ArrayList<>();
+		for (final List<Candidate> partialHashGroup : partialHashGroupList) {
+			fillGroupList(partialHashGroup, Candidate::getFullHash, fullHashGroupList);
+		}
+
+		final Map<String, String> keptFilePathStringsByDuplicateFilePathString = new LinkedHashMap<>();
+		for (final List<Candidate> fullHashGroup : fullHashGroupList) {
+
+			final Candidate keptCandidate = selectKeptCandidate(fullHashGroup, processingManifest);
+			if (keptCandidate != null) {
+
+				for (final Candidate candidate : fullHashGroup) {
+
+					if (candidate != keptCandidate && !candidate.indexed) {
+						keptFilePathStringsByDuplicateFilePathString.put(
+								candidate.filePathString, keptCandidate.filePathString);
+					}
+				}
+			}
+		}
+
+		for (final Candidate candidate : candidateList) {
+
+			final String filePathString = candidate.filePathString;
+			if (keptFilePathStringsByDuplicateFilePathString.containsKey(filePathString)) {
+				removeEntry(filePathString);
+			} else {
+				putEntry(candidate.createDeduplicationEntry());
+			}
+		}
+		return keptFilePathStringsByDuplicateFilePathString;
+	}
+
+	/**
+	 * The indexed candidates come first in the group, so the first one that was processed wins. Otherwise the first
+	 * new candidate that did not fail the last time wins, or else the first new candidate.
+	 *
+	 * @return the candidate that is kept, or null if the group has no candidate that can be kept
+	 */
+	private static Candidate selectKeptCandidate(
+			final List<Candidate> group,
+			final ProcessingManifest processingManifest) {
+
+		Candidate keptCandidate = null;
+		Candidate firstNewCandidate = null;
+		for (int i = 0; i < group.size() && keptCandidate == null; i++) {
+
+			final Candidate candidate = group.get(i);
+			if (candidate.indexed) {
+
+				if (processingManifest.checkProcessed(
+						candidate.filePathString, candidate.fileSize, candidate.lastModifiedTime)) {
+					keptCandidate = candidate;
+				}
+
+			} else {
+				if (firstNewCandidate == null) {
+					firstNewCandidate = candidate;
+				}
+				if (!processingManifest.checkFailed(
+						candidate.filePathString, candidate.fileSize, candidate.lastModifiedTime)) {
+					keptCandidate = candidate;
+				}
+			}
+		}
+		if (keptCandidate == null) {
+			keptCandidate = firstNewCandidate;
+		}
+		return keptCandidate;
+	}
+
+	private void putEntry(
+			final DeduplicationEntry deduplicationEntry) {
+
+		final String filePathString = deduplicationEntry.filePathString();
+		removeEntry(filePathString);
+		deduplicationEntriesByFilePathString.put(filePathString, deduplicationEntry);
+		filePathStringSetsByFileSize.computeIfAbsent(deduplicationEntry.fileSize(), fileSize -> new LinkedHashSet<>())
+				.add(filePathString);
+	}
+
+	private void removeEntry(
+			final String filePathString) {
+
+		final DeduplicationEntry deduplicationEntry = deduplicationEntriesByFilePathString.remove(filePathString);
+		if (deduplicationEntry != null) {
+
+			final Set<String> filePathStringSet = filePathStringSetsByFileSize.get(deduplicationEntry.fileSize());
+			if (filePathStringSet != null) {
+
+				filePathStringSet.remove(filePathString);
+				if (filePathStringSet.isEmpty()) {
+					filePathStringSetsByFileSize.remove(deduplicationEntry.fileSize());
+				}
+			}
+		}
+	}
+
+	private Candidate createCandidate(
+			final String filePathString,
+			final ArchiveFileSystems archiveFileSystems) {
+
+		Candidate candidate = null;
+		try {
+			final Path filePath = archiveFileSystems.resolvePath(filePathString);
+			final BasicFileAttributes basicFileAttributes =
+					Files.readAttributes(filePath, BasicFileAttributes.class);
+			final long fileSize = basicFileAttributes.size();
+			final long lastModifiedTime = basicFileAttributes.lastModifiedTime().toMillis();
+
+			final DeduplicationEntry deduplicationEntry = deduplicationEntriesByFilePathString.get(filePathString);
+			if (deduplicationEntry != null && deduplicationEntry.fileSize() == fileSize &&
+					deduplicationEntry.lastModifiedTime() == lastModifiedTime) {
+				candidate = new Candidate(deduplicationEntry, filePath, false);
+			} else {
+				candidate = new Candidate(new DeduplicationEntry(
+						filePathString, fileSize, lastModifiedTime, "", ""), filePath, false);
+			}
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to read attributes of file:" +
+					System.lineSeparator() + filePathString);
+			Logger.printThrowable(throwable);
+		}
+		return candidate;
+	}
+
+	/**
+	 * Groups the candidates by the key and adds the groups of more than one candidate to the list, keeping the order of
+	 * the candidates. The candidates without a key are left out.
+	 */
+	private static void fillGroupList(
+			final List<Candidate> candidateList,
+			final Function<Candidate, Object> keyFunction,
+			final List<List<Candidate>> groupList) {
+
+		final Map<Object, List<Candidate>> candidateListsByKey = new LinkedHashMap<>();
+		for (final Candidate candidate : candidateList) {
+
+			final Object key = keyFunction.apply(candidate);
+			if (key != null) {
+				candidateListsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(candidate);
+			}
+		}
+		for (final List<Candidate> group : candidateListsByKey.values()) {
+
+			if (group.size() > 1) {
+				groupList.add(group);
+			}
+		}
+	}
+
+	private static void computeHashes(
+			final List<List<Candidate>> groupList,
+			final boolean fullHash,
+			final int threadCount) {
+
+		final List<Runnable> runnableList = new ArrayList<>();
+		for (final List<Candidate> group : groupList) {
+
+			for (final Candidate candidate : group) {
+
+				final boolean hashMissing;
+				if (fullHash) {
+					hashMissing = candidate.fullHash == null;
+				} else {
+					hashMissing = candidate.partialHash == null;
+				}
+				if (hashMissing && candidate.checkReadable()) {
+					runnableList.add(() -> candidate.computeHash(fullHash));
+				}
+			}
+		}
+
+		if (!runnableList.isEmpty()) {
+			new ConcurrencyUtilsSimpleRegular(threadCount).executeMultiThreadedTask(runnableList);
+		}
+	}
+
+	/**
+	 * Reads the chunks in order, skipping forward between them, which also works for the entries of the archives.
+	 */
+	private static String computePartialHash(
+			final Path filePath,
+			final long fileSize) {
+
+		String partialHash = null;
+		try {
+			final MessageDigest messageDigest = MessageDigest.getInstance(PARTIAL_HASH_ALGORITHM);
+			final byte[] buffer = new byte[PARTIAL_HASH_CHUNK_SIZE];
+			try (InputStream inputStream = Files.newInputStream(filePath)) {
+
+				if (fileSize <= 3L * PARTIAL_HASH_CHUNK_SIZE) {
+					updateDigest(inputStream, fileSize, buffer, messageDigest);
+
+				} else {
+					final long middlePosition = fileSize / 2 - PARTIAL_HASH_CHUNK_SIZE / 2;
+					final long endPosition = fileSize - PARTIAL_HASH_CHUNK_SIZE;
+					updateDigest(inputStream, PARTIAL_HASH_CHUNK_SIZE, buffer, messageDigest);
+					inputStream.skipNBytes(middlePosition - PARTIAL_HASH_CHUNK_SIZE);
+					updateDigest(inputStream, PARTIAL_HASH_CHUNK_SIZE, buffer, messageDigest);
+					inputStream.skipNBytes(endPosition - middlePosition - PARTIAL_HASH_CHUNK_SIZE);
+					updateDigest(inputStream, PARTIAL_HASH_CHUNK_SIZE, buffer, messageDigest);
+				}
+			}
+			partialHash = StrUtils.byteArrayToHexString(messageDigest.digest());
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to compute partial hash of file:" +
+					System.lineSeparator() + filePath);
+			Logger.printThrowable(throwable);
+		}
+		return partialHash;
+	}
+
+	private static String computeFullHash(
+			final Path filePath,
+			final long fileSize) {
+
+		String fullHash = null;
+		try {
+			final MessageDigest messageDigest = MessageDigest.getInstance(FULL_HASH_ALGORITHM);
+			final byte[] buffer = new byte[FULL_HASH_BUFFER_SIZE];
+			try (InputStream inputStream = Files.newInputStream(filePath)) {
+				updateDigest(inputStream, fileSize, buffer, messageDigest);
+			}
+			fullHash = StrUtils.byteArrayToHexString(messageDigest.digest());
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to compute hash of file:" +
+					System.lineSeparator() + filePath);
+			Logger.printThrowable(throwable);
+		}
+		return fullHash;
+	}
+
+	private static void updateDigest(
+			final InputStream inputStream,
+			final long byteCount,
+			final byte[] buffer,
+			final MessageDigest messageDigest) throws Exception {
+
+		long remainingByteCount = byteCount;
+		while (remainingByteCount > 0) {
+
+			final int readByteCount =
+					inputStream.read(buffer, 0, (int) Math.min(buffer.length, remainingByteCount));
+			if (readByteCount < 0) {
+				throw new EOFException();
+			}
+			messageDigest.update(buffer, 0, readByteCount);
+			remainingByteCount -= readByteCount;
+		}
+	}
+
+	public void save() {
+
+		try {
+			FactoryFolderCreator.getInstance().createParentDirectories(indexFilePathString, false, true);
+
+			final Path indexFilePath = Paths.get(indexFilePathString);
+			final Path tmpIndexFilePath = Paths.get(indexFilePathString + ".tmp");
+			try (BufferedWriter bufferedWriter = Files.newBufferedWriter(tmpIndexFilePath, StandardCharsets.UTF_8)) {
+
+				for (final DeduplicationEntry deduplicationEntry : deduplicationEntriesByFilePathString.values()) {
+
+					bufferedWriter.write(deduplicationEntry.toLine());
+					bufferedWriter.newLine();
+				}
+			}
+			Files.move(tmpIndexFilePath, indexFilePath,
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to save deduplication index:" +
+					System.lineSeparator() + indexFilePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	static String computeIndexFilePathString(
+			final String outputFolderPathString) {
+
+		return PathUtils.computePath(outputFolderPathString, ".google_photos_organizer", "dedup_index.tsv");
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+
+	/**
+	 * The hashes are set by the worker threads, which are joined before they are read again.
+	 */
+	private static final class Candidate {
+
+		private final String filePathString;
+		private final Path filePath;
+		private final long fileSize;
+		private final long lastModifiedTime;
+		private final boolean indexed;
+
+		private String partialHash;
+		private String fullHash;
+
+		Candidate(
+				final DeduplicationEntry deduplicationEntry,
+				final Path filePath,
+				final boolean indexed) {
+
+			filePathString = deduplicationEntry.filePathString();
+			this.filePath = filePath;
+			fileSize = deduplicationEntry.fileSize();
+			lastModifiedTime = deduplicationEntry.lastModifiedTime();
+			this.indexed = indexed;
+
+			partialHash = emptyToNull(deduplicationEntry.partialHash());
+			fullHash = emptyToNull(deduplicationEntry.fullHash());
+		}
+
+		private static String emptyToNull(
+				final String hash) {
+
+			String result = null;
+			if (!hash.isEmpty()) {
+				result = hash;
+			}
+			return result;
+		}
+
+		/**
+		 * The missing hashes of a file from an earlier run can only be computed while the file is unchanged.
+		 */
+		boolean checkReadable() {
+
+			boolean readable = true;
+			if (indexed) {
+
+				try {
+					readable = Files.isRegularFile(filePath) &&
+							Files.size(filePath) == fileSize &&
+							Files.getLastModifiedTime(filePath).toMillis() == lastModifiedTime;
+
+				} catch (final Throwable ignored) {
+					readable = false;
+				}
+			}
+			return readable;
+		}
+
+		void computeHash(
+				final boolean full) {
+
+			if (full) {
+				fullHash = computeFullHash(filePath, fileSize);
+			} else {
+				partialHash = computePartialHash(filePath, fileSize);
+			}
+		}
+
+		DeduplicationEntry createDeduplicationEntry() {
+
+			return new DeduplicationEntry(filePathString, fileSize, lastModifiedTime,
+					StringUtils.defaultString(partialHash), StringUtils.defaultString(fullHash));
+		}
+
+		long getFileSize() {
+			return fileSize;
+		}
+
+		String getPartialHash() {
+			return partialHash;
+		}
+
+		String getFullHash() {
+			return fullHash;
+		}
+
+		@Override
+		public String toString() {
+			return StrUtils.reflectionToString(this);
+		}
+	}
+}
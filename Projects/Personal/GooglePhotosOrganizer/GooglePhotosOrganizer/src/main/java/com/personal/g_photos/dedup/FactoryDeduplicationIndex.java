@@ -0,0 +1,17 @@
+package com.personal.g_photos.dedup;
+
+public final class FactoryDeduplicationIndex {
+
+	private FactoryDeduplicationIndex() {
+	}
+
+	public static DeduplicationIndex newInstance(
+			final String outputFolderPathString) {
+
+		final String indexFilePathString =
+				DeduplicationIndex.computeIndexFilePathString(outputFolderPathString);
+		final DeduplicationIndex deduplicationIndex = new DeduplicationIndex(indexFilePathString);
+		deduplicationIndex.load();
+		return deduplicationIndex;
+	}
+}
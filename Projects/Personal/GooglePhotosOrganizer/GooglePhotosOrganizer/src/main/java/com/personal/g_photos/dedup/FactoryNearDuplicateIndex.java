@@ -0,0 +1,18 @@
+package com.personal.g_photos.dedup;
+
+public final class FactoryNearDuplicateIndex {
+
+	private FactoryNearDuplicateIndex() {
+	}
+
+	public static NearDuplicateIndex newInstance(
+			final String outputFolderPathString,
+			final int maxDistance) {
+
+		final String indexFilePathString =
+				NearDuplicateIndex.computeIndexFilePathString(outputFolderPathString);
+		final NearDuplicateIndex nearDuplicateIndex = new NearDuplicateIndex(indexFilePathString, maxDistance);
+		nearDuplicateIndex.load();
+		return nearDuplicateIndex;
+	}
+}
@@ -0,0 +1,43 @@
+package com.personal.g_photos.dedup;
+
+import java.util.regex.Pattern;
+
+import com.utils.string.StrUtils;
+
+record NearDuplicateEntry(
+		String filePathString,
+		long fileSize,
+		long lastModifiedTime,
+		long hash,
+		long pixelCount) {
+
+	private static final String FIELD_SEPARATOR = "\t";
+	private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{16}");
+
+	String toLine() {
+
+		return String.join(FIELD_SEPARATOR, filePathString, String.valueOf(fileSize),
+				String.valueOf(lastModifiedTime), String.format("%016x", hash), String.valueOf(pixelCount));
+	}
+
+	/**
+	 * @return the entry, or null if the line is not a valid index line
+	 */
+	static NearDuplicateEntry parseLine(
+			final String line) {
+
+		NearDuplicateEntry nearDuplicateEntry = null;
+		final String[] fieldArray = line.split(FIELD_SEPARATOR, -1);
+		if (fieldArray.length == 5 && HASH_PATTERN.matcher(fieldArray[3]).matches()) {
+
+			final long fileSize = StrUtils.tryParsePositiveLong(fieldArray[1]);
+			final long lastModifiedTime = StrUtils.tryParsePositiveLong(fieldArray[2]);
+			final long pixelCount = StrUtils.tryParsePositiveLong(fieldArray[4]);
+			if (fileSize >= 0 && lastModifiedTime >= 0 && pixelCount >= 0) {
+				nearDuplicateEntry = new NearDuplicateEntry(fieldArray[0], fileSize, lastModifiedTime,
+						Long.parseUnsignedLong(fieldArray[3], 16), pixelCount);
+			}
+		}
+		return nearDuplicateEntry;
+	}
+}
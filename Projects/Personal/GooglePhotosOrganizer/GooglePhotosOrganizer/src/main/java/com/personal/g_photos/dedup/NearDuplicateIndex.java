@@ -0,0 +1,284 @@
+package com.personal.g_photos.dedup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.personal.g_photos.images.ImageResizer;
+import com.personal.g_photos.images.PerceptualHash;
+import com.personal.g_photos.images.PerceptualHasher;
+import com.personal.g_photos.manifest.ProcessingManifest;
+import com.utils.concurrency.no_progress.ConcurrencyUtilsSimpleRegular;
+import com.utils.io.IoUtils;
+import com.utils.io.PathUtils;
+import com.utils.io.ReaderUtils;
+import com.utils.io.folder_creators.FactoryFolderCreator;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Finds the photos that look like other photos, such as the edited versions and the copies re-shared at a different
+ * resolution, which the byte hashes of {@link DeduplicationIndex} cannot match. Every image gets a perceptual hash,
+ * and the hashes of the kept images are held in a BK-tree, so every new image is only compared to the few images
+ * with nearby hashes. The hashes are kept in the output folder, so the files of the earlier runs are not decoded
+ * again, and they win over the files of the current run.
+ * <p>
+ * Like in {@link DeduplicationIndex}, an image of an earlier run or of an earlier batch only wins once the processing
+ * manifest says that it reached the output, and an image whose last attempt failed never wins, so the images that
+ * look like a photo that was lost are processed.
+ * <p>
+ * Within a batch, the images are looked at from the largest to the smallest, so the original is kept and its smaller
+ * copies are reported, whatever their order in the scan.
+ */
+public class NearDuplicateIndex {
+
+	private static final ThreadLocal<PerceptualHasher> PERCEPTUAL_HASHER_THREAD_LOCAL =
+			ThreadLocal.withInitial(PerceptualHasher::new);
+
+	private final String indexFilePathString;
+	private final int maxDistance;
+	private final Map<String, NearDuplicateEntry> nearDuplicateEntriesByFilePathString;
+	private final BkTree<String> bkTree;
+
+	NearDuplicateIndex(
+			final String indexFilePathString,
+			final int maxDistance) {
+
+		this.indexFilePathString = indexFilePathString;
+		this.maxDistance = maxDistance;
+
+		nearDuplicateEntriesByFilePathString = new LinkedHashMap<>();
+		bkTree = new BkTree<>();
+	}
+
+	void load() {
+
+		if (IoUtils.fileExists(indexFilePathString)) {
+
+			Logger.printProgress("loading near-duplicate index:" +
+					System.lineSeparator() + indexFilePathString);
+
+			try (BufferedReader bufferedReader = ReaderUtils.openBufferedReader(indexFilePathString)) {
+
+				String line;
+				while ((line = bufferedReader.readLine()) != null) {
+
+					final NearDuplicateEntry nearDuplicateEntry = NearDuplicateEntry.parseLine(line);
+					if (nearDuplicateEntry != null) {
+						putEntry(nearDuplicateEntry);
+					}
+				}
+
+			} catch (final Throwable throwable) {
+				Logger.printError("failed to load near-duplicate index:" +
+						System.lineSeparator() + indexFilePathString);
+				Logger.printThrowable(throwable);
+			}
+			Logger.printLine("(near-duplicate index entries: " + nearDuplicateEntriesByFilePathString.size() + ")");
+		}
+	}
+
+	/**
+	 * Adds the images that are not near-duplicates to the index. Only the images that the JVM can decode are looked
+	 * at; the other files are never reported. The hashes of the new images are computed concurrently.
+	 *
+	 * @return the paths of the near-duplicate images, mapped to the paths of the images that they look like
+	 */
+	public Map<String, String> findNearDuplicates(
+			final List<String> filePathStringList,
+			final ArchiveFileSystems archiveFileSystems,
+			final ProcessingManifest processingManifest,
+			final int threadCount) {
+
+		final List<String> imageFilePathStringList = new ArrayList<>();
+		for (final String filePathString : filePathStringList) {
+
+			if (ImageResizer.checkSupported(filePathString)) {
+				imageFilePathStringList.add(filePathString);
+			}
+		}
+
+		final NearDuplicateEntry[] nearDuplicateEntryArray = new NearDuplicateEntry[imageFilePathStringList.size()];
+		final List<Runnable> runnableList = new ArrayList<>();
+		for (int i = 0; i < imageFilePathStringList.size(); i++) {
+
+			final String filePathString = imageFilePathStringList.get(i);
+			final Path filePath = archiveFileSystems.resolvePath(filePathString);
+			final BasicFileAttributes basicFileAttributes = readAttributes(filePath);
+			if (basicFileAttributes != null) {
+
+				final long fileSize = basicFileAttributes.size();
+				final long lastModifiedTime = basicFileAttributes.lastModifiedTime().toMillis();
+				final NearDuplicateEntry nearDuplicateEntry =
+						nearDuplicateEntriesByFilePathString.get(filePathString);
+				if (nearDuplicateEntry != null && nearDuplicateEntry.fileSize() == fileSize &&
+						nearDuplicateEntry.lastModifiedTime() == lastModifiedTime) {
+					nearDuplicateEntryArray[i] = nearDuplicateEntry;
+
+				} else {
+					final int index = i;
+					runnableList.add(() -> {
+
+						final PerceptualHash perceptualHash =
+								PERCEPTUAL_HASHER_THREAD_LOCAL.get().computeHash(filePath);
+						if (perceptualHash != null) {
+							nearDuplicateEntryArray[index] = new NearDuplicateEntry(filePathString, fileSize,
+									lastModifiedTime, perceptualHash.hash(), perceptualHash.pixelCount());
+						}
+					});
+				}
+			}
+		}
+		if (!runnableList.isEmpty()) {
+			new ConcurrencyUtilsSimpleRegular(threadCount).executeMultiThreadedTask(runnableList);
+		}
+
+		final List<NearDuplicateEntry> nearDuplicateEntryList = new ArrayList<>();
+		for (final NearDuplicateEntry nearDuplicateEntry : nearDuplicateEntryArray) {
+
+			if (nearDuplicateEntry != null) {
+				nearDuplicateEntryList.add(nearDuplicateEntry);
+			}
+		}
+		nearDuplicateEntryList.sort(Comparator.comparingLong(NearDuplicateEntry::pixelCount).reversed());
+
+		final Set<String> keptNewFilePathStringSet = new HashSet<>();
+		final Map<String, String> keptFilePathStringsByNearDuplicateFilePathString = new HashMap<>();
+		for (final NearDuplicateEntry nearDuplicateEntry : nearDuplicateEntryList) {
+
+			final String filePathString = nearDuplicateEntry.filePathString();
+			final String keptFilePathString =
+					findKeptFilePathString(nearDuplicateEntry, keptNewFilePathStringSet, processingManifest);
+			if (keptFilePathString != null) {
+
+				keptFilePathStringsByNearDuplicateFilePathString.put(filePathString, keptFilePathString);
+				nearDuplicateEntriesByFilePathString.remove(filePathString);
+
+			} else {
+				putEntry(nearDuplicateEntry);
+				if (!processingManifest.checkFailed(filePathString,
+						nearDuplicateEntry.fileSize(), nearDuplicateEntry.lastModifiedTime())) {
+					keptNewFilePathStringSet.add(filePathString);
+				}
+			}
+		}
+
+		final Map<String, String> orderedKeptFilePathStringsByNearDuplicateFilePathString = new LinkedHashMap<>();
+		for (final String filePathString : imageFilePathStringList) {
+
+			final String keptFilePathString = keptFilePathStringsByNearDuplicateFilePathString.get(filePathString);
+			if (keptFilePathString != null) {
+				orderedKeptFilePathStringsByNearDuplicateFilePathString.put(filePathString, keptFilePathString);
+			}
+		}
+		return orderedKeptFilePathStringsByNearDuplicateFilePathString;
+	}
+
+	/**
+	 * The tree is never pruned, so a match only counts if it is another file that is still in the index with the hash
+	 * that it was added with. It must also be either an image of this batch that was already kept and did not fail the
+	 * last time, or an image that the manifest says was processed.
+	 *
+	 * @return the path of the nearest other indexed image, or null if there is none within the maximum distance
+	 */
+	private String findKeptFilePathString(
+			final NearDuplicateEntry nearDuplicateEntry,
+			final Set<String> keptNewFilePathStringSet,
+			final ProcessingManifest processingManifest) {
+
+		String keptFilePathString = null;
+		final List<BkTree.Match<String>> matchList = bkTree.search(nearDuplicateEntry.hash(), maxDistance);
+		for (final BkTree.Match<String> match : matchList) {
+
+			final String filePathString = match.value();
+			final NearDuplicateEntry indexedNearDuplicateEntry =
+					nearDuplicateEntriesByFilePathString.get(filePathString);
+			if (!filePathString.equals(nearDuplicateEntry.filePathString()) &&
+					indexedNearDuplicateEntry != null && indexedNearDuplicateEntry.hash() == match.hash() &&
+					(keptNewFilePathStringSet.contains(filePathString) ||
+							processingManifest.checkProcessed(filePathString, indexedNearDuplicateEntry.fileSize(),
+									indexedNearDuplicateEntry.lastModifiedTime()))) {
+
+				keptFilePathString = filePathString;
+				break;
+			}
+		}
+		return keptFilePathString;
+	}
+
+	private void putEntry(
+			final NearDuplicateEntry nearDuplicateEntry) {
+
+		final String filePathString = nearDuplicateEntry.filePathString();
+		final NearDuplicateEntry previousNearDuplicateEntry =
+				nearDuplicateEntriesByFilePathString.put(filePathString, nearDuplicateEntry);
+		if (previousNearDuplicateEntry == null || previousNearDuplicateEntry.hash() != nearDuplicateEntry.hash()) {
+			bkTree.add(nearDuplicateEntry.hash(), filePathString);
+		}
+	}
+
+	private static BasicFileAttributes readAttributes(
+			final Path filePath) {
+
+		BasicFileAttributes basicFileAttributes = null;
+		try {
+			basicFileAttributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to read attributes of file:" +
+					System.lineSeparator() + filePath);
+			Logger.printThrowable(throwable);
+		}
+		return basicFileAttributes;
+	}
+
+	public void save() {
+
+		try {
+			FactoryFolderCreator.getInstance().createParentDirectories(indexFilePathString, false, true);
+
+			final Path indexFilePath = Paths.get(indexFilePathString);
+			final Path tmpIndexFilePath = Paths.get(indexFilePathString + ".tmp");
+			try (BufferedWriter bufferedWriter = Files.newBufferedWriter(tmpIndexFilePath, StandardCharsets.UTF_8)) {
+
+				for (final NearDuplicateEntry nearDuplicateEntry : nearDuplicateEntriesByFilePathString.values()) {
+
+					bufferedWriter.write(nearDuplicateEntry.toLine());
+					bufferedWriter.newLine();
+				}
+			}
+			Files.move(tmpIndexFilePath, indexFilePath,
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to save near-duplicate index:" +
+					System.lineSeparator() + indexFilePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	static String computeIndexFilePathString(
+			final String outputFolderPathString) {
+
+		return PathUtils.computePath(outputFolderPathString, ".google_photos_organizer", "near_dedup_index.tsv");
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
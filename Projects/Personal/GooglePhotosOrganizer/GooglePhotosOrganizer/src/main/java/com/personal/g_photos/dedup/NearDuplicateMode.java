@@ -0,0 +1,29 @@
+package com.personal.g_photos.dedup;
+
+/**
+ * What happens to the photos that look like a photo that is kept: they are either left out or written next to each
+ * other, in a folder of the output named after the kept photo, to be reviewed.
+ */
+public enum NearDuplicateMode {
+
+	SKIP,
+	GROUP;
+
+	/**
+	 * @return the near-duplicate mode with the given name, ignoring the case, or null if there is none
+	 */
+	public static NearDuplicateMode parse(
+			final String name) {
+
+		NearDuplicateMode nearDuplicateMode = null;
+		for (final NearDuplicateMode value : values()) {
+
+			if (value.name().equalsIgnoreCase(name)) {
+
+				nearDuplicateMode = value;
+				break;
+			}
+		}
+		return nearDuplicateMode;
+	}
+}
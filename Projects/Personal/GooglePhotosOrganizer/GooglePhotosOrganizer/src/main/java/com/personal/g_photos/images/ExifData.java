@@ -0,0 +1,14 @@
+package com.personal.g_photos.images;
+
+import java.time.ZonedDateTime;
+
+/**
+ * @param dateTimeOriginal
+ *            the photo taken time, or null if it is not known
+ * @param geoLocation
+ *            the location where the photo was taken, or null if it is not known
+ */
+public record ExifData(
+		ZonedDateTime dateTimeOriginal,
+		GeoLocation geoLocation) {
+}
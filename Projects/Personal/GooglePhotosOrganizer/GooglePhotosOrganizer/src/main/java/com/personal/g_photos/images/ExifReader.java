@@ -0,0 +1,225 @@
+package com.personal.g_photos.images;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Reads tags from the EXIF segment of a JPEG file that was loaded in memory.
+ */
+public final class ExifReader {
+
+	public static final int ORIENTATION_NORMAL = 1;
+
+	private static final int TAG_ORIENTATION = 0x0112;
+	private static final int TAG_EXIF_IFD_POINTER = 0x8769;
+	private static final int TAG_DATE_TIME_ORIGINAL = 0x9003;
+	private static final int TAG_OFFSET_TIME_ORIGINAL = 0x9011;
+	private static final int TYPE_ASCII = 2;
+
+	private static final DateTimeFormatter DATE_TIME_FORMATTER =
+			DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss", Locale.US);
+
+	private ExifReader() {
+	}
+
+	/**
+	 * @return the EXIF orientation, from 1 to 8, or {@link #ORIENTATION_NORMAL} if the file does not have it
+	 */
+	public static int readOrientation(
+			final byte[] byteArray,
+			final int length) {
+
+		int orientation = ORIENTATION_NORMAL;
+		final int tiffHeaderIndex = findTiffHeaderIndex(byteArray, length);
+		if (tiffHeaderIndex >= 0) {
+
+			final boolean littleEndian = byteArray[tiffHeaderIndex] == 'I';
+			final int ifdIndex = tiffHeaderIndex + readInt(byteArray, tiffHeaderIndex + 4, littleEndian);
+			final int entryIndex = findIfdEntryIndex(byteArray, length, ifdIndex, TAG_ORIENTATION, littleEndian);
+			if (entryIndex >= 0) {
+
+				final int value = readShort(byteArray, entryIndex + 8, littleEndian);
+				if (value >= 1 && value <= 8) {
+					orientation = value;
+				}
+			}
+		}
+		return orientation;
+	}
+
+	/**
+	 * The date time original is a local time; it is taken in its offset time original, if the file has one, and in the
+	 * given time zone otherwise.
+	 *
+	 * @return the date time original, or null if the file does not have a valid one
+	 */
+	public static Instant readDateTimeOriginal(
+			final byte[] byteArray,
+			final int length,
+			final ZoneId zoneId) {
+
+		Instant dateTimeOriginalInstant = null;
+		final int tiffHeaderIndex = findTiffHeaderIndex(byteArray, length);
+		if (tiffHeaderIndex >= 0) {
+
+			final boolean littleEndian = byteArray[tiffHeaderIndex] == 'I';
+			final int ifdIndex = tiffHeaderIndex + readInt(byteArray, tiffHeaderIndex + 4, littleEndian);
+			final int exifIfdPointerEntryIndex =
+					findIfdEntryIndex(byteArray, length, ifdIndex, TAG_EXIF_IFD_POINTER, littleEndian);
+			if (exifIfdPointerEntryIndex >= 0) {
+
+				final int exifIfdIndex =
+						tiffHeaderIndex + readInt(byteArray, exifIfdPointerEntryIndex + 8, littleEndian);
+				final String dateTimeOriginal = readAscii(byteArray, length, tiffHeaderIndex, exifIfdIndex,
+						TAG_DATE_TIME_ORIGINAL, littleEndian);
+				if (dateTimeOriginal != null) {
+
+					try {
+						final LocalDateTime localDateTime = LocalDateTime.parse(dateTimeOriginal, DATE_TIME_FORMATTER);
+						final String offsetTimeOriginal = readAscii(byteArray, length, tiffHeaderIndex, exifIfdIndex,
+								TAG_OFFSET_TIME_ORIGINAL, littleEndian);
+						if (offsetTimeOriginal != null) {
+							dateTimeOriginalInstant = localDateTime.toInstant(ZoneOffset.of(offsetTimeOriginal));
+						} else {
+							dateTimeOriginalInstant = localDateTime.atZone(zoneId).toInstant();
+						}
+
+					} catch (final Exception ignored) {
+						// cameras without a clock write zeros or spaces, which are not a time
+					}
+				}
+			}
+		}
+		return dateTimeOriginalInstant;
+	}
+
+	/**
+	 * @return the ASCII value of the entry, without the terminating zero, or null if the IFD does not have it
+	 */
+	private static String readAscii(
+			final byte[] byteArray,
+			final int length,
+			final int tiffHeaderIndex,
+			final int ifdIndex,
+			final int tag,
+			final boolean littleEndian) {
+
+		String value = null;
+		final int entryIndex = findIfdEntryIndex(byteArray, length, ifdIndex, tag, littleEndian);
+		if (entryIndex >= 0 && readShort(byteArray, entryIndex + 2, littleEndian) == TYPE_ASCII) {
+
+			final int count = readInt(byteArray, entryIndex + 4, littleEndian);
+			final int valueIndex;
+			if (count <= 4) {
+				valueIndex = entryIndex + 8;
+			} else {
+				valueIndex = tiffHeaderIndex + readInt(byteArray, entryIndex + 8, littleEndian);
+			}
+			if (count > 0 && valueIndex >= 0 && valueIndex + count <= length) {
+
+				int valueLength = count;
+				while (valueLength > 0 && byteArray[valueIndex + valueLength - 1] == 0) {
+					valueLength--;
+				}
+				value = new String(byteArray, valueIndex, valueLength, StandardCharsets.US_ASCII);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @return the index of the TIFF header inside the APP1 "Exif" segment, or -1 if the file does not have one
+	 */
+	static int findTiffHeaderIndex(
+			final byte[] byteArray,
+			final int length) {
+
+		int tiffHeaderIndex = -1;
+		if (length >= 4 && (byteArray[0] & 0xFF) == 0xFF && (byteArray[1] & 0xFF) == 0xD8) {
+
+			int index = 2;
+			while (index + 4 <= length && (byteArray[index] & 0xFF) == 0xFF) {
+
+				final int marker = byteArray[index + 1] & 0xFF;
+				if (marker == 0xDA || marker == 0xD9) {
+					break;
+				}
+
+				final int segmentLength = readShort(byteArray, index + 2, false);
+				if (marker == 0xE1 && segmentLength >= 16 && index + 2 + segmentLength <= length &&
+						byteArray[index + 4] == 'E' && byteArray[index + 5] == 'x' &&
+						byteArray[index + 6] == 'i' && byteArray[index + 7] == 'f' &&
+						byteArray[index + 8] == 0 && byteArray[index + 9] == 0) {
+
+					tiffHeaderIndex = index + 10;
+					break;
+				}
+				index += 2 + segmentLength;
+			}
+		}
+		return tiffHeaderIndex;
+	}
+
+	/**
+	 * @return the index of the 12 byte IFD entry with the given tag, or -1 if the IFD does not have it
+	 */
+	static int findIfdEntryIndex(
+			final byte[] byteArray,
+			final int length,
+			final int ifdIndex,
+			final int tag,
+			final boolean littleEndian) {
+
+		int ifdEntryIndex = -1;
+		if (ifdIndex >= 0 && ifdIndex + 2 <= length) {
+
+			final int entryCount = readShort(byteArray, ifdIndex, littleEndian);
+			for (int i = 0; i < entryCount; i++) {
+
+				final int entryIndex = ifdIndex + 2 + 12 * i;
+				if (entryIndex + 12 > length) {
+					break;
+				}
+				if (readShort(byteArray, entryIndex, littleEndian) == tag) {
+
+					ifdEntryIndex = entryIndex;
+					break;
+				}
+			}
+		}
+		return ifdEntryIndex;
+	}
+
+	static int readShort(
+			final byte[] byteArray,
+			final int index,
+			final boolean littleEndian) {
+
+		final int value;
+		if (littleEndian) {
+			value = (byteArray[index] & 0xFF) | (byteArray[index + 1] & 0xFF) << 8;
+		} else {
+			value = (byteArray[index] & 0xFF) << 8 | (byteArray[index + 1] & 0xFF);
+		}
+		return value;
+	}
+
+	static int readInt(
+			final byte[] byteArray,
+			final int index,
+			final boolean littleEndian) {
+
+		final int value;
+		if (littleEndian) {
+			value = readShort(byteArray, index, true) | readShort(byteArray, index + 2, true) << 16;
+		} else {
+			value = readShort(byteArray, index, false) << 16 | readShort(byteArray, index + 2, false);
+		}
+		return value;
+	}
+}
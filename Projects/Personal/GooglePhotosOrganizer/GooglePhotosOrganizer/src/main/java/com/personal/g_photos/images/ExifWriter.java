@@ -0,0 +1,411 @@
+package com.personal.g_photos.images;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import com.utils.log.Logger;
+
+/**
+ * Writes the photo taken time and the location in the EXIF segment of a JPEG file that was loaded in memory, while the
+ * file is written to the output, so that the file is not read a second time. Only the EXIF segment changes; the
+ * compressed image data is written as it is.
+ * <p>
+ * The offsets inside the EXIF segment are relative to its TIFF header, so the existing TIFF data is kept as it is and
+ * the changed directories are appended after it, with the TIFF header pointing to the new first directory. The tags of
+ * the camera, maker notes included, keep their offsets and stay valid. A location that the file already has is kept,
+ * since it comes from the camera itself.
+ */
+public final class ExifWriter {
+
+	private static final int MARKER_APP0 = 0xE0;
+	private static final int MARKER_APP1 = 0xE1;
+	private static final byte[] EXIF_IDENTIFIER = { 'E', 'x', 'i', 'f', 0, 0 };
+	private static final int MAX_SEGMENT_LENGTH = 0xFFFF;
+	private static final int IFD_ENTRY_LENGTH = 12;
+
+	private static final int TAG_EXIF_IFD_POINTER = 0x8769;
+	private static final int TAG_GPS_IFD_POINTER = 0x8825;
+	private static final int TAG_DATE_TIME_ORIGINAL = 0x9003;
+	private static final int TAG_OFFSET_TIME_ORIGINAL = 0x9011;
+	private static final int TAG_GPS_VERSION_ID = 0x0000;
+	private static final int TAG_GPS_LATITUDE_REF = 0x0001;
+	private static final int TAG_GPS_LATITUDE = 0x0002;
+	private static final int TAG_GPS_LONGITUDE_REF = 0x0003;
+	private static final int TAG_GPS_LONGITUDE = 0x0004;
+	private static final int TAG_GPS_ALTITUDE_REF = 0x0005;
+	private static final int TAG_GPS_ALTITUDE = 0x0006;
+
+	private static final int TYPE_BYTE = 1;
+	private static final int TYPE_ASCII = 2;
+	private static final int TYPE_LONG = 4;
+	private static final int TYPE_RATIONAL = 5;
+
+	private static final DateTimeFormatter DATE_TIME_FORMATTER =
+			DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss", Locale.US);
+	private static final DateTimeFormatter OFFSET_FORMATTER = DateTimeFormatter.ofPattern("xxx", Locale.US);
+
+	private ExifWriter() {
+	}
+
+	/**
+	 * Writes the file to the output stream, unchanged if it is not a JPEG file, if there is no data to write or if its
+	 * EXIF segment cannot be parsed.
+	 *
+	 * @param exifData
+	 *            the data to write, or null to write the file unchanged
+	 * @return true if the EXIF segment was written, false if the file was written unchanged
+	 */
+	public static boolean writeJpeg(
+			final byte[] byteArray,
+			final int length,
+			final ExifData exifData,
+			final OutputStream outputStream) throws Exception {
+
+		boolean written = false;
+		if (exifData != null && length >= 4 &&
+				(byteArray[0] & 0xFF) == 0xFF && (byteArray[1] & 0xFF) == 0xD8) {
+
+			final int tiffHeaderIndex = ExifReader.findTiffHeaderIndex(byteArray, length);
+			final int segmentIndex;
+			final int segmentEndIndex;
+			if (tiffHeaderIndex >= 0) {
+
+				segmentIndex = tiffHeaderIndex - 2 - 2 - EXIF_IDENTIFIER.length;
+				segmentEndIndex = segmentIndex + 2 + ExifReader.readShort(byteArray, segmentIndex + 2, false);
+
+			} else {
+				segmentIndex = computeInsertionIndex(byteArray, length);
+				segmentEndIndex = segmentIndex;
+			}
+
+			byte[] tiffByteArray = null;
+			try {
+				tiffByteArray = createTiff(byteArray, tiffHeaderIndex, segmentEndIndex - tiffHeaderIndex, exifData);
+				if (2 + EXIF_IDENTIFIER.length + tiffByteArray.length > MAX_SEGMENT_LENGTH) {
+
+					Logger.printWarning("the EXIF segment would be too long, the file is written without it");
+					tiffByteArray = null;
+				}
+
+			} catch (final Throwable throwable) {
+				Logger.printError("failed to create EXIF segment, the file is written without it");
+				Logger.printThrowable(throwable);
+			}
+
+			if (tiffByteArray != null) {
+
+				final int segmentLength = 2 + EXIF_IDENTIFIER.length + tiffByteArray.length;
+				outputStream.write(byteArray, 0, segmentIndex);
+				outputStream.write(0xFF);
+				outputStream.write(MARKER_APP1);
+				outputStream.write(segmentLength >> 8);
+				outputStream.write(segmentLength & 0xFF);
+				outputStream.write(EXIF_IDENTIFIER);
+				outputStream.write(tiffByteArray);
+				outputStream.write(byteArray, segmentEndIndex, length - segmentEndIndex);
+				written = true;
+			}
+		}
+
+		if (!written) {
+			outputStream.write(byteArray, 0, length);
+		}
+		return written;
+	}
+
+	/**
+	 * @return the index right after the start of image marker and the JFIF segments, which must come first
+	 */
+	private static int computeInsertionIndex(
+			final byte[] byteArray,
+			final int length) {
+
+		int index = 2;
+		while (index + 4 <= length && (byteArray[index] & 0xFF) == 0xFF &&
+				(byteArray[index + 1] & 0xFF) == MARKER_APP0) {
+			index += 2 + ExifReader.readShort(byteArray, index + 2, false);
+		}
+		return Math.min(index, length);
+	}
+
+	/**
+	 * @param tiffHeaderIndex
+	 *            the index of the existing TIFF header, or -1 if the file has no EXIF segment
+	 */
+	private static byte[] createTiff(
+			final byte[] byteArray,
+			final int tiffHeaderIndex,
+			final int tiffLength,
+			final ExifData exifData) {
+
+		final boolean littleEndian = tiffHeaderIndex >= 0 && byteArray[tiffHeaderIndex] == 'I';
+		final ByteOrder byteOrder;
+		if (littleEndian) {
+			byteOrder = ByteOrder.LITTLE_ENDIAN;
+		} else {
+			byteOrder = ByteOrder.BIG_ENDIAN;
+		}
+
+		final List<byte[]> ifd0EntryList = new ArrayList<>();
+		final List<byte[]> exifIfdEntryList = new ArrayList<>();
+		int nextIfdOffset = 0;
+		if (tiffHeaderIndex >= 0) {
+
+			final int ifd0Offset = ExifReader.readInt(byteArray, tiffHeaderIndex + 4, littleEndian);
+			nextIfdOffset = readIfdEntries(byteArray, tiffHeaderIndex, tiffLength, ifd0Offset, littleEndian,
+					ifd0EntryList);
+
+			final byte[] exifIfdPointerEntry = findEntry(ifd0EntryList, TAG_EXIF_IFD_POINTER, littleEndian);
+			if (exifIfdPointerEntry != null) {
+
+				final int exifIfdOffset = ExifReader.readInt(exifIfdPointerEntry, 8, littleEndian);
+				readIfdEntries(byteArray, tiffHeaderIndex, tiffLength, exifIfdOffset, littleEndian,
+						exifIfdEntryList);
+			}
+		}
+
+		final int capacity = Math.max(tiffLength, 8) + 1024 +
+				IFD_ENTRY_LENGTH * (ifd0EntryList.size() + exifIfdEntryList.size());
+		final ByteBuffer byteBuffer = ByteBuffer.allocate(capacity).order(byteOrder);
+		if (tiffHeaderIndex >= 0) {
+			byteBuffer.put(byteArray, tiffHeaderIndex, tiffLength);
+
+		} else {
+			byteBuffer.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8);
+		}
+
+		final ZonedDateTime dateTimeOriginal = exifData.dateTimeOriginal();
+		if (dateTimeOriginal != null) {
+
+			final int dateTimeOffset = putAscii(byteBuffer, DATE_TIME_FORMATTER.format(dateTimeOriginal));
+			final int offsetTimeOffset = putAscii(byteBuffer, OFFSET_FORMATTER.format(dateTimeOriginal));
+			putEntry(exifIfdEntryList, createEntry(byteOrder, TAG_DATE_TIME_ORIGINAL, TYPE_ASCII, 20,
+					dateTimeOffset), littleEndian);
+			putEntry(exifIfdEntryList, createEntry(byteOrder, TAG_OFFSET_TIME_ORIGINAL, TYPE_ASCII, 7,
+					offsetTimeOffset), littleEndian);
+
+			final int exifIfdOffset = putIfd(byteBuffer, exifIfdEntryList, 0, littleEndian);
+			putEntry(ifd0EntryList, createEntry(byteOrder, TAG_EXIF_IFD_POINTER, TYPE_LONG, 1,
+					exifIfdOffset), littleEndian);
+		}
+
+		final GeoLocation geoLocation = exifData.geoLocation();
+		if (geoLocation != null && findEntry(ifd0EntryList, TAG_GPS_IFD_POINTER, littleEndian) == null) {
+
+			final int gpsIfdOffset = putGpsIfd(byteBuffer, geoLocation, littleEndian);
+			putEntry(ifd0EntryList, createEntry(byteOrder, TAG_GPS_IFD_POINTER, TYPE_LONG, 1,
+					gpsIfdOffset), littleEndian);
+		}
+
+		final int ifd0Offset = putIfd(byteBuffer, ifd0EntryList, nextIfdOffset, littleEndian);
+		byteBuffer.putInt(4, ifd0Offset);
+		return Arrays.copyOf(byteBuffer.array(), byteBuffer.position());
+	}
+
+	/**
+	 * @return the offset of the next IFD
+	 */
+	private static int readIfdEntries(
+			final byte[] byteArray,
+			final int tiffHeaderIndex,
+			final int tiffLength,
+			final int ifdOffset,
+			final boolean littleEndian,
+			final List<byte[]> entryList) {
+
+		if (ifdOffset < 8 || ifdOffset + 2 > tiffLength) {
+			throw new IllegalArgumentException("invalid IFD offset " + ifdOffset);
+		}
+		final int entryCount = ExifReader.readShort(byteArray, tiffHeaderIndex + ifdOffset, littleEndian);
+		final int nextIfdOffsetIndex = ifdOffset + 2 + IFD_ENTRY_LENGTH * entryCount;
+		if (nextIfdOffsetIndex + 4 > tiffLength) {
+			throw new IllegalArgumentException("invalid IFD entry count " + entryCount);
+		}
+
+		for (int i = 0; i < entryCount; i++) {
+
+			final int entryIndex = tiffHeaderIndex + ifdOffset + 2 + IFD_ENTRY_LENGTH * i;
+			entryList.add(Arrays.copyOfRange(byteArray, entryIndex, entryIndex + IFD_ENTRY_LENGTH));
+		}
+		return ExifReader.readInt(byteArray, tiffHeaderIndex + nextIfdOffsetIndex, littleEndian);
+	}
+
+	private static int putGpsIfd(
+			final ByteBuffer byteBuffer,
+			final GeoLocation geoLocation,
+			final boolean littleEndian) {
+
+		final ByteOrder byteOrder = byteBuffer.order();
+		final double latitude = geoLocation.latitude();
+		final double longitude = geoLocation.longitude();
+		final double altitude = geoLocation.altitude();
+
+		final int latitudeOffset = putDegrees(byteBuffer, Math.abs(latitude));
+		final int longitudeOffset = putDegrees(byteBuffer, Math.abs(longitude));
+		final int altitudeOffset = putRational(byteBuffer, Math.round(Math.abs(altitude) * 100), 100);
+
+		final char latitudeRef;
+		if (latitude >= 0) {
+			latitudeRef = 'N';
+		} else {
+			latitudeRef = 'S';
+		}
+		final char longitudeRef;
+		if (longitude >= 0) {
+			longitudeRef = 'E';
+		} else {
+			longitudeRef = 'W';
+		}
+		final byte altitudeRef;
+		if (altitude >= 0) {
+			altitudeRef = 0;
+		} else {
+			altitudeRef = 1;
+		}
+
+		final List<byte[]> gpsIfdEntryList = new ArrayList<>();
+		gpsIfdEntryList.add(createInlineEntry(byteOrder, TAG_GPS_VERSION_ID, TYPE_BYTE, 4,
+				new byte[] { 2, 3, 0, 0 }));
+		gpsIfdEntryList.add(createInlineEntry(byteOrder, TAG_GPS_LATITUDE_REF, TYPE_ASCII, 2,
+				new byte[] { (byte) latitudeRef, 0 }));
+		gpsIfdEntryList.add(createEntry(byteOrder, TAG_GPS_LATITUDE, TYPE_RATIONAL, 3, latitudeOffset));
+		gpsIfdEntryList.add(createInlineEntry(byteOrder, TAG_GPS_LONGITUDE_REF, TYPE_ASCII, 2,
+				new byte[] { (byte) longitudeRef, 0 }));
+		gpsIfdEntryList.add(createEntry(byteOrder, TAG_GPS_LONGITUDE, TYPE_RATIONAL, 3, longitudeOffset));
+		gpsIfdEntryList.add(createInlineEntry(byteOrder, TAG_GPS_ALTITUDE_REF, TYPE_BYTE, 1,
+				new byte[] { altitudeRef }));
+		gpsIfdEntryList.add(createEntry(byteOrder, TAG_GPS_ALTITUDE, TYPE_RATIONAL, 1, altitudeOffset));
+		return putIfd(byteBuffer, gpsIfdEntryList, 0, littleEndian);
+	}
+
+	/**
+	 * Writes the degrees, the minutes and the seconds, in hundredths of milliseconds of arc.
+	 *
+	 * @return the offset of the values
+	 */
+	private static int putDegrees(
+			final ByteBuffer byteBuffer,
+			final double degrees) {
+
+		final long totalSeconds = Math.round(degrees * 3600 * 10_000);
+		final int offset = putRational(byteBuffer, totalSeconds / (3600 * 10_000), 1);
+		putRational(byteBuffer, totalSeconds / (60 * 10_000) % 60, 1);
+		putRational(byteBuffer, totalSeconds % (60 * 10_000), 10_000);
+		return offset;
+	}
+
+	private static int putRational(
+			final ByteBuffer byteBuffer,
+			final long numerator,
+			final int denominator) {
+
+		align(byteBuffer);
+		final int offset = byteBuffer.position();
+		byteBuffer.putInt((int) numerator).putInt(denominator);
+		return offset;
+	}
+
+	private static int putAscii(
+			final ByteBuffer byteBuffer,
+			final String string) {
+
+		align(byteBuffer);
+		final int offset = byteBuffer.position();
+		byteBuffer.put(string.getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+		return offset;
+	}
+
+	/**
+	 * Writes the entries sorted by their tags, as the TIFF format requires.
+	 *
+	 * @return the offset of the IFD
+	 */
+	private static int putIfd(
+			final ByteBuffer byteBuffer,
+			final List<byte[]> entryList,
+			final int nextIfdOffset,
+			final boolean littleEndian) {
+
+		entryList.sort(Comparator.comparingInt(entry -> ExifReader.readShort(entry, 0, littleEndian)));
+
+		align(byteBuffer);
+		final int offset = byteBuffer.position();
+		byteBuffer.putShort((short) entryList.size());
+		for (final byte[] entry : entryList) {
+			byteBuffer.put(entry);
+		}
+		byteBuffer.putInt(nextIfdOffset);
+		return offset;
+	}
+
+	private static void align(
+			final ByteBuffer byteBuffer) {
+
+		if (byteBuffer.position() % 2 != 0) {
+			byteBuffer.put((byte) 0);
+		}
+	}
+
+	private static byte[] findEntry(
+			final List<byte[]> entryList,
+			final int tag,
+			final boolean littleEndian) {
+
+		byte[] foundEntry = null;
+		for (final byte[] entry : entryList) {
+
+			if (ExifReader.readShort(entry, 0, littleEndian) == tag) {
+
+				foundEntry = entry;
+				break;
+			}
+		}
+		return foundEntry;
+	}
+
+	private static void putEntry(
+			final List<byte[]> entryList,
+			final byte[] entry,
+			final boolean littleEndian) {
+
+		final int tag = ExifReader.readShort(entry, 0, littleEndian);
+		entryList.removeIf(existingEntry -> ExifReader.readShort(existingEntry, 0, littleEndian) == tag);
+		entryList.add(entry);
+	}
+
+	private static byte[] createEntry(
+			final ByteOrder byteOrder,
+			final int tag,
+			final int type,
+			final int count,
+			final int valueOffset) {
+
+		final ByteBuffer byteBuffer = ByteBuffer.allocate(IFD_ENTRY_LENGTH).order(byteOrder);
+		byteBuffer.putShort((short) tag).putShort((short) type).putInt(count).putInt(valueOffset);
+		return byteBuffer.array();
+	}
+
+	/**
+	 * The values that fit in 4 bytes are stored in the entry itself, aligned to its start.
+	 */
+	private static byte[] createInlineEntry(
+			final ByteOrder byteOrder,
+			final int tag,
+			final int type,
+			final int count,
+			final byte[] valueByteArray) {
+
+		final ByteBuffer byteBuffer = ByteBuffer.allocate(IFD_ENTRY_LENGTH).order(byteOrder);
+		byteBuffer.putShort((short) tag).putShort((short) type).putInt(count).put(valueByteArray);
+		return byteBuffer.array();
+	}
+}
@@ -0,0 +1,15 @@
+package com.personal.g_photos.images;
+
+/**
+ * @param latitude
+ *            in degrees, negative to the south
+ * @param longitude
+ *            in degrees, negative to the west
+ * @param altitude
+ *            in meters, negative below the sea level
+ */
+public record GeoLocation(
+		double latitude,
+		double longitude,
+		double altitude) {
+}
@@ -0,0 +1,470 @@
+package com.personal.g_photos.images;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import org.apache.commons.lang3.Strings;
+
+import com.personal.g_photos.thumbnails.ThumbnailCache;
+import com.utils.io.PathUtils;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Downscales images so that their longest edge is at most {@link #MAX_EDGE_LENGTH} pixels and writes them as JPEG,
+ * inside the JVM. The file, the pixel rows and the scaled pixels are held in buffers that are reused from one image to
+ * the next, so an instance is not thread safe; every thread should use its own.
+ * <p>
+ * A decoded photo takes tens of megabytes, so the number of images that are resized at the same time is limited to
+ * the number of cores, regardless of how many threads share the work.
+ * <p>
+ * The photo taken time and the location are written in the EXIF segment of the output file by {@link ExifWriter},
+ * while the file is written, for the copied files as well as for the resized ones.
+ * <p>
+ * When a thumbnail cache is given, a thumbnail of at most {@link #THUMBNAIL_MAX_EDGE_LENGTH} pixels is made from the
+ * pixels that are already in memory, so the photo is decoded only once for both outputs. The thumbnails are keyed by
+ * the hash of the file, which is computed from the file buffer, without reading the file again. The JPEG files that are
+ * copied as they are need no decoding for the output, so they are only decoded, at a reduced resolution, when the
+ * cache does not have their thumbnail yet.
+ */
+public final class ImageResizer {
+
+	public static final int MAX_EDGE_LENGTH = 1920;
+	public static final int THUMBNAIL_MAX_EDGE_LENGTH = 256;
+
+	private static final float JPEG_QUALITY = 0.9f;
+	private static final float THUMBNAIL_JPEG_QUALITY = 0.8f;
+	private static final String THUMBNAIL_KEY_ALGORITHM = "SHA-256";
+	private static final int INITIAL_FILE_BUFFER_SIZE = 1024 * 1024;
+
+	private static final Semaphore RESIZE_SEMAPHORE = new Semaphore(Runtime.getRuntime().availableProcessors());
+
+	private final ImageWriter imageWriter;
+	private final ImageWriteParam imageWriteParam;
+	private final ImageWriteParam thumbnailImageWriteParam;
+
+	private final ByteArrayOutputStream encodedByteArrayOutputStream;
+
+	private byte[] fileBuffer;
+	private int fileLength;
+	private int[] rowPixels;
+	private int[] columnStartIndices;
+	private int[] channelSums;
+	private int[] scaledPixels;
+	private int scaledWidth;
+	private int scaledHeight;
+	private BufferedImage outputImage;
+	private BufferedImage thumbnailImage;
+
+	public ImageResizer() {
+
+		imageWriter = ImageIO.getImageWritersByFormatName("jpeg").next();
+		imageWriteParam = imageWriter.getDefaultWriteParam();
+		imageWriteParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		imageWriteParam.setCompressionQuality(JPEG_QUALITY);
+		thumbnailImageWriteParam = imageWriter.getDefaultWriteParam();
+		thumbnailImageWriteParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		thumbnailImageWriteParam.setCompressionQuality(THUMBNAIL_JPEG_QUALITY);
+
+		encodedByteArrayOutputStream = new ByteArrayOutputStream(INITIAL_FILE_BUFFER_SIZE);
+		fileBuffer = new byte[INITIAL_FILE_BUFFER_SIZE];
+		rowPixels = new int[0];
+		columnStartIndices = new int[0];
+		channelSums = new int[0];
+		scaledPixels = new int[0];
+	}
+
+	/**
+	 * @return true if the JVM has a decoder for the extension of the file, false otherwise
+	 */
+	public static boolean checkSupported(
+			final String filePathString) {
+
+		final String extension = PathUtils.computeExtension(filePathString);
+		return extension != null && ImageIO.getImageReadersBySuffix(extension).hasNext();
+	}
+
+	/**
+	 * @param exifData
+	 *            the data to write in the EXIF segment of the output file, or null to write none
+	 * @param thumbnailCache
+	 *            the cache that receives the thumbnail of the image, or null to make none
+	 */
+	public boolean resize(
+			final Path filePath,
+			final String outputFilePathString,
+			final ExifData exifData,
+			final ThumbnailCache thumbnailCache) {
+
+		boolean success = false;
+		try {
+			RESIZE_SEMAPHORE.acquire();
+			try {
+				success = resizeImage(filePath, outputFilePathString, exifData, thumbnailCache);
+			} finally {
+				RESIZE_SEMAPHORE.release();
+			}
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to resize image:" +
+					System.lineSeparator() + filePath +
+					System.lineSeparator() + "to:" +
+					System.lineSeparator() + outputFilePathString);
+			Logger.printThrowable(throwable);
+		}
+		return success;
+	}
+
+	private boolean resizeImage(
+			final Path filePath,
+			final String outputFilePathString,
+			final ExifData exifData,
+			final ThumbnailCache thumbnailCache) throws Exception {
+
+		readFile(filePath);
+
+		String thumbnailKey = null;
+		if (thumbnailCache != null) {
+
+			final MessageDigest messageDigest = MessageDigest.getInstance(THUMBNAIL_KEY_ALGORITHM);
+			messageDigest.update(fileBuffer, 0, fileLength);
+			thumbnailKey = StrUtils.byteArrayToHexString(messageDigest.digest());
+			if (thumbnailCache.touch(thumbnailKey)) {
+				thumbnailKey = null;
+			}
+		}
+
+		boolean success = false;
+		BufferedImage image = null;
+		try (ImageInputStream imageInputStream =
+				new MemoryCacheImageInputStream(new ByteArrayInputStream(fileBuffer, 0, fileLength))) {
+
+			final Iterator<ImageReader> imageReaderIterator = ImageIO.getImageReaders(imageInputStream);
+			if (!imageReaderIterator.hasNext()) {
+				Logger.printError("no image decoder found for file:" +
+						System.lineSeparator() + filePath);
+
+			} else {
+				final ImageReader imageReader = imageReaderIterator.next();
+				try {
+					imageReader.setInput(imageInputStream, true, true);
+					final int width = imageReader.getWidth(0);
+					final int height = imageReader.getHeight(0);
+
+					final String formatName = imageReader.getFormatName();
+					final int orientation = ExifReader.readOrientation(fileBuffer, fileLength);
+					if (Math.max(width, height) <= MAX_EDGE_LENGTH &&
+							orientation == ExifReader.ORIENTATION_NORMAL &&
+							Strings.CI.equalsAny(formatName, "jpeg", "jpg")) {
+
+						writeFile(outputFilePathString, exifData);
+						success = true;
+
+						if (thumbnailKey != null) {
+
+							final int subsampling =
+									Math.max(1, Math.max(width, height) / (2 * THUMBNAIL_MAX_EDGE_LENGTH));
+							final ImageReadParam imageReadParam = imageReader.getDefaultReadParam();
+							imageReadParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+							final BufferedImage decodedImage = imageReader.read(0, imageReadParam);
+							writeThumbnail(decodedImage, thumbnailCache, thumbnailKey);
+						}
+
+					} else {
+						// subsampling while decoding picks single pixels, so it is only used down to twice the
+						// final size, and the box filter averages the rest
+						final int subsampling = Math.max(1, Math.max(width, height) / (2 * MAX_EDGE_LENGTH));
+						final ImageReadParam imageReadParam = imageReader.getDefaultReadParam();
+						imageReadParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+						final BufferedImage decodedImage = imageReader.read(0, imageReadParam);
+
+						scale(decodedImage, MAX_EDGE_LENGTH);
+						image = orient(orientation);
+						if (thumbnailKey != null) {
+							writeThumbnail(image, thumbnailCache, thumbnailKey);
+						}
+					}
+
+				} finally {
+					imageReader.dispose();
+				}
+			}
+		}
+
+		if (image != null) {
+
+			writeJpeg(image, outputFilePathString, exifData);
+			success = true;
+		}
+		return success;
+	}
+
+	private void readFile(
+			final Path filePath) throws Exception {
+
+		final long fileSize = Files.size(filePath);
+		if (fileSize > fileBuffer.length) {
+			fileBuffer = new byte[(int) Math.max(fileSize, 2L * fileBuffer.length)];
+		}
+
+		fileLength = 0;
+		try (InputStream inputStream = Files.newInputStream(filePath)) {
+
+			int readByteCount;
+			while ((readByteCount = inputStream.read(fileBuffer, fileLength, fileBuffer.length - fileLength)) > 0) {
+
+				fileLength += readByteCount;
+				if (fileLength == fileBuffer.length) {
+
+					final byte[] newFileBuffer = new byte[2 * fileBuffer.length];
+					System.arraycopy(fileBuffer, 0, newFileBuffer, 0, fileLength);
+					fileBuffer = newFileBuffer;
+				}
+			}
+		}
+	}
+
+	private void writeFile(
+			final String outputFilePathString,
+			final ExifData exifData) throws Exception {
+
+		try (OutputStream outputStream = Files.newOutputStream(Paths.get(outputFilePathString))) {
+			ExifWriter.writeJpeg(fileBuffer, fileLength, exifData, outputStream);
+		}
+	}
+
+	/**
+	 * Averages the pixels of the decoded image into {@link #scaledPixels}, one row at a time, so that only a single
+	 * row of the source is converted to RGB at once. Transparent pixels are blended over white.
+	 */
+	private void scale(
+			final BufferedImage decodedImage,
+			final int maxEdgeLength) {
+
+		final int width = decodedImage.getWidth();
+		final int height = decodedImage.getHeight();
+		final double scaleFactor = Math.min(1.0, (double) maxEdgeLength / Math.max(width, height));
+		scaledWidth = Math.max(1, (int) Math.round(width * scaleFactor));
+		scaledHeight = Math.max(1, (int) Math.round(height * scaleFactor));
+
+		if (rowPixels.length < width) {
+			rowPixels = new int[width];
+		}
+		if (columnStartIndices.length < scaledWidth + 1) {
+			columnStartIndices = new int[scaledWidth + 1];
+		}
+		if (channelSums.length < 3 * scaledWidth) {
+			channelSums = new int[3 * scaledWidth];
+		}
+		if (scaledPixels.length < scaledWidth * scaledHeight) {
+			scaledPixels = new int[scaledWidth * scaledHeight];
+		}
+		for (int x = 0; x <= scaledWidth; x++) {
+			columnStartIndices[x] = (int) ((long) x * width / scaledWidth);
+		}
+
+		for (int scaledY = 0; scaledY < scaledHeight; scaledY++) {
+
+			final int startY = (int) ((long) scaledY * height / scaledHeight);
+			final int endY = Math.max(startY + 1, (int) ((long) (scaledY + 1) * height / scaledHeight));
+			Arrays.fill(channelSums, 0, 3 * scaledWidth, 0);
+
+			for (int y = startY; y < endY; y++) {
+
+				decodedImage.getRGB(0, y, width, 1, rowPixels, 0, width);
+				for (int scaledX = 0; scaledX < scaledWidth; scaledX++) {
+
+					int redSum = 0;
+					int greenSum = 0;
+					int blueSum = 0;
+					final int endX = Math.max(columnStartIndices[scaledX] + 1, columnStartIndices[scaledX + 1]);
+					for (int x = columnStartIndices[scaledX]; x < endX; x++) {
+
+						final int argb = rowPixels[x];
+						final int alpha = argb >>> 24;
+						int red = argb >> 16 & 0xFF;
+						int green = argb >> 8 & 0xFF;
+						int blue = argb & 0xFF;
+						if (alpha != 0xFF) {
+
+							red = (red * alpha + 0xFF * (0xFF - alpha)) / 0xFF;
+							green = (green * alpha + 0xFF * (0xFF - alpha)) / 0xFF;
+							blue = (blue * alpha + 0xFF * (0xFF - alpha)) / 0xFF;
+						}
+						redSum += red;
+						greenSum += green;
+						blueSum += blue;
+					}
+					channelSums[3 * scaledX] += redSum;
+					channelSums[3 * scaledX + 1] += greenSum;
+					channelSums[3 * scaledX + 2] += blueSum;
+				}
+			}
+
+			final int rowCount = endY - startY;
+			for (int scaledX = 0; scaledX < scaledWidth; scaledX++) {
+
+				final int columnCount = Math.max(1, columnStartIndices[scaledX + 1] - columnStartIndices[scaledX]);
+				final int pixelCount = rowCount * columnCount;
+				final int red = channelSums[3 * scaledX] / pixelCount;
+				final int green = channelSums[3 * scaledX + 1] / pixelCount;
+				final int blue = channelSums[3 * scaledX + 2] / pixelCount;
+				scaledPixels[scaledY * scaledWidth + scaledX] = red << 16 | green << 8 | blue;
+			}
+		}
+	}
+
+	/**
+	 * Copies the scaled pixels into the output image, rotated and mirrored as described by the EXIF orientation,
+	 * because the orientation tag is not carried over to the output file.
+	 */
+	private BufferedImage orient(
+			final int orientation) {
+
+		final int width = scaledWidth;
+		final int height = scaledHeight;
+		final boolean transposed = orientation >= 5;
+		final int outputWidth;
+		final int outputHeight;
+		if (transposed) {
+			outputWidth = height;
+			outputHeight = width;
+		} else {
+			outputWidth = width;
+			outputHeight = height;
+		}
+
+		if (outputImage == null ||
+				outputImage.getWidth() != outputWidth || outputImage.getHeight() != outputHeight) {
+			outputImage = new BufferedImage(outputWidth, outputHeight, BufferedImage.TYPE_INT_RGB);
+		}
+		final int[] outputPixels = ((DataBufferInt) outputImage.getRaster().getDataBuffer()).getData();
+
+		for (int y = 0; y < outputHeight; y++) {
+			for (int x = 0; x < outputWidth; x++) {
+
+				final int sourceX;
+				final int sourceY;
+				switch (orientation) {
+					case 2:
+						sourceX = width - 1 - x;
+						sourceY = y;
+						break;
+					case 3:
+						sourceX = width - 1 - x;
+						sourceY = height - 1 - y;
+						break;
+					case 4:
+						sourceX = x;
+						sourceY = height - 1 - y;
+						break;
+					case 5:
+						sourceX = y;
+						sourceY = x;
+						break;
+					case 6:
+						sourceX = y;
+						sourceY = height - 1 - x;
+						break;
+					case 7:
+						sourceX = width - 1 - y;
+						sourceY = height - 1 - x;
+						break;
+					case 8:
+						sourceX = width - 1 - y;
+						sourceY = x;
+						break;
+					default:
+						sourceX = x;
+						sourceY = y;
+						break;
+				}
+				outputPixels[y * outputWidth + x] = scaledPixels[sourceY * width + sourceX];
+			}
+		}
+		return outputImage;
+	}
+
+	/**
+	 * The image is upright, either because it was turned upright already or because it has the normal orientation, so
+	 * the scaled pixels are copied to the thumbnail as they are. The scaled pixels of the output image are not needed
+	 * anymore, since they were already copied to the output image.
+	 */
+	private void writeThumbnail(
+			final BufferedImage uprightImage,
+			final ThumbnailCache thumbnailCache,
+			final String thumbnailKey) throws Exception {
+
+		scale(uprightImage, THUMBNAIL_MAX_EDGE_LENGTH);
+		if (thumbnailImage == null ||
+				thumbnailImage.getWidth() != scaledWidth || thumbnailImage.getHeight() != scaledHeight) {
+			thumbnailImage = new BufferedImage(scaledWidth, scaledHeight, BufferedImage.TYPE_INT_RGB);
+		}
+		final int[] thumbnailPixels = ((DataBufferInt) thumbnailImage.getRaster().getDataBuffer()).getData();
+		System.arraycopy(scaledPixels, 0, thumbnailPixels, 0, scaledWidth * scaledHeight);
+
+		encode(thumbnailImage, thumbnailImageWriteParam);
+		thumbnailCache.put(thumbnailKey, encodedByteArrayOutputStream.toByteArray());
+	}
+
+	/**
+	 * Encodes the image into {@link #encodedByteArrayOutputStream}.
+	 */
+	private void encode(
+			final BufferedImage image,
+			final ImageWriteParam writeParam) throws Exception {
+
+		encodedByteArrayOutputStream.reset();
+		try (ImageOutputStream imageOutputStream = new MemoryCacheImageOutputStream(encodedByteArrayOutputStream)) {
+
+			imageWriter.setOutput(imageOutputStream);
+			imageWriter.write(null, new IIOImage(image, null, null), writeParam);
+
+		} finally {
+			imageWriter.reset();
+			imageWriter.setOutput(null);
+		}
+	}
+
+	/**
+	 * The image is encoded in memory first, so that the EXIF segment can be added before the file is written.
+	 */
+	private void writeJpeg(
+			final BufferedImage image,
+			final String outputFilePathString,
+			final ExifData exifData) throws Exception {
+
+		encode(image, imageWriteParam);
+		final byte[] encodedByteArray = encodedByteArrayOutputStream.toByteArray();
+		try (OutputStream outputStream = Files.newOutputStream(Paths.get(outputFilePathString))) {
+			ExifWriter.writeJpeg(encodedByteArray, encodedByteArray.length, exifData, outputStream);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
@@ -0,0 +1,12 @@
+package com.personal.g_photos.images;
+
+/**
+ * @param hash
+ *            the 64 bit difference hash of the image, which differs in few bits for images that look the same
+ * @param pixelCount
+ *            the number of pixels of the image, which tells the original from its smaller copies
+ */
+public record PerceptualHash(
+		long hash,
+		long pixelCount) {
+}
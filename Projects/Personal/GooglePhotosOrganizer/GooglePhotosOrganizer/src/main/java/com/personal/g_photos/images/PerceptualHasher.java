@@ -0,0 +1,216 @@
+package com.personal.g_photos.images;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Computes the difference hash of an image: the image is decoded at a reduced resolution, averaged into a grid of 9 by
+ * 9 gray cells, turned upright as described by the EXIF orientation, and every bit of the hash tells whether a cell is
+ * darker than its right neighbor. The hash survives resizing, recompression and small edits, so the copies of a photo
+ * that were re-shared at a different resolution have hashes that differ in only a few bits.
+ * <p>
+ * The EXIF header, the pixel row and the grid are held in buffers that are reused from one image to the next, so an
+ * instance is not thread safe; every thread should use its own.
+ */
+public final class PerceptualHasher {
+
+	private static final int GRID_SIZE = 9;
+	private static final int MIN_DECODED_EDGE_LENGTH = 64;
+	private static final int HEADER_BUFFER_SIZE = 70 * 1024;
+
+	private final byte[] headerBuffer;
+	private final long[] cellSums;
+	private final int[] cellCounts;
+	private final long[] cellLuminances;
+
+	private int[] rowPixels;
+
+	public PerceptualHasher() {
+
+		headerBuffer = new byte[HEADER_BUFFER_SIZE];
+		cellSums = new long[GRID_SIZE * GRID_SIZE];
+		cellCounts = new int[GRID_SIZE * GRID_SIZE];
+		cellLuminances = new long[GRID_SIZE * GRID_SIZE];
+		rowPixels = new int[0];
+	}
+
+	/**
+	 * @return the hash of the image, or null if the image cannot be decoded
+	 */
+	public PerceptualHash computeHash(
+			final Path filePath) {
+
+		PerceptualHash perceptualHash = null;
+		try {
+			final int orientation = readOrientation(filePath);
+			try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(filePath));
+					ImageInputStream imageInputStream = new MemoryCacheImageInputStream(inputStream)) {
+
+				final Iterator<ImageReader> imageReaderIterator = ImageIO.getImageReaders(imageInputStream);
+				if (!imageReaderIterator.hasNext()) {
+					Logger.printError("no image decoder found for file:" +
+							System.lineSeparator() + filePath);
+
+				} else {
+					final ImageReader imageReader = imageReaderIterator.next();
+					try {
+						imageReader.setInput(imageInputStream, true, true);
+						final int width = imageReader.getWidth(0);
+						final int height = imageReader.getHeight(0);
+
+						final int subsampling = Math.max(1, Math.min(width, height) / MIN_DECODED_EDGE_LENGTH);
+						final ImageReadParam imageReadParam = imageReader.getDefaultReadParam();
+						imageReadParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+						final BufferedImage decodedImage = imageReader.read(0, imageReadParam);
+
+						fillGrid(decodedImage);
+						perceptualHash = new PerceptualHash(computeDifferenceHash(orientation), (long) width * height);
+
+					} finally {
+						imageReader.dispose();
+					}
+				}
+			}
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to compute perceptual hash of file:" +
+					System.lineSeparator() + filePath);
+			Logger.printThrowable(throwable);
+		}
+		return perceptualHash;
+	}
+
+	private int readOrientation(
+			final Path filePath) throws Exception {
+
+		final int headerLength;
+		try (InputStream inputStream = Files.newInputStream(filePath)) {
+			headerLength = inputStream.readNBytes(headerBuffer, 0, headerBuffer.length);
+		}
+		return ExifReader.readOrientation(headerBuffer, headerLength);
+	}
+
+	/**
+	 * Averages the luminance of the decoded image into the cells of the grid, one row at a time. Transparent pixels are
+	 * blended over white, the way the resized images are.
+	 */
+	private void fillGrid(
+			final BufferedImage decodedImage) {
+
+		final int width = decodedImage.getWidth();
+		final int height = decodedImage.getHeight();
+		if (rowPixels.length < width) {
+			rowPixels = new int[width];
+		}
+		Arrays.fill(cellSums, 0);
+		Arrays.fill(cellCounts, 0);
+
+		for (int y = 0; y < height; y++) {
+
+			decodedImage.getRGB(0, y, width, 1, rowPixels, 0, width);
+			final int cellRowIndex = (int) ((long) y * GRID_SIZE / height) * GRID_SIZE;
+			for (int x = 0; x < width; x++) {
+
+				final int argb = rowPixels[x];
+				final int alpha = argb >>> 24;
+				int red = argb >> 16 & 0xFF;
+				int green = argb >> 8 & 0xFF;
+				int blue = argb & 0xFF;
+				if (alpha != 0xFF) {
+
+					red = (red * alpha + 0xFF * (0xFF - alpha)) / 0xFF;
+					green = (green * alpha + 0xFF * (0xFF - alpha)) / 0xFF;
+					blue = (blue * alpha + 0xFF * (0xFF - alpha)) / 0xFF;
+				}
+				final int cellIndex = cellRowIndex + (int) ((long) x * GRID_SIZE / width);
+				cellSums[cellIndex] += 299 * red + 587 * green + 114 * blue;
+				cellCounts[cellIndex]++;
+			}
+		}
+	}
+
+	/**
+	 * The grid is square, so turning it upright keeps its size. The hash takes the first 8 rows of the upright grid,
+	 * comparing the 9 cells of every row in pairs.
+	 */
+	private long computeDifferenceHash(
+			final int orientation) {
+
+		final int last = GRID_SIZE - 1;
+		for (int y = 0; y < GRID_SIZE; y++) {
+			for (int x = 0; x < GRID_SIZE; x++) {
+
+				final int sourceX;
+				final int sourceY;
+				switch (orientation) {
+					case 2:
+						sourceX = last - x;
+						sourceY = y;
+						break;
+					case 3:
+						sourceX = last - x;
+						sourceY = last - y;
+						break;
+					case 4:
+						sourceX = x;
+						sourceY = last - y;
+						break;
+					case 5:
+						sourceX = y;
+						sourceY = x;
+						break;
+					case 6:
+						sourceX = y;
+						sourceY = last - x;
+						break;
+					case 7:
+						sourceX = last - y;
+						sourceY = last - x;
+						break;
+					case 8:
+						sourceX = last - y;
+						sourceY = x;
+						break;
+					default:
+						sourceX = x;
+						sourceY = y;
+						break;
+				}
+				final int sourceCellIndex = sourceY * GRID_SIZE + sourceX;
+				cellLuminances[y * GRID_SIZE + x] =
+						cellSums[sourceCellIndex] / Math.max(1, cellCounts[sourceCellIndex]);
+			}
+		}
+
+		long hash = 0;
+		for (int y = 0; y < GRID_SIZE - 1; y++) {
+			for (int x = 0; x < GRID_SIZE - 1; x++) {
+
+				hash <<= 1;
+				if (cellLuminances[y * GRID_SIZE + x] < cellLuminances[y * GRID_SIZE + x + 1]) {
+					hash |= 1;
+				}
+			}
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
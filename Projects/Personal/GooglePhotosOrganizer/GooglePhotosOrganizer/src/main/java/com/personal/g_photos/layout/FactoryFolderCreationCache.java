@@ -0,0 +1,12 @@
+package com.personal.g_photos.layout;
+
+public final class FactoryFolderCreationCache {
+
+	private FactoryFolderCreationCache() {
+	}
+
+	public static FolderCreationCache newInstance() {
+
+		return new FolderCreationCache(FolderCreationCache::createFolder);
+	}
+}
@@ -0,0 +1,15 @@
+package com.personal.g_photos.layout;
+
+import com.personal.g_photos.manifest.ProcessingManifest;
+
+public final class FactoryOutputNameRegistry {
+
+	private FactoryOutputNameRegistry() {
+	}
+
+	public static OutputNameRegistry newInstance(
+			final ProcessingManifest processingManifest) {
+
+		return new OutputNameRegistry(processingManifest.createOutputFilePathStringsBySourceFilePathString());
+	}
+}
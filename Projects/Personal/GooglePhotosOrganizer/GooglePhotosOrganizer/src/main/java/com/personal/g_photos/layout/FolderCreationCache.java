@@ -0,0 +1,69 @@
+package com.personal.g_photos.layout;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import com.utils.io.PathUtils;
+import com.utils.io.folder_creators.FactoryFolderCreator;
+import com.utils.string.StrUtils;
+
+/**
+ * Remembers the output folders that were already created, so that the file system is only asked once per folder
+ * instead of once per file. The processing threads create the folders concurrently; the folder is created inside the
+ * atomic computation of the map, so the threads that need the same folder at the same time wait for a single creation
+ * instead of racing. A folder that could not be created is not remembered, so that it is tried again for the next
+ * file.
+ */
+public class FolderCreationCache {
+
+	private final Predicate<String> folderCreator;
+	private final Map<String, Boolean> createdFoldersByPathString;
+
+	/**
+	 * @param folderCreator
+	 *            creates the folder with the given path, with its parents, and tells whether it succeeded
+	 */
+	FolderCreationCache(
+			final Predicate<String> folderCreator) {
+
+		this.folderCreator = folderCreator;
+
+		createdFoldersByPathString = new ConcurrentHashMap<>();
+	}
+
+	public boolean createParentDirectories(
+			final String filePathString) {
+
+		boolean success = true;
+		final String folderPathString = PathUtils.computeParentPath(filePathString);
+		if (folderPathString != null && !createdFoldersByPathString.containsKey(folderPathString)) {
+
+			final Boolean created = createdFoldersByPathString.computeIfAbsent(folderPathString,
+					pathString -> createDirectories(pathString));
+			success = created != null;
+		}
+		return success;
+	}
+
+	private Boolean createDirectories(
+			final String folderPathString) {
+
+		Boolean created = null;
+		if (folderCreator.test(folderPathString)) {
+			created = Boolean.TRUE;
+		}
+		return created;
+	}
+
+	static boolean createFolder(
+			final String folderPathString) {
+
+		return FactoryFolderCreator.getInstance().createDirectories(folderPathString, false, true);
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
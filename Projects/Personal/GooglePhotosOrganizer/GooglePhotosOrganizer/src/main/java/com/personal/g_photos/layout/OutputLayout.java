@@ -0,0 +1,110 @@
+package com.personal.g_photos.layout;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.utils.io.PathUtils;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Places the output files in folders named after their photo taken time, such as "2023/09" for the "yyyy/MM" pattern,
+ * so that no output folder ends up holding the whole library. Every level of the pattern is a date time pattern. The
+ * time is taken in the default time zone, the same in which the last modified time of the output files is shown. The
+ * files that have no photo taken time go to a separate folder. The empty pattern keeps all the files in the output
+ * folder itself.
+ */
+public class OutputLayout {
+
+	public static final String UNDATED_FOLDER_NAME = "undated";
+
+	private final String pattern;
+	private final List<DateTimeFormatter> dateTimeFormatterList;
+
+	OutputLayout(
+			final String pattern,
+			final List<DateTimeFormatter> dateTimeFormatterList) {
+
+		this.pattern = pattern;
+		this.dateTimeFormatterList = dateTimeFormatterList;
+	}
+
+	/**
+	 * @return the layout, or null if the pattern is not valid
+	 */
+	public static OutputLayout parse(
+			final String pattern,
+			final ZoneId zoneId) {
+
+		OutputLayout outputLayout = null;
+		try {
+			boolean valid = true;
+			final List<DateTimeFormatter> dateTimeFormatterList = new ArrayList<>();
+			if (StringUtils.isNotEmpty(pattern)) {
+
+				final Instant sampleInstant = Instant.parse("2023-09-13T13:31:27Z");
+				final String[] levelPatternArray = StringUtils.splitPreserveAllTokens(pattern, '/');
+				for (final String levelPattern : levelPatternArray) {
+
+					if (StringUtils.isBlank(levelPattern)) {
+						valid = false;
+
+					} else {
+						final DateTimeFormatter dateTimeFormatter =
+								DateTimeFormatter.ofPattern(levelPattern, Locale.US).withZone(zoneId);
+						final String sampleFolderName = dateTimeFormatter.format(sampleInstant);
+						if (StringUtils.containsAny(sampleFolderName, '/', '\\', ':') ||
+								StringUtils.isBlank(sampleFolderName)) {
+							valid = false;
+						} else {
+							dateTimeFormatterList.add(dateTimeFormatter);
+						}
+					}
+				}
+			}
+			if (valid) {
+				outputLayout = new OutputLayout(pattern, dateTimeFormatterList);
+			}
+
+		} catch (final Throwable throwable) {
+			Logger.printThrowable(throwable);
+		}
+		return outputLayout;
+	}
+
+	/**
+	 * @param photoTakenTimeInstant
+	 *            the photo taken time, or null if it is not known
+	 */
+	public String computeOutputFolderPathString(
+			final String outputFolderPathString,
+			final Instant photoTakenTimeInstant) {
+
+		final String outputFileFolderPathString;
+		if (dateTimeFormatterList.isEmpty()) {
+			outputFileFolderPathString = outputFolderPathString;
+
+		} else if (photoTakenTimeInstant == null) {
+			outputFileFolderPathString = PathUtils.computePath(outputFolderPathString, UNDATED_FOLDER_NAME);
+
+		} else {
+			final String[] folderNameArray = new String[dateTimeFormatterList.size()];
+			for (int i = 0; i < folderNameArray.length; i++) {
+				folderNameArray[i] = dateTimeFormatterList.get(i).format(photoTakenTimeInstant);
+			}
+			outputFileFolderPathString = PathUtils.computePath(outputFolderPathString, folderNameArray);
+		}
+		return outputFileFolderPathString;
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
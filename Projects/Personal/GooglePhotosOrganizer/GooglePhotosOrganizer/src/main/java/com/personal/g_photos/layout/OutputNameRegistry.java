@@ -0,0 +1,218 @@
+package com.personal.g_photos.layout;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.utils.io.PathUtils;
+import com.utils.string.StrUtils;
+
+/**
+ * Reserves a distinct output file for every source file, so that different photos with the same name, which Takeout
+ * has in different albums, do not overwrite each other. A source file gets the output file it asks for, unless another
+ * source file holds it; then it gets the name followed by a suffix computed from its own path, and by a counter in the
+ * unlikely case that this name is also taken.
+ * <p>
+ * The reservations of the earlier runs, taken from the processing manifest, are loaded first, so every source file gets
+ * the same output file on every rerun, whatever the order in which the threads reach it. On a fresh run, the source
+ * files claim their output file names up front, in a fixed order, and a source file only reserves its output file once
+ * the source files that claimed the same name before it did, so the name without a suffix goes to the first of them.
+ * <p>
+ * The output files are compared ignoring the case, since the output folder can be on a case-insensitive file system.
+ * A reservation only locks the bin of the concurrent map that holds the output file. Every output file name has a turn
+ * of its own, with its own lock and its own condition, so that a claim, a wait or a release only touches the turn of
+ * its name, and only the source files with the same name wait for each other and wake each other up. A turn is added
+ * and removed inside the bin of its name in the concurrent map, so that a claim never lands in a turn that is being
+ * removed.
+ */
+public class OutputNameRegistry {
+
+	private final Map<String, String> sourceFilePathStringsByOutputKey;
+	private final Map<String, NameTurn> nameTurnsByFileNameKey;
+	private final Map<String, String> fileNameKeysByClaimingSourceFilePathString;
+
+	OutputNameRegistry(
+			final Map<String, String> outputFilePathStringsBySourceFilePathString) {
+
+		sourceFilePathStringsByOutputKey = new ConcurrentHashMap<>();
+		for (final Map.Entry<String, String> mapEntry : outputFilePathStringsBySourceFilePathString.entrySet()) {
+			sourceFilePathStringsByOutputKey.put(computeOutputKey(mapEntry.getValue()), mapEntry.getKey());
+		}
+
+		nameTurnsByFileNameKey = new ConcurrentHashMap<>();
+		fileNameKeysByClaimingSourceFilePathString = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Must be called in the order that decides which source file gets the name without a suffix, before the source file
+	 * is reserved. The claim lasts until the source file is reserved or released.
+	 */
+	public void claim(
+			final String sourceFilePathString,
+			final String outputFileName) {
+
+		// the claim and the release of a name run in the bin of the name, so a release of an earlier claim of the same
+		// source file cannot drop the source file from the claims while it claims the name again
+		final String fileNameKey = computeOutputKey(outputFileName);
+		nameTurnsByFileNameKey.compute(fileNameKey, (key, nameTurn) -> {
+
+			NameTurn resultNameTurn = nameTurn;
+			if (resultNameTurn == null) {
+				resultNameTurn = new NameTurn();
+			}
+			resultNameTurn.add(sourceFilePathString);
+			fileNameKeysByClaimingSourceFilePathString.put(sourceFilePathString, fileNameKey);
+			return resultNameTurn;
+		});
+	}
+
+	/**
+	 * Waits until the source files that claimed the same output file name before the source file are reserved or
+	 * released.
+	 *
+	 * @return the output file reserved for the source file, which is the requested output file if it was free
+	 */
+	public String reserve(
+			final String sourceFilePathString,
+			final String outputFilePathString) {
+
+		String reservedOutputFilePathString = null;
+		try {
+			awaitTurn(sourceFilePathString);
+			if (tryReserve(sourceFilePathString, outputFilePathString)) {
+				reservedOutputFilePathString = outputFilePathString;
+
+			} else {
+				final String suffix = String.format("_%08x", sourceFilePathString.hashCode());
+				for (int i = 1; reservedOutputFilePathString == null; i++) {
+
+					String candidateSuffix = suffix;
+					if (i > 1) {
+						candidateSuffix += "_" + i;
+					}
+					final String candidateOutputFilePathString =
+							PathUtils.appendFileNameSuffix(outputFilePathString, candidateSuffix);
+					if (tryReserve(sourceFilePathString, candidateOutputFilePathString)) {
+						reservedOutputFilePathString = candidateOutputFilePathString;
+					}
+				}
+			}
+
+		} finally {
+			release(sourceFilePathString);
+		}
+		return reservedOutputFilePathString;
+	}
+
+	private void awaitTurn(
+			final String sourceFilePathString) {
+
+		final String fileNameKey = fileNameKeysByClaimingSourceFilePathString.get(sourceFilePathString);
+		if (fileNameKey != null) {
+
+			// the turn cannot be removed while the source file is in it
+			final NameTurn nameTurn = nameTurnsByFileNameKey.get(fileNameKey);
+			if (nameTurn != null) {
+				nameTurn.await(sourceFilePathString);
+			}
+		}
+	}
+
+	/**
+	 * Ends the claim of the source file, for a source file that will not be reserved, so that the source files with
+	 * the same name do not wait for it. Does nothing if the source file has no claim.
+	 */
+	public void release(
+			final String sourceFilePathString) {
+
+		final String fileNameKey = fileNameKeysByClaimingSourceFilePathString.get(sourceFilePathString);
+		if (fileNameKey != null) {
+
+			nameTurnsByFileNameKey.computeIfPresent(fileNameKey, (key, nameTurn) -> {
+
+				final boolean claimedAgain = nameTurn.remove(sourceFilePathString);
+				if (!claimedAgain) {
+					fileNameKeysByClaimingSourceFilePathString.remove(sourceFilePathString, fileNameKey);
+				}
+
+				NameTurn resultNameTurn = nameTurn;
+				if (nameTurn.checkEmpty()) {
+					resultNameTurn = null;
+				}
+				return resultNameTurn;
+			});
+		}
+	}
+
+	private boolean tryReserve(
+			final String sourceFilePathString,
+			final String outputFilePathString) {
+
+		final String holderSourceFilePathString = sourceFilePathStringsByOutputKey
+				.putIfAbsent(computeOutputKey(outputFilePathString), sourceFilePathString);
+		return holderSourceFilePathString == null || holderSourceFilePathString.equals(sourceFilePathString);
+	}
+
+	private static String computeOutputKey(
+			final String outputFilePathString) {
+
+		return outputFilePathString.toLowerCase(Locale.ROOT);
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+
+	/**
+	 * The source files that claimed an output file name, in the order of their claims. The monitor of the turn guards
+	 * the queue, and a source file waits on it for its turn.
+	 */
+	private static final class NameTurn {
+
+		private final Deque<String> claimingSourceFilePathStringDeque;
+
+		NameTurn() {
+
+			claimingSourceFilePathStringDeque = new ArrayDeque<>();
+		}
+
+		synchronized void add(
+				final String sourceFilePathString) {
+
+			claimingSourceFilePathStringDeque.addLast(sourceFilePathString);
+		}
+
+		synchronized void await(
+				final String sourceFilePathString) {
+
+			try {
+				while (!sourceFilePathString.equals(claimingSourceFilePathStringDeque.peekFirst()) &&
+						claimingSourceFilePathStringDeque.contains(sourceFilePathString)) {
+					wait();
+				}
+
+			} catch (final InterruptedException exc) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * @return true if the source file is still in the turn, because it claimed the name more than once, false
+		 *         otherwise
+		 */
+		synchronized boolean remove(
+				final String sourceFilePathString) {
+
+			claimingSourceFilePathStringDeque.removeFirstOccurrence(sourceFilePathString);
+			notifyAll();
+			return claimingSourceFilePathStringDeque.contains(sourceFilePathString);
+		}
+
+		synchronized boolean checkEmpty() {
+			return claimingSourceFilePathStringDeque.isEmpty();
+		}
+	}
+}
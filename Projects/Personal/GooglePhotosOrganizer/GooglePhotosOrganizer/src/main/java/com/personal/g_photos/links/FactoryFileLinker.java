@@ -0,0 +1,13 @@
+package com.personal.g_photos.links;
+
+public final class FactoryFileLinker {
+
+	private FactoryFileLinker() {
+	}
+
+	public static FileLinker newInstance(
+			final LinkMode linkMode) {
+
+		return new FileLinker(linkMode);
+	}
+}
@@ -0,0 +1,180 @@
+package com.personal.g_photos.links;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.SystemUtils;
+
+import com.utils.io.IoUtils;
+import com.utils.io.file_copiers.FactoryFileCopier;
+import com.utils.io.file_deleters.FactoryFileDeleter;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Puts the files that need no conversion in the output folder as a hard link or a copy-on-write clone of the input
+ * file, which takes no time and no space, and copies them only when that is not possible.
+ * <p>
+ * A hard link shares the last modified time with the input file, so it is only used when the input file already has
+ * the photo taken time; setting the time of the output file would otherwise change the input file too. The clones are
+ * made by the cp tool, since Java has no API for them. When linking fails, for example because the input and the
+ * output are on different file systems, the mode is turned off for the rest of the run, so that every file does not
+ * pay for the failed attempt.
+ */
+public class FileLinker {
+
+	private final LinkMode linkMode;
+
+	private final AtomicBoolean linkSupported;
+	private final AtomicInteger linkedFileCount;
+	private final AtomicInteger copiedFileCount;
+
+	FileLinker(
+			final LinkMode linkMode) {
+
+		this.linkMode = linkMode;
+
+		linkSupported = new AtomicBoolean(linkMode != LinkMode.COPY);
+		linkedFileCount = new AtomicInteger();
+		copiedFileCount = new AtomicInteger();
+	}
+
+	public boolean linkOrCopyFile(
+			final String filePathString,
+			final String outputFilePathString,
+			final long lastModifiedTime,
+			final Instant photoTakenTimeInstant) {
+
+		boolean linked = false;
+		if (linkSupported.get()) {
+
+			if (linkMode == LinkMode.HARDLINK) {
+
+				if (photoTakenTimeInstant == null || photoTakenTimeInstant.toEpochMilli() == lastModifiedTime) {
+					linked = createHardLink(filePathString, outputFilePathString);
+				}
+
+			} else {
+				linked = createClone(filePathString, outputFilePathString);
+			}
+		}
+
+		final boolean success;
+		if (linked) {
+
+			linkedFileCount.incrementAndGet();
+			success = true;
+
+		} else {
+			copiedFileCount.incrementAndGet();
+			success = FactoryFileCopier.getInstance()
+					.copyFile(filePathString, outputFilePathString, true, true, true);
+		}
+		return success;
+	}
+
+	private boolean createHardLink(
+			final String filePathString,
+			final String outputFilePathString) {
+
+		boolean linked = false;
+		if (prepareOutputFile(outputFilePathString)) {
+
+			try {
+				Files.createLink(Paths.get(outputFilePathString), Paths.get(filePathString));
+				linked = true;
+
+			} catch (final Throwable throwable) {
+				disableLinks("hard links", filePathString, throwable);
+			}
+		}
+		return linked;
+	}
+
+	private boolean createClone(
+			final String filePathString,
+			final String outputFilePathString) {
+
+		boolean linked = false;
+		if (prepareOutputFile(outputFilePathString)) {
+
+			try {
+				final List<String> commandPartList = new ArrayList<>();
+				if (SystemUtils.IS_OS_LINUX) {
+					Collections.addAll(commandPartList, "cp", "--reflink=always", "--preserve=timestamps",
+							filePathString, outputFilePathString);
+				} else if (SystemUtils.IS_OS_MAC) {
+					Collections.addAll(commandPartList, "cp", "-c", "-p", filePathString, outputFilePathString);
+				}
+
+				if (commandPartList.isEmpty()) {
+					disableLinks("copy-on-write clones", filePathString, null);
+
+				} else {
+					final Process process = new ProcessBuilder()
+							.command(commandPartList)
+							.redirectErrorStream(true)
+							.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+							.start();
+					final int exitCode = process.waitFor();
+					linked = exitCode == 0;
+					if (!linked) {
+						FactoryFileDeleter.getInstance().deleteFile(outputFilePathString, false, false);
+						disableLinks("copy-on-write clones", filePathString, null);
+					}
+				}
+
+			} catch (final Throwable throwable) {
+				disableLinks("copy-on-write clones", filePathString, throwable);
+			}
+		}
+		return linked;
+	}
+
+	/**
+	 * The output folder is already created by the caller.
+	 */
+	private static boolean prepareOutputFile(
+			final String outputFilePathString) {
+
+		boolean success = true;
+		if (IoUtils.fileExists(outputFilePathString)) {
+			success = FactoryFileDeleter.getInstance().deleteFile(outputFilePathString, false, true);
+		}
+		return success;
+	}
+
+	private void disableLinks(
+			final String linkDescription,
+			final String filePathString,
+			final Throwable throwable) {
+
+		if (linkSupported.compareAndSet(true, false)) {
+
+			Logger.printWarning(linkDescription + " are not supported for the output folder, " +
+					"the files will be copied instead; failed on file:" +
+					System.lineSeparator() + filePathString);
+			if (throwable != null) {
+				Logger.printThrowable(throwable);
+			}
+		}
+	}
+
+	public void printStatistics() {
+
+		if (linkMode != LinkMode.COPY) {
+			Logger.printLine("linked files: " + linkedFileCount.get() + ", copied files: " + copiedFileCount.get());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
@@ -0,0 +1,26 @@
+package com.personal.g_photos.links;
+
+public enum LinkMode {
+
+	COPY,
+	HARDLINK,
+	REFLINK;
+
+	/**
+	 * @return the link mode with the given name, ignoring the case, or null if there is none
+	 */
+	public static LinkMode parse(
+			final String name) {
+
+		LinkMode linkMode = null;
+		for (final LinkMode value : values()) {
+
+			if (value.name().equalsIgnoreCase(name)) {
+
+				linkMode = value;
+				break;
+			}
+		}
+		return linkMode;
+	}
+}
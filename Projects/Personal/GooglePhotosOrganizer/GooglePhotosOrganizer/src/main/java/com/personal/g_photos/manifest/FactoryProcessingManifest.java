@@ -0,0 +1,17 @@
+package com.personal.g_photos.manifest;
+
+public final class FactoryProcessingManifest {
+
+	private FactoryProcessingManifest() {
+	}
+
+	public static ProcessingManifest newInstance(
+			final String outputFolderPathString) {
+
+		final String manifestFilePathString =
+				ProcessingManifest.computeManifestFilePathString(outputFolderPathString);
+		final ProcessingManifest processingManifest = new ProcessingManifest(manifestFilePathString);
+		processingManifest.load();
+		return processingManifest;
+	}
+}
@@ -0,0 +1,62 @@
+package com.personal.g_photos.manifest;
+
+import com.utils.string.StrUtils;
+
+public record ManifestEntry(
+		String sourceFilePathString,
+		long sourceFileSize,
+		long sourceLastModifiedTime,
+		String sidecarHash,
+		String outputFilePathString,
+		boolean success) {
+
+	private static final String FIELD_SEPARATOR = "\t";
+	private static final String SUCCESS_RESULT = "OK";
+	private static final String FAILURE_RESULT = "FAILED";
+
+	/**
+	 * @return true if the entry describes the same inputs as the other entry, false otherwise
+	 */
+	public boolean sameInputs(
+			final ManifestEntry otherManifestEntry) {
+
+		return sourceFileSize == otherManifestEntry.sourceFileSize &&
+				sourceLastModifiedTime == otherManifestEntry.sourceLastModifiedTime &&
+				sidecarHash.equals(otherManifestEntry.sidecarHash) &&
+				outputFilePathString.equals(otherManifestEntry.outputFilePathString);
+	}
+
+	String toLine() {
+
+		final String result;
+		if (success) {
+			result = SUCCESS_RESULT;
+		} else {
+			result = FAILURE_RESULT;
+		}
+		return String.join(FIELD_SEPARATOR, sourceFilePathString, String.valueOf(sourceFileSize),
+				String.valueOf(sourceLastModifiedTime), sidecarHash, outputFilePathString, result);
+	}
+
+	/**
+	 * @return the entry, or null if the line is not a valid manifest line
+	 */
+	static ManifestEntry parseLine(
+			final String line) {
+
+		ManifestEntry manifestEntry = null;
+		final String[] fieldArray = line.split(FIELD_SEPARATOR, -1);
+		if (fieldArray.length == 6) {
+
+			final long sourceFileSize = StrUtils.tryParsePositiveLong(fieldArray[1]);
+			final long sourceLastModifiedTime = StrUtils.tryParsePositiveLong(fieldArray[2]);
+			if (sourceFileSize >= 0 && sourceLastModifiedTime >= 0) {
+
+				final boolean success = SUCCESS_RESULT.equals(fieldArray[5]);
+				manifestEntry = new ManifestEntry(fieldArray[0], sourceFileSize, sourceLastModifiedTime,
+						fieldArray[3], fieldArray[4], success);
+			}
+		}
+		return manifestEntry;
+	}
+}
@@ -0,0 +1,305 @@
+package com.personal.g_photos.manifest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.utils.io.IoUtils;
+import com.utils.io.PathUtils;
+import com.utils.io.ReaderUtils;
+import com.utils.io.folder_creators.FactoryFolderCreator;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Remembers, in the output folder, the inputs and the result of every processed file, so that a rerun can skip the
+ * files whose inputs did not change. The manifest file is a write-ahead journal: an entry is appended as soon as a file
+ * is done, after its output was published under its final name, and the journal is replayed when the manifest is
+ * loaded, so a run that was killed resumes with the files that it had not finished. When the manifest is closed, the
+ * file is rewritten with only the latest entry of every source file.
+ * <p>
+ * Every entry is handed to the operating system as soon as it is recorded, which is enough to survive the process
+ * being killed. To also survive a power loss, the journal is forced to the disk, but in groups: at most once every
+ * {@link #GROUP_COMMIT_INTERVAL_MILLIS} milliseconds or every {@link #GROUP_COMMIT_MAX_ENTRY_COUNT} entries, by the
+ * thread that records the entry that ends the group. A timer thread forces the entries that no other entry follows,
+ * such as the last ones before the pipeline drains or the watch mode waits for changes, within the same interval.
+ * An entry lost with the last group only means that its file is
+ * processed again. A line torn by a crash is ignored on replay, and a line break is added after it, so that the next
+ * entry starts on a line of its own.
+ */
+public class ProcessingManifest implements AutoCloseable {
+
+	private static final long GROUP_COMMIT_INTERVAL_MILLIS = 100;
+	private static final int GROUP_COMMIT_MAX_ENTRY_COUNT = 256;
+
+	private final String manifestFilePathString;
+	private final Map<String, ManifestEntry> manifestEntriesBySourceFilePathString;
+
+	private FileChannel fileChannel;
+	private BufferedWriter bufferedWriter;
+	private long lastForceTimeMillis;
+	private int unforcedEntryCount;
+	private ScheduledExecutorService scheduledExecutorService;
+
+	ProcessingManifest(
+			final String manifestFilePathString) {
+
+		this.manifestFilePathString = manifestFilePathString;
+
+		manifestEntriesBySourceFilePathString = new ConcurrentHashMap<>();
+	}
+
+	void load() {
+
+		if (IoUtils.fileExists(manifestFilePathString)) {
+
+			Logger.printProgress("loading processing manifest:" +
+					System.lineSeparator() + manifestFilePathString);
+
+			try (BufferedReader bufferedReader = ReaderUtils.openBufferedReader(manifestFilePathString)) {
+
+				String line;
+				while ((line = bufferedReader.readLine()) != null) {
+
+					final ManifestEntry manifestEntry = ManifestEntry.parseLine(line);
+					if (manifestEntry != null) {
+						manifestEntriesBySourceFilePathString.put(
+								manifestEntry.sourceFilePathString(), manifestEntry);
+					}
+				}
+
+			} catch (final Throwable throwable) {
+				Logger.printError("failed to load processing manifest:" +
+						System.lineSeparator() + manifestFilePathString);
+				Logger.printThrowable(throwable);
+			}
+			Logger.printLine("(manifest entries: " + manifestEntriesBySourceFilePathString.size() + ")");
+		}
+
+		try {
+			FactoryFolderCreator.getInstance().createParentDirectories(manifestFilePathString, false, true);
+			fileChannel = FileChannel.open(Paths.get(manifestFilePathString),
+					StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			fileChannel.position(fileChannel.size());
+			bufferedWriter = new BufferedWriter(Channels.newWriter(fileChannel, StandardCharsets.UTF_8));
+			if (checkLastLineTorn(fileChannel)) {
+
+				bufferedWriter.newLine();
+				bufferedWriter.flush();
+			}
+			lastForceTimeMillis = System.currentTimeMillis();
+
+			scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+					Thread.ofPlatform().name("processing manifest").daemon().factory());
+			scheduledExecutorService.scheduleWithFixedDelay(this::tick,
+					GROUP_COMMIT_INTERVAL_MILLIS, GROUP_COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to open processing manifest for writing:" +
+					System.lineSeparator() + manifestFilePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	/**
+	 * Runs on the timer thread only. An exception would cancel the next runs, so none is let through.
+	 */
+	private synchronized void tick() {
+
+		try {
+			if (bufferedWriter != null && unforcedEntryCount > 0) {
+
+				final long timeMillis = System.currentTimeMillis();
+				if (timeMillis - lastForceTimeMillis >= GROUP_COMMIT_INTERVAL_MILLIS) {
+					force(timeMillis);
+				}
+			}
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to force processing manifest:" +
+					System.lineSeparator() + manifestFilePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	private void force(
+			final long timeMillis) throws Exception {
+
+		fileChannel.force(false);
+		lastForceTimeMillis = timeMillis;
+		unforcedEntryCount = 0;
+	}
+
+	private static boolean checkLastLineTorn(
+			final FileChannel fileChannel) throws Exception {
+
+		boolean lastLineTorn = false;
+		final long size = fileChannel.size();
+		if (size > 0) {
+
+			final ByteBuffer byteBuffer = ByteBuffer.allocate(1);
+			fileChannel.read(byteBuffer, size - 1);
+			lastLineTorn = byteBuffer.get(0) != '\n';
+		}
+		return lastLineTorn;
+	}
+
+	/**
+	 * @return true if the file was already processed successfully from the same inputs and its output still exists,
+	 *         false otherwise
+	 */
+	public boolean checkUpToDate(
+			final ManifestEntry manifestEntry) {
+
+		final ManifestEntry existingManifestEntry =
+				manifestEntriesBySourceFilePathString.get(manifestEntry.sourceFilePathString());
+		return existingManifestEntry != null && existingManifestEntry.success() &&
+				existingManifestEntry.sameInputs(manifestEntry) &&
+				IoUtils.fileExists(existingManifestEntry.outputFilePathString());
+	}
+
+	/**
+	 * @return true if the file was processed successfully with the size and the last modified time that it has now and
+	 *         its output still exists, false otherwise
+	 */
+	public boolean checkProcessed(
+			final String sourceFilePathString,
+			final long sourceFileSize,
+			final long sourceLastModifiedTime) {
+
+		final ManifestEntry manifestEntry = manifestEntriesBySourceFilePathString.get(sourceFilePathString);
+		return manifestEntry != null && manifestEntry.success() &&
+				manifestEntry.sourceFileSize() == sourceFileSize &&
+				manifestEntry.sourceLastModifiedTime() == sourceLastModifiedTime &&
+				IoUtils.fileExists(manifestEntry.outputFilePathString());
+	}
+
+	/**
+	 * @return true if the last attempt to process the file, with the size and the last modified time that it has now,
+	 *         failed, false otherwise
+	 */
+	public boolean checkFailed(
+			final String sourceFilePathString,
+			final long sourceFileSize,
+			final long sourceLastModifiedTime) {
+
+		final ManifestEntry manifestEntry = manifestEntriesBySourceFilePathString.get(sourceFilePathString);
+		return manifestEntry != null && !manifestEntry.success() &&
+				manifestEntry.sourceFileSize() == sourceFileSize &&
+				manifestEntry.sourceLastModifiedTime() == sourceLastModifiedTime;
+	}
+
+	/**
+	 * @return the output files of the files that were processed successfully, by their source files
+	 */
+	public Map<String, String> createOutputFilePathStringsBySourceFilePathString() {
+
+		final Map<String, String> outputFilePathStringsBySourceFilePathString = new HashMap<>();
+		for (final ManifestEntry manifestEntry : manifestEntriesBySourceFilePathString.values()) {
+
+			if (manifestEntry.success()) {
+				outputFilePathStringsBySourceFilePathString.put(
+						manifestEntry.sourceFilePathString(), manifestEntry.outputFilePathString());
+			}
+		}
+		return outputFilePathStringsBySourceFilePathString;
+	}
+
+	public void record(
+			final ManifestEntry manifestEntry) {
+
+		manifestEntriesBySourceFilePathString.put(manifestEntry.sourceFilePathString(), manifestEntry);
+		if (bufferedWriter != null) {
+
+			final String line = manifestEntry.toLine();
+			synchronized (this) {
+
+				try {
+					bufferedWriter.write(line);
+					bufferedWriter.newLine();
+					bufferedWriter.flush();
+
+					unforcedEntryCount++;
+					final long timeMillis = System.currentTimeMillis();
+					if (timeMillis - lastForceTimeMillis >= GROUP_COMMIT_INTERVAL_MILLIS ||
+							unforcedEntryCount >= GROUP_COMMIT_MAX_ENTRY_COUNT) {
+						force(timeMillis);
+					}
+
+				} catch (final Throwable throwable) {
+					Logger.printError("failed to write processing manifest entry:" +
+							System.lineSeparator() + line);
+					Logger.printThrowable(throwable);
+				}
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+
+		try {
+			if (scheduledExecutorService != null) {
+
+				scheduledExecutorService.shutdown();
+				scheduledExecutorService = null;
+			}
+			if (bufferedWriter != null) {
+
+				bufferedWriter.flush();
+				fileChannel.force(false);
+				bufferedWriter.close();
+				bufferedWriter = null;
+				fileChannel = null;
+			}
+
+			final Path manifestFilePath = Paths.get(manifestFilePathString);
+			final Path tmpManifestFilePath = Paths.get(manifestFilePathString + ".tmp");
+			try (FileChannel compactFileChannel = FileChannel.open(tmpManifestFilePath, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+					BufferedWriter compactBufferedWriter =
+							new BufferedWriter(Channels.newWriter(compactFileChannel, StandardCharsets.UTF_8))) {
+
+				for (final ManifestEntry manifestEntry : manifestEntriesBySourceFilePathString.values()) {
+
+					compactBufferedWriter.write(manifestEntry.toLine());
+					compactBufferedWriter.newLine();
+				}
+				compactBufferedWriter.flush();
+				compactFileChannel.force(false);
+			}
+			Files.move(tmpManifestFilePath, manifestFilePath,
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to save processing manifest:" +
+					System.lineSeparator() + manifestFilePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	static String computeManifestFilePathString(
+			final String outputFolderPathString) {
+
+		return PathUtils.computePath(outputFolderPathString, ".google_photos_organizer", "manifest.tsv");
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
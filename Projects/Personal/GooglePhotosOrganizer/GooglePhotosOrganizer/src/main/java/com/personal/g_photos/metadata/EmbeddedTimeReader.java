@@ -0,0 +1,184 @@
+package com.personal.g_photos.metadata;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import com.personal.g_photos.images.ExifReader;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Reads the photo taken time that the media files carry themselves: the EXIF date time original of the JPEG files and
+ * the creation time of the "mvhd" box of the MP4 and QuickTime files. Only the headers are read, into buffers that are
+ * reused from one file to the next: the start of the JPEG files, up to the end of their EXIF segment, and the box
+ * headers of the videos, jumping from one box to the next, since the "moov" box can be at the end of the file. An
+ * instance is not thread safe; every thread should use its own.
+ */
+public final class EmbeddedTimeReader {
+
+	/**
+	 * An EXIF segment is at most 64 KB long and only the JFIF segment comes before it.
+	 */
+	private static final int HEADER_BUFFER_SIZE = 70 * 1024;
+	private static final int BOX_HEADER_LENGTH = 16;
+
+	private static final int BOX_TYPE_FTYP = 0x66747970;
+	private static final int BOX_TYPE_MOOV = 0x6D6F6F76;
+	private static final int BOX_TYPE_MVHD = 0x6D766864;
+
+	/**
+	 * The seconds between 1904-01-01, where the MP4 times start, and 1970-01-01.
+	 */
+	private static final long MP4_EPOCH_OFFSET_SECONDS = 2_082_844_800L;
+
+	private final ZoneId zoneId;
+	private final ByteBuffer headerByteBuffer;
+	private final ByteBuffer boxHeaderByteBuffer;
+
+	public EmbeddedTimeReader(
+			final ZoneId zoneId) {
+
+		this.zoneId = zoneId;
+
+		headerByteBuffer = ByteBuffer.allocate(HEADER_BUFFER_SIZE);
+		boxHeaderByteBuffer = ByteBuffer.allocate(BOX_HEADER_LENGTH);
+	}
+
+	/**
+	 * @return the photo taken time, or null if the file does not have one that can be read
+	 */
+	public Instant readTime(
+			final Path filePath) {
+
+		Instant timeInstant = null;
+		try (SeekableByteChannel seekableByteChannel = Files.newByteChannel(filePath)) {
+
+			final int startLength = readBoxHeader(seekableByteChannel, 0, BOX_HEADER_LENGTH);
+			if (startLength >= 4 && (boxHeaderByteBuffer.get(0) & 0xFF) == 0xFF &&
+					(boxHeaderByteBuffer.get(1) & 0xFF) == 0xD8) {
+
+				headerByteBuffer.clear();
+				seekableByteChannel.position(0);
+				readFully(seekableByteChannel, headerByteBuffer);
+				timeInstant = ExifReader.readDateTimeOriginal(
+						headerByteBuffer.array(), headerByteBuffer.position(), zoneId);
+
+			} else if (startLength >= 8 && boxHeaderByteBuffer.getInt(4) == BOX_TYPE_FTYP) {
+				timeInstant = readMovieCreationTime(seekableByteChannel);
+			}
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to read embedded time of file:" +
+					System.lineSeparator() + filePath);
+			Logger.printThrowable(throwable);
+		}
+		return timeInstant;
+	}
+
+	private Instant readMovieCreationTime(
+			final SeekableByteChannel seekableByteChannel) throws Exception {
+
+		Instant creationTimeInstant = null;
+		final long fileSize = seekableByteChannel.size();
+		final Box moovBox = findBox(seekableByteChannel, 0, fileSize, BOX_TYPE_MOOV);
+		if (moovBox != null) {
+
+			final Box mvhdBox = findBox(seekableByteChannel,
+					moovBox.contentPosition(), moovBox.endPosition(), BOX_TYPE_MVHD);
+			if (mvhdBox != null && readBoxHeader(seekableByteChannel, mvhdBox.contentPosition(), 12) == 12) {
+
+				final int version = boxHeaderByteBuffer.get(0);
+				final long creationTime;
+				if (version == 1) {
+					creationTime = boxHeaderByteBuffer.getLong(4);
+				} else {
+					creationTime = boxHeaderByteBuffer.getInt(4) & 0xFFFFFFFFL;
+				}
+				if (creationTime > MP4_EPOCH_OFFSET_SECONDS) {
+					creationTimeInstant = Instant.ofEpochSecond(creationTime - MP4_EPOCH_OFFSET_SECONDS);
+				}
+			}
+		}
+		return creationTimeInstant;
+	}
+
+	/**
+	 * Walks the boxes between the two positions, reading only their headers.
+	 *
+	 * @return the box, or null if there is no box of the given type
+	 */
+	private Box findBox(
+			final SeekableByteChannel seekableByteChannel,
+			final long startPosition,
+			final long endPosition,
+			final int boxType) throws Exception {
+
+		Box box = null;
+		long position = startPosition;
+		while (position + 8 <= endPosition && readBoxHeader(seekableByteChannel, position, BOX_HEADER_LENGTH) >= 8) {
+
+			long boxSize = boxHeaderByteBuffer.getInt(0) & 0xFFFFFFFFL;
+			int boxHeaderLength = 8;
+			if (boxSize == 1) {
+
+				boxSize = boxHeaderByteBuffer.getLong(8);
+				boxHeaderLength = 16;
+
+			} else if (boxSize == 0) {
+				boxSize = endPosition - position;
+			}
+			if (boxSize < boxHeaderLength || position + boxSize > endPosition) {
+				break;
+			}
+
+			if (boxHeaderByteBuffer.getInt(4) == boxType) {
+
+				box = new Box(position + boxHeaderLength, position + boxSize);
+				break;
+			}
+			position += boxSize;
+		}
+		return box;
+	}
+
+	/**
+	 * @return the number of bytes that were read into the box header buffer
+	 */
+	private int readBoxHeader(
+			final SeekableByteChannel seekableByteChannel,
+			final long position,
+			final int length) throws Exception {
+
+		boxHeaderByteBuffer.clear().limit(length);
+		seekableByteChannel.position(position);
+		readFully(seekableByteChannel, boxHeaderByteBuffer);
+		return boxHeaderByteBuffer.position();
+	}
+
+	/**
+	 * Reads until the buffer is full or the end of the file is reached.
+	 */
+	private static void readFully(
+			final SeekableByteChannel seekableByteChannel,
+			final ByteBuffer byteBuffer) throws Exception {
+
+		int readByteCount = 0;
+		while (byteBuffer.hasRemaining() && readByteCount >= 0) {
+			readByteCount = seekableByteChannel.read(byteBuffer);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+
+	private record Box(
+			long contentPosition,
+			long endPosition) {
+	}
+}
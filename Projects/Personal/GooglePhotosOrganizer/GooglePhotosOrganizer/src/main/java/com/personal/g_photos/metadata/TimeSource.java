@@ -0,0 +1,58 @@
+package com.personal.g_photos.metadata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The sources of the photo taken time, which are tried in the order given by the user until one of them has it.
+ */
+public enum TimeSource {
+
+	SIDECAR,
+	EMBEDDED;
+
+	/**
+	 * @return the time source with the given name, ignoring the case, or null if there is none
+	 */
+	public static TimeSource parse(
+			final String name) {
+
+		TimeSource timeSource = null;
+		for (final TimeSource value : values()) {
+
+			if (value.name().equalsIgnoreCase(name)) {
+
+				timeSource = value;
+				break;
+			}
+		}
+		return timeSource;
+	}
+
+	/**
+	 * @param names
+	 *            the names of the time sources, separated by commas, in the order in which they are tried
+	 * @return the time sources, or null if a name is not valid or appears more than once
+	 */
+	public static List<TimeSource> parseList(
+			final String names) {
+
+		List<TimeSource> timeSourceList = new ArrayList<>();
+		for (final String name : StringUtils.split(names, ',')) {
+
+			final TimeSource timeSource = parse(name.strip());
+			if (timeSource == null || timeSourceList.contains(timeSource)) {
+
+				timeSourceList = null;
+				break;
+			}
+			timeSourceList.add(timeSource);
+		}
+		if (timeSourceList != null && timeSourceList.isEmpty()) {
+			timeSourceList = null;
+		}
+		return timeSourceList;
+	}
+}
@@ -0,0 +1,19 @@
+package com.personal.g_photos.metrics;
+
+public final class FactoryRunMetrics {
+
+	private FactoryRunMetrics() {
+	}
+
+	/**
+	 * @param summaryIntervalMillis
+	 *            the interval of the summary lines, or 0 for none
+	 */
+	public static RunMetrics newInstance(
+			final String outputFolderPathString,
+			final long summaryIntervalMillis) {
+
+		final String reportFilePathString = RunMetrics.computeReportFilePathString(outputFolderPathString);
+		return new RunMetrics(reportFilePathString, summaryIntervalMillis);
+	}
+}
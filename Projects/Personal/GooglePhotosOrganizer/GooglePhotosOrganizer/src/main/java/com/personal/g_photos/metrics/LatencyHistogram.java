@@ -0,0 +1,111 @@
+package com.personal.g_photos.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.utils.string.StrUtils;
+
+/**
+ * Counts latencies in buckets that split every power of two in 8, so that any latency, from a few nanoseconds to
+ * days, is kept in a few kilobytes, and the percentiles are read within 12.5% of the real values. The latencies are
+ * added concurrently, without locking.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BIT_COUNT = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BIT_COUNT;
+	private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BIT_COUNT + 1) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray countArray;
+	private final AtomicLong maxValue;
+
+	public LatencyHistogram() {
+
+		countArray = new AtomicLongArray(BUCKET_COUNT);
+		maxValue = new AtomicLong();
+	}
+
+	public void add(
+			final long valueNanos) {
+
+		final long value = Math.max(0, valueNanos);
+		countArray.incrementAndGet(computeBucketIndex(value));
+		maxValue.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * @param percentile
+	 *            between 0 and 100
+	 * @return the highest value of the bucket that holds the percentile, but not more than the highest value that was
+	 *         added, or 0 if no value was added
+	 */
+	public long computePercentile(
+			final double percentile) {
+
+		long totalCount = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			totalCount += countArray.get(i);
+		}
+
+		long percentileValue = 0;
+		if (totalCount > 0) {
+
+			final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+			long count = 0;
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+
+				count += countArray.get(i);
+				if (count >= rank) {
+
+					percentileValue = Math.min(computeBucketMaxValue(i), maxValue.get());
+					break;
+				}
+			}
+		}
+		return percentileValue;
+	}
+
+	public long getMaxValue() {
+		return maxValue.get();
+	}
+
+	/**
+	 * The values below 8 have a bucket each; the others go to one of the 8 buckets of their power of two.
+	 */
+	static int computeBucketIndex(
+			final long value) {
+
+		final int bucketIndex;
+		if (value < SUB_BUCKET_COUNT) {
+			bucketIndex = (int) value;
+
+		} else {
+			final int exponent = 63 - Long.numberOfLeadingZeros(value);
+			final int shift = exponent - SUB_BUCKET_BIT_COUNT;
+			final int subBucketIndex = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+			bucketIndex = (shift + 1) * SUB_BUCKET_COUNT + subBucketIndex;
+		}
+		return bucketIndex;
+	}
+
+	static long computeBucketMaxValue(
+			final int bucketIndex) {
+
+		final long bucketMaxValue;
+		if (bucketIndex < SUB_BUCKET_COUNT) {
+			bucketMaxValue = bucketIndex;
+
+		} else {
+			final int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+			final long subBucketIndex = bucketIndex % SUB_BUCKET_COUNT;
+			final long bucketMinValue = (SUB_BUCKET_COUNT + subBucketIndex) << shift;
+			bucketMaxValue = bucketMinValue + (1L << shift) - 1;
+		}
+		return bucketMaxValue;
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
@@ -0,0 +1,75 @@
+package com.personal.g_photos.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONObject;
+
+import com.utils.string.StrUtils;
+
+/**
+ * The count, the bytes, the total time and the latencies of the items that went through an operation, added
+ * concurrently by the threads that run it.
+ */
+public class OperationMetrics {
+
+	private static final double[] PERCENTILE_ARRAY = { 50, 90, 99 };
+
+	private final LongAdder count;
+	private final LongAdder byteCount;
+	private final LongAdder totalTimeNanos;
+	private final LatencyHistogram latencyHistogram;
+
+	OperationMetrics() {
+
+		count = new LongAdder();
+		byteCount = new LongAdder();
+		totalTimeNanos = new LongAdder();
+		latencyHistogram = new LatencyHistogram();
+	}
+
+	void record(
+			final long itemByteCount,
+			final long timeNanos) {
+
+		count.increment();
+		byteCount.add(itemByteCount);
+		totalTimeNanos.add(timeNanos);
+		latencyHistogram.add(timeNanos);
+	}
+
+	JSONObject toJsonObject() {
+
+		final JSONObject jsonObject = new JSONObject();
+		jsonObject.put("count", count.sum());
+		jsonObject.put("bytes", byteCount.sum());
+		jsonObject.put("totalTimeMillis", nanosToMillis(totalTimeNanos.sum()));
+
+		final JSONObject latencyJsonObject = new JSONObject();
+		for (final double percentile : PERCENTILE_ARRAY) {
+			latencyJsonObject.put("p" + (int) percentile,
+					nanosToMillis(latencyHistogram.computePercentile(percentile)));
+		}
+		latencyJsonObject.put("max", nanosToMillis(latencyHistogram.getMaxValue()));
+		jsonObject.put("latencyMillis", latencyJsonObject);
+		return jsonObject;
+	}
+
+	private static double nanosToMillis(
+			final long nanos) {
+
+		return Math.round(nanos / 1_000.0) / 1_000.0;
+	}
+
+	long getCount() {
+		return count.sum();
+	}
+
+	long getByteCount() {
+		return byteCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
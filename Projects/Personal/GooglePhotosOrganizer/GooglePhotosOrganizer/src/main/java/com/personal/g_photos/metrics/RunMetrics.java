@@ -0,0 +1,198 @@
+package com.personal.g_photos.metrics;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.utils.io.PathUtils;
+import com.utils.io.folder_creators.FactoryFolderCreator;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Collects the metrics of the stages of a run and writes them, when the run is closed, to a JSON report in the output
+ * folder, which is replaced by every run. A single background thread samples the depths of the queues once a second
+ * and, if asked to, prints a summary line of all the stages at a longer interval. When a stage has many samples, every
+ * two samples are merged into one and the interval doubles, so that the report of a run of several days stays small.
+ */
+public class RunMetrics implements AutoCloseable {
+
+	private static final long SAMPLE_INTERVAL_MILLIS = 1000;
+	private static final int MAX_QUEUE_DEPTH_SAMPLE_COUNT = 3600;
+
+	private final String reportFilePathString;
+	private final long summaryIntervalMillis;
+	private final Instant startInstant;
+	private final List<StageMetrics> stageMetricsList;
+
+	private ScheduledExecutorService scheduledExecutorService;
+	private long tickCount;
+	private int ticksPerSample;
+
+	/**
+	 * @param summaryIntervalMillis
+	 *            the interval of the summary lines, or 0 for none
+	 */
+	RunMetrics(
+			final String reportFilePathString,
+			final long summaryIntervalMillis) {
+
+		this.reportFilePathString = reportFilePathString;
+		this.summaryIntervalMillis = summaryIntervalMillis;
+
+		startInstant = Instant.now();
+		stageMetricsList = new ArrayList<>();
+		ticksPerSample = 1;
+	}
+
+	/**
+	 * Must be called before the sampling starts.
+	 *
+	 * @param queueSizeSupplier
+	 *            the size of the queue in front of the stage, or null if the stage has no queue
+	 */
+	public StageMetrics addStage(
+			final String stageName,
+			final IntSupplier queueSizeSupplier) {
+
+		final StageMetrics stageMetrics = new StageMetrics(stageName, queueSizeSupplier);
+		stageMetricsList.add(stageMetrics);
+		return stageMetrics;
+	}
+
+	public void startSampling() {
+
+		scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+				Thread.ofPlatform().name("run metrics").daemon().factory());
+		scheduledExecutorService.scheduleAtFixedRate(this::tick,
+				SAMPLE_INTERVAL_MILLIS, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Runs on the sampling thread only. An exception would cancel the next runs, so none is let through.
+	 */
+	private void tick() {
+
+		try {
+			tickCount++;
+			if (tickCount % ticksPerSample == 0) {
+
+				for (final StageMetrics stageMetrics : stageMetricsList) {
+					stageMetrics.sampleQueueDepth();
+				}
+				if (checkTooManySamples()) {
+
+					for (final StageMetrics stageMetrics : stageMetricsList) {
+						stageMetrics.mergeQueueDepthSamples();
+					}
+					synchronized (this) {
+						ticksPerSample *= 2;
+					}
+				}
+			}
+
+			if (summaryIntervalMillis > 0 && tickCount * SAMPLE_INTERVAL_MILLIS % summaryIntervalMillis == 0) {
+				printSummary();
+			}
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to sample the run metrics");
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	private boolean checkTooManySamples() {
+
+		boolean tooManySamples = false;
+		for (final StageMetrics stageMetrics : stageMetricsList) {
+
+			if (stageMetrics.getQueueDepthSampleCount() >= MAX_QUEUE_DEPTH_SAMPLE_COUNT) {
+
+				tooManySamples = true;
+				break;
+			}
+		}
+		return tooManySamples;
+	}
+
+	private void printSummary() {
+
+		final StringBuilder sb = new StringBuilder("metrics: ");
+		for (int i = 0; i < stageMetricsList.size(); i++) {
+
+			if (i > 0) {
+				sb.append(" | ");
+			}
+			sb.append(stageMetricsList.get(i).createSummary());
+		}
+		Logger.printLine(sb);
+	}
+
+	@Override
+	public void close() {
+
+		if (scheduledExecutorService != null) {
+			scheduledExecutorService.shutdownNow();
+		}
+		writeReport();
+	}
+
+	private void writeReport() {
+
+		try {
+			final JSONObject jsonObject = new JSONObject();
+			jsonObject.put("startTime", startInstant.toString());
+			jsonObject.put("wallTimeMillis", System.currentTimeMillis() - startInstant.toEpochMilli());
+			synchronized (this) {
+				jsonObject.put("queueDepthSampleIntervalMillis", SAMPLE_INTERVAL_MILLIS * ticksPerSample);
+			}
+			final JSONArray stagesJsonArray = new JSONArray();
+			for (final StageMetrics stageMetrics : stageMetricsList) {
+				stagesJsonArray.put(stageMetrics.toJsonObject());
+			}
+			jsonObject.put("stages", stagesJsonArray);
+
+			FactoryFolderCreator.getInstance().createParentDirectories(reportFilePathString, false, true);
+
+			final Path reportFilePath = Paths.get(reportFilePathString);
+			final Path tmpReportFilePath = Paths.get(reportFilePathString + ".tmp");
+			try (BufferedWriter bufferedWriter =
+					Files.newBufferedWriter(tmpReportFilePath, StandardCharsets.UTF_8)) {
+				bufferedWriter.write(jsonObject.toString(2));
+			}
+			Files.move(tmpReportFilePath, reportFilePath,
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			Logger.printLine("metrics report:" + System.lineSeparator() + reportFilePathString);
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to write metrics report:" +
+					System.lineSeparator() + reportFilePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	static String computeReportFilePathString(
+			final String outputFolderPathString) {
+
+		return PathUtils.computePath(outputFolderPathString, ".google_photos_organizer", "metrics_report.json");
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
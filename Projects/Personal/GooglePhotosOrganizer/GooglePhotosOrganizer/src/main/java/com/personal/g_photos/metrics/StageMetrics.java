@@ -0,0 +1,114 @@
+package com.personal.g_photos.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.utils.string.StrUtils;
+import com.utils.string.size.SizeUtils;
+
+/**
+ * The metrics of one stage of a run, over all its items and split by the file type of the items, together with the
+ * depth of the queue in front of the stage, sampled at regular intervals.
+ */
+public class StageMetrics {
+
+	private final String name;
+	private final IntSupplier queueSizeSupplier;
+
+	private final OperationMetrics operationMetrics;
+	private final Map<String, OperationMetrics> operationMetricsByFileType;
+	private final List<Integer> queueDepthList;
+
+	StageMetrics(
+			final String name,
+			final IntSupplier queueSizeSupplier) {
+
+		this.name = name;
+		this.queueSizeSupplier = queueSizeSupplier;
+
+		operationMetrics = new OperationMetrics();
+		operationMetricsByFileType = new ConcurrentHashMap<>();
+		queueDepthList = new ArrayList<>();
+	}
+
+	public void record(
+			final String fileType,
+			final long itemByteCount,
+			final long timeNanos) {
+
+		operationMetrics.record(itemByteCount, timeNanos);
+		operationMetricsByFileType.computeIfAbsent(fileType, key -> new OperationMetrics())
+				.record(itemByteCount, timeNanos);
+	}
+
+	synchronized void sampleQueueDepth() {
+
+		if (queueSizeSupplier != null) {
+			queueDepthList.add(queueSizeSupplier.getAsInt());
+		}
+	}
+
+	/**
+	 * Halves the number of samples, keeping the deeper queue of every pair, so that the samples of a long run stay few.
+	 */
+	synchronized void mergeQueueDepthSamples() {
+
+		final List<Integer> mergedQueueDepthList = new ArrayList<>();
+		for (int i = 0; i < queueDepthList.size(); i += 2) {
+
+			int queueDepth = queueDepthList.get(i);
+			if (i + 1 < queueDepthList.size()) {
+				queueDepth = Math.max(queueDepth, queueDepthList.get(i + 1));
+			}
+			mergedQueueDepthList.add(queueDepth);
+		}
+		queueDepthList.clear();
+		queueDepthList.addAll(mergedQueueDepthList);
+	}
+
+	synchronized int getQueueDepthSampleCount() {
+		return queueDepthList.size();
+	}
+
+	synchronized JSONObject toJsonObject() {
+
+		final JSONObject jsonObject = operationMetrics.toJsonObject();
+		jsonObject.put("name", name);
+
+		final JSONObject fileTypesJsonObject = new JSONObject();
+		for (final Map.Entry<String, OperationMetrics> mapEntry : operationMetricsByFileType.entrySet()) {
+			fileTypesJsonObject.put(mapEntry.getKey(), mapEntry.getValue().toJsonObject());
+		}
+		jsonObject.put("fileTypes", fileTypesJsonObject);
+
+		if (queueSizeSupplier != null) {
+			jsonObject.put("queueDepths", new JSONArray(queueDepthList));
+		}
+		return jsonObject;
+	}
+
+	String createSummary() {
+
+		final StringBuilder sb = new StringBuilder(name)
+				.append(' ').append(operationMetrics.getCount());
+		final long byteCount = operationMetrics.getByteCount();
+		if (byteCount > 0) {
+			sb.append(" (").append(SizeUtils.humanReadableByteCountBin(byteCount)).append(')');
+		}
+		if (queueSizeSupplier != null) {
+			sb.append(", queue ").append(queueSizeSupplier.getAsInt());
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
@@ -0,0 +1,148 @@
+package com.personal.g_photos.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.utils.concurrency.no_progress.ConcurrencyUtilsSimpleRegular;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Runs a source and a sequence of stages concurrently. Consecutive stages are connected through bounded queues, so a
+ * fast stage blocks instead of buffering the whole input when the stage after it falls behind. Every stage has its
+ * own number of worker threads.
+ * <p>
+ * A branch stage runs beside a stage of the sequence and takes some of its items, so that slow items, which only a few
+ * threads may work on at a time, have their own worker threads and their own queue and do not hold up the others.
+ */
+public class Pipeline<
+		ItemT> {
+
+	private final String name;
+	private final List<PipelineStage<ItemT>> pipelineStageList;
+	private final List<PipelineStage<ItemT>> sequenceStageList;
+	private final List<PipelineStage<ItemT>> openBranchStageList;
+
+	public Pipeline(
+			final String name) {
+
+		this.name = name;
+
+		pipelineStageList = new ArrayList<>();
+		sequenceStageList = new ArrayList<>();
+		openBranchStageList = new ArrayList<>();
+	}
+
+	public void addStage(
+			final String stageName,
+			final int threadCount,
+			final int queueCapacity,
+			final PipelineStageProcessor<ItemT> pipelineStageProcessor) {
+
+		final PipelineStage<ItemT> pipelineStage = new PipelineStage<>(
+				stageName, Math.max(1, threadCount), Math.max(1, queueCapacity), pipelineStageProcessor);
+		if (!sequenceStageList.isEmpty()) {
+			sequenceStageList.getLast().setNextStage(pipelineStage);
+		}
+		for (final PipelineStage<ItemT> branchStage : openBranchStageList) {
+			branchStage.setNextStage(pipelineStage);
+		}
+		openBranchStageList.clear();
+		sequenceStageList.add(pipelineStage);
+		pipelineStageList.add(pipelineStage);
+	}
+
+	/**
+	 * Adds a stage beside the last stage of the sequence. The items that the stage before it hands over and that match
+	 * the predicate go to the branch stage instead, and the branch stage hands its items over to the next stage that is
+	 * added to the sequence.
+	 */
+	public void addBranchStage(
+			final String stageName,
+			final int threadCount,
+			final int queueCapacity,
+			final Predicate<ItemT> branchPredicate,
+			final PipelineStageProcessor<ItemT> pipelineStageProcessor) {
+
+		if (sequenceStageList.size() < 2) {
+			throw new IllegalStateException("a branch stage needs a stage before the stage that it runs beside");
+		}
+
+		final PipelineStage<ItemT> pipelineStage = new PipelineStage<>(
+				stageName, Math.max(1, threadCount), Math.max(1, queueCapacity), pipelineStageProcessor);
+		sequenceStageList.get(sequenceStageList.size() - 2).setBranchStage(branchPredicate, pipelineStage);
+		openBranchStageList.add(pipelineStage);
+		pipelineStageList.add(pipelineStage);
+	}
+
+	/**
+	 * @return the number of items waiting in front of the stage, or 0 if there is no stage with the given name
+	 */
+	public int computeQueueSize(
+			final String stageName) {
+
+		int queueSize = 0;
+		for (final PipelineStage<ItemT> pipelineStage : pipelineStageList) {
+
+			if (pipelineStage.getName().equals(stageName)) {
+
+				queueSize = pipelineStage.getQueueSize();
+				break;
+			}
+		}
+		return queueSize;
+	}
+
+	public void run(
+			final PipelineSource<ItemT> pipelineSource) {
+
+		if (!pipelineStageList.isEmpty()) {
+
+			printStages();
+
+			final PipelineStage<ItemT> firstPipelineStage = sequenceStageList.getFirst();
+
+			final List<Runnable> runnableList = new ArrayList<>();
+			runnableList.add(() -> {
+
+				try {
+					pipelineSource.produce(firstPipelineStage::put);
+
+				} catch (final Throwable throwable) {
+					Logger.printError("failed to produce the input of pipeline \"" + name + "\"");
+					Logger.printThrowable(throwable);
+
+				} finally {
+					firstPipelineStage.signalEndOfInput();
+				}
+			});
+			for (final PipelineStage<ItemT> pipelineStage : pipelineStageList) {
+
+				final int threadCount = pipelineStage.getThreadCount();
+				for (int i = 0; i < threadCount; i++) {
+					runnableList.add(pipelineStage::work);
+				}
+			}
+
+			new ConcurrencyUtilsSimpleRegular(runnableList.size()).executeMultiThreadedTask(runnableList);
+		}
+	}
+
+	private void printStages() {
+
+		final StringBuilder sbMessage = new StringBuilder("running pipeline \"")
+				.append(name).append("\" with stages:");
+		for (final PipelineStage<ItemT> pipelineStage : pipelineStageList) {
+
+			sbMessage.append(System.lineSeparator()).append(pipelineStage.getName())
+					.append(" (threads: ").append(pipelineStage.getThreadCount()).append(')');
+		}
+		Logger.printProgress(sbMessage);
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
@@ -0,0 +1,14 @@
+package com.personal.g_photos.pipeline;
+
+import java.util.function.Consumer;
+
+public interface PipelineSource<
+		ItemT> {
+
+	/**
+	 * @param itemConsumer
+	 *            hands the item over to the first stage of the pipeline, blocking while its queue is full
+	 */
+	void produce(
+			Consumer<ItemT> itemConsumer);
+}
@@ -0,0 +1,173 @@
+package com.personal.g_photos.pipeline;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+public class PipelineStage<
+		ItemT> {
+
+	private static final Object END_OF_INPUT = new Object();
+
+	private final String name;
+	private final int threadCount;
+	private final PipelineStageProcessor<ItemT> pipelineStageProcessor;
+
+	private final BlockingQueue<Object> inputQueue;
+	private final AtomicInteger remainingWorkerCount;
+	private final AtomicInteger remainingUpstreamCount;
+
+	private int upstreamStageCount;
+	private PipelineStage<ItemT> nextStage;
+	private Predicate<ItemT> branchPredicate;
+	private PipelineStage<ItemT> branchStage;
+
+	PipelineStage(
+			final String name,
+			final int threadCount,
+			final int queueCapacity,
+			final PipelineStageProcessor<ItemT> pipelineStageProcessor) {
+
+		this.name = name;
+		this.threadCount = threadCount;
+		this.pipelineStageProcessor = pipelineStageProcessor;
+
+		inputQueue = new ArrayBlockingQueue<>(queueCapacity);
+		remainingWorkerCount = new AtomicInteger(threadCount);
+		remainingUpstreamCount = new AtomicInteger(1);
+	}
+
+	void work() {
+
+		try {
+			while (true) {
+
+				final Object element = inputQueue.take();
+				if (element == END_OF_INPUT) {
+					break;
+				}
+
+				@SuppressWarnings("unchecked")
+				final ItemT item = (ItemT) element;
+
+				boolean handOver = false;
+				try {
+					handOver = pipelineStageProcessor.process(item);
+
+				} catch (final Throwable throwable) {
+					Logger.printError("failed to process item in pipeline stage \"" + name + "\":" +
+							System.lineSeparator() + item);
+					Logger.printThrowable(throwable);
+				}
+				if (handOver) {
+
+					if (branchStage != null && branchPredicate.test(item)) {
+						branchStage.put(item);
+					} else if (nextStage != null) {
+						nextStage.put(item);
+					}
+				}
+			}
+
+		} catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			Logger.printError("pipeline stage \"" + name + "\" was interrupted");
+
+		} finally {
+			if (remainingWorkerCount.decrementAndGet() == 0) {
+
+				if (nextStage != null) {
+					nextStage.signalEndOfInput();
+				}
+				if (branchStage != null) {
+					branchStage.signalEndOfInput();
+				}
+			}
+		}
+	}
+
+	void put(
+			final ItemT item) {
+
+		try {
+			inputQueue.put(item);
+
+		} catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			Logger.printError("interrupted while handing over item to pipeline stage \"" + name + "\":" +
+					System.lineSeparator() + item);
+		}
+	}
+
+	/**
+	 * Ends the input of the stage once every stage that hands items over to it has ended its own, so that a stage that
+	 * gets the items of a branch and of the stage beside it waits for both.
+	 */
+	void signalEndOfInput() {
+
+		if (remainingUpstreamCount.decrementAndGet() == 0) {
+
+			for (int i = 0; i < threadCount; i++) {
+
+				try {
+					inputQueue.put(END_OF_INPUT);
+
+				} catch (final InterruptedException exc) {
+					Thread.currentThread().interrupt();
+					Logger.printError("interrupted while signaling end of input to pipeline stage \"" + name + "\"");
+					break;
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * @return the number of items waiting for a worker thread of the stage
+	 */
+	public int getQueueSize() {
+		return inputQueue.size();
+	}
+
+	void setNextStage(
+			final PipelineStage<ItemT> nextStage) {
+
+		this.nextStage = nextStage;
+		nextStage.addUpstreamStage();
+	}
+
+	/**
+	 * The items that the stage hands over and that match the predicate go to the branch stage instead of the next
+	 * stage.
+	 */
+	void setBranchStage(
+			final Predicate<ItemT> branchPredicate,
+			final PipelineStage<ItemT> branchStage) {
+
+		this.branchPredicate = branchPredicate;
+		this.branchStage = branchStage;
+		branchStage.addUpstreamStage();
+	}
+
+	private void addUpstreamStage() {
+
+		upstreamStageCount++;
+		remainingUpstreamCount.set(upstreamStageCount);
+	}
+}
@@ -0,0 +1,13 @@
+package com.personal.g_photos.pipeline;
+
+public interface PipelineStageProcessor<
+		ItemT> {
+
+	/**
+	 * @param item
+	 *            the item received from the previous stage
+	 * @return true if the item should be handed over to the next stage, false otherwise
+	 */
+	boolean process(
+			ItemT item);
+}
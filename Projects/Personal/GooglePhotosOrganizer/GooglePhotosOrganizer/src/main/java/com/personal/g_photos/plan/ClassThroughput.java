@@ -0,0 +1,57 @@
+package com.personal.g_photos.plan;
+
+import com.utils.string.StrUtils;
+
+/**
+ * The totals of the files of one class that were processed: their count, the bytes read and written, and the time
+ * that the processing threads spent on them, including the time they waited for a free video job.
+ */
+record ClassThroughput(
+		FileClass fileClass,
+		long fileCount,
+		long inputByteCount,
+		long outputByteCount,
+		long busyTimeNanos) {
+
+	private static final String FIELD_SEPARATOR = "\t";
+
+	ClassThroughput plus(
+			final long fileCount,
+			final long inputByteCount,
+			final long outputByteCount,
+			final long busyTimeNanos) {
+
+		return new ClassThroughput(fileClass, this.fileCount + fileCount, this.inputByteCount + inputByteCount,
+				this.outputByteCount + outputByteCount, this.busyTimeNanos + busyTimeNanos);
+	}
+
+	String toLine() {
+
+		return String.join(FIELD_SEPARATOR, fileClass.name(), String.valueOf(fileCount),
+				String.valueOf(inputByteCount), String.valueOf(outputByteCount), String.valueOf(busyTimeNanos));
+	}
+
+	/**
+	 * @return the totals, or null if the line is not a valid throughput line
+	 */
+	static ClassThroughput parseLine(
+			final String line) {
+
+		ClassThroughput classThroughput = null;
+		final String[] fieldArray = line.split(FIELD_SEPARATOR, -1);
+		if (fieldArray.length == 5) {
+
+			final FileClass fileClass = FileClass.parse(fieldArray[0]);
+			final long fileCount = StrUtils.tryParsePositiveLong(fieldArray[1]);
+			final long inputByteCount = StrUtils.tryParsePositiveLong(fieldArray[2]);
+			final long outputByteCount = StrUtils.tryParsePositiveLong(fieldArray[3]);
+			final long busyTimeNanos = StrUtils.tryParsePositiveLong(fieldArray[4]);
+			if (fileClass != null && fileCount >= 0 && inputByteCount >= 0 && outputByteCount >= 0 &&
+					busyTimeNanos >= 0) {
+				classThroughput = new ClassThroughput(fileClass, fileCount, inputByteCount, outputByteCount,
+						busyTimeNanos);
+			}
+		}
+		return classThroughput;
+	}
+}
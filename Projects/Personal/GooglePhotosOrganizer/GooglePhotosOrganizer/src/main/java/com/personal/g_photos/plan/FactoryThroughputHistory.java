@@ -0,0 +1,17 @@
+package com.personal.g_photos.plan;
+
+public final class FactoryThroughputHistory {
+
+	private FactoryThroughputHistory() {
+	}
+
+	public static ThroughputHistory newInstance(
+			final String outputFolderPathString) {
+
+		final String historyFilePathString =
+				ThroughputHistory.computeHistoryFilePathString(outputFolderPathString);
+		final ThroughputHistory throughputHistory = new ThroughputHistory(historyFilePathString);
+		throughputHistory.load();
+		return throughputHistory;
+	}
+}
@@ -0,0 +1,48 @@
+package com.personal.g_photos.plan;
+
+import org.apache.commons.lang3.Strings;
+
+/**
+ * The path that a file takes through the processing: the images are decoded and re-encoded, the videos are remuxed
+ * or transcoded by ffmpeg, and every other file, including the videos when they are not remuxed, is copied or linked
+ * as it is.
+ */
+public enum FileClass {
+
+	COPY,
+	IMAGE,
+	VIDEO;
+
+	public static FileClass classify(
+			final String filePathString,
+			final boolean remuxVideos) {
+
+		final FileClass fileClass;
+		if (Strings.CI.endsWithAny(filePathString, ".jpg", ".jpeg", ".heic", ".png", ".webp")) {
+			fileClass = IMAGE;
+		} else if (remuxVideos && Strings.CI.endsWithAny(filePathString, ".mp4", ".mov")) {
+			fileClass = VIDEO;
+		} else {
+			fileClass = COPY;
+		}
+		return fileClass;
+	}
+
+	/**
+	 * @return the file class with the given name, ignoring the case, or null if there is none
+	 */
+	static FileClass parse(
+			final String name) {
+
+		FileClass fileClass = null;
+		for (final FileClass value : values()) {
+
+			if (value.name().equalsIgnoreCase(name)) {
+
+				fileClass = value;
+				break;
+			}
+		}
+		return fileClass;
+	}
+}
@@ -0,0 +1,181 @@
+package com.personal.g_photos.plan;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+import com.utils.string.size.SizeUtils;
+
+/**
+ * Tells how long a run will take and how much it will write, without running it. The files that the scan hands over
+ * are only put in their class and their sizes added up, from the attributes of the files and from the central
+ * directories of the archives, so no content is read. The totals of every class are then scaled by the throughput
+ * that the earlier runs into the same output folder measured for that class.
+ * <p>
+ * The wall time is the busy time of the processing threads divided by their number, so the time that the threads
+ * waited for a free video job is counted in. Every file is counted as a file to process, since telling the duplicates
+ * and the files that are up to date apart would need their content, so the estimates are upper bounds.
+ */
+public class RunPlanner {
+
+	private final ArchiveFileSystems archiveFileSystems;
+	private final boolean remuxVideos;
+	private final Map<FileClass, ClassThroughput> classThroughputsByFileClass;
+
+	public RunPlanner(
+			final ArchiveFileSystems archiveFileSystems,
+			final boolean remuxVideos) {
+
+		this.archiveFileSystems = archiveFileSystems;
+		this.remuxVideos = remuxVideos;
+
+		classThroughputsByFileClass = new EnumMap<>(FileClass.class);
+		for (final FileClass fileClass : FileClass.values()) {
+			classThroughputsByFileClass.put(fileClass, new ClassThroughput(fileClass, 0, 0, 0, 0));
+		}
+	}
+
+	public void addFile(
+			final String filePathString) {
+
+		try {
+			final long fileSize = Files.size(archiveFileSystems.resolvePath(filePathString));
+			final FileClass fileClass = FileClass.classify(filePathString, remuxVideos);
+			classThroughputsByFileClass.computeIfPresent(fileClass, (key, classThroughput) ->
+					classThroughput.plus(1, fileSize, 0, 0));
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to read size of file:" + System.lineSeparator() + filePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	public void printPlan(
+			final ThroughputHistory throughputHistory,
+			final int threadCount) {
+
+		final StringBuilder sb = new StringBuilder("plan:");
+		long fileCount = 0;
+		long inputByteCount = 0;
+		long outputByteCount = 0;
+		long busyTimeNanos = 0;
+		boolean complete = true;
+		for (final ClassThroughput classThroughput : classThroughputsByFileClass.values()) {
+
+			final FileClass fileClass = classThroughput.fileClass();
+			final long classOutputByteCount = computeEstimatedOutputByteCount(fileClass, throughputHistory);
+			final long classBusyTimeNanos = computeEstimatedBusyTimeNanos(fileClass, throughputHistory);
+
+			sb.append(System.lineSeparator()).append(fileClass.name().toLowerCase(Locale.ROOT))
+					.append(": ").append(classThroughput.fileCount()).append(" files")
+					.append(", in ").append(SizeUtils.humanReadableByteCountBin(classThroughput.inputByteCount()))
+					.append(", out ").append(createByteCountDisplayString(classOutputByteCount))
+					.append(", busy time ").append(createTimeDisplayString(classBusyTimeNanos));
+
+			fileCount += classThroughput.fileCount();
+			inputByteCount += classThroughput.inputByteCount();
+			if (classOutputByteCount >= 0 && classBusyTimeNanos >= 0) {
+
+				outputByteCount += classOutputByteCount;
+				busyTimeNanos += classBusyTimeNanos;
+
+			} else {
+				complete = false;
+			}
+		}
+
+		sb.append(System.lineSeparator()).append("total: ").append(fileCount).append(" files")
+				.append(", in ").append(SizeUtils.humanReadableByteCountBin(inputByteCount))
+				.append(", out ").append(SizeUtils.humanReadableByteCountBin(outputByteCount))
+				.append(", wall time ").append(createTimeDisplayString(busyTimeNanos / threadCount))
+				.append(" with ").append(threadCount).append(" thread(s)");
+		if (!complete) {
+			sb.append(System.lineSeparator())
+					.append("(the classes that no earlier run measured are left out of the total)");
+		}
+		Logger.printLine(sb);
+	}
+
+	/**
+	 * The copies write as many bytes as they read, even before any run measured them.
+	 *
+	 * @return the estimated output size of the files of the class, or -1 if no earlier run measured the class
+	 */
+	long computeEstimatedOutputByteCount(
+			final FileClass fileClass,
+			final ThroughputHistory throughputHistory) {
+
+		final ClassThroughput classThroughput = classThroughputsByFileClass.get(fileClass);
+		final ClassThroughput measuredClassThroughput = throughputHistory.getClassThroughput(fileClass);
+
+		final long outputByteCount;
+		if (classThroughput.inputByteCount() == 0) {
+			outputByteCount = 0;
+		} else if (measuredClassThroughput.inputByteCount() > 0) {
+			outputByteCount = Math.round((double) classThroughput.inputByteCount() *
+					measuredClassThroughput.outputByteCount() / measuredClassThroughput.inputByteCount());
+		} else if (fileClass == FileClass.COPY) {
+			outputByteCount = classThroughput.inputByteCount();
+		} else {
+			outputByteCount = -1;
+		}
+		return outputByteCount;
+	}
+
+	/**
+	 * @return the estimated busy time of the processing threads on the files of the class, or -1 if no earlier run
+	 *         measured the class
+	 */
+	long computeEstimatedBusyTimeNanos(
+			final FileClass fileClass,
+			final ThroughputHistory throughputHistory) {
+
+		final ClassThroughput classThroughput = classThroughputsByFileClass.get(fileClass);
+		final ClassThroughput measuredClassThroughput = throughputHistory.getClassThroughput(fileClass);
+
+		final long busyTimeNanos;
+		if (classThroughput.inputByteCount() == 0) {
+			busyTimeNanos = 0;
+		} else if (measuredClassThroughput.inputByteCount() > 0) {
+			busyTimeNanos = Math.round((double) classThroughput.inputByteCount() *
+					measuredClassThroughput.busyTimeNanos() / measuredClassThroughput.inputByteCount());
+		} else {
+			busyTimeNanos = -1;
+		}
+		return busyTimeNanos;
+	}
+
+	private static String createByteCountDisplayString(
+			final long byteCount) {
+
+		final String byteCountDisplayString;
+		if (byteCount >= 0) {
+			byteCountDisplayString = SizeUtils.humanReadableByteCountBin(byteCount);
+		} else {
+			byteCountDisplayString = "unknown";
+		}
+		return byteCountDisplayString;
+	}
+
+	private static String createTimeDisplayString(
+			final long timeNanos) {
+
+		final String timeDisplayString;
+		if (timeNanos >= 0) {
+			timeDisplayString = StrUtils.durationToString(Duration.ofNanos(timeNanos));
+		} else {
+			timeDisplayString = "unknown";
+		}
+		return timeDisplayString;
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
@@ -0,0 +1,116 @@
+package com.personal.g_photos.plan;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.utils.io.IoUtils;
+import com.utils.io.PathUtils;
+import com.utils.io.ReaderUtils;
+import com.utils.io.folder_creators.FactoryFolderCreator;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Keeps the throughput of every file class, over all the runs into the same output folder, so that a plan can tell
+ * how long the next run will take and how much it will write. The files that are processed add to the totals of the
+ * earlier runs, concurrently, and the totals are saved at the end of the run.
+ */
+public class ThroughputHistory {
+
+	private final String historyFilePathString;
+	private final Map<FileClass, ClassThroughput> classThroughputsByFileClass;
+
+	ThroughputHistory(
+			final String historyFilePathString) {
+
+		this.historyFilePathString = historyFilePathString;
+
+		classThroughputsByFileClass = new EnumMap<>(FileClass.class);
+		for (final FileClass fileClass : FileClass.values()) {
+			classThroughputsByFileClass.put(fileClass, new ClassThroughput(fileClass, 0, 0, 0, 0));
+		}
+	}
+
+	void load() {
+
+		if (IoUtils.fileExists(historyFilePathString)) {
+
+			try (BufferedReader bufferedReader = ReaderUtils.openBufferedReader(historyFilePathString)) {
+
+				String line;
+				while ((line = bufferedReader.readLine()) != null) {
+
+					final ClassThroughput classThroughput = ClassThroughput.parseLine(line);
+					if (classThroughput != null) {
+						classThroughputsByFileClass.put(classThroughput.fileClass(), classThroughput);
+					}
+				}
+
+			} catch (final Throwable throwable) {
+				Logger.printError("failed to load throughput history:" +
+						System.lineSeparator() + historyFilePathString);
+				Logger.printThrowable(throwable);
+			}
+		}
+	}
+
+	public synchronized void record(
+			final FileClass fileClass,
+			final long inputByteCount,
+			final long outputByteCount,
+			final long busyTimeNanos) {
+
+		classThroughputsByFileClass.computeIfPresent(fileClass, (key, classThroughput) ->
+				classThroughput.plus(1, inputByteCount, outputByteCount, busyTimeNanos));
+	}
+
+	synchronized ClassThroughput getClassThroughput(
+			final FileClass fileClass) {
+
+		return classThroughputsByFileClass.get(fileClass);
+	}
+
+	public synchronized void save() {
+
+		try {
+			FactoryFolderCreator.getInstance().createParentDirectories(historyFilePathString, false, true);
+
+			final Path historyFilePath = Paths.get(historyFilePathString);
+			final Path tmpHistoryFilePath = Paths.get(historyFilePathString + ".tmp");
+			try (BufferedWriter bufferedWriter =
+					Files.newBufferedWriter(tmpHistoryFilePath, StandardCharsets.UTF_8)) {
+
+				for (final ClassThroughput classThroughput : classThroughputsByFileClass.values()) {
+
+					bufferedWriter.write(classThroughput.toLine());
+					bufferedWriter.newLine();
+				}
+			}
+			Files.move(tmpHistoryFilePath, historyFilePath,
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to save throughput history:" +
+					System.lineSeparator() + historyFilePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	static String computeHistoryFilePathString(
+			final String outputFolderPathString) {
+
+		return PathUtils.computePath(outputFolderPathString, ".google_photos_organizer", "throughput.tsv");
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+}
@@ -0,0 +1,17 @@
+package com.personal.g_photos.thumbnails;
+
+public final class FactoryThumbnailCache {
+
+	private FactoryThumbnailCache() {
+	}
+
+	public static ThumbnailCache newInstance(
+			final String outputFolderPathString,
+			final long maxCacheSize) {
+
+		final String cacheFolderPathString = ThumbnailCache.computeCacheFolderPathString(outputFolderPathString);
+		final ThumbnailCache thumbnailCache = new ThumbnailCache(cacheFolderPathString, maxCacheSize);
+		thumbnailCache.load();
+		return thumbnailCache;
+	}
+}
@@ -0,0 +1,241 @@
+package com.personal.g_photos.thumbnails;
+
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.Strings;
+
+import com.utils.io.IoUtils;
+import com.utils.io.PathUtils;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+
+/**
+ * Holds the thumbnails of the organized photos, for the viewers, in a folder of the output. Every thumbnail is named
+ * after the content hash of its source file and is put in a shard folder named after the first characters of the hash,
+ * so that no folder gets too many files, and so that a photo that is organized again, or found in another export,
+ * reuses its thumbnail.
+ * <p>
+ * The size of the cache is bounded: when it grows past the maximum, the least recently used thumbnails are deleted.
+ * The last modified time of a thumbnail is its last use, so the order of use survives from one run to the next. A
+ * thumbnail is written under a temporary name outside the lock of the map, but it is published under its final name,
+ * and the evicted thumbnails are deleted, under the lock, so that the files always match the map: an eviction cannot
+ * delete a thumbnail that another thread has just put again.
+ */
+public class ThumbnailCache {
+
+	private static final String THUMBNAIL_EXTENSION = ".jpg";
+	private static final int SHARD_NAME_LENGTH = 2;
+
+	private final String cacheFolderPathString;
+	private final long maxCacheSize;
+
+	private final Map<String, Long> thumbnailSizesByKey;
+	private long cacheSize;
+	private int writtenThumbnailCount;
+	private int reusedThumbnailCount;
+	private int evictedThumbnailCount;
+
+	ThumbnailCache(
+			final String cacheFolderPathString,
+			final long maxCacheSize) {
+
+		this.cacheFolderPathString = cacheFolderPathString;
+		this.maxCacheSize = maxCacheSize;
+
+		thumbnailSizesByKey = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Lists the thumbnails of the earlier runs, from the least to the most recently used.
+	 */
+	void load() {
+
+		if (IoUtils.directoryExists(cacheFolderPathString)) {
+
+			Logger.printProgress("loading thumbnail cache:" + System.lineSeparator() + cacheFolderPathString);
+
+			final List<CachedThumbnail> cachedThumbnailList = new ArrayList<>();
+			try {
+				Files.walkFileTree(Paths.get(cacheFolderPathString), new SimpleFileVisitor<>() {
+
+					@Override
+					public FileVisitResult visitFile(
+							final Path filePath,
+							final BasicFileAttributes basicFileAttributes) {
+
+						final String fileName = PathUtils.computeFileName(filePath);
+						if (Strings.CS.endsWith(fileName, THUMBNAIL_EXTENSION)) {
+
+							final String key = PathUtils.computePathWoExt(fileName);
+							cachedThumbnailList.add(new CachedThumbnail(key, basicFileAttributes.size(),
+									basicFileAttributes.lastModifiedTime().toMillis()));
+						}
+						return FileVisitResult.CONTINUE;
+					}
+				});
+
+			} catch (final Throwable throwable) {
+				Logger.printError("failed to load thumbnail cache:" +
+						System.lineSeparator() + cacheFolderPathString);
+				Logger.printThrowable(throwable);
+			}
+
+			cachedThumbnailList.sort(Comparator.comparingLong(CachedThumbnail::lastUseTime));
+			synchronized (this) {
+
+				for (final CachedThumbnail cachedThumbnail : cachedThumbnailList) {
+
+					thumbnailSizesByKey.put(cachedThumbnail.key(), cachedThumbnail.size());
+					cacheSize += cachedThumbnail.size();
+				}
+				evict();
+			}
+			Logger.printLine("(cached thumbnails: " + thumbnailSizesByKey.size() + ")");
+		}
+	}
+
+	/**
+	 * Marks the thumbnail as used, if it is in the cache, so that it is evicted last.
+	 *
+	 * @return true if the cache has the thumbnail, false otherwise
+	 */
+	public boolean touch(
+			final String key) {
+
+		final boolean cached;
+		synchronized (this) {
+
+			cached = thumbnailSizesByKey.get(key) != null;
+			if (cached) {
+				reusedThumbnailCount++;
+			}
+		}
+
+		if (cached) {
+
+			try {
+				Files.setLastModifiedTime(Paths.get(computeThumbnailFilePathString(key)),
+						FileTime.fromMillis(System.currentTimeMillis()));
+
+			} catch (final Throwable throwable) {
+				Logger.printError("failed to touch thumbnail:" +
+						System.lineSeparator() + computeThumbnailFilePathString(key));
+				Logger.printThrowable(throwable);
+			}
+		}
+		return cached;
+	}
+
+	/**
+	 * Writes the thumbnail under a temporary name first, so that a viewer never reads half of a file, and then evicts
+	 * the least recently used thumbnails, if the cache grew past its maximum size.
+	 */
+	public void put(
+			final String key,
+			final byte[] byteArray) {
+
+		final String thumbnailFilePathString = computeThumbnailFilePathString(key);
+		try {
+			final Path thumbnailFilePath = Paths.get(thumbnailFilePathString);
+			final Path shardFolderPath = Files.createDirectories(thumbnailFilePath.getParent());
+			final Path tmpThumbnailFilePath = Files.createTempFile(shardFolderPath, key, ".tmp");
+			try (OutputStream outputStream = Files.newOutputStream(tmpThumbnailFilePath)) {
+				outputStream.write(byteArray);
+			}
+
+			synchronized (this) {
+
+				Files.move(tmpThumbnailFilePath, thumbnailFilePath,
+						StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				final Long previousSize = thumbnailSizesByKey.put(key, (long) byteArray.length);
+				if (previousSize != null) {
+					cacheSize -= previousSize;
+				}
+				cacheSize += byteArray.length;
+				writtenThumbnailCount++;
+				evict();
+			}
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to write thumbnail:" +
+					System.lineSeparator() + thumbnailFilePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	/**
+	 * Runs under the lock of the map. The map is in the order of use, so its first entries are the least recently
+	 * used thumbnails.
+	 */
+	private void evict() {
+
+		final Iterator<Map.Entry<String, Long>> iterator = thumbnailSizesByKey.entrySet().iterator();
+		while (cacheSize > maxCacheSize && iterator.hasNext()) {
+
+			final Map.Entry<String, Long> mapEntry = iterator.next();
+			cacheSize -= mapEntry.getValue();
+			deleteThumbnail(mapEntry.getKey());
+			iterator.remove();
+			evictedThumbnailCount++;
+		}
+	}
+
+	private void deleteThumbnail(
+			final String key) {
+
+		final String thumbnailFilePathString = computeThumbnailFilePathString(key);
+		try {
+			Files.deleteIfExists(Paths.get(thumbnailFilePathString));
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to delete thumbnail:" +
+					System.lineSeparator() + thumbnailFilePathString);
+			Logger.printThrowable(throwable);
+		}
+	}
+
+	String computeThumbnailFilePathString(
+			final String key) {
+
+		return PathUtils.computePath(cacheFolderPathString,
+				key.substring(0, SHARD_NAME_LENGTH), key + THUMBNAIL_EXTENSION);
+	}
+
+	public synchronized void printStatistics() {
+
+		Logger.printLine("thumbnails written: " + writtenThumbnailCount +
+				", reused: " + reusedThumbnailCount + ", evicted: " + evictedThumbnailCount +
+				", cache size: " + cacheSize + " bytes");
+	}
+
+	static String computeCacheFolderPathString(
+			final String outputFolderPathString) {
+
+		return PathUtils.computePath(outputFolderPathString, ".google_photos_organizer", "thumbnails");
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+
+	private record CachedThumbnail(
+			String key,
+			long size,
+			long lastUseTime) {
+	}
+}
@@ -0,0 +1,18 @@
+package com.personal.g_photos.videos;
+
+public final class FactoryVideoTranscodeScheduler {
+
+	private FactoryVideoTranscodeScheduler() {
+	}
+
+	public static VideoTranscodeScheduler newInstance(
+			final String executablePathString,
+			final int maxJobCount,
+			final long timeoutMillis,
+			final int maxRetryCount,
+			final boolean verbose) {
+
+		return new VideoTranscodeScheduler(executablePathString,
+				Math.max(1, maxJobCount), timeoutMillis, Math.max(0, maxRetryCount), verbose);
+	}
+}
@@ -0,0 +1,47 @@
+package com.personal.g_photos.videos;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import com.utils.io.processes.AbstractReadBytesHandlerLines;
+import com.utils.log.Logger;
+
+/**
+ * Keeps only the last lines of the process output, which are the ones that explain a failure, and prints all of them
+ * if asked to. A handler reads a single stream, since the lines are assembled in a buffer that is not synchronized.
+ */
+class ReadBytesHandlerLinesTail extends AbstractReadBytesHandlerLines {
+
+	private final int maxLineCount;
+	private final boolean print;
+	private final Deque<String> lineDeque;
+
+	ReadBytesHandlerLinesTail(
+			final int maxLineCount,
+			final boolean print) {
+
+		this.maxLineCount = maxLineCount;
+		this.print = print;
+
+		lineDeque = new ArrayDeque<>();
+	}
+
+	@Override
+	protected synchronized void handleLine(
+			final String line) {
+
+		if (print) {
+			Logger.printLine(line);
+		}
+		if (lineDeque.size() == maxLineCount) {
+			lineDeque.removeFirst();
+		}
+		lineDeque.addLast(line);
+	}
+
+	synchronized List<String> createLineList() {
+		return new ArrayList<>(lineDeque);
+	}
+}
@@ -0,0 +1,32 @@
+package com.personal.g_photos.videos;
+
+import java.time.Duration;
+
+import com.utils.string.StrUtils;
+import com.utils.string.size.SizeUtils;
+
+public record VideoTranscodeJobStats(
+		String filePathString,
+		int attemptCount,
+		long wallTimeNanos,
+		long cpuTimeNanos,
+		long inputByteCount,
+		long outputByteCount,
+		boolean success) {
+
+	String createDisplayString() {
+
+		final String result;
+		if (success) {
+			result = "succeeded";
+		} else {
+			result = "failed";
+		}
+		return "video job " + result + " after " + attemptCount + " attempt(s)" +
+				", wall time " + StrUtils.durationToString(Duration.ofNanos(wallTimeNanos)) +
+				", CPU time " + StrUtils.durationToString(Duration.ofNanos(cpuTimeNanos)) +
+				", in " + SizeUtils.humanReadableByteCountBin(inputByteCount) +
+				", out " + SizeUtils.humanReadableByteCountBin(outputByteCount) +
+				":" + System.lineSeparator() + filePathString;
+	}
+}
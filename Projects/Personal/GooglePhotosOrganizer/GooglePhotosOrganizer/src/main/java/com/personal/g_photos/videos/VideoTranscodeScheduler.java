@@ -0,0 +1,290 @@
+package com.personal.g_photos.videos;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.Strings;
+import org.apache.commons.lang3.SystemUtils;
+
+import com.utils.io.IoUtils;
+import com.utils.io.file_deleters.FactoryFileDeleter;
+import com.utils.io.processes.InputStreamReaderThread;
+import com.utils.log.Logger;
+import com.utils.string.StrUtils;
+import com.utils.string.size.SizeUtils;
+
+/**
+ * Runs the ffmpeg jobs, at most a configured number at the same time, so that the videos do not take all the cores
+ * away from the images. The output and the error streams of a process are merged and pumped by a separate thread, so
+ * that a process never stalls on a full pipe. A job that runs longer than the timeout is killed, and a job that fails
+ * in a way that may not happen again, such as a crash or a lack of memory, is started again, up to the configured
+ * number of retries. A job that fails on its input is not retried, since it would fail the same way.
+ */
+public class VideoTranscodeScheduler {
+
+	private static final int STATUS_POLL_INTERVAL_MILLIS = 200;
+	private static final int ERROR_TAIL_LINE_COUNT = 20;
+	private static final String[] TRANSIENT_ERROR_MESSAGE_ARRAY = {
+			"Resource temporarily unavailable",
+			"Cannot allocate memory",
+			"Too many open files",
+			"Device or resource busy",
+			"Interrupted system call"
+	};
+
+	private final String executablePathString;
+	private final int maxJobCount;
+	private final long timeoutMillis;
+	private final int maxRetryCount;
+	private final boolean verbose;
+
+	private final Semaphore jobSemaphore;
+	private final AtomicInteger jobCount;
+	private final AtomicInteger failedJobCount;
+	private final AtomicLong totalWallTimeNanos;
+	private final AtomicLong totalCpuTimeNanos;
+	private final AtomicLong totalInputByteCount;
+	private final AtomicLong totalOutputByteCount;
+
+	VideoTranscodeScheduler(
+			final String executablePathString,
+			final int maxJobCount,
+			final long timeoutMillis,
+			final int maxRetryCount,
+			final boolean verbose) {
+
+		this.executablePathString = executablePathString;
+		this.maxJobCount = maxJobCount;
+		this.timeoutMillis = timeoutMillis;
+		this.maxRetryCount = maxRetryCount;
+		this.verbose = verbose;
+
+		jobSemaphore = new Semaphore(maxJobCount);
+		jobCount = new AtomicInteger();
+		failedJobCount = new AtomicInteger();
+		totalWallTimeNanos = new AtomicLong();
+		totalCpuTimeNanos = new AtomicLong();
+		totalInputByteCount = new AtomicLong();
+		totalOutputByteCount = new AtomicLong();
+	}
+
+	/**
+	 * Copies the video stream and converts the audio stream to AAC, keeping the metadata. Blocks until the job is
+	 * done, waiting first for a free slot if the maximum number of jobs are already running.
+	 */
+	public VideoTranscodeJobStats transcode(
+			final String filePathString,
+			final String outputFilePathString) {
+
+		final List<String> commandPartList = new ArrayList<>();
+		Collections.addAll(commandPartList, executablePathString, "-nostdin", "-y", "-i", filePathString,
+				"-movflags", "use_metadata_tags", "-map_metadata", "0",
+				"-vcodec", "copy", "-c:a", "aac", outputFilePathString);
+		return runJob(filePathString, outputFilePathString, commandPartList);
+	}
+
+	private VideoTranscodeJobStats runJob(
+			final String filePathString,
+			final String outputFilePathString,
+			final List<String> commandPartList) {
+
+		boolean success = false;
+		int attemptCount = 0;
+		long wallTimeNanos = 0;
+		long cpuTimeNanos = 0;
+		try {
+			jobSemaphore.acquire();
+			final long startNanos = System.nanoTime();
+			try {
+				AttemptResult attemptResult = AttemptResult.TRANSIENT_FAILURE;
+				while (attemptResult == AttemptResult.TRANSIENT_FAILURE && attemptCount <= maxRetryCount) {
+
+					if (attemptCount > 0) {
+						Logger.printWarning("retrying video job (attempt " + (attemptCount + 1) + "):" +
+								System.lineSeparator() + filePathString);
+					}
+					attemptCount++;
+
+					final AtomicLong attemptCpuTimeNanos = new AtomicLong();
+					attemptResult = runAttempt(filePathString, outputFilePathString, commandPartList,
+							attemptCpuTimeNanos);
+					cpuTimeNanos += attemptCpuTimeNanos.get();
+				}
+				success = attemptResult == AttemptResult.SUCCESS;
+
+			} finally {
+				wallTimeNanos = System.nanoTime() - startNanos;
+				jobSemaphore.release();
+			}
+
+		} catch (final Throwable throwable) {
+			Logger.printError("failed to run video job:" +
+					System.lineSeparator() + filePathString);
+			Logger.printThrowable(throwable);
+		}
+
+		final long inputByteCount = computeFileSize(filePathString);
+		long outputByteCount = 0;
+		if (success) {
+			outputByteCount = computeFileSize(outputFilePathString);
+		}
+		final VideoTranscodeJobStats videoTranscodeJobStats = new VideoTranscodeJobStats(filePathString,
+				attemptCount, wallTimeNanos, cpuTimeNanos, inputByteCount, outputByteCount, success);
+
+		jobCount.incrementAndGet();
+		if (!success) {
+			failedJobCount.incrementAndGet();
+		}
+		totalWallTimeNanos.addAndGet(wallTimeNanos);
+		totalCpuTimeNanos.addAndGet(cpuTimeNanos);
+		totalInputByteCount.addAndGet(inputByteCount);
+		totalOutputByteCount.addAndGet(outputByteCount);
+
+		Logger.printLine(videoTranscodeJobStats.createDisplayString());
+		return videoTranscodeJobStats;
+	}
+
+	private AttemptResult runAttempt(
+			final String filePathString,
+			final String outputFilePathString,
+			final List<String> commandPartList,
+			final AtomicLong cpuTimeNanos) throws Exception {
+
+		AttemptResult attemptResult = AttemptResult.FAILURE;
+		if (FactoryFileDeleter.getInstance().deleteFile(outputFilePathString, false, true)) {
+
+			final Process process = new ProcessBuilder()
+					.command(commandPartList)
+					.directory(new File(outputFilePathString).getAbsoluteFile().getParentFile())
+					.redirectErrorStream(true)
+					.start();
+
+			final ReadBytesHandlerLinesTail readBytesHandlerLinesTail =
+					new ReadBytesHandlerLinesTail(ERROR_TAIL_LINE_COUNT, verbose);
+			final InputStreamReaderThread outputReaderThread = new InputStreamReaderThread(
+					"video job output reader", process.getInputStream(), Charset.defaultCharset(),
+					readBytesHandlerLinesTail);
+			outputReaderThread.start();
+
+			final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+			boolean exited = false;
+			while (!exited && System.nanoTime() < deadlineNanos) {
+
+				sampleCpuTime(process, cpuTimeNanos);
+				final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+				exited = process.waitFor(
+						Math.max(1, Math.min(STATUS_POLL_INTERVAL_MILLIS, remainingMillis)), TimeUnit.MILLISECONDS);
+			}
+
+			if (!exited) {
+
+				Logger.printError("video job timed out after " +
+						StrUtils.durationToString(Duration.ofMillis(timeoutMillis)) + ":" +
+						System.lineSeparator() + filePathString);
+				process.descendants().forEach(ProcessHandle::destroyForcibly);
+				process.destroyForcibly();
+				process.waitFor();
+				outputReaderThread.join();
+				attemptResult = AttemptResult.TRANSIENT_FAILURE;
+
+			} else {
+				outputReaderThread.join();
+				final int exitCode = process.exitValue();
+				if (exitCode == 0) {
+					attemptResult = AttemptResult.SUCCESS;
+
+				} else {
+					Logger.printError("video job exited with code " + exitCode + ":" +
+							System.lineSeparator() + filePathString);
+					final List<String> lineList = readBytesHandlerLinesTail.createLineList();
+					if (!verbose) {
+						for (final String line : lineList) {
+							Logger.printLine(line);
+						}
+					}
+					if (checkTransientFailure(exitCode, lineList)) {
+						attemptResult = AttemptResult.TRANSIENT_FAILURE;
+					}
+				}
+			}
+		}
+		return attemptResult;
+	}
+
+	/**
+	 * A process that was killed by a signal, or that ran out of a resource of the system, may succeed the next time.
+	 * Any other failure comes from the input, which does not change between the attempts.
+	 */
+	private static boolean checkTransientFailure(
+			final int exitCode,
+			final List<String> lineList) {
+
+		boolean transientFailure = !SystemUtils.IS_OS_WINDOWS && exitCode > 128;
+		for (int i = 0; !transientFailure && i < lineList.size(); i++) {
+			transientFailure = Strings.CI.containsAny(lineList.get(i), TRANSIENT_ERROR_MESSAGE_ARRAY);
+		}
+		return transientFailure;
+	}
+
+	/**
+	 * The CPU time of a process can only be read while it is still running, so it is sampled while waiting for it.
+	 */
+	private static void sampleCpuTime(
+			final Process process,
+			final AtomicLong cpuTimeNanos) {
+
+		final Optional<Duration> totalCpuDuration = process.info().totalCpuDuration();
+		totalCpuDuration.ifPresent(duration -> cpuTimeNanos.set(duration.toNanos()));
+	}
+
+	private static long computeFileSize(
+			final String filePathString) {
+
+		long fileSize = 0;
+		try {
+			if (IoUtils.fileExists(filePathString)) {
+				fileSize = Files.size(Paths.get(filePathString));
+			}
+
+		} catch (final Throwable ignored) {
+		}
+		return fileSize;
+	}
+
+	public void printStatistics() {
+
+		final int jobCountValue = jobCount.get();
+		if (jobCountValue > 0) {
+
+			Logger.printLine("video jobs: " + jobCountValue + " (failed: " + failedJobCount.get() + ")" +
+					", max concurrent: " + maxJobCount +
+					", wall time " + StrUtils.durationToString(Duration.ofNanos(totalWallTimeNanos.get())) +
+					", CPU time " + StrUtils.durationToString(Duration.ofNanos(totalCpuTimeNanos.get())) +
+					", in " + SizeUtils.humanReadableByteCountBin(totalInputByteCount.get()) +
+					", out " + SizeUtils.humanReadableByteCountBin(totalOutputByteCount.get()));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+
+	private enum AttemptResult {
+
+		SUCCESS,
+		TRANSIENT_FAILURE,
+		FAILURE
+	}
+}
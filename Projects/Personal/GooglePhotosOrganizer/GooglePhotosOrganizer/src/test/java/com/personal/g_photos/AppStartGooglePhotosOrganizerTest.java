@@ -1,5 +1,7 @@
 package com.personal.g_photos;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.List;
 
@@ -8,6 +10,8 @@ import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
 
+import com.personal.g_photos.corpus.TakeoutCorpusGenerator;
+import com.personal.g_photos.corpus.TakeoutCorpusOptions;
 import com.utils.io.folder_deleters.FactoryFolderDeleter;
 import com.utils.test.DynamicTestOption;
 import com.utils.test.DynamicTestOptions;
@@ -62,6 +66,15 @@ class AppStartGooglePhotosOrganizerTest {
 					"D:\\IVI\\Misc\\mnf\\mama\\Takeout_org"
 			};
 
+		} else if (input == 201) {
+			args = createSyntheticArgs(10_000);
+
+		} else if (input == 202) {
+			args = createSyntheticArgs(100_000);
+
+		} else if (input == 203) {
+			args = createSyntheticArgs(1_000_000);
+
 		} else {
 			throw new RuntimeException();
 		}
@@ -73,6 +86,28 @@ class AppStartGooglePhotosOrganizerTest {
 		AppStartGooglePhotosOrganizer.work(args);
 	}
 
+	/**
+	 * The synthetic trees are generated in the temporary folder the first time they are used, and reused afterwards.
+	 */
+	private static String[] createSyntheticArgs(
+			final int mediaFileCount) {
+
+		final Path folderPath = Paths.get(System.getProperty("java.io.tmpdir"), "GooglePhotosOrganizer");
+		final Path inputFolderPath = folderPath.resolve("Synthetic" + mediaFileCount + "Orig");
+		try {
+			TakeoutCorpusGenerator.generateIfMissing(inputFolderPath,
+					TakeoutCorpusOptions.createDefault(mediaFileCount, mediaFileCount));
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+
+		return new String[] {
+				inputFolderPath.toString(),
+				folderPath.resolve("Synthetic" + mediaFileCount).toString()
+		};
+	}
+
 	@TestFactory
 	List<DynamicTest> testParseInstantFromString() {
 
@@ -95,7 +130,7 @@ class AppStartGooglePhotosOrganizerTest {
 			final DynamicTestOptions<String> instantStringOptions) {
 
 		final String instantString = instantStringOptions.computeValue();
-		final Instant instant = AppStartGooglePhotosOrganizer.parseInstantFromString(instantString);
+		final Instant instant = PhotoTakenTimeParser.parse(instantString);
 		Assertions.assertNotNull(instant);
 	}
 }
@@ -0,0 +1,248 @@
+package com.personal.g_photos;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.personal.g_photos.archives.FactoryArchiveFileSystems;
+import com.personal.g_photos.layout.FactoryFolderCreationCache;
+import com.personal.g_photos.layout.FactoryOutputNameRegistry;
+import com.personal.g_photos.layout.OutputLayout;
+import com.personal.g_photos.links.FactoryFileLinker;
+import com.personal.g_photos.links.LinkMode;
+import com.personal.g_photos.manifest.FactoryProcessingManifest;
+import com.personal.g_photos.manifest.ProcessingManifest;
+import com.personal.g_photos.metadata.TimeSource;
+import com.personal.g_photos.plan.FactoryThroughputHistory;
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class FileProcessorTest {
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testProcessFile() {
+
+		final DynamicTestOptions<String> fileDynamicTestOptions = new DynamicTestOptions<>("file", 1);
+
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "JPEG image",
+				"JPEG image"));
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "WEBP image",
+				"WEBP image"));
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "WEBP archive entry",
+				"WEBP archive entry"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testProcessFileCommon(fileDynamicTestOptions), fileDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testProcessFileCommon(
+			final DynamicTestOptions<String> fileDynamicTestOptions) {
+
+		final String file = fileDynamicTestOptions.computeValue();
+		// outside of Windows, no decoder reads the WEBP images, so they are copied as they are, under their own
+		// extension
+		Assumptions.assumeTrue("JPEG image".equals(file) || !SystemUtils.IS_OS_WINDOWS);
+		try {
+			final Path folderPath = tmpFolderPath.resolve(file.replace(' ', '_'));
+			final Path inputFolderPath = Files.createDirectories(folderPath.resolve("input"));
+			final String outputFolderPathString = folderPath.resolve("output").toString();
+
+			final byte[] inputByteArray;
+			final String inputFileName;
+			final String expectedOutputFileName;
+			if ("JPEG image".equals(file)) {
+
+				final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+				ImageIO.write(new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB), "jpeg", byteArrayOutputStream);
+				inputByteArray = byteArrayOutputStream.toByteArray();
+				inputFileName = "IMG_0001.jpeg";
+				expectedOutputFileName = "IMG_0001.jpg";
+
+			} else {
+				inputByteArray = "RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII);
+				inputFileName = "IMG_0001.webp";
+				expectedOutputFileName = "IMG_0001.webp";
+			}
+
+			try (ArchiveFileSystems archiveFileSystems = FactoryArchiveFileSystems.newInstance();
+					ProcessingManifest processingManifest =
+							FactoryProcessingManifest.newInstance(outputFolderPathString)) {
+
+				final String filePathString;
+				if ("WEBP archive entry".equals(file)) {
+
+					final Path archiveFilePath = inputFolderPath.resolve("takeout-001.zip");
+					try (ZipOutputStream zipOutputStream =
+							new ZipOutputStream(Files.newOutputStream(archiveFilePath))) {
+
+						zipOutputStream.putNextEntry(new ZipEntry("Takeout/" + inputFileName));
+						zipOutputStream.write(inputByteArray);
+						zipOutputStream.closeEntry();
+					}
+					final List<String> entryPathStringList = new ArrayList<>();
+					Assertions.assertTrue(
+							archiveFileSystems.openArchive(archiveFilePath.toString(), entryPathStringList));
+					filePathString = entryPathStringList.getFirst();
+
+				} else {
+					final Path filePath = inputFolderPath.resolve(inputFileName);
+					Files.write(filePath, inputByteArray);
+					filePathString = filePath.toString();
+				}
+
+				final FileProcessor fileProcessor = new FileProcessor(outputFolderPathString,
+						OutputLayout.parse("", ZoneId.systemDefault()), FactoryFolderCreationCache.newInstance(),
+						FactoryOutputNameRegistry.newInstance(processingManifest), archiveFileSystems,
+						processingManifest, null, FactoryFileLinker.newInstance(LinkMode.COPY),
+						List.of(TimeSource.SIDECAR), null, FactoryThroughputHistory.newInstance(outputFolderPathString),
+						false, false, false);
+
+				final FileProcessingData fileProcessingData =
+						new FileProcessingData(new FileData(filePathString, null), 0, 1);
+				fileProcessor.claimOutputFileName(fileProcessingData);
+				Assertions.assertTrue(fileProcessor.parseSidecar(fileProcessingData));
+				Assertions.assertTrue(fileProcessor.processFile(fileProcessingData));
+
+				final Path outputFilePath = Paths.get(outputFolderPathString, expectedOutputFileName);
+				Assertions.assertEquals(outputFilePath.toString(), fileProcessingData.getOutputFilePathString());
+				Assertions.assertArrayEquals(inputByteArray, Files.readAllBytes(outputFilePath));
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	@TestFactory
+	List<DynamicTest> testProcessNarrowNoBreakSpaceName() {
+
+		final DynamicTestOptions<String> fileDynamicTestOptions = new DynamicTestOptions<>("file", 1);
+
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "loose file",
+				"loose file"));
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "archive entry",
+				"archive entry"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testProcessNarrowNoBreakSpaceNameCommon(fileDynamicTestOptions), fileDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testProcessNarrowNoBreakSpaceNameCommon(
+			final DynamicTestOptions<String> fileDynamicTestOptions) {
+
+		final String file = fileDynamicTestOptions.computeValue();
+		final String folderName = "Photos from 2023 at 10.00\u202FAM";
+		final String fileName = "Screen Recording 2023-01-01 at 10.00.00\u202FAM.mov";
+		// the JVM cannot put a narrow no-break space in a file name when the encoding of the file names is ASCII, as
+		// with the C locale
+		Assumptions.assumeTrue("archive entry".equals(file) || checkEncodable(folderName));
+		try {
+			final Path folderPath = tmpFolderPath.resolve(file.replace(' ', '_'));
+			final Path inputFolderPath = Files.createDirectories(folderPath.resolve("input"));
+			final String outputFolderPathString = folderPath.resolve("output").toString();
+			Files.createDirectories(Paths.get(outputFolderPathString));
+
+			final byte[] inputByteArray = new byte[] { 1, 2, 3, 4 };
+			final String expectedFilePathString;
+			final Path inputFilePath;
+			if ("archive entry".equals(file)) {
+
+				inputFilePath = inputFolderPath.resolve("takeout-001.zip");
+				try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(inputFilePath))) {
+
+					zipOutputStream.putNextEntry(new ZipEntry("Takeout/" + folderName + "/" + fileName));
+					zipOutputStream.write(inputByteArray);
+					zipOutputStream.closeEntry();
+				}
+				expectedFilePathString = inputFilePath + "!/Takeout/" + folderName + "/" + fileName;
+
+			} else {
+				inputFilePath = Files.createDirectories(inputFolderPath.resolve(folderName)).resolve(fileName);
+				Files.write(inputFilePath, inputByteArray);
+				expectedFilePathString = inputFilePath.toString();
+			}
+			final byte[] inputFileByteArray = Files.readAllBytes(inputFilePath);
+
+			try (ArchiveFileSystems archiveFileSystems = FactoryArchiveFileSystems.newInstance();
+					ProcessingManifest processingManifest =
+							FactoryProcessingManifest.newInstance(outputFolderPathString)) {
+
+				final List<FileProcessingData> fileProcessingDataList = new ArrayList<>();
+				final InputFolderScanner inputFolderScanner = new InputFolderScanner(inputFolderPath.toString(),
+						outputFolderPathString, archiveFileSystems, processingManifest, false, true, null, 0,
+						false, 1);
+				inputFolderScanner.scan(fileProcessingDataList::add);
+				Assertions.assertEquals(1, fileProcessingDataList.size());
+
+				final FileProcessor fileProcessor = new FileProcessor(outputFolderPathString,
+						OutputLayout.parse("", ZoneId.systemDefault()), FactoryFolderCreationCache.newInstance(),
+						FactoryOutputNameRegistry.newInstance(processingManifest), archiveFileSystems,
+						processingManifest, null, FactoryFileLinker.newInstance(LinkMode.COPY),
+						List.of(TimeSource.SIDECAR), null, FactoryThroughputHistory.newInstance(outputFolderPathString),
+						false, false, false);
+
+				final FileProcessingData fileProcessingData = fileProcessingDataList.getFirst();
+				fileProcessor.claimOutputFileName(fileProcessingData);
+				Assertions.assertTrue(fileProcessor.parseSidecar(fileProcessingData));
+				Assertions.assertTrue(fileProcessor.processFile(fileProcessingData));
+
+				// the source file keeps its path, and only the name of the output file is normalized
+				Assertions.assertEquals(expectedFilePathString, fileProcessingData.getFileData().filePathString());
+				final Path outputFilePath =
+						Paths.get(outputFolderPathString, "Screen Recording 2023-01-01 at 10.00.00 AM.mov");
+				Assertions.assertEquals(outputFilePath.toString(), fileProcessingData.getOutputFilePathString());
+				Assertions.assertArrayEquals(inputByteArray, Files.readAllBytes(outputFilePath));
+			}
+
+			Assertions.assertArrayEquals(inputFileByteArray, Files.readAllBytes(inputFilePath));
+			try (Stream<Path> pathStream = Files.walk(inputFolderPath)) {
+				Assertions.assertEquals(List.of(inputFilePath), pathStream.filter(Files::isRegularFile).toList());
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	private static boolean checkEncodable(
+			final String fileName) {
+
+		boolean encodable;
+		try {
+			Paths.get(fileName);
+			encodable = true;
+
+		} catch (final InvalidPathException ignored) {
+			encodable = false;
+		}
+		return encodable;
+	}
+}
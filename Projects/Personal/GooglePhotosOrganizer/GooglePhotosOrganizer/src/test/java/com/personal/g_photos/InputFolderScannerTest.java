@@ -0,0 +1,227 @@
+package com.personal.g_photos;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.personal.g_photos.archives.FactoryArchiveFileSystems;
+import com.personal.g_photos.manifest.FactoryProcessingManifest;
+import com.personal.g_photos.manifest.ProcessingManifest;
+import com.utils.io.PathUtils;
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class InputFolderScannerTest {
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testScan() {
+
+		final DynamicTestOptions<String> treeDynamicTestOptions = new DynamicTestOptions<>("tree", 1);
+
+		treeDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "flat folders",
+				"flat folders"));
+		treeDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "nested folders",
+				"nested folders"));
+		treeDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "duplicates",
+				"duplicates"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testScanCommon(treeDynamicTestOptions), treeDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testScanCommon(
+			final DynamicTestOptions<String> treeDynamicTestOptions) {
+
+		final String tree = treeDynamicTestOptions.computeValue();
+		try {
+			final Path folderPath = tmpFolderPath.resolve(tree.replace(' ', '_'));
+			final Path inputFolderPath = Files.createDirectories(folderPath.resolve("input"));
+			final Path firstFolderPath = Files.createDirectories(inputFolderPath.resolve("album_1"));
+			final Path secondFolderPath;
+			if ("nested folders".equals(tree)) {
+				secondFolderPath = Files.createDirectories(firstFolderPath.resolve("album_2"));
+			} else {
+				secondFolderPath = Files.createDirectories(inputFolderPath.resolve("album_2"));
+			}
+
+			final Set<FileData> expectedFileDataSet = new HashSet<>();
+			expectedFileDataSet.add(new FileData(writeFile(firstFolderPath, "IMG_0001.jpg", 1),
+					writeFile(firstFolderPath, "IMG_0001.jpg.json", 2)));
+			expectedFileDataSet.add(new FileData(writeFile(firstFolderPath, "IMG_0002.jpg", 3), null));
+			expectedFileDataSet.add(new FileData(writeFile(secondFolderPath, "IMG_0003.jpg", 4),
+					writeFile(secondFolderPath, "IMG_0003.jpg.supplemental-metadata.json", 5)));
+			expectedFileDataSet.add(new FileData(writeFile(inputFolderPath, "IMG_0004.jpg", 6), null));
+			if ("duplicates".equals(tree)) {
+				// only the duplicates in the same folder are dropped in both modes, since in streaming mode the files
+				// of the earlier folders are not in the manifest yet
+				writeFile(secondFolderPath, "IMG_0005.jpg", 4);
+			}
+
+			final List<FileProcessingData> streamingFileProcessingDataList =
+					scan(inputFolderPath, folderPath.resolve("streaming_output"), true);
+			final List<FileProcessingData> wholeInputFileProcessingDataList =
+					scan(inputFolderPath, folderPath.resolve("whole_input_output"), false);
+
+			// the pairing and the deduplication do not depend on the mode
+			final Set<FileData> streamingFileDataSet = new HashSet<>();
+			for (final FileProcessingData fileProcessingData : streamingFileProcessingDataList) {
+				streamingFileDataSet.add(fileProcessingData.getFileData());
+			}
+			final Set<FileData> wholeInputFileDataSet = new HashSet<>();
+			for (final FileProcessingData fileProcessingData : wholeInputFileProcessingDataList) {
+				wholeInputFileDataSet.add(fileProcessingData.getFileData());
+			}
+			Assertions.assertEquals(expectedFileDataSet.size(), streamingFileProcessingDataList.size());
+			Assertions.assertEquals(expectedFileDataSet.size(), wholeInputFileProcessingDataList.size());
+			if ("duplicates".equals(tree)) {
+				Assertions.assertEquals(wholeInputFileDataSet, streamingFileDataSet);
+			} else {
+				Assertions.assertEquals(expectedFileDataSet, streamingFileDataSet);
+				Assertions.assertEquals(expectedFileDataSet, wholeInputFileDataSet);
+			}
+
+			// in streaming mode, the files are handed over folder by folder, without the file count
+			final List<String> folderPathStringList = new ArrayList<>();
+			for (int i = 0; i < streamingFileProcessingDataList.size(); i++) {
+
+				final FileProcessingData fileProcessingData = streamingFileProcessingDataList.get(i);
+				Assertions.assertEquals(i, fileProcessingData.getFileIndex());
+				Assertions.assertEquals(-1, fileProcessingData.getFileCount());
+
+				final String folderPathString = PathUtils.computeParentPath(
+						fileProcessingData.getFileData().filePathString());
+				if (folderPathStringList.isEmpty() || !folderPathStringList.getLast().equals(folderPathString)) {
+
+					Assertions.assertFalse(folderPathStringList.contains(folderPathString));
+					folderPathStringList.add(folderPathString);
+				}
+			}
+			Assertions.assertEquals(3, folderPathStringList.size());
+
+			for (int i = 0; i < wholeInputFileProcessingDataList.size(); i++) {
+
+				final FileProcessingData fileProcessingData = wholeInputFileProcessingDataList.get(i);
+				Assertions.assertEquals(i, fileProcessingData.getFileIndex());
+				Assertions.assertEquals(wholeInputFileProcessingDataList.size(), fileProcessingData.getFileCount());
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	private static List<FileProcessingData> scan(
+			final Path inputFolderPath,
+			final Path outputFolderPath,
+			final boolean streaming) throws Exception {
+
+		Files.createDirectories(outputFolderPath);
+		final List<FileProcessingData> fileProcessingDataList = new ArrayList<>();
+		try (ArchiveFileSystems archiveFileSystems = FactoryArchiveFileSystems.newInstance();
+				ProcessingManifest processingManifest =
+						FactoryProcessingManifest.newInstance(outputFolderPath.toString())) {
+
+			final InputFolderScanner inputFolderScanner = new InputFolderScanner(inputFolderPath.toString(),
+					outputFolderPath.toString(), archiveFileSystems, processingManifest, false, false, null, 0,
+					streaming, 1);
+			inputFolderScanner.scan(fileProcessingDataList::add);
+		}
+		return fileProcessingDataList;
+	}
+
+	private static String writeFile(
+			final Path folderPath,
+			final String fileName,
+			final int content) throws Exception {
+
+		final Path filePath = folderPath.resolve(fileName);
+		Files.write(filePath, new byte[] { (byte) content, 1, 2, 3 });
+		return filePath.toString();
+	}
+
+	@TestFactory
+	List<DynamicTest> testSortToProcessFileDataList() {
+
+		final DynamicTestOptions<String> filesDynamicTestOptions = new DynamicTestOptions<>("files", 1);
+
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "loose files",
+				"loose files"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "archive entries",
+				"archive entries"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "mixed",
+				"mixed"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testSortToProcessFileDataListCommon(filesDynamicTestOptions), filesDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private static void testSortToProcessFileDataListCommon(
+			final DynamicTestOptions<String> filesDynamicTestOptions) {
+
+		final String files = filesDynamicTestOptions.computeValue();
+
+		final String firstFilePathString = PathUtils.computePath("input", "album_1", "IMG_0001.jpg");
+		final String secondFilePathString = PathUtils.computePath("input", "album_2", "IMG_0001.jpg");
+		// the entries are stored out of the order of their names, and the archives are listed out of the order of
+		// their paths
+		final String firstArchiveFilePathString = PathUtils.computePath("input", "takeout-001.zip");
+		final String secondArchiveFilePathString = PathUtils.computePath("input", "takeout-002.zip");
+		final String firstEntryPathString = secondArchiveFilePathString + "!/Takeout/IMG_0003.jpg";
+		final String secondEntryPathString = secondArchiveFilePathString + "!/Takeout/IMG_0002.jpg";
+		final String thirdEntryPathString = firstArchiveFilePathString + "!/Takeout/IMG_0005.jpg";
+		final String fourthEntryPathString = firstArchiveFilePathString + "!/Takeout/IMG_0004.jpg";
+
+		final List<String> filePathStringList = new ArrayList<>();
+		if (!"archive entries".equals(files)) {
+
+			filePathStringList.add(secondFilePathString);
+			filePathStringList.add(firstFilePathString);
+		}
+		if (!"loose files".equals(files)) {
+
+			filePathStringList.add(firstEntryPathString);
+			filePathStringList.add(secondEntryPathString);
+			filePathStringList.add(thirdEntryPathString);
+			filePathStringList.add(fourthEntryPathString);
+		}
+
+		final List<FileData> toProcessFileDataList = new ArrayList<>();
+		for (final String filePathString : filePathStringList.reversed()) {
+			toProcessFileDataList.add(new FileData(filePathString, null));
+		}
+		InputFolderScanner.sortToProcessFileDataList(filePathStringList, toProcessFileDataList);
+
+		final List<String> expectedFilePathStringList = new ArrayList<>();
+		if (!"archive entries".equals(files)) {
+
+			expectedFilePathStringList.add(firstFilePathString);
+			expectedFilePathStringList.add(secondFilePathString);
+		}
+		if (!"loose files".equals(files)) {
+
+			expectedFilePathStringList.add(thirdEntryPathString);
+			expectedFilePathStringList.add(fourthEntryPathString);
+			expectedFilePathStringList.add(firstEntryPathString);
+			expectedFilePathStringList.add(secondEntryPathString);
+		}
+		Assertions.assertEquals(expectedFilePathStringList,
+				toProcessFileDataList.stream().map(FileData::filePathString).toList());
+	}
+}
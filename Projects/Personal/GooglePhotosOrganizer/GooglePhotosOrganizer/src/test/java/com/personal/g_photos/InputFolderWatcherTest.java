@@ -0,0 +1,148 @@
+package com.personal.g_photos;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class InputFolderWatcherTest {
+
+	private static final long QUIET_PERIOD_MILLIS = 1_000;
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testTakeStableFiles() {
+
+		final DynamicTestOptions<String> changesDynamicTestOptions = new DynamicTestOptions<>("changes", 1);
+
+		changesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "unchanged",
+				"unchanged"));
+		changesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "before deadline",
+				"before deadline"));
+		changesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "written again",
+				"written again"));
+		changesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "event again",
+				"event again"));
+		changesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "steady events",
+				"steady events"));
+		changesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(6, "deleted",
+				"deleted"));
+		changesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(7, "partial download",
+				"partial download"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testTakeStableFilesCommon(changesDynamicTestOptions), changesDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testTakeStableFilesCommon(
+			final DynamicTestOptions<String> changesDynamicTestOptions) {
+
+		final String changes = changesDynamicTestOptions.computeValue();
+		try {
+			final Path inputFolderPath = Files.createDirectories(tmpFolderPath.resolve(changes.replace(' ', '_')));
+			final String firstFilePathString = writeFile(inputFolderPath, "IMG_0001.jpg", 100);
+			final String secondFilePathString = writeFile(inputFolderPath, "IMG_0002.jpg", 100);
+
+			final InputFolderWatcher inputFolderWatcher = new InputFolderWatcher(inputFolderPath.toString(),
+					tmpFolderPath.resolve("output").toString(), null, QUIET_PERIOD_MILLIS);
+			Assertions.assertEquals(QUIET_PERIOD_MILLIS, inputFolderWatcher.computePollTimeoutMillis(0));
+
+			if ("partial download".equals(changes)) {
+
+				final String partialFilePathString = writeFile(inputFolderPath, "IMG_0003.jpg.crdownload", 100);
+				inputFolderWatcher.addPendingFile(partialFilePathString, 0);
+				Assertions.assertEquals(QUIET_PERIOD_MILLIS, inputFolderWatcher.computePollTimeoutMillis(0));
+				Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(QUIET_PERIOD_MILLIS));
+				Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(2 * QUIET_PERIOD_MILLIS));
+
+			} else {
+				inputFolderWatcher.addPendingFile(firstFilePathString, 0);
+				Assertions.assertEquals(QUIET_PERIOD_MILLIS, inputFolderWatcher.computePollTimeoutMillis(0));
+
+				if ("before deadline".equals(changes)) {
+
+					// a check that is not due does not record the state of the files
+					Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(QUIET_PERIOD_MILLIS - 1));
+					Assertions.assertEquals(1, inputFolderWatcher.computePollTimeoutMillis(QUIET_PERIOD_MILLIS - 1));
+					Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(QUIET_PERIOD_MILLIS));
+					Assertions.assertEquals(List.of(),
+							inputFolderWatcher.takeStableFiles(2 * QUIET_PERIOD_MILLIS - 1));
+					Assertions.assertEquals(List.of(firstFilePathString),
+							inputFolderWatcher.takeStableFiles(2 * QUIET_PERIOD_MILLIS));
+
+				} else if ("written again".equals(changes)) {
+
+					Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(QUIET_PERIOD_MILLIS));
+					writeFile(inputFolderPath, "IMG_0001.jpg", 200);
+					Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(2 * QUIET_PERIOD_MILLIS));
+					Assertions.assertEquals(List.of(firstFilePathString),
+							inputFolderWatcher.takeStableFiles(3 * QUIET_PERIOD_MILLIS));
+
+				} else if ("event again".equals(changes)) {
+
+					// the event starts the checks over, even if the size and the last modified time are the same
+					Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(QUIET_PERIOD_MILLIS));
+					inputFolderWatcher.addPendingFile(firstFilePathString, QUIET_PERIOD_MILLIS + 1);
+					Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(2 * QUIET_PERIOD_MILLIS));
+					Assertions.assertEquals(List.of(firstFilePathString),
+							inputFolderWatcher.takeStableFiles(3 * QUIET_PERIOD_MILLIS));
+
+				} else if ("steady events".equals(changes)) {
+
+					// the events of the other files do not push back the checks of the first file
+					inputFolderWatcher.addPendingFile(secondFilePathString, QUIET_PERIOD_MILLIS / 2);
+					Assertions.assertEquals(QUIET_PERIOD_MILLIS / 2,
+							inputFolderWatcher.computePollTimeoutMillis(QUIET_PERIOD_MILLIS / 2));
+					Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(QUIET_PERIOD_MILLIS));
+					inputFolderWatcher.addPendingFile(secondFilePathString, 3 * QUIET_PERIOD_MILLIS / 2);
+					Assertions.assertEquals(List.of(firstFilePathString),
+							inputFolderWatcher.takeStableFiles(2 * QUIET_PERIOD_MILLIS));
+					Assertions.assertEquals(List.of(secondFilePathString),
+							inputFolderWatcher.takeStableFiles(3 * QUIET_PERIOD_MILLIS));
+
+				} else if ("deleted".equals(changes)) {
+
+					Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(QUIET_PERIOD_MILLIS));
+					Files.delete(Paths.get(firstFilePathString));
+					Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(2 * QUIET_PERIOD_MILLIS));
+					Assertions.assertEquals(QUIET_PERIOD_MILLIS,
+							inputFolderWatcher.computePollTimeoutMillis(2 * QUIET_PERIOD_MILLIS));
+
+				} else {
+					Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(QUIET_PERIOD_MILLIS));
+					Assertions.assertEquals(QUIET_PERIOD_MILLIS,
+							inputFolderWatcher.computePollTimeoutMillis(QUIET_PERIOD_MILLIS));
+					Assertions.assertEquals(List.of(firstFilePathString),
+							inputFolderWatcher.takeStableFiles(2 * QUIET_PERIOD_MILLIS));
+					Assertions.assertEquals(List.of(), inputFolderWatcher.takeStableFiles(3 * QUIET_PERIOD_MILLIS));
+				}
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	private static String writeFile(
+			final Path folderPath,
+			final String fileName,
+			final int size) throws Exception {
+
+		final Path filePath = folderPath.resolve(fileName);
+		Files.write(filePath, new byte[size]);
+		return filePath.toString();
+	}
+}
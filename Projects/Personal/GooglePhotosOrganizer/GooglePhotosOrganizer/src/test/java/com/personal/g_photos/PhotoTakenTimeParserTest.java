@@ -0,0 +1,65 @@
+package com.personal.g_photos;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class PhotoTakenTimeParserTest {
+
+	@TestFactory
+	List<DynamicTest> testParse() {
+
+		final DynamicTestOptions<String[]> instantDynamicTestOptions =
+				new DynamicTestOptions<>("instant string", 1);
+
+		instantDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "en-US",
+				new String[] { "Dec 21, 2025, 7:23:45 PM UTC", "2025-12-21T19:23:45Z" }));
+
+		instantDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "en-US narrow no-break space",
+				new String[] { "Dec 21, 2025, 7:23:45\u202fPM UTC", "2025-12-21T19:23:45Z" }));
+
+		instantDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "en-US morning",
+				new String[] { "Sep 3, 2020, 12:05:09\u202fAM UTC", "2020-09-03T00:05:09Z" }));
+
+		instantDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "en-US noon",
+				new String[] { "Jan 1, 2019, 12:00:00 PM UTC", "2019-01-01T12:00:00Z" }));
+
+		instantDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "en-GB",
+				new String[] { "13 Sept 2023, 13:31:27 UTC", "2023-09-13T13:31:27Z" }));
+
+		instantDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(6, "en-GB short september",
+				new String[] { "13 Sep 2023, 13:31:27 UTC", "2023-09-13T13:31:27Z" }));
+
+		instantDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(7, "en-GB single digit day",
+				new String[] { "2 Mar 2021, 08:00:01 UTC", "2021-03-02T08:00:01Z" }));
+
+		instantDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(8, "numeric dots",
+				new String[] { "13.09.2023, 13:31:27 UTC", "2023-09-13T13:31:27Z" }));
+
+		instantDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(9, "numeric slashes",
+				new String[] { "13/09/2023, 13:31:27 UTC", "2023-09-13T13:31:27Z" }));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testParseCommon(instantDynamicTestOptions), instantDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private static void testParseCommon(
+			final DynamicTestOptions<String[]> instantDynamicTestOptions) {
+
+		final String[] instantStrings = instantDynamicTestOptions.computeValue();
+		final String instantString = instantStrings[0];
+		final Instant expectedInstant = Instant.parse(instantStrings[1]);
+
+		final Instant instant = PhotoTakenTimeParser.parse(instantString);
+		Assertions.assertEquals(expectedInstant, instant);
+	}
+}
@@ -0,0 +1,210 @@
+package com.personal.g_photos;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.personal.g_photos.corpus.TakeoutCorpusGenerator;
+import com.personal.g_photos.corpus.TakeoutCorpusOptions;
+import com.personal.g_photos.corpus.TakeoutCorpusSummary;
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class SidecarMatcherTest {
+
+	private static final String FOLDER_PATH_STRING = File.separator + "Takeout" + File.separator;
+
+	private static final String[] FILE_NAME_ARRAY = {
+			"IMG_0001.jpg", "IMG_0001.jpg.json",
+			"IMG_0002.jpg", "IMG_0002.jpg.supplemental-metadata.json",
+			"IMG_0003.jpg", "IMG_0003.jpg.supplemental-met.json",
+			"IMG_0004.jpg", "IMG_0004.jp.json",
+			"IMG_0005.jpg", "IMG_0005(1).jpg", "IMG_0005.jpg.json", "IMG_0005.jpg(1).json",
+			"IMG_0006(1).jpg", "IMG_0006.jpg.supplemental-metadata(1).json",
+			"IMG_0007.HEIC", "IMG_0007.MP4", "IMG_0007.HEIC.json",
+			"IMG_0008.jpg", "IMG_0008-edited.jpg", "IMG_0008.jpg.json",
+			"IMG_0009.png", "IMG_0009.json",
+			"PXL_20230101_123456789.PORTRAIT.ORIGINAL_0001.jpg", "PXL_20230101_123456789.PORTRAIT.ORIGINAL_0001.json",
+			"Screenshot_2023-01-01-10-00-00-000_com.example.app.jpg",
+			"Screenshot_2023-01-01-10-00-00-000_com.example.json",
+			"IMG_0010.jpg",
+			"IMG_0011.jpg", "img_0011.mov", "IMG_0011.jpg.json",
+			"metadata.json"
+	};
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testFindSidecarFileName() {
+
+		final DynamicTestOptions<String[]> fileNamesDynamicTestOptions =
+				new DynamicTestOptions<>("file names", 1);
+
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "exact",
+				new String[] { "IMG_0001.jpg", "IMG_0001.jpg.json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "supplemental",
+				new String[] { "IMG_0002.jpg", "IMG_0002.jpg.supplemental-metadata.json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3,
+				"truncated supplemental",
+				new String[] { "IMG_0003.jpg", "IMG_0003.jpg.supplemental-met.json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "truncated extension",
+				new String[] { "IMG_0004.jpg", "IMG_0004.jp.json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "original",
+				new String[] { "IMG_0005.jpg", "IMG_0005.jpg.json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(6, "duplicate",
+				new String[] { "IMG_0005(1).jpg", "IMG_0005.jpg(1).json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(7,
+				"duplicate supplemental",
+				new String[] { "IMG_0006(1).jpg", "IMG_0006.jpg.supplemental-metadata(1).json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(8, "live photo image",
+				new String[] { "IMG_0007.HEIC", "IMG_0007.HEIC.json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(9, "live photo video",
+				new String[] { "IMG_0007.MP4", null }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(10, "edited",
+				new String[] { "IMG_0008-edited.jpg", "IMG_0008.jpg.json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(11, "no extension",
+				new String[] { "IMG_0009.png", "IMG_0009.json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(12, "truncated name",
+				new String[] { "PXL_20230101_123456789.PORTRAIT.ORIGINAL_0001.jpg",
+						"PXL_20230101_123456789.PORTRAIT.ORIGINAL_0001.json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(13,
+				"truncated before extension",
+				new String[] { "Screenshot_2023-01-01-10-00-00-000_com.example.app.jpg",
+						"Screenshot_2023-01-01-10-00-00-000_com.example.json" }));
+		fileNamesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(14, "missing",
+				new String[] { "IMG_0010.jpg", null }));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testFindSidecarFileNameCommon(fileNamesDynamicTestOptions), fileNamesDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private static void testFindSidecarFileNameCommon(
+			final DynamicTestOptions<String[]> fileNamesDynamicTestOptions) {
+
+		final String[] fileNames = fileNamesDynamicTestOptions.computeValue();
+		final String mediaFileName = fileNames[0];
+		final String expectedSidecarFileName = fileNames[1];
+
+		final SidecarMatcher sidecarMatcher = new SidecarMatcher();
+		for (final String fileName : FILE_NAME_ARRAY) {
+			sidecarMatcher.addFilePath(FOLDER_PATH_STRING + fileName);
+		}
+
+		final String sidecarFileName = sidecarMatcher.findSidecarFileName(FOLDER_PATH_STRING, mediaFileName);
+		Assertions.assertEquals(expectedSidecarFileName, sidecarFileName);
+	}
+
+	@TestFactory
+	List<DynamicTest> testFillFileDataList() {
+
+		final DynamicTestOptions<Boolean> keepLivePhotoVideosDynamicTestOptions =
+				new DynamicTestOptions<>("keep live photo videos", 1);
+
+		keepLivePhotoVideosDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "no",
+				false));
+		keepLivePhotoVideosDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "yes",
+				true));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testFillFileDataListCommon(keepLivePhotoVideosDynamicTestOptions),
+				keepLivePhotoVideosDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private static void testFillFileDataListCommon(
+			final DynamicTestOptions<Boolean> keepLivePhotoVideosDynamicTestOptions) {
+
+		final boolean keepLivePhotoVideos = keepLivePhotoVideosDynamicTestOptions.computeValue();
+
+		final SidecarMatcher sidecarMatcher = new SidecarMatcher();
+		for (final String fileName : FILE_NAME_ARRAY) {
+			sidecarMatcher.addFilePath(FOLDER_PATH_STRING + fileName);
+		}
+
+		final List<FileData> fileDataList = new ArrayList<>();
+		sidecarMatcher.fillFileDataList(keepLivePhotoVideos, fileDataList);
+
+		final FileData heicVideoFileData = new FileData(
+				FOLDER_PATH_STRING + "IMG_0007.MP4", FOLDER_PATH_STRING + "IMG_0007.HEIC.json");
+		final FileData jpgVideoFileData = new FileData(
+				FOLDER_PATH_STRING + "img_0011.mov", FOLDER_PATH_STRING + "IMG_0011.jpg.json");
+		Assertions.assertEquals(keepLivePhotoVideos, fileDataList.contains(heicVideoFileData));
+		Assertions.assertEquals(keepLivePhotoVideos, fileDataList.contains(jpgVideoFileData));
+
+		final FileData orphanFileData = new FileData(FOLDER_PATH_STRING + "IMG_0010.jpg", null);
+		Assertions.assertTrue(fileDataList.contains(orphanFileData));
+
+		final Set<String> filePathStringSet = new HashSet<>();
+		for (final FileData fileData : fileDataList) {
+			Assertions.assertTrue(filePathStringSet.add(fileData.filePathString()));
+		}
+	}
+
+	@TestFactory
+	List<DynamicTest> testFillFileDataListGenerated() {
+
+		final DynamicTestOptions<Long> seedDynamicTestOptions = new DynamicTestOptions<>("seed", 1);
+
+		seedDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "1", 1L));
+		seedDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "2", 2L));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testFillFileDataListGeneratedCommon(seedDynamicTestOptions), seedDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testFillFileDataListGeneratedCommon(
+			final DynamicTestOptions<Long> seedDynamicTestOptions) {
+
+		final long seed = seedDynamicTestOptions.computeValue();
+		try {
+			final Path corpusFolderPath = Files.createTempDirectory(tmpFolderPath, "corpus");
+			final TakeoutCorpusSummary takeoutCorpusSummary = new TakeoutCorpusGenerator(
+					TakeoutCorpusOptions.createDefault(seed, 2000)).generate(corpusFolderPath);
+
+			final SidecarMatcher sidecarMatcher = new SidecarMatcher();
+			try (Stream<Path> pathStream = Files.walk(corpusFolderPath)) {
+
+				for (final Path path : (Iterable<Path>) pathStream::iterator) {
+
+					if (Files.isRegularFile(path)) {
+						sidecarMatcher.addFilePath(path.toString());
+					}
+				}
+			}
+
+			final List<FileData> fileDataList = new ArrayList<>();
+			sidecarMatcher.fillFileDataList(false, fileDataList);
+
+			int orphanFileCount = 0;
+			for (final FileData fileData : fileDataList) {
+
+				if (fileData.jsonFilePathString() == null) {
+					orphanFileCount++;
+				}
+			}
+			Assertions.assertEquals(takeoutCorpusSummary.mediaFileCount() -
+					takeoutCorpusSummary.livePhotoVideoCount(), fileDataList.size());
+			Assertions.assertEquals(takeoutCorpusSummary.orphanFileCount(), orphanFileCount);
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+}
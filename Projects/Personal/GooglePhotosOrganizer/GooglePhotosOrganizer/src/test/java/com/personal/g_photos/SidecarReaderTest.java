@@ -0,0 +1,153 @@
+package com.personal.g_photos;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.personal.g_photos.images.GeoLocation;
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class SidecarReaderTest {
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testParse() {
+
+		final DynamicTestOptions<String[]> sidecarDynamicTestOptions = new DynamicTestOptions<>("sidecar", 1);
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "number timestamp",
+				new String[] {
+						"{\"title\": \"IMG_0001.jpg\", \"photoTakenTime\": {\"timestamp\": 1577836800, " +
+								"\"formatted\": \"Jan 1, 2020, 12:00:00 AM UTC\"}}",
+						"1577836800", "Jan 1, 2020, 12:00:00 AM UTC", "2020-01-01T00:00:00Z", null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "string timestamp",
+				new String[] {
+						"{\n  \"title\": \"IMG_0001.jpg\",\n  \"photoTakenTime\": {\n" +
+								"    \"timestamp\": \"1577836800\",\n" +
+								"    \"formatted\": \"Jan 1, 2020, 12:00:00 AM UTC\"\n  }\n}\n",
+						"1577836800", "Jan 1, 2020, 12:00:00 AM UTC", "2020-01-01T00:00:00Z", null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "escaped title",
+				new String[] {
+						"{\"title\": \"say \\\"cheese\\\", \\\\ \\u00e9t\\u00e9 {[ \\\"photoTakenTime\\\": {\", " +
+								"\"photoTakenTime\": {\"timestamp\": \"1577836800\", " +
+								"\"formatted\": \"Jan 1, 2020, 12:00:00\\u202fAM UTC\"}}",
+						"1577836800", "Jan 1, 2020, 12:00:00\u202fAM UTC", "2020-01-01T00:00:00Z", null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "nested members before",
+				new String[] {
+						"{\"title\": \"IMG_0001.jpg\", \"description\": \"\", \"imageViews\": \"3\", " +
+								"\"creationTime\": {\"timestamp\": \"1600000000\", \"formatted\": \"x\"}, " +
+								"\"people\": [{\"name\": \"A } ]\"}, {\"name\": \"B\"}], " +
+								"\"googlePhotosOrigin\": {\"mobileUpload\": {\"photoTakenTime\": " +
+								"{\"timestamp\": \"1\"}, \"deviceType\": \"ANDROID_PHONE\"}}, " +
+								"\"photoTakenTime\": {\"timestamp\": \"1577836800\"}}",
+						"1577836800", null, "2020-01-01T00:00:00Z", null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "formatted fallback",
+				new String[] {
+						"{\"title\": \"IMG_0001.jpg\", \"photoTakenTime\": " +
+								"{\"formatted\": \"Dec 21, 2025, 7:23:45 PM UTC\"}}",
+						"-1", "Dec 21, 2025, 7:23:45 PM UTC", "2025-12-21T19:23:45Z", null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(6, "invalid timestamp",
+				new String[] {
+						"{\"photoTakenTime\": {\"timestamp\": \"\", " +
+								"\"formatted\": \"13 Sept 2023, 13:31:27 UTC\"}}",
+						"-1", "13 Sept 2023, 13:31:27 UTC", "2023-09-13T13:31:27Z", null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(7, "location",
+				new String[] {
+						"{\"photoTakenTime\": {\"timestamp\": \"1577836800\"}, \"geoData\": " +
+								"{\"latitude\": 45.5, \"longitude\": -73.25, \"altitude\": 30.0, " +
+								"\"latitudeSpan\": 0.0, \"longitudeSpan\": 0.0}}",
+						"1577836800", null, "2020-01-01T00:00:00Z", "45.5,-73.25,30.0" }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(8, "zero location",
+				new String[] {
+						"{\"photoTakenTime\": {\"timestamp\": \"1577836800\"}, \"geoData\": " +
+								"{\"latitude\": 0.0, \"longitude\": 0.0, \"altitude\": 0.0}}",
+						"1577836800", null, "2020-01-01T00:00:00Z", null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(9, "long description",
+				new String[] {
+						"{\"description\": \"" + "x".repeat(20_000) + "\", " +
+								"\"photoTakenTime\": {\"timestamp\": \"1577836800\"}}",
+						"1577836800", null, "2020-01-01T00:00:00Z", null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(10, "truncated",
+				new String[] {
+						"{\"title\": \"IMG_0001.jpg\", \"photoTakenTime\": {\"timest",
+						"-1", null, null, null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(11, "truncated string",
+				new String[] {
+						"{\"title\": \"IMG_0001.jpg, \"photoTakenTime\": {\"timestamp\": \"1577836800\"}}",
+						"-1", null, null, null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(12, "not an object",
+				new String[] {
+						"{\"photoTakenTime\": \"1577836800\", \"geoData\": [45.5, -73.25]}",
+						"-1", null, null, null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(13, "not JSON",
+				new String[] { "photoTakenTime: 1577836800", "-1", null, null, null }));
+
+		sidecarDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(14, "empty",
+				new String[] { "", "-1", null, null, null }));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testParseCommon(sidecarDynamicTestOptions), sidecarDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testParseCommon(
+			final DynamicTestOptions<String[]> sidecarDynamicTestOptions) {
+
+		final String[] sidecarStrings = sidecarDynamicTestOptions.computeValue();
+		try {
+			final Path jsonFilePath = tmpFolderPath.resolve("IMG_0001.jpg.supplemental-metadata.json");
+			Files.writeString(jsonFilePath, sidecarStrings[0], StandardCharsets.UTF_8);
+
+			final SidecarReader sidecarReader = new SidecarReader();
+			Assertions.assertTrue(sidecarReader.read(jsonFilePath));
+
+			Assertions.assertEquals(Long.parseLong(sidecarStrings[1]), sidecarReader.parsePhotoTakenTimestamp());
+			Assertions.assertEquals(sidecarStrings[2], sidecarReader.parseFormattedPhotoTakenTime());
+
+			final Instant photoTakenTimeInstant =
+					FileProcessor.parsePhotoTakenTimeInstant(jsonFilePath.toString(), sidecarReader);
+			if (sidecarStrings[3] != null) {
+				Assertions.assertEquals(Instant.parse(sidecarStrings[3]), photoTakenTimeInstant);
+			} else {
+				Assertions.assertNull(photoTakenTimeInstant);
+			}
+
+			final GeoLocation geoLocation = sidecarReader.parseGeoLocation();
+			if (sidecarStrings[4] != null) {
+
+				Assertions.assertNotNull(geoLocation);
+				Assertions.assertEquals(sidecarStrings[4],
+						geoLocation.latitude() + "," + geoLocation.longitude() + "," + geoLocation.altitude());
+			} else {
+				Assertions.assertNull(geoLocation);
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.personal.g_photos.archives;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class ArchiveFileSystemsTest {
+
+	private static final String FIRST_ENTRY_NAME = "Takeout/Google Photos/Photos from 2020/IMG_0001.jpg";
+	private static final String SECOND_ENTRY_NAME = "Takeout/Google Photos/Photos from 2020/IMG_0001.jpg.json";
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testResolvePath() {
+
+		final DynamicTestOptions<String> pathDynamicTestOptions = new DynamicTestOptions<>("path", 1);
+
+		pathDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "archive entry",
+				"archive entry"));
+		pathDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "upper case extension",
+				"upper case extension"));
+		pathDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "archive not open",
+				"archive not open"));
+		pathDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "archive closed",
+				"archive closed"));
+		pathDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "regular file",
+				"regular file"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testResolvePathCommon(pathDynamicTestOptions), pathDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testResolvePathCommon(
+			final DynamicTestOptions<String> pathDynamicTestOptions) {
+
+		final String path = pathDynamicTestOptions.computeValue();
+		try {
+			final String archiveFileName;
+			if ("upper case extension".equals(path)) {
+				archiveFileName = "takeout-001.ZIP";
+			} else {
+				archiveFileName = "takeout-001.zip";
+			}
+			final Path archiveFilePath = tmpFolderPath.resolve(archiveFileName);
+			final byte[] firstEntryByteArray =
+					new byte[] { (byte) 0xFF, (byte) 0xD8, 1, 2, 3, (byte) 0xFF, (byte) 0xD9 };
+			final byte[] secondEntryByteArray = "{\"title\": \"IMG_0001.jpg\"}".getBytes(StandardCharsets.UTF_8);
+			try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(archiveFilePath))) {
+
+				zipOutputStream.putNextEntry(new ZipEntry("Takeout/"));
+				zipOutputStream.closeEntry();
+				writeEntry(zipOutputStream, FIRST_ENTRY_NAME, firstEntryByteArray);
+				writeEntry(zipOutputStream, SECOND_ENTRY_NAME, secondEntryByteArray);
+			}
+
+			final String archiveFilePathString = archiveFilePath.toString();
+			final String firstEntryPathString = archiveFilePathString + "!/" + FIRST_ENTRY_NAME;
+			final String secondEntryPathString = archiveFilePathString + "!/" + SECOND_ENTRY_NAME;
+			Assertions.assertTrue(ArchiveFileSystems.checkArchiveEntry(firstEntryPathString));
+			Assertions.assertEquals(archiveFilePathString.length(),
+					ArchiveFileSystems.computeEntrySeparatorIndex(firstEntryPathString));
+
+			try (ArchiveFileSystems archiveFileSystems = FactoryArchiveFileSystems.newInstance()) {
+
+				if ("regular file".equals(path)) {
+
+					final Path filePath = tmpFolderPath.resolve("IMG_0002.jpg");
+					Files.write(filePath, firstEntryByteArray);
+					Assertions.assertFalse(ArchiveFileSystems.checkArchiveEntry(filePath.toString()));
+					Assertions.assertEquals(filePath, archiveFileSystems.resolvePath(filePath.toString()));
+
+				} else if ("archive not open".equals(path)) {
+
+					// the entry of an archive that is not open resolves to a path of the default file system, which
+					// does not exist
+					final Path entryPath = archiveFileSystems.resolvePath(firstEntryPathString);
+					Assertions.assertFalse(archiveFileSystems.checkArchiveOpen(archiveFilePathString));
+					Assertions.assertFalse(Files.exists(entryPath));
+
+				} else {
+					// the entries are listed in the order in which they are stored, without the folders
+					final List<String> entryPathStringList = new ArrayList<>();
+					Assertions.assertTrue(archiveFileSystems.openArchive(archiveFilePathString, entryPathStringList));
+					Assertions.assertTrue(archiveFileSystems.checkArchiveOpen(archiveFilePathString));
+					Assertions.assertEquals(List.of(firstEntryPathString, secondEntryPathString),
+							entryPathStringList);
+
+					if ("archive closed".equals(path)) {
+
+						archiveFileSystems.close();
+						Assertions.assertFalse(archiveFileSystems.checkArchiveOpen(archiveFilePathString));
+						Assertions.assertFalse(Files.exists(archiveFileSystems.resolvePath(firstEntryPathString)));
+
+					} else {
+						final Path firstEntryPath = archiveFileSystems.resolvePath(firstEntryPathString);
+						Assertions.assertEquals("IMG_0001.jpg", firstEntryPath.getFileName().toString());
+						Assertions.assertArrayEquals(firstEntryByteArray, Files.readAllBytes(firstEntryPath));
+						Assertions.assertArrayEquals(secondEntryByteArray,
+								Files.readAllBytes(archiveFileSystems.resolvePath(secondEntryPathString)));
+					}
+				}
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	private static void writeEntry(
+			final ZipOutputStream zipOutputStream,
+			final String entryName,
+			final byte[] byteArray) throws Exception {
+
+		zipOutputStream.putNextEntry(new ZipEntry(entryName));
+		zipOutputStream.write(byteArray);
+		zipOutputStream.closeEntry();
+	}
+}
@@ -0,0 +1,93 @@
+package com.personal.g_photos.corpus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class TakeoutCorpusGeneratorTest {
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testGenerate() {
+
+		final DynamicTestOptions<Long> otherSeedDynamicTestOptions = new DynamicTestOptions<>("other seed", 1);
+
+		otherSeedDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "same",
+				12L));
+		otherSeedDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "different",
+				13L));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testGenerateCommon(otherSeedDynamicTestOptions), otherSeedDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testGenerateCommon(
+			final DynamicTestOptions<Long> otherSeedDynamicTestOptions) {
+
+		final long otherSeed = otherSeedDynamicTestOptions.computeValue();
+		try {
+			final Path firstFolderPath = Files.createTempDirectory(tmpFolderPath, "first");
+			final TakeoutCorpusSummary firstTakeoutCorpusSummary = new TakeoutCorpusGenerator(
+					TakeoutCorpusOptions.createDefault(12, 500)).generate(firstFolderPath);
+			Assertions.assertEquals(500, firstTakeoutCorpusSummary.mediaFileCount());
+			Assertions.assertTrue(firstTakeoutCorpusSummary.sidecarFileCount() > 0);
+
+			final Path secondFolderPath = Files.createTempDirectory(tmpFolderPath, "second");
+			final TakeoutCorpusSummary secondTakeoutCorpusSummary = new TakeoutCorpusGenerator(
+					TakeoutCorpusOptions.createDefault(otherSeed, 500)).generate(secondFolderPath);
+
+			final Map<String, Integer> firstFileHashCodesByRelativePath = computeFileHashCodes(firstFolderPath);
+			final Map<String, Integer> secondFileHashCodesByRelativePath = computeFileHashCodes(secondFolderPath);
+			if (otherSeed == 12) {
+
+				Assertions.assertEquals(firstTakeoutCorpusSummary, secondTakeoutCorpusSummary);
+				Assertions.assertEquals(firstFileHashCodesByRelativePath, secondFileHashCodesByRelativePath);
+
+			} else {
+				Assertions.assertNotEquals(firstFileHashCodesByRelativePath, secondFileHashCodesByRelativePath);
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	/**
+	 * The content of a file is folded in its hash code, together with its last modified time.
+	 */
+	private static Map<String, Integer> computeFileHashCodes(
+			final Path folderPath) throws Exception {
+
+		final Map<String, Integer> fileHashCodesByRelativePath = new TreeMap<>();
+		try (Stream<Path> pathStream = Files.walk(folderPath)) {
+
+			for (final Path path : (Iterable<Path>) pathStream::iterator) {
+
+				if (Files.isRegularFile(path)) {
+
+					final int hashCode = 31 * Arrays.hashCode(Files.readAllBytes(path)) +
+							Files.getLastModifiedTime(path).hashCode();
+					fileHashCodesByRelativePath.put(folderPath.relativize(path).toString(), hashCode);
+				}
+			}
+		}
+		return fileHashCodesByRelativePath;
+	}
+}
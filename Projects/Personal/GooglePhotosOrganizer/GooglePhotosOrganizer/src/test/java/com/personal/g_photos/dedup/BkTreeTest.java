@@ -0,0 +1,93 @@
+package com.personal.g_photos.dedup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class BkTreeTest {
+
+	@TestFactory
+	List<DynamicTest> testSearch() {
+
+		final DynamicTestOptions<Integer> maxDistanceDynamicTestOptions =
+				new DynamicTestOptions<>("max distance", 1);
+
+		maxDistanceDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "0", 0));
+		maxDistanceDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "3", 3));
+		maxDistanceDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "8", 8));
+		maxDistanceDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "64", 64));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testSearchCommon(maxDistanceDynamicTestOptions), maxDistanceDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	/**
+	 * Every random hash has a few variants with some bits flipped, like the copies of a photo, and the search must find
+	 * the same values as comparing the hash to every other.
+	 */
+	private static void testSearchCommon(
+			final DynamicTestOptions<Integer> maxDistanceDynamicTestOptions) {
+
+		final int maxDistance = maxDistanceDynamicTestOptions.computeValue();
+
+		final Random random = new Random(17);
+		final List<Long> hashList = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+
+			final long hash = random.nextLong();
+			hashList.add(hash);
+			for (int j = 0; j < 3; j++) {
+
+				long variantHash = hash;
+				final int flippedBitCount = random.nextInt(12);
+				for (int k = 0; k < flippedBitCount; k++) {
+					variantHash ^= 1L << random.nextInt(64);
+				}
+				hashList.add(variantHash);
+			}
+		}
+		hashList.add(hashList.getFirst());
+
+		final BkTree<Integer> bkTree = new BkTree<>();
+		for (int i = 0; i < hashList.size(); i++) {
+			bkTree.add(hashList.get(i), i);
+		}
+
+		for (int q = 0; q < 50; q++) {
+
+			final long searchedHash = hashList.get(random.nextInt(hashList.size())) ^ 1L << random.nextInt(64);
+			final List<BkTree.Match<Integer>> matchList = bkTree.search(searchedHash, maxDistance);
+
+			final List<Integer> expectedValueList = new ArrayList<>();
+			for (int i = 0; i < hashList.size(); i++) {
+
+				if (BkTree.computeDistance(hashList.get(i), searchedHash) <= maxDistance) {
+					expectedValueList.add(i);
+				}
+			}
+
+			final List<Integer> valueList = new ArrayList<>();
+			int previousDistance = 0;
+			for (final BkTree.Match<Integer> match : matchList) {
+
+				Assertions.assertTrue(match.distance() >= previousDistance);
+				Assertions.assertEquals(BkTree.computeDistance(match.hash(), searchedHash), match.distance());
+				Assertions.assertEquals(hashList.get(match.value()), match.hash());
+				previousDistance = match.distance();
+				valueList.add(match.value());
+			}
+			valueList.sort(null);
+			Assertions.assertEquals(expectedValueList, valueList);
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.personal.g_photos.dedup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.personal.g_photos.archives.FactoryArchiveFileSystems;
+import com.personal.g_photos.manifest.FactoryProcessingManifest;
+import com.personal.g_photos.manifest.ManifestEntry;
+import com.personal.g_photos.manifest.ProcessingManifest;
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class DeduplicationIndexTest {
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testFindDuplicates() {
+
+		final DynamicTestOptions<String> filesDynamicTestOptions = new DynamicTestOptions<>("files", 1);
+
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "different sizes",
+				"different sizes"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "same size",
+				"same size"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "same chunks",
+				"same chunks"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "identical",
+				"identical"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "earlier run",
+				"earlier run"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(6, "earlier run failed",
+				"earlier run failed"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(7, "earlier run killed",
+				"earlier run killed"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(8, "failed before",
+				"failed before"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testFindDuplicatesCommon(filesDynamicTestOptions), filesDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testFindDuplicatesCommon(
+			final DynamicTestOptions<String> filesDynamicTestOptions) {
+
+		final String files = filesDynamicTestOptions.computeValue();
+		final Path caseFolderPath = tmpFolderPath.resolve(files.replace(' ', '_'));
+		final Path outputFolderPath = caseFolderPath.resolve("output");
+		try (ArchiveFileSystems archiveFileSystems = FactoryArchiveFileSystems.newInstance();
+				ProcessingManifest processingManifest =
+						FactoryProcessingManifest.newInstance(outputFolderPath.toString())) {
+			final Path firstFilePath = caseFolderPath.resolve("export_1").resolve("IMG_0001.jpg");
+			final Path secondFilePath = caseFolderPath.resolve("export_2").resolve("IMG_0001.jpg");
+			Files.createDirectories(firstFilePath.getParent());
+			Files.createDirectories(secondFilePath.getParent());
+
+			final byte[] firstContent = createContent(1024 * 1024);
+			final byte[] secondContent;
+			if ("different sizes".equals(files)) {
+				secondContent = createContent(1024 * 1024 + 1);
+			} else if ("same size".equals(files)) {
+				secondContent = firstContent.clone();
+				secondContent[0]++;
+			} else if ("same chunks".equals(files)) {
+				secondContent = firstContent.clone();
+				secondContent[200_000]++;
+			} else {
+				secondContent = firstContent.clone();
+			}
+			Files.write(firstFilePath, firstContent);
+			Files.write(secondFilePath, secondContent);
+
+			final Map<String, String> keptFilePathStringsByDuplicateFilePathString;
+			if (files.startsWith("earlier run")) {
+
+				final DeduplicationIndex earlierDeduplicationIndex =
+						FactoryDeduplicationIndex.newInstance(outputFolderPath.toString());
+				Assertions.assertTrue(earlierDeduplicationIndex.findDuplicates(
+						List.of(firstFilePath.toString()), archiveFileSystems, processingManifest, 2).isEmpty());
+				earlierDeduplicationIndex.save();
+				if ("earlier run".equals(files)) {
+					recordManifestEntry(processingManifest, firstFilePath, outputFolderPath, true);
+				} else if ("earlier run failed".equals(files)) {
+					recordManifestEntry(processingManifest, firstFilePath, outputFolderPath, false);
+				}
+
+				final DeduplicationIndex deduplicationIndex =
+						FactoryDeduplicationIndex.newInstance(outputFolderPath.toString());
+				keptFilePathStringsByDuplicateFilePathString = deduplicationIndex.findDuplicates(
+						List.of(secondFilePath.toString()), archiveFileSystems, processingManifest, 2);
+
+			} else {
+				if ("failed before".equals(files)) {
+					recordManifestEntry(processingManifest, firstFilePath, outputFolderPath, false);
+				}
+
+				final DeduplicationIndex deduplicationIndex =
+						FactoryDeduplicationIndex.newInstance(outputFolderPath.toString());
+				keptFilePathStringsByDuplicateFilePathString = deduplicationIndex.findDuplicates(
+						List.of(firstFilePath.toString(), secondFilePath.toString()), archiveFileSystems,
+						processingManifest, 2);
+			}
+
+			if ("identical".equals(files) || "earlier run".equals(files)) {
+				Assertions.assertEquals(Map.of(secondFilePath.toString(), firstFilePath.toString()),
+						keptFilePathStringsByDuplicateFilePathString);
+			} else if ("failed before".equals(files)) {
+				Assertions.assertEquals(Map.of(firstFilePath.toString(), secondFilePath.toString()),
+						keptFilePathStringsByDuplicateFilePathString);
+			} else {
+				Assertions.assertTrue(keptFilePathStringsByDuplicateFilePathString.isEmpty());
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	private static void recordManifestEntry(
+			final ProcessingManifest processingManifest,
+			final Path filePath,
+			final Path outputFolderPath,
+			final boolean success) throws Exception {
+
+		final Path outputFilePath = outputFolderPath.resolve(filePath.getFileName());
+		if (success) {
+			Files.copy(filePath, outputFilePath);
+		}
+		processingManifest.record(new ManifestEntry(filePath.toString(), Files.size(filePath),
+				Files.getLastModifiedTime(filePath).toMillis(), "", outputFilePath.toString(), success));
+	}
+
+	private static byte[] createContent(
+			final int length) {
+
+		final byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) (i * 31 + i / 251);
+		}
+		return content;
+	}
+}
@@ -0,0 +1,168 @@
+package com.personal.g_photos.dedup;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.personal.g_photos.archives.FactoryArchiveFileSystems;
+import com.personal.g_photos.manifest.FactoryProcessingManifest;
+import com.personal.g_photos.manifest.ManifestEntry;
+import com.personal.g_photos.manifest.ProcessingManifest;
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class NearDuplicateIndexTest {
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testFindNearDuplicates() {
+
+		final DynamicTestOptions<String> filesDynamicTestOptions = new DynamicTestOptions<>("files", 1);
+
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "different photos",
+				"different photos"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "smaller copy first",
+				"smaller copy first"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "PNG copy",
+				"PNG copy"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "earlier run",
+				"earlier run"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "earlier run killed",
+				"earlier run killed"));
+		filesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(6, "failed before",
+				"failed before"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testFindNearDuplicatesCommon(filesDynamicTestOptions), filesDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testFindNearDuplicatesCommon(
+			final DynamicTestOptions<String> filesDynamicTestOptions) {
+
+		final String files = filesDynamicTestOptions.computeValue();
+		final Path caseFolderPath = tmpFolderPath.resolve(files.replace(' ', '_'));
+		final Path outputFolderPath = caseFolderPath.resolve("output");
+		try (ArchiveFileSystems archiveFileSystems = FactoryArchiveFileSystems.newInstance();
+				ProcessingManifest processingManifest =
+						FactoryProcessingManifest.newInstance(outputFolderPath.toString())) {
+			final Path originalFilePath = caseFolderPath.resolve("IMG_0001.jpg");
+			final Path copyFilePath;
+			if ("PNG copy".equals(files)) {
+				copyFilePath = caseFolderPath.resolve("IMG_0001-edited.png");
+			} else {
+				copyFilePath = caseFolderPath.resolve("IMG-20200101-WA0001.jpg");
+			}
+
+			ImageIO.write(createImage(640, 480, false), "jpeg", originalFilePath.toFile());
+			if ("different photos".equals(files)) {
+				ImageIO.write(createImage(320, 240, true), "jpeg", copyFilePath.toFile());
+			} else if ("PNG copy".equals(files)) {
+				ImageIO.write(createImage(480, 360, false), "png", copyFilePath.toFile());
+			} else {
+				ImageIO.write(createImage(320, 240, false), "jpeg", copyFilePath.toFile());
+			}
+
+			final String originalFilePathString = originalFilePath.toString();
+			final String copyFilePathString = copyFilePath.toString();
+			final Map<String, String> keptFilePathStringsByNearDuplicateFilePathString;
+			if (files.startsWith("earlier run")) {
+
+				final NearDuplicateIndex earlierNearDuplicateIndex =
+						FactoryNearDuplicateIndex.newInstance(outputFolderPath.toString(), 6);
+				Assertions.assertTrue(earlierNearDuplicateIndex.findNearDuplicates(
+						List.of(copyFilePathString), archiveFileSystems, processingManifest, 2).isEmpty());
+				earlierNearDuplicateIndex.save();
+				if ("earlier run".equals(files)) {
+					recordManifestEntry(processingManifest, copyFilePath, outputFolderPath, true);
+				}
+
+				final NearDuplicateIndex nearDuplicateIndex =
+						FactoryNearDuplicateIndex.newInstance(outputFolderPath.toString(), 6);
+				keptFilePathStringsByNearDuplicateFilePathString = nearDuplicateIndex.findNearDuplicates(
+						List.of(copyFilePathString, originalFilePathString), archiveFileSystems,
+						processingManifest, 2);
+
+			} else {
+				if ("failed before".equals(files)) {
+					recordManifestEntry(processingManifest, originalFilePath, outputFolderPath, false);
+				}
+
+				final NearDuplicateIndex nearDuplicateIndex =
+						FactoryNearDuplicateIndex.newInstance(outputFolderPath.toString(), 6);
+				keptFilePathStringsByNearDuplicateFilePathString = nearDuplicateIndex.findNearDuplicates(
+						List.of(copyFilePathString, originalFilePathString), archiveFileSystems,
+						processingManifest, 2);
+			}
+
+			if ("different photos".equals(files) || "failed before".equals(files)) {
+				Assertions.assertTrue(keptFilePathStringsByNearDuplicateFilePathString.isEmpty());
+			} else if ("earlier run".equals(files)) {
+				Assertions.assertEquals(Map.of(originalFilePathString, copyFilePathString),
+						keptFilePathStringsByNearDuplicateFilePathString);
+			} else {
+				Assertions.assertEquals(Map.of(copyFilePathString, originalFilePathString),
+						keptFilePathStringsByNearDuplicateFilePathString);
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	private static void recordManifestEntry(
+			final ProcessingManifest processingManifest,
+			final Path filePath,
+			final Path outputFolderPath,
+			final boolean success) throws Exception {
+
+		final Path outputFilePath = outputFolderPath.resolve(filePath.getFileName());
+		if (success) {
+			Files.copy(filePath, outputFilePath);
+		}
+		processingManifest.record(new ManifestEntry(filePath.toString(), Files.size(filePath),
+				Files.getLastModifiedTime(filePath).toMillis(), "", outputFilePath.toString(), success));
+	}
+
+	/**
+	 * Draws a few soft blobs, which keep their shape at any resolution, on a gradient.
+	 */
+	private static BufferedImage createImage(
+			final int width,
+			final int height,
+			final boolean mirrored) {
+
+		final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+
+				double u = (double) x / width;
+				final double v = (double) y / height;
+				if (mirrored) {
+					u = 1 - u;
+				}
+				double value = 0.3 * u + 0.2 * v;
+				value += 0.5 * Math.exp(-((u - 0.25) * (u - 0.25) + (v - 0.3) * (v - 0.3)) * 40);
+				value += 0.4 * Math.exp(-((u - 0.7) * (u - 0.7) + (v - 0.65) * (v - 0.65)) * 25);
+				value -= 0.3 * Math.exp(-((u - 0.5) * (u - 0.5) + (v - 0.85) * (v - 0.85)) * 60);
+				final int gray = (int) Math.max(0, Math.min(255, value * 255));
+				image.setRGB(x, y, gray << 16 | gray << 8 | gray);
+			}
+		}
+		return image;
+	}
+}
@@ -0,0 +1,220 @@
+package com.personal.g_photos.images;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class ExifWriterTest {
+
+	private static final int TAG_EXIF_IFD_POINTER = 0x8769;
+	private static final int TAG_GPS_IFD_POINTER = 0x8825;
+	private static final int TAG_DATE_TIME_ORIGINAL = 0x9003;
+	private static final int TAG_OFFSET_TIME_ORIGINAL = 0x9011;
+	private static final int TAG_GPS_LATITUDE_REF = 0x0001;
+	private static final int TAG_GPS_LONGITUDE_REF = 0x0003;
+
+	@TestFactory
+	List<DynamicTest> testWriteJpeg() {
+
+		final DynamicTestOptions<String> fileDynamicTestOptions = new DynamicTestOptions<>("file", 1);
+
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "no EXIF",
+				"no EXIF"));
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "camera EXIF",
+				"camera EXIF"));
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "camera location",
+				"camera location"));
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "no data",
+				"no data"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testWriteJpegCommon(fileDynamicTestOptions), fileDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private static void testWriteJpegCommon(
+			final DynamicTestOptions<String> fileDynamicTestOptions) {
+
+		final String file = fileDynamicTestOptions.computeValue();
+		try {
+			final byte[] encodedByteArray = encodeJpeg();
+			final int app0EndIndex = 2 + 2 + ExifReader.readShort(encodedByteArray, 4, false);
+
+			final byte[] inputByteArray;
+			if ("camera EXIF".equals(file)) {
+				inputByteArray = insertSegment(encodedByteArray, app0EndIndex, createCameraSegment(false));
+			} else if ("camera location".equals(file)) {
+				inputByteArray = insertSegment(encodedByteArray, app0EndIndex, createCameraSegment(true));
+			} else {
+				inputByteArray = encodedByteArray;
+			}
+
+			ExifData exifData = null;
+			if (!"no data".equals(file)) {
+				exifData = new ExifData(ZonedDateTime.parse("2023-09-13T16:31:27+03:00"),
+						new GeoLocation(-33.8568, 151.2153, 12.5));
+			}
+
+			final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+			final boolean written =
+					ExifWriter.writeJpeg(inputByteArray, inputByteArray.length, exifData, byteArrayOutputStream);
+			final byte[] outputByteArray = byteArrayOutputStream.toByteArray();
+
+			if ("no data".equals(file)) {
+
+				Assertions.assertFalse(written);
+				Assertions.assertArrayEquals(inputByteArray, outputByteArray);
+
+			} else {
+				Assertions.assertTrue(written);
+
+				final int tiffHeaderIndex = ExifReader.findTiffHeaderIndex(outputByteArray, outputByteArray.length);
+				Assertions.assertEquals(app0EndIndex + 10, tiffHeaderIndex);
+				final int segmentEndIndex =
+						app0EndIndex + 2 + ExifReader.readShort(outputByteArray, app0EndIndex + 2, false);
+				final int inputSegmentEndIndex = inputByteArray.length - (outputByteArray.length - segmentEndIndex);
+				Assertions.assertArrayEquals(
+						Arrays.copyOfRange(inputByteArray, inputSegmentEndIndex, inputByteArray.length),
+						Arrays.copyOfRange(outputByteArray, segmentEndIndex, outputByteArray.length));
+
+				final boolean littleEndian = outputByteArray[tiffHeaderIndex] == 'I';
+				final int ifd0Index = tiffHeaderIndex + ExifReader.readInt(outputByteArray,
+						tiffHeaderIndex + 4, littleEndian);
+				final int exifIfdIndex = tiffHeaderIndex + readLongValue(outputByteArray, outputByteArray.length,
+						ifd0Index, TAG_EXIF_IFD_POINTER, littleEndian);
+				Assertions.assertEquals("2023:09:13 16:31:27", readAsciiValue(outputByteArray, tiffHeaderIndex,
+						exifIfdIndex, TAG_DATE_TIME_ORIGINAL, littleEndian));
+				Assertions.assertEquals("+03:00", readAsciiValue(outputByteArray, tiffHeaderIndex,
+						exifIfdIndex, TAG_OFFSET_TIME_ORIGINAL, littleEndian));
+
+				final int gpsIfdIndex = tiffHeaderIndex + readLongValue(outputByteArray, outputByteArray.length,
+						ifd0Index, TAG_GPS_IFD_POINTER, littleEndian);
+				final int latitudeRefEntryIndex = ExifReader.findIfdEntryIndex(outputByteArray,
+						outputByteArray.length, gpsIfdIndex, TAG_GPS_LATITUDE_REF, littleEndian);
+				final int longitudeRefEntryIndex = ExifReader.findIfdEntryIndex(outputByteArray,
+						outputByteArray.length, gpsIfdIndex, TAG_GPS_LONGITUDE_REF, littleEndian);
+				if ("camera location".equals(file)) {
+
+					Assertions.assertEquals('N', outputByteArray[latitudeRefEntryIndex + 8]);
+					Assertions.assertEquals(-1, longitudeRefEntryIndex);
+
+				} else {
+					Assertions.assertEquals('S', outputByteArray[latitudeRefEntryIndex + 8]);
+					Assertions.assertEquals('E', outputByteArray[longitudeRefEntryIndex + 8]);
+				}
+
+				if ("no EXIF".equals(file)) {
+					Assertions.assertEquals(ExifReader.ORIENTATION_NORMAL,
+							ExifReader.readOrientation(outputByteArray, outputByteArray.length));
+				} else {
+					Assertions.assertEquals(6, ExifReader.readOrientation(outputByteArray, outputByteArray.length));
+				}
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	private static byte[] encodeJpeg() throws Exception {
+
+		final BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				image.setRGB(x, y, x * 16 << 16 | y * 16 << 8);
+			}
+		}
+		final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpeg", byteArrayOutputStream);
+		return byteArrayOutputStream.toByteArray();
+	}
+
+	/**
+	 * Creates a little endian EXIF segment, the way most cameras write it, with the orientation and, optionally, a GPS
+	 * IFD that only has the latitude reference.
+	 */
+	private static byte[] createCameraSegment(
+			final boolean location) {
+
+		final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		byteArrayOutputStream.writeBytes(new byte[] { 'I', 'I', 42, 0, 8, 0, 0, 0 });
+		if (location) {
+
+			byteArrayOutputStream.writeBytes(new byte[] { 2, 0 });
+			byteArrayOutputStream.writeBytes(new byte[] { 0x12, 0x01, 3, 0, 1, 0, 0, 0, 6, 0, 0, 0 });
+			byteArrayOutputStream.writeBytes(new byte[] { 0x25, (byte) 0x88, 4, 0, 1, 0, 0, 0, 38, 0, 0, 0 });
+			byteArrayOutputStream.writeBytes(new byte[] { 0, 0, 0, 0 });
+			byteArrayOutputStream.writeBytes(new byte[] { 1, 0 });
+			byteArrayOutputStream.writeBytes(new byte[] { 0x01, 0x00, 2, 0, 2, 0, 0, 0, 'N', 0, 0, 0 });
+			byteArrayOutputStream.writeBytes(new byte[] { 0, 0, 0, 0 });
+
+		} else {
+			byteArrayOutputStream.writeBytes(new byte[] { 1, 0 });
+			byteArrayOutputStream.writeBytes(new byte[] { 0x12, 0x01, 3, 0, 1, 0, 0, 0, 6, 0, 0, 0 });
+			byteArrayOutputStream.writeBytes(new byte[] { 0, 0, 0, 0 });
+		}
+		final byte[] tiffByteArray = byteArrayOutputStream.toByteArray();
+
+		final int segmentLength = 2 + 6 + tiffByteArray.length;
+		final ByteArrayOutputStream segmentByteArrayOutputStream = new ByteArrayOutputStream();
+		segmentByteArrayOutputStream.writeBytes(new byte[] { (byte) 0xFF, (byte) 0xE1,
+				(byte) (segmentLength >> 8), (byte) segmentLength });
+		segmentByteArrayOutputStream.writeBytes("Exif".getBytes(StandardCharsets.US_ASCII));
+		segmentByteArrayOutputStream.writeBytes(new byte[] { 0, 0 });
+		segmentByteArrayOutputStream.writeBytes(tiffByteArray);
+		return segmentByteArrayOutputStream.toByteArray();
+	}
+
+	private static byte[] insertSegment(
+			final byte[] byteArray,
+			final int index,
+			final byte[] segmentByteArray) {
+
+		final byte[] resultByteArray = new byte[byteArray.length + segmentByteArray.length];
+		System.arraycopy(byteArray, 0, resultByteArray, 0, index);
+		System.arraycopy(segmentByteArray, 0, resultByteArray, index, segmentByteArray.length);
+		System.arraycopy(byteArray, index, resultByteArray, index + segmentByteArray.length,
+				byteArray.length - index);
+		return resultByteArray;
+	}
+
+	private static int readLongValue(
+			final byte[] byteArray,
+			final int length,
+			final int ifdIndex,
+			final int tag,
+			final boolean littleEndian) {
+
+		final int entryIndex = ExifReader.findIfdEntryIndex(byteArray, length, ifdIndex, tag, littleEndian);
+		Assertions.assertTrue(entryIndex >= 0);
+		return ExifReader.readInt(byteArray, entryIndex + 8, littleEndian);
+	}
+
+	private static String readAsciiValue(
+			final byte[] byteArray,
+			final int tiffHeaderIndex,
+			final int ifdIndex,
+			final int tag,
+			final boolean littleEndian) {
+
+		final int entryIndex = ExifReader.findIfdEntryIndex(byteArray, byteArray.length, ifdIndex, tag, littleEndian);
+		Assertions.assertTrue(entryIndex >= 0);
+		final int count = ExifReader.readInt(byteArray, entryIndex + 4, littleEndian);
+		final int valueIndex = tiffHeaderIndex + ExifReader.readInt(byteArray, entryIndex + 8, littleEndian);
+		return new String(byteArray, valueIndex, count - 1, StandardCharsets.US_ASCII);
+	}
+}
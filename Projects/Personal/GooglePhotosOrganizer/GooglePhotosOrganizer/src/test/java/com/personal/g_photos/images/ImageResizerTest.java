@@ -0,0 +1,263 @@
+package com.personal.g_photos.images;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class ImageResizerTest {
+
+	private static final int RED = 0xFF0000;
+	private static final int BLUE = 0x0000FF;
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testResize() {
+
+		final DynamicTestOptions<String> imageDynamicTestOptions = new DynamicTestOptions<>("image", 1);
+
+		imageDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "small JPEG",
+				"small JPEG"));
+		imageDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "large JPEG",
+				"large JPEG"));
+		imageDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "small PNG",
+				"small PNG"));
+		imageDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "rotated 180",
+				"rotated 180"));
+		imageDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "rotated 90 clockwise",
+				"rotated 90 clockwise"));
+		imageDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(6,
+				"rotated 90 counterclockwise", "rotated 90 counterclockwise"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testResizeCommon(imageDynamicTestOptions), imageDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testResizeCommon(
+			final DynamicTestOptions<String> imageDynamicTestOptions) {
+
+		final String image = imageDynamicTestOptions.computeValue();
+		try {
+			// the left half of every image is red and its right half is blue, so that the orientation of the output
+			// shows where the red half ended up
+			final byte[] inputByteArray;
+			final String inputFileName;
+			if ("large JPEG".equals(image)) {
+
+				inputByteArray = encode(createImage(2 * ImageResizer.MAX_EDGE_LENGTH, ImageResizer.MAX_EDGE_LENGTH),
+						"jpeg");
+				inputFileName = "IMG_0001.jpg";
+
+			} else if ("small PNG".equals(image)) {
+
+				inputByteArray = encode(createImage(40, 20), "png");
+				inputFileName = "IMG_0001.png";
+
+			} else {
+				final byte[] encodedByteArray = encode(createImage(40, 20), "jpeg");
+				if ("rotated 180".equals(image)) {
+					inputByteArray = insertOrientationSegment(encodedByteArray, 3);
+				} else if ("rotated 90 clockwise".equals(image)) {
+					inputByteArray = insertOrientationSegment(encodedByteArray, 6);
+				} else if ("rotated 90 counterclockwise".equals(image)) {
+					inputByteArray = insertOrientationSegment(encodedByteArray, 8);
+				} else {
+					inputByteArray = encodedByteArray;
+				}
+				inputFileName = "IMG_0001.jpg";
+			}
+
+			final Path inputFilePath = tmpFolderPath.resolve(inputFileName);
+			Files.write(inputFilePath, inputByteArray);
+			final Path outputFilePath = tmpFolderPath.resolve("IMG_0001_out.jpg");
+
+			final ImageResizer imageResizer = new ImageResizer();
+			Assertions.assertTrue(imageResizer.resize(inputFilePath, outputFilePath.toString(), null, null));
+
+			final byte[] outputByteArray = Files.readAllBytes(outputFilePath);
+			if ("small JPEG".equals(image)) {
+				Assertions.assertArrayEquals(inputByteArray, outputByteArray);
+
+			} else {
+				// the orientation is applied to the pixels, so the output file has none
+				Assertions.assertEquals(ExifReader.ORIENTATION_NORMAL,
+						ExifReader.readOrientation(outputByteArray, outputByteArray.length));
+				final BufferedImage outputImage = ImageIO.read(outputFilePath.toFile());
+
+				if ("large JPEG".equals(image)) {
+
+					Assertions.assertEquals(ImageResizer.MAX_EDGE_LENGTH, outputImage.getWidth());
+					Assertions.assertEquals(ImageResizer.MAX_EDGE_LENGTH / 2, outputImage.getHeight());
+					assertHalves(outputImage, false, RED, BLUE);
+
+				} else if ("small PNG".equals(image)) {
+
+					Assertions.assertEquals(40, outputImage.getWidth());
+					Assertions.assertEquals(20, outputImage.getHeight());
+					assertHalves(outputImage, false, RED, BLUE);
+
+				} else if ("rotated 180".equals(image)) {
+
+					Assertions.assertEquals(40, outputImage.getWidth());
+					Assertions.assertEquals(20, outputImage.getHeight());
+					assertHalves(outputImage, false, BLUE, RED);
+
+				} else {
+					Assertions.assertEquals(20, outputImage.getWidth());
+					Assertions.assertEquals(40, outputImage.getHeight());
+					if ("rotated 90 clockwise".equals(image)) {
+						assertHalves(outputImage, true, RED, BLUE);
+					} else {
+						assertHalves(outputImage, true, BLUE, RED);
+					}
+				}
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	@TestFactory
+	List<DynamicTest> testCheckSupported() {
+
+		final DynamicTestOptions<String> fileNameDynamicTestOptions = new DynamicTestOptions<>("file name", 1);
+
+		fileNameDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "JPEG",
+				"IMG_0001.jpg"));
+		fileNameDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "upper case PNG",
+				"IMG_0001.PNG"));
+		fileNameDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "HEIC",
+				"IMG_0001.HEIC"));
+		fileNameDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "WEBP",
+				"IMG_0001.webp"));
+		fileNameDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "no extension",
+				"IMG_0001"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testCheckSupportedCommon(fileNameDynamicTestOptions), fileNameDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	/**
+	 * The JVM has no HEIC or WEBP decoder, so the processing falls back to copying these images as they are.
+	 */
+	private static void testCheckSupportedCommon(
+			final DynamicTestOptions<String> fileNameDynamicTestOptions) {
+
+		final String fileName = fileNameDynamicTestOptions.computeValue();
+		final boolean expectedSupported = fileName.endsWith(".jpg") || fileName.endsWith(".PNG");
+		Assertions.assertEquals(expectedSupported, ImageResizer.checkSupported(fileName));
+	}
+
+	private static BufferedImage createImage(
+			final int width,
+			final int height) {
+
+		final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+
+				if (x < width / 2) {
+					image.setRGB(x, y, RED);
+				} else {
+					image.setRGB(x, y, BLUE);
+				}
+			}
+		}
+		return image;
+	}
+
+	private static byte[] encode(
+			final BufferedImage image,
+			final String formatName) throws Exception {
+
+		final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		ImageIO.write(image, formatName, byteArrayOutputStream);
+		return byteArrayOutputStream.toByteArray();
+	}
+
+	/**
+	 * Inserts, after the APP0 segment, a little endian EXIF segment that only has the orientation.
+	 */
+	private static byte[] insertOrientationSegment(
+			final byte[] byteArray,
+			final int orientation) {
+
+		final ByteArrayOutputStream segmentByteArrayOutputStream = new ByteArrayOutputStream();
+		segmentByteArrayOutputStream.writeBytes(new byte[] { (byte) 0xFF, (byte) 0xE1, 0, 2 + 6 + 26 });
+		segmentByteArrayOutputStream.writeBytes("Exif".getBytes(StandardCharsets.US_ASCII));
+		segmentByteArrayOutputStream.writeBytes(new byte[] { 0, 0 });
+		segmentByteArrayOutputStream.writeBytes(new byte[] { 'I', 'I', 42, 0, 8, 0, 0, 0 });
+		segmentByteArrayOutputStream.writeBytes(new byte[] { 1, 0 });
+		segmentByteArrayOutputStream.writeBytes(
+				new byte[] { 0x12, 0x01, 3, 0, 1, 0, 0, 0, (byte) orientation, 0, 0, 0 });
+		segmentByteArrayOutputStream.writeBytes(new byte[] { 0, 0, 0, 0 });
+		final byte[] segmentByteArray = segmentByteArrayOutputStream.toByteArray();
+
+		final int app0EndIndex = 2 + 2 + ExifReader.readShort(byteArray, 4, false);
+		final byte[] resultByteArray = new byte[byteArray.length + segmentByteArray.length];
+		System.arraycopy(byteArray, 0, resultByteArray, 0, app0EndIndex);
+		System.arraycopy(segmentByteArray, 0, resultByteArray, app0EndIndex, segmentByteArray.length);
+		System.arraycopy(byteArray, app0EndIndex, resultByteArray, app0EndIndex + segmentByteArray.length,
+				byteArray.length - app0EndIndex);
+		return resultByteArray;
+	}
+
+	/**
+	 * Checks the colors at the middle of both halves of the image, which are far enough from the edge between the
+	 * halves for the JPEG compression not to mix them.
+	 *
+	 * @param vertical
+	 *            true if the halves are the top and the bottom of the image, false if they are its left and its right
+	 */
+	private static void assertHalves(
+			final BufferedImage image,
+			final boolean vertical,
+			final int firstHalfColor,
+			final int secondHalfColor) {
+
+		final int width = image.getWidth();
+		final int height = image.getHeight();
+		if (vertical) {
+
+			assertColor(firstHalfColor, image.getRGB(width / 2, height / 4));
+			assertColor(secondHalfColor, image.getRGB(width / 2, 3 * height / 4));
+
+		} else {
+			assertColor(firstHalfColor, image.getRGB(width / 4, height / 2));
+			assertColor(secondHalfColor, image.getRGB(3 * width / 4, height / 2));
+		}
+	}
+
+	private static void assertColor(
+			final int expectedRgb,
+			final int rgb) {
+
+		for (int shift = 0; shift <= 16; shift += 8) {
+
+			final int expectedChannel = expectedRgb >> shift & 0xFF;
+			final int channel = rgb >> shift & 0xFF;
+			Assertions.assertTrue(Math.abs(expectedChannel - channel) < 32,
+					String.format("expected color %06x, got %06x", expectedRgb, rgb & 0xFFFFFF));
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.personal.g_photos.layout;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class FolderCreationCacheTest {
+
+	private static final int THREAD_COUNT = 8;
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testCreateParentDirectories() {
+
+		final DynamicTestOptions<String> creationDynamicTestOptions = new DynamicTestOptions<>("creation", 1);
+
+		creationDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "same folder",
+				"same folder"));
+		creationDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "different folders",
+				"different folders"));
+		creationDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "failed creation",
+				"failed creation"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testCreateParentDirectoriesCommon(creationDynamicTestOptions), creationDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testCreateParentDirectoriesCommon(
+			final DynamicTestOptions<String> creationDynamicTestOptions) {
+
+		final String creation = creationDynamicTestOptions.computeValue();
+		try {
+			final Path folderPath = tmpFolderPath.resolve(creation.replace(' ', '_'));
+			final Path firstOutputFolderPath = folderPath.resolve("2023").resolve("09");
+			final Path secondOutputFolderPath = folderPath.resolve("2023").resolve("10");
+
+			// the creation is slow, so that the other threads ask for the folder while it is being created; the first
+			// creation fails in the failed creation case
+			final AtomicInteger creationCount = new AtomicInteger();
+			final AtomicBoolean failing = new AtomicBoolean("failed creation".equals(creation));
+			final FolderCreationCache folderCreationCache = new FolderCreationCache(folderPathString -> {
+
+				creationCount.incrementAndGet();
+				boolean success = false;
+				try {
+					Thread.sleep(100);
+					if (!failing.getAndSet(false)) {
+
+						Files.createDirectories(Paths.get(folderPathString));
+						success = true;
+					}
+
+				} catch (final Exception exc) {
+					Assertions.fail(exc);
+				}
+				return success;
+			});
+
+			if ("failed creation".equals(creation)) {
+
+				// the failure is not remembered, so the folder is created by the next call
+				final String filePathString = firstOutputFolderPath.resolve("IMG_0001.jpg").toString();
+				Assertions.assertFalse(folderCreationCache.createParentDirectories(filePathString));
+				Assertions.assertTrue(folderCreationCache.createParentDirectories(filePathString));
+				Assertions.assertTrue(folderCreationCache.createParentDirectories(filePathString));
+				Assertions.assertTrue(Files.isDirectory(firstOutputFolderPath));
+				Assertions.assertEquals(2, creationCount.get());
+
+			} else {
+				final CyclicBarrier cyclicBarrier = new CyclicBarrier(THREAD_COUNT);
+				final AtomicInteger createdCount = new AtomicInteger();
+				final List<Thread> threadList = new ArrayList<>();
+				for (int i = 0; i < THREAD_COUNT; i++) {
+
+					Path outputFolderPath = firstOutputFolderPath;
+					if ("different folders".equals(creation) && i % 2 == 1) {
+						outputFolderPath = secondOutputFolderPath;
+					}
+					final String filePathString = outputFolderPath.resolve("IMG_000" + i + ".jpg").toString();
+					final Path threadOutputFolderPath = outputFolderPath;
+					threadList.add(Thread.ofPlatform().start(() -> {
+
+						try {
+							cyclicBarrier.await();
+							// a thread only returns once the folder exists, even if another thread created it
+							if (folderCreationCache.createParentDirectories(filePathString) &&
+									Files.isDirectory(threadOutputFolderPath)) {
+								createdCount.incrementAndGet();
+							}
+
+						} catch (final Exception exc) {
+							Assertions.fail(exc);
+						}
+					}));
+				}
+
+				Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+
+					for (final Thread thread : threadList) {
+						thread.join();
+					}
+				});
+				Assertions.assertEquals(THREAD_COUNT, createdCount.get());
+				if ("different folders".equals(creation)) {
+					Assertions.assertEquals(2, creationCount.get());
+				} else {
+					Assertions.assertEquals(1, creationCount.get());
+				}
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+}
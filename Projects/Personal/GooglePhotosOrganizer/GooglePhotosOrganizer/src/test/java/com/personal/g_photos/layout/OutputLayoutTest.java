@@ -0,0 +1,74 @@
+package com.personal.g_photos.layout;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import com.utils.io.PathUtils;
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class OutputLayoutTest {
+
+	@TestFactory
+	List<DynamicTest> testComputeOutputFolderPathString() {
+
+		final DynamicTestOptions<String[]> layoutDynamicTestOptions = new DynamicTestOptions<>("layout", 1);
+
+		layoutDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "flat",
+				new String[] { "", "2023-09-13T13:31:27Z", "" }));
+		layoutDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "year and month",
+				new String[] { "yyyy/MM", "2023-09-13T13:31:27Z", "2023/09" }));
+		layoutDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "single level",
+				new String[] { "yyyy-MM-dd", "2023-09-13T23:59:59Z", "2023-09-13" }));
+		layoutDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "undated",
+				new String[] { "yyyy/MM", null, "undated" }));
+		layoutDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "empty level",
+				new String[] { "yyyy//MM", "2023-09-13T13:31:27Z", null }));
+		layoutDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(6, "invalid pattern",
+				new String[] { "yyyy/{MM}", "2023-09-13T13:31:27Z", null }));
+		layoutDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(7, "time with colons",
+				new String[] { "HH:mm", "2023-09-13T13:31:27Z", null }));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testComputeOutputFolderPathStringCommon(layoutDynamicTestOptions), layoutDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private static void testComputeOutputFolderPathStringCommon(
+			final DynamicTestOptions<String[]> layoutDynamicTestOptions) {
+
+		final String[] layoutStrings = layoutDynamicTestOptions.computeValue();
+		final String pattern = layoutStrings[0];
+		Instant photoTakenTimeInstant = null;
+		if (layoutStrings[1] != null) {
+			photoTakenTimeInstant = Instant.parse(layoutStrings[1]);
+		}
+		final String expectedRelativeFolderPathString = layoutStrings[2];
+
+		final OutputLayout outputLayout = OutputLayout.parse(pattern, ZoneOffset.UTC);
+		if (expectedRelativeFolderPathString == null) {
+			Assertions.assertNull(outputLayout);
+
+		} else {
+			final String outputFolderPathString = PathUtils.computePath("output");
+			final String expectedOutputFolderPathString;
+			if (expectedRelativeFolderPathString.isEmpty()) {
+				expectedOutputFolderPathString = outputFolderPathString;
+			} else {
+				expectedOutputFolderPathString = PathUtils.computePath(outputFolderPathString,
+						expectedRelativeFolderPathString.split("/"));
+			}
+
+			Assertions.assertNotNull(outputLayout);
+			Assertions.assertEquals(expectedOutputFolderPathString,
+					outputLayout.computeOutputFolderPathString(outputFolderPathString, photoTakenTimeInstant));
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package com.personal.g_photos.layout;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import com.utils.io.PathUtils;
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class OutputNameRegistryTest {
+
+	@TestFactory
+	List<DynamicTest> testReserve() {
+
+		final DynamicTestOptions<String> reservationsDynamicTestOptions =
+				new DynamicTestOptions<>("reservations", 1);
+
+		reservationsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "distinct names",
+				"distinct names"));
+		reservationsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "same name",
+				"same name"));
+		reservationsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "different case",
+				"different case"));
+		reservationsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "same source",
+				"same source"));
+		reservationsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "earlier run",
+				"earlier run"));
+		reservationsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(6, "claim order",
+				"claim order"));
+		reservationsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(7, "claim released",
+				"claim released"));
+		reservationsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(8, "other name waiting",
+				"other name waiting"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testReserveCommon(reservationsDynamicTestOptions), reservationsDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private static void testReserveCommon(
+			final DynamicTestOptions<String> reservationsDynamicTestOptions) {
+
+		final String reservations = reservationsDynamicTestOptions.computeValue();
+		try {
+			testReserveCommon(reservations);
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	private static void testReserveCommon(
+			final String reservations) throws Exception {
+
+		final String firstFilePathString = PathUtils.computePath("input", "album_1", "IMG_0001.jpg");
+		final String secondFilePathString = PathUtils.computePath("input", "album_2", "IMG_0001.jpg");
+		final String outputFilePathString = PathUtils.computePath("output", "IMG_0001.jpg");
+		final String suffixedOutputFilePathString = PathUtils.appendFileNameSuffix(outputFilePathString,
+				String.format("_%08x", secondFilePathString.hashCode()));
+
+		final OutputNameRegistry outputNameRegistry;
+		if ("earlier run".equals(reservations)) {
+			outputNameRegistry = new OutputNameRegistry(Map.of(secondFilePathString, outputFilePathString));
+		} else {
+			outputNameRegistry = new OutputNameRegistry(Map.of());
+		}
+
+		if ("distinct names".equals(reservations)) {
+
+			final String otherOutputFilePathString = PathUtils.computePath("output", "IMG_0002.jpg");
+			Assertions.assertEquals(outputFilePathString,
+					outputNameRegistry.reserve(firstFilePathString, outputFilePathString));
+			Assertions.assertEquals(otherOutputFilePathString,
+					outputNameRegistry.reserve(secondFilePathString, otherOutputFilePathString));
+
+		} else if ("same name".equals(reservations)) {
+
+			Assertions.assertEquals(outputFilePathString,
+					outputNameRegistry.reserve(firstFilePathString, outputFilePathString));
+			Assertions.assertEquals(suffixedOutputFilePathString,
+					outputNameRegistry.reserve(secondFilePathString, outputFilePathString));
+
+		} else if ("different case".equals(reservations)) {
+
+			Assertions.assertEquals(outputFilePathString,
+					outputNameRegistry.reserve(firstFilePathString, outputFilePathString));
+			final String upperCaseOutputFilePathString = PathUtils.computePath("output", "img_0001.JPG");
+			Assertions.assertNotEquals(upperCaseOutputFilePathString,
+					outputNameRegistry.reserve(secondFilePathString, upperCaseOutputFilePathString));
+
+		} else if ("same source".equals(reservations)) {
+
+			Assertions.assertEquals(outputFilePathString,
+					outputNameRegistry.reserve(firstFilePathString, outputFilePathString));
+			Assertions.assertEquals(outputFilePathString,
+					outputNameRegistry.reserve(firstFilePathString, outputFilePathString));
+
+		} else if ("claim order".equals(reservations)) {
+
+			// the first file reaches the registry first, but waits for the second file, which claimed the name first
+			outputNameRegistry.claim(secondFilePathString, "IMG_0001.jpg");
+			outputNameRegistry.claim(firstFilePathString, "img_0001.JPG");
+			final String[] firstOutputFilePathStringArray = new String[1];
+			final Thread thread = new Thread(() -> firstOutputFilePathStringArray[0] =
+					outputNameRegistry.reserve(firstFilePathString, outputFilePathString));
+			thread.start();
+			thread.join(200);
+			Assertions.assertTrue(thread.isAlive());
+
+			Assertions.assertEquals(outputFilePathString,
+					outputNameRegistry.reserve(secondFilePathString, outputFilePathString));
+			thread.join();
+			Assertions.assertEquals(PathUtils.appendFileNameSuffix(outputFilePathString,
+					String.format("_%08x", firstFilePathString.hashCode())), firstOutputFilePathStringArray[0]);
+
+		} else if ("claim released".equals(reservations)) {
+
+			outputNameRegistry.claim(secondFilePathString, "IMG_0001.jpg");
+			outputNameRegistry.claim(firstFilePathString, "IMG_0001.jpg");
+			outputNameRegistry.release(secondFilePathString);
+			Assertions.assertEquals(outputFilePathString,
+					outputNameRegistry.reserve(firstFilePathString, outputFilePathString));
+
+		} else if ("other name waiting".equals(reservations)) {
+
+			// a source file waiting for its turn does not hold up the source files with other names
+			final String thirdFilePathString = PathUtils.computePath("input", "album_1", "IMG_0002.jpg");
+			final String otherOutputFilePathString = PathUtils.computePath("output", "IMG_0002.jpg");
+			outputNameRegistry.claim(secondFilePathString, "IMG_0001.jpg");
+			outputNameRegistry.claim(firstFilePathString, "IMG_0001.jpg");
+			outputNameRegistry.claim(thirdFilePathString, "IMG_0002.jpg");
+			final Thread thread = new Thread(() ->
+					outputNameRegistry.reserve(firstFilePathString, outputFilePathString));
+			thread.start();
+			thread.join(200);
+			Assertions.assertTrue(thread.isAlive());
+
+			Assertions.assertEquals(otherOutputFilePathString,
+					outputNameRegistry.reserve(thirdFilePathString, otherOutputFilePathString));
+			Assertions.assertTrue(thread.isAlive());
+			outputNameRegistry.release(secondFilePathString);
+			thread.join();
+
+		} else {
+			Assertions.assertNotEquals(outputFilePathString,
+					outputNameRegistry.reserve(firstFilePathString, outputFilePathString));
+			Assertions.assertEquals(outputFilePathString,
+					outputNameRegistry.reserve(secondFilePathString, outputFilePathString));
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.personal.g_photos.links;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class FileLinkerTest {
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testLinkOrCopyFile() {
+
+		final DynamicTestOptions<String> linkDynamicTestOptions = new DynamicTestOptions<>("link", 1);
+
+		linkDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "copy",
+				"copy"));
+		linkDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "hard link",
+				"hard link"));
+		linkDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "hard link other time",
+				"hard link other time"));
+		linkDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "hard link fails",
+				"hard link fails"));
+		linkDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "clone fails",
+				"clone fails"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testLinkOrCopyFileCommon(linkDynamicTestOptions), linkDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testLinkOrCopyFileCommon(
+			final DynamicTestOptions<String> linkDynamicTestOptions) {
+
+		final String link = linkDynamicTestOptions.computeValue();
+		try {
+			final Path folderPath = tmpFolderPath.resolve(link.replace(' ', '_'));
+			final Path inputFolderPath = Files.createDirectories(folderPath.resolve("input"));
+			final Path firstFilePath = inputFolderPath.resolve("IMG_0001.jpg");
+			Files.write(firstFilePath, new byte[] { 1, 2, 3, 4 });
+			final Path secondFilePath = inputFolderPath.resolve("IMG_0002.jpg");
+			Files.write(secondFilePath, new byte[] { 5, 6, 7, 8 });
+			final long lastModifiedTime = Files.getLastModifiedTime(firstFilePath).toMillis();
+
+			final LinkMode linkMode;
+			if ("copy".equals(link)) {
+				linkMode = LinkMode.COPY;
+			} else if ("clone fails".equals(link)) {
+				linkMode = LinkMode.REFLINK;
+			} else {
+				linkMode = LinkMode.HARDLINK;
+			}
+
+			// the output folder is created by the caller, so linking into a missing folder fails, while the copy
+			// creates its parent folders
+			final Path outputFolderPath = Files.createDirectories(folderPath.resolve("output"));
+			final Path firstOutputFilePath;
+			if ("hard link fails".equals(link) || "clone fails".equals(link)) {
+				firstOutputFilePath = outputFolderPath.resolve("missing").resolve("IMG_0001.jpg");
+			} else {
+				firstOutputFilePath = outputFolderPath.resolve("IMG_0001.jpg");
+			}
+			final Instant photoTakenTimeInstant;
+			if ("hard link other time".equals(link)) {
+				photoTakenTimeInstant = Instant.ofEpochMilli(lastModifiedTime - 60_000);
+			} else {
+				photoTakenTimeInstant = Instant.ofEpochMilli(lastModifiedTime);
+			}
+
+			final FileLinker fileLinker = FactoryFileLinker.newInstance(linkMode);
+			Assertions.assertTrue(fileLinker.linkOrCopyFile(firstFilePath.toString(),
+					firstOutputFilePath.toString(), lastModifiedTime, photoTakenTimeInstant));
+			Assertions.assertArrayEquals(Files.readAllBytes(firstFilePath), Files.readAllBytes(firstOutputFilePath));
+			Assertions.assertEquals("hard link".equals(link), Files.isSameFile(firstFilePath, firstOutputFilePath));
+
+			// once linking failed, the next files are copied, even where a link would work
+			final Path secondOutputFilePath = outputFolderPath.resolve("IMG_0002.jpg");
+			Assertions.assertTrue(fileLinker.linkOrCopyFile(secondFilePath.toString(),
+					secondOutputFilePath.toString(), lastModifiedTime, null));
+			Assertions.assertArrayEquals(Files.readAllBytes(secondFilePath), Files.readAllBytes(secondOutputFilePath));
+			if ("hard link".equals(link) || "hard link other time".equals(link)) {
+				Assertions.assertTrue(Files.isSameFile(secondFilePath, secondOutputFilePath));
+			} else {
+				Assertions.assertFalse(Files.isSameFile(secondFilePath, secondOutputFilePath));
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+}
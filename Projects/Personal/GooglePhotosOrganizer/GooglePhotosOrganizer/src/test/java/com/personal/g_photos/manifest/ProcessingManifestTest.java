@@ -0,0 +1,207 @@
+package com.personal.g_photos.manifest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class ProcessingManifestTest {
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@Test
+	void testLoad() {
+
+		try {
+			final Path outputFolderPath = tmpFolderPath.resolve("output");
+			final Path firstOutputFilePath = createOutputFile(outputFolderPath, "IMG_0001.jpg");
+			final Path secondOutputFilePath = createOutputFile(outputFolderPath, "IMG_0002.jpg");
+
+			final ManifestEntry firstManifestEntry = new ManifestEntry("IMG_0001.jpg", 100, 1_000,
+					"a1", firstOutputFilePath.toString(), true);
+			final ManifestEntry firstFailedManifestEntry = new ManifestEntry("IMG_0001.jpg", 200, 2_000,
+					"a2", firstOutputFilePath.toString(), false);
+			final ManifestEntry secondManifestEntry = new ManifestEntry("IMG_0002.jpg", 300, 3_000,
+					"b1", secondOutputFilePath.toString(), true);
+			final ManifestEntry thirdManifestEntry = new ManifestEntry("IMG_0003.jpg", 400, 4_000,
+					"c1", outputFolderPath.resolve("IMG_0003.jpg").toString(), true);
+			final String tornLine = thirdManifestEntry.toLine().substring(0, 20);
+
+			final String manifestFilePathString =
+					ProcessingManifest.computeManifestFilePathString(outputFolderPath.toString());
+			final Path manifestFilePath = Paths.get(manifestFilePathString);
+			Files.createDirectories(manifestFilePath.getParent());
+			Files.writeString(manifestFilePath, firstManifestEntry.toLine() + "\n" +
+					secondManifestEntry.toLine() + "\n" +
+					"not a manifest line\n" +
+					firstFailedManifestEntry.toLine() + "\n" +
+					tornLine, StandardCharsets.UTF_8);
+
+			final ManifestEntry fourthManifestEntry = new ManifestEntry("IMG_0004.jpg", 500, 5_000,
+					"d1", createOutputFile(outputFolderPath, "IMG_0004.jpg").toString(), true);
+			try (ProcessingManifest processingManifest =
+					FactoryProcessingManifest.newInstance(outputFolderPath.toString())) {
+
+				// the last entry of a source file wins
+				Assertions.assertFalse(processingManifest.checkUpToDate(firstManifestEntry));
+				Assertions.assertTrue(processingManifest.checkFailed("IMG_0001.jpg", 200, 2_000));
+				Assertions.assertTrue(processingManifest.checkUpToDate(secondManifestEntry));
+				Assertions.assertFalse(processingManifest.checkUpToDate(thirdManifestEntry));
+				Assertions.assertEquals(Map.of("IMG_0002.jpg", secondOutputFilePath.toString()),
+						processingManifest.createOutputFilePathStringsBySourceFilePathString());
+
+				// the torn line gets a line break, so the next entry starts on a line of its own
+				processingManifest.record(fourthManifestEntry);
+				final List<String> lineList = Files.readAllLines(manifestFilePath, StandardCharsets.UTF_8);
+				Assertions.assertEquals(tornLine, lineList.get(lineList.size() - 2));
+				Assertions.assertEquals(fourthManifestEntry.toLine(), lineList.getLast());
+			}
+
+			try (ProcessingManifest processingManifest =
+					FactoryProcessingManifest.newInstance(outputFolderPath.toString())) {
+
+				Assertions.assertTrue(processingManifest.checkUpToDate(secondManifestEntry));
+				Assertions.assertTrue(processingManifest.checkUpToDate(fourthManifestEntry));
+				Assertions.assertTrue(processingManifest.checkFailed("IMG_0001.jpg", 200, 2_000));
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	@TestFactory
+	List<DynamicTest> testCheckUpToDate() {
+
+		final DynamicTestOptions<String> entryDynamicTestOptions = new DynamicTestOptions<>("entry", 1);
+
+		entryDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "same inputs",
+				"same inputs"));
+		entryDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "other size",
+				"other size"));
+		entryDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "other modified time",
+				"other modified time"));
+		entryDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "other sidecar",
+				"other sidecar"));
+		entryDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "other output",
+				"other output"));
+		entryDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(6, "failed",
+				"failed"));
+		entryDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(7, "output deleted",
+				"output deleted"));
+		entryDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(8, "unknown",
+				"unknown"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testCheckUpToDateCommon(entryDynamicTestOptions), entryDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testCheckUpToDateCommon(
+			final DynamicTestOptions<String> entryDynamicTestOptions) {
+
+		final String entry = entryDynamicTestOptions.computeValue();
+		final Path outputFolderPath = tmpFolderPath.resolve(entry.replace(' ', '_'));
+		try (ProcessingManifest processingManifest =
+				FactoryProcessingManifest.newInstance(outputFolderPath.toString())) {
+
+			final Path outputFilePath = createOutputFile(outputFolderPath, "IMG_0001.jpg");
+			final String outputFilePathString = outputFilePath.toString();
+			final boolean success = !"failed".equals(entry);
+			processingManifest.record(new ManifestEntry("IMG_0001.jpg", 100, 1_000,
+					"a1", outputFilePathString, success));
+			if ("output deleted".equals(entry)) {
+				Files.delete(outputFilePath);
+			}
+
+			final ManifestEntry manifestEntry;
+			if ("other size".equals(entry)) {
+				manifestEntry = new ManifestEntry("IMG_0001.jpg", 101, 1_000, "a1", outputFilePathString, true);
+			} else if ("other modified time".equals(entry)) {
+				manifestEntry = new ManifestEntry("IMG_0001.jpg", 100, 1_001, "a1", outputFilePathString, true);
+			} else if ("other sidecar".equals(entry)) {
+				manifestEntry = new ManifestEntry("IMG_0001.jpg", 100, 1_000, "a2", outputFilePathString, true);
+			} else if ("other output".equals(entry)) {
+				manifestEntry = new ManifestEntry("IMG_0001.jpg", 100, 1_000, "a1",
+						createOutputFile(outputFolderPath, "IMG_0001_1.jpg").toString(), true);
+			} else if ("unknown".equals(entry)) {
+				manifestEntry = new ManifestEntry("IMG_0002.jpg", 100, 1_000, "a1", outputFilePathString, true);
+			} else {
+				manifestEntry = new ManifestEntry("IMG_0001.jpg", 100, 1_000, "a1", outputFilePathString, true);
+			}
+
+			final boolean upToDate = processingManifest.checkUpToDate(manifestEntry);
+			Assertions.assertEquals("same inputs".equals(entry), upToDate);
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	@Test
+	void testClose() {
+
+		try {
+			final Path outputFolderPath = tmpFolderPath.resolve("output");
+			final String outputFilePathString = createOutputFile(outputFolderPath, "IMG_0001.jpg").toString();
+			final ManifestEntry firstManifestEntry = new ManifestEntry("IMG_0001.jpg", 100, 3_000,
+					"a3", outputFilePathString, true);
+			final ManifestEntry secondManifestEntry = new ManifestEntry("IMG_0002.jpg", 200, 1_000,
+					"b1", outputFolderPath.resolve("IMG_0002.jpg").toString(), false);
+
+			try (ProcessingManifest processingManifest =
+					FactoryProcessingManifest.newInstance(outputFolderPath.toString())) {
+
+				processingManifest.record(new ManifestEntry("IMG_0001.jpg", 100, 1_000,
+						"a1", outputFilePathString, false));
+				processingManifest.record(secondManifestEntry);
+				processingManifest.record(new ManifestEntry("IMG_0001.jpg", 100, 2_000,
+						"a2", outputFilePathString, true));
+				processingManifest.record(firstManifestEntry);
+			}
+
+			// only the last entry of every source file is left
+			final Path manifestFilePath =
+					Paths.get(ProcessingManifest.computeManifestFilePathString(outputFolderPath.toString()));
+			final List<String> lineList = Files.readAllLines(manifestFilePath, StandardCharsets.UTF_8);
+			Assertions.assertEquals(2, lineList.size());
+			Assertions.assertTrue(lineList.contains(firstManifestEntry.toLine()));
+			Assertions.assertTrue(lineList.contains(secondManifestEntry.toLine()));
+			Assertions.assertFalse(Files.exists(Paths.get(manifestFilePath + ".tmp")));
+
+			try (ProcessingManifest processingManifest =
+					FactoryProcessingManifest.newInstance(outputFolderPath.toString())) {
+
+				Assertions.assertTrue(processingManifest.checkUpToDate(firstManifestEntry));
+				Assertions.assertTrue(processingManifest.checkFailed("IMG_0002.jpg", 200, 1_000));
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	private static Path createOutputFile(
+			final Path outputFolderPath,
+			final String fileName) throws Exception {
+
+		final Path outputFilePath = outputFolderPath.resolve(fileName);
+		Files.createDirectories(outputFolderPath);
+		Files.write(outputFilePath, new byte[16]);
+		return outputFilePath;
+	}
+}
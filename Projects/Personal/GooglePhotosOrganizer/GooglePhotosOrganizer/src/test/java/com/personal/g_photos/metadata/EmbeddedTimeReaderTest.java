@@ -0,0 +1,138 @@
+package com.personal.g_photos.metadata;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.personal.g_photos.images.ExifData;
+import com.personal.g_photos.images.ExifWriter;
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class EmbeddedTimeReaderTest {
+
+	private static final long MP4_EPOCH_OFFSET_SECONDS = 2_082_844_800L;
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testReadTime() {
+
+		final DynamicTestOptions<String> fileDynamicTestOptions = new DynamicTestOptions<>("file", 1);
+
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "JPEG with EXIF",
+				"JPEG with EXIF"));
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "JPEG without EXIF",
+				"JPEG without EXIF"));
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "MP4 moov first",
+				"MP4 moov first"));
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "MP4 moov last",
+				"MP4 moov last"));
+		fileDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(5, "other",
+				"other"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testReadTimeCommon(fileDynamicTestOptions), fileDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testReadTimeCommon(
+			final DynamicTestOptions<String> fileDynamicTestOptions) {
+
+		final String file = fileDynamicTestOptions.computeValue();
+		try {
+			final ZonedDateTime zonedDateTime = ZonedDateTime.parse("2021-06-05T08:09:10+02:00");
+			final Path filePath = tmpFolderPath.resolve(file.replace(' ', '_'));
+
+			final byte[] content;
+			if ("JPEG with EXIF".equals(file)) {
+
+				final byte[] jpegByteArray = encodeJpeg();
+				final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+				ExifWriter.writeJpeg(jpegByteArray, jpegByteArray.length,
+						new ExifData(zonedDateTime, null), byteArrayOutputStream);
+				content = byteArrayOutputStream.toByteArray();
+
+			} else if ("JPEG without EXIF".equals(file)) {
+				content = encodeJpeg();
+			} else if ("MP4 moov first".equals(file)) {
+				content = createMp4(zonedDateTime.toInstant(), true);
+			} else if ("MP4 moov last".equals(file)) {
+				content = createMp4(zonedDateTime.toInstant(), false);
+			} else {
+				content = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+			}
+			Files.write(filePath, content);
+
+			final EmbeddedTimeReader embeddedTimeReader = new EmbeddedTimeReader(ZoneId.of("UTC"));
+			final Instant timeInstant = embeddedTimeReader.readTime(filePath);
+			if ("JPEG without EXIF".equals(file) || "other".equals(file)) {
+				Assertions.assertNull(timeInstant);
+			} else {
+				Assertions.assertEquals(zonedDateTime.toInstant(), timeInstant);
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	private static byte[] encodeJpeg() throws Exception {
+
+		final BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+		final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpeg", byteArrayOutputStream);
+		return byteArrayOutputStream.toByteArray();
+	}
+
+	/**
+	 * Creates the boxes of an MP4 file, with a version 0 "mvhd" box inside a "moov" box that comes either before or
+	 * after the "mdat" box.
+	 */
+	private static byte[] createMp4(
+			final Instant creationTimeInstant,
+			final boolean moovFirst) {
+
+		final ByteBuffer ftypByteBuffer = ByteBuffer.allocate(16);
+		ftypByteBuffer.putInt(16).put("ftypisom".getBytes(StandardCharsets.US_ASCII)).putInt(0x200);
+
+		final ByteBuffer mdatByteBuffer = ByteBuffer.allocate(1024);
+		mdatByteBuffer.putInt(1024).put("mdat".getBytes(StandardCharsets.US_ASCII));
+
+		final ByteBuffer moovByteBuffer = ByteBuffer.allocate(8 + 8 + 100);
+		moovByteBuffer.putInt(116).put("moov".getBytes(StandardCharsets.US_ASCII));
+		moovByteBuffer.putInt(108).put("mvhd".getBytes(StandardCharsets.US_ASCII));
+		moovByteBuffer.putInt(0);
+		moovByteBuffer.putInt((int) (creationTimeInstant.getEpochSecond() + MP4_EPOCH_OFFSET_SECONDS));
+
+		final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		byteArrayOutputStream.writeBytes(ftypByteBuffer.array());
+		if (moovFirst) {
+
+			byteArrayOutputStream.writeBytes(moovByteBuffer.array());
+			byteArrayOutputStream.writeBytes(mdatByteBuffer.array());
+
+		} else {
+			byteArrayOutputStream.writeBytes(mdatByteBuffer.array());
+			byteArrayOutputStream.writeBytes(moovByteBuffer.array());
+		}
+		return byteArrayOutputStream.toByteArray();
+	}
+}
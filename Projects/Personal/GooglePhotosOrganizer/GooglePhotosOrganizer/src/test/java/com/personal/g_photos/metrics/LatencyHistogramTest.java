@@ -0,0 +1,83 @@
+package com.personal.g_photos.metrics;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class LatencyHistogramTest {
+
+	@TestFactory
+	List<DynamicTest> testComputePercentile() {
+
+		final DynamicTestOptions<String> latenciesDynamicTestOptions = new DynamicTestOptions<>("latencies", 1);
+
+		latenciesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "none",
+				"none"));
+		latenciesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "small",
+				"small"));
+		latenciesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "uniform",
+				"uniform"));
+		latenciesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "outlier",
+				"outlier"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testComputePercentileCommon(latenciesDynamicTestOptions), latenciesDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private static void testComputePercentileCommon(
+			final DynamicTestOptions<String> latenciesDynamicTestOptions) {
+
+		final String latencies = latenciesDynamicTestOptions.computeValue();
+
+		final LatencyHistogram latencyHistogram = new LatencyHistogram();
+		if ("none".equals(latencies)) {
+
+			Assertions.assertEquals(0, latencyHistogram.computePercentile(50));
+			Assertions.assertEquals(0, latencyHistogram.getMaxValue());
+
+		} else if ("small".equals(latencies)) {
+
+			for (int i = 1; i <= 4; i++) {
+				latencyHistogram.add(i);
+			}
+			Assertions.assertEquals(2, latencyHistogram.computePercentile(50));
+			Assertions.assertEquals(4, latencyHistogram.computePercentile(100));
+
+		} else if ("uniform".equals(latencies)) {
+
+			for (int i = 1; i <= 10_000; i++) {
+				latencyHistogram.add(1_000_000L * i);
+			}
+			assertWithin(5_000_000_000L, latencyHistogram.computePercentile(50));
+			assertWithin(9_900_000_000L, latencyHistogram.computePercentile(99));
+			Assertions.assertEquals(10_000_000_000L, latencyHistogram.computePercentile(100));
+
+		} else {
+			for (int i = 0; i < 999; i++) {
+				latencyHistogram.add(2_000_000);
+			}
+			latencyHistogram.add(Long.MAX_VALUE);
+			assertWithin(2_000_000, latencyHistogram.computePercentile(99));
+			Assertions.assertEquals(Long.MAX_VALUE, latencyHistogram.computePercentile(100));
+		}
+	}
+
+	/**
+	 * A percentile is the highest value of its bucket, which is at most 12.5% above the real value.
+	 */
+	private static void assertWithin(
+			final long expectedValue,
+			final long value) {
+
+		Assertions.assertTrue(value >= expectedValue && value <= expectedValue * 1.125,
+				"expected " + expectedValue + " but was " + value);
+	}
+}
@@ -0,0 +1,208 @@
+package com.personal.g_photos.pipeline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class PipelineTest {
+
+	private static final int ITEM_COUNT = 200;
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	@TestFactory
+	List<DynamicTest> testRun() {
+
+		final DynamicTestOptions<int[]> threadCountsDynamicTestOptions =
+				new DynamicTestOptions<>("thread counts", 1);
+
+		threadCountsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "single threads",
+				new int[] { 1, 1, 1 }));
+		threadCountsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "wide middle",
+				new int[] { 1, 4, 2 }));
+		threadCountsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "narrow middle",
+				new int[] { 4, 1, 3 }));
+		threadCountsDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "wide",
+				new int[] { 4, 4, 4 }));
+
+		final DynamicTestOptions<Boolean> failingDynamicTestOptions = new DynamicTestOptions<>("failing", 1);
+
+		failingDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "no failure", false));
+		failingDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "failing items", true));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testRunCommon(threadCountsDynamicTestOptions, failingDynamicTestOptions),
+				threadCountsDynamicTestOptions, failingDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private static void testRunCommon(
+			final DynamicTestOptions<int[]> threadCountsDynamicTestOptions,
+			final DynamicTestOptions<Boolean> failingDynamicTestOptions) {
+
+		final int[] threadCounts = threadCountsDynamicTestOptions.computeValue();
+		final boolean failing = failingDynamicTestOptions.computeValue();
+
+		final List<Integer> firstItemList = Collections.synchronizedList(new ArrayList<>());
+		final List<Integer> secondItemList = Collections.synchronizedList(new ArrayList<>());
+		final List<Integer> thirdItemList = Collections.synchronizedList(new ArrayList<>());
+
+		// the second stage throws on some items and only hands the even items over to the third stage
+		final Pipeline<Integer> pipeline = new Pipeline<>("test");
+		pipeline.addStage("first", threadCounts[0], 2, firstItemList::add);
+		pipeline.addStage("second", threadCounts[1], 2, item -> {
+
+			if (failing && item % 10 == 4) {
+				throw new IllegalStateException("failing item " + item);
+			}
+			secondItemList.add(item);
+			return item % 2 == 0;
+		});
+		pipeline.addStage("third", threadCounts[2], 2, thirdItemList::add);
+
+		Assertions.assertTimeoutPreemptively(TIMEOUT, () -> pipeline.run(itemConsumer -> {
+
+			for (int item = 0; item < ITEM_COUNT; item++) {
+				itemConsumer.accept(item);
+			}
+		}));
+
+		final List<Integer> expectedFirstItemList = new ArrayList<>();
+		final List<Integer> expectedSecondItemList = new ArrayList<>();
+		final List<Integer> expectedThirdItemList = new ArrayList<>();
+		for (int item = 0; item < ITEM_COUNT; item++) {
+
+			expectedFirstItemList.add(item);
+			if (!failing || item % 10 != 4) {
+
+				expectedSecondItemList.add(item);
+				if (item % 2 == 0) {
+					expectedThirdItemList.add(item);
+				}
+			}
+		}
+
+		// with one thread per stage, the items keep their order; otherwise, only the items themselves are compared
+		final boolean singleThreads = threadCounts[0] == 1 && threadCounts[1] == 1 && threadCounts[2] == 1;
+		if (!singleThreads) {
+
+			firstItemList.sort(null);
+			secondItemList.sort(null);
+			thirdItemList.sort(null);
+		}
+		Assertions.assertEquals(expectedFirstItemList, firstItemList);
+		Assertions.assertEquals(expectedSecondItemList, secondItemList);
+		Assertions.assertEquals(expectedThirdItemList, thirdItemList);
+	}
+
+	@Test
+	void testRunBranch() {
+
+		final List<Integer> secondItemList = Collections.synchronizedList(new ArrayList<>());
+		final List<Integer> branchItemList = Collections.synchronizedList(new ArrayList<>());
+		final List<Integer> thirdItemList = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch otherItemsLatch = new CountDownLatch(ITEM_COUNT - 1);
+
+		// the first item goes to the branch, whose single thread holds it until every other item reached the third
+		// stage, which only happens if the slow item does not hold a thread of the second stage; the third stage
+		// still gets the item of the branch before its end of input
+		final Pipeline<Integer> pipeline = new Pipeline<>("test");
+		pipeline.addStage("first", 2, 2, item -> true);
+		pipeline.addStage("second", 1, 2, item -> {
+
+			secondItemList.add(item);
+			return true;
+		});
+		pipeline.addBranchStage("branch", 1, 2, item -> item == 0, item -> {
+
+			try {
+				otherItemsLatch.await();
+				branchItemList.add(item);
+
+			} catch (final InterruptedException exc) {
+				Thread.currentThread().interrupt();
+			}
+			return true;
+		});
+		pipeline.addStage("third", 2, 2, item -> {
+
+			thirdItemList.add(item);
+			if (item != 0) {
+				otherItemsLatch.countDown();
+			}
+			return true;
+		});
+
+		Assertions.assertTimeoutPreemptively(TIMEOUT, () -> pipeline.run(itemConsumer -> {
+
+			for (int item = 0; item < ITEM_COUNT; item++) {
+				itemConsumer.accept(item);
+			}
+		}));
+
+		final List<Integer> expectedSecondItemList = new ArrayList<>();
+		final List<Integer> expectedThirdItemList = new ArrayList<>();
+		for (int item = 0; item < ITEM_COUNT; item++) {
+
+			if (item != 0) {
+				expectedSecondItemList.add(item);
+			}
+			expectedThirdItemList.add(item);
+		}
+		secondItemList.sort(null);
+		Assertions.assertEquals(expectedSecondItemList, secondItemList);
+		Assertions.assertEquals(List.of(0), branchItemList);
+		Assertions.assertEquals(0, thirdItemList.getLast());
+		thirdItemList.sort(null);
+		Assertions.assertEquals(expectedThirdItemList, thirdItemList);
+	}
+
+	@Test
+	void testSignalEndOfInput() {
+
+		final AtomicInteger processedItemCount = new AtomicInteger();
+		final PipelineStage<Integer> pipelineStage = new PipelineStage<>("first", 3, 2, item -> true);
+		final PipelineStage<Integer> nextPipelineStage = new PipelineStage<>("second", 2, 2, item -> {
+
+			processedItemCount.incrementAndGet();
+			return true;
+		});
+		pipelineStage.setNextStage(nextPipelineStage);
+
+		final List<Thread> threadList = new ArrayList<>();
+		for (int i = 0; i < pipelineStage.getThreadCount(); i++) {
+			threadList.add(Thread.ofPlatform().start(pipelineStage::work));
+		}
+		for (int i = 0; i < nextPipelineStage.getThreadCount(); i++) {
+			threadList.add(Thread.ofPlatform().start(nextPipelineStage::work));
+		}
+
+		// every worker of both stages stops: the first stage gets one end of input per worker, and its last worker
+		// to stop signals the end of input to every worker of the next stage
+		Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+
+			for (int item = 0; item < 10; item++) {
+				pipelineStage.put(item);
+			}
+			pipelineStage.signalEndOfInput();
+			for (final Thread thread : threadList) {
+				thread.join();
+			}
+		});
+		Assertions.assertEquals(10, processedItemCount.get());
+		Assertions.assertEquals(0, pipelineStage.getQueueSize());
+		Assertions.assertEquals(0, nextPipelineStage.getQueueSize());
+	}
+}
@@ -0,0 +1,99 @@
+package com.personal.g_photos.plan;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.personal.g_photos.archives.ArchiveFileSystems;
+import com.personal.g_photos.archives.FactoryArchiveFileSystems;
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class RunPlannerTest {
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testEstimate() {
+
+		final DynamicTestOptions<String> historyDynamicTestOptions = new DynamicTestOptions<>("history", 1);
+
+		historyDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "no earlier run",
+				"no earlier run"));
+		historyDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "earlier run",
+				"earlier run"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testEstimateCommon(historyDynamicTestOptions), historyDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testEstimateCommon(
+			final DynamicTestOptions<String> historyDynamicTestOptions) {
+
+		final String history = historyDynamicTestOptions.computeValue();
+		try {
+			final Path inputFolderPath = Files.createTempDirectory(tmpFolderPath, "input");
+			final Path outputFolderPath = Files.createTempDirectory(tmpFolderPath, "output");
+			final Path imageFilePath = inputFolderPath.resolve("IMG_0001.jpg");
+			Files.write(imageFilePath, new byte[4000]);
+			final Path videoFilePath = inputFolderPath.resolve("VID_0001.mp4");
+			Files.write(videoFilePath, new byte[10_000]);
+			final Path otherFilePath = inputFolderPath.resolve("animation.gif");
+			Files.write(otherFilePath, new byte[300]);
+
+			if ("earlier run".equals(history)) {
+
+				final ThroughputHistory throughputHistory =
+						FactoryThroughputHistory.newInstance(outputFolderPath.toString());
+				throughputHistory.record(FileClass.IMAGE, 1000, 250, 2_000_000);
+				throughputHistory.record(FileClass.IMAGE, 1000, 250, 2_000_000);
+				throughputHistory.record(FileClass.VIDEO, 5000, 5000, 1_000_000);
+				throughputHistory.save();
+			}
+
+			try (ArchiveFileSystems archiveFileSystems = FactoryArchiveFileSystems.newInstance()) {
+
+				final RunPlanner runPlanner = new RunPlanner(archiveFileSystems, true);
+				runPlanner.addFile(imageFilePath.toString());
+				runPlanner.addFile(videoFilePath.toString());
+				runPlanner.addFile(otherFilePath.toString());
+
+				final ThroughputHistory throughputHistory =
+						FactoryThroughputHistory.newInstance(outputFolderPath.toString());
+				Assertions.assertEquals(300,
+						runPlanner.computeEstimatedOutputByteCount(FileClass.COPY, throughputHistory));
+				Assertions.assertEquals(-1,
+						runPlanner.computeEstimatedBusyTimeNanos(FileClass.COPY, throughputHistory));
+				if ("earlier run".equals(history)) {
+
+					Assertions.assertEquals(1000,
+							runPlanner.computeEstimatedOutputByteCount(FileClass.IMAGE, throughputHistory));
+					Assertions.assertEquals(8_000_000,
+							runPlanner.computeEstimatedBusyTimeNanos(FileClass.IMAGE, throughputHistory));
+					Assertions.assertEquals(10_000,
+							runPlanner.computeEstimatedOutputByteCount(FileClass.VIDEO, throughputHistory));
+					Assertions.assertEquals(2_000_000,
+							runPlanner.computeEstimatedBusyTimeNanos(FileClass.VIDEO, throughputHistory));
+
+				} else {
+					Assertions.assertEquals(-1,
+							runPlanner.computeEstimatedOutputByteCount(FileClass.IMAGE, throughputHistory));
+					Assertions.assertEquals(-1,
+							runPlanner.computeEstimatedBusyTimeNanos(FileClass.VIDEO, throughputHistory));
+				}
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+}
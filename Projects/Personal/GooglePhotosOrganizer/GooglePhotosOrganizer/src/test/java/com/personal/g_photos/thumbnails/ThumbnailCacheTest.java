@@ -0,0 +1,160 @@
+package com.personal.g_photos.thumbnails;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class ThumbnailCacheTest {
+
+	private static final String FIRST_KEY = "0a" + "1".repeat(62);
+	private static final String SECOND_KEY = "0b" + "2".repeat(62);
+	private static final String THIRD_KEY = "0a" + "3".repeat(62);
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testPut() {
+
+		final DynamicTestOptions<String> usesDynamicTestOptions = new DynamicTestOptions<>("uses", 1);
+
+		usesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "within size",
+				"within size"));
+		usesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "least recently put",
+				"least recently put"));
+		usesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "touched",
+				"touched"));
+		usesDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "earlier run",
+				"earlier run"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testPutCommon(usesDynamicTestOptions), usesDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testPutCommon(
+			final DynamicTestOptions<String> usesDynamicTestOptions) {
+
+		final String uses = usesDynamicTestOptions.computeValue();
+		try {
+			final String outputFolderPathString = tmpFolderPath.resolve(uses.replace(' ', '_')).toString();
+			final long maxCacheSize;
+			if ("within size".equals(uses)) {
+				maxCacheSize = 300;
+			} else {
+				maxCacheSize = 250;
+			}
+
+			ThumbnailCache thumbnailCache = FactoryThumbnailCache.newInstance(outputFolderPathString, maxCacheSize);
+			thumbnailCache.put(FIRST_KEY, new byte[100]);
+			thumbnailCache.put(SECOND_KEY, new byte[100]);
+			if ("touched".equals(uses)) {
+				Assertions.assertTrue(thumbnailCache.touch(FIRST_KEY));
+			} else if ("earlier run".equals(uses)) {
+
+				final Path firstThumbnailFilePath = Paths.get(thumbnailCache.computeThumbnailFilePathString(FIRST_KEY));
+				final Instant firstLastModifiedInstant = Files.getLastModifiedTime(firstThumbnailFilePath).toInstant();
+				Files.setLastModifiedTime(firstThumbnailFilePath,
+						FileTime.from(firstLastModifiedInstant.plusSeconds(60)));
+				thumbnailCache = FactoryThumbnailCache.newInstance(outputFolderPathString, maxCacheSize);
+			}
+			thumbnailCache.put(THIRD_KEY, new byte[100]);
+
+			final boolean firstCached = Files.isRegularFile(
+					Paths.get(thumbnailCache.computeThumbnailFilePathString(FIRST_KEY)));
+			final boolean secondCached = Files.isRegularFile(
+					Paths.get(thumbnailCache.computeThumbnailFilePathString(SECOND_KEY)));
+			final boolean thirdCached = Files.isRegularFile(
+					Paths.get(thumbnailCache.computeThumbnailFilePathString(THIRD_KEY)));
+			Assertions.assertTrue(thirdCached);
+			if ("within size".equals(uses)) {
+
+				Assertions.assertTrue(firstCached);
+				Assertions.assertTrue(secondCached);
+
+			} else if ("least recently put".equals(uses)) {
+
+				Assertions.assertFalse(firstCached);
+				Assertions.assertTrue(secondCached);
+
+			} else {
+				Assertions.assertTrue(firstCached);
+				Assertions.assertFalse(secondCached);
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	@Test
+	void testPutConcurrently() {
+
+		try {
+			final String outputFolderPathString = tmpFolderPath.resolve("concurrently").toString();
+			final ThumbnailCache thumbnailCache = FactoryThumbnailCache.newInstance(outputFolderPathString, 250);
+			final List<String> keyList = List.of(FIRST_KEY, SECOND_KEY, THIRD_KEY);
+
+			// in every round, the threads put the keys at the same time, so that the evictions of one thread race with
+			// the puts of the others, and then the files are compared with the map
+			final int threadCount = 4;
+			final List<String> failureList = new CopyOnWriteArrayList<>();
+			final CyclicBarrier cyclicBarrier = new CyclicBarrier(threadCount, () -> {
+
+				for (final String key : keyList) {
+
+					final boolean cached = thumbnailCache.touch(key);
+					if (cached != Files.isRegularFile(
+							Paths.get(thumbnailCache.computeThumbnailFilePathString(key)))) {
+						failureList.add("inconsistent thumbnail: " + key);
+					}
+				}
+			});
+
+			final List<Thread> threadList = new ArrayList<>();
+			for (int threadIndex = 0; threadIndex < threadCount; threadIndex++) {
+
+				final int firstKeyIndex = threadIndex;
+				threadList.add(Thread.ofPlatform().start(() -> {
+
+					try {
+						for (int roundIndex = 0; roundIndex < 500; roundIndex++) {
+
+							thumbnailCache.put(keyList.get((firstKeyIndex + roundIndex) % keyList.size()),
+									new byte[100]);
+							cyclicBarrier.await();
+						}
+
+					} catch (final Exception exc) {
+						failureList.add(exc.toString());
+					}
+				}));
+			}
+			for (final Thread thread : threadList) {
+				thread.join();
+			}
+
+			Assertions.assertEquals(List.of(), failureList);
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.personal.g_photos.videos;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.utils.test.DynamicTestOption;
+import com.utils.test.DynamicTestOptions;
+import com.utils.test.DynamicTestSuite;
+
+class VideoTranscodeSchedulerTest {
+
+	@TempDir
+	private Path tmpFolderPath;
+
+	@TestFactory
+	List<DynamicTest> testTranscode() {
+
+		final DynamicTestOptions<String> standInDynamicTestOptions =
+				new DynamicTestOptions<>("stand-in", 1);
+
+		standInDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(1, "copy", "copy"));
+		standInDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(2, "fail", "fail"));
+		standInDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(3, "transient failure",
+				"transient"));
+		standInDynamicTestOptions.getDynamicTestOptionList().add(new DynamicTestOption<>(4, "hang", "hang"));
+
+		final DynamicTestSuite dynamicTestSuite = new DynamicTestSuite(DynamicTestSuite.Mode.ALL,
+				() -> testTranscodeCommon(standInDynamicTestOptions), standInDynamicTestOptions);
+
+		return dynamicTestSuite.createDynamicTestList();
+	}
+
+	private void testTranscodeCommon(
+			final DynamicTestOptions<String> standInDynamicTestOptions) {
+
+		final String standInBehavior = standInDynamicTestOptions.computeValue();
+		try {
+			final Path executablePath = writeStandInExecutable(standInBehavior);
+
+			final Path inputFilePath = tmpFolderPath.resolve("VID_" + standInBehavior + ".mp4");
+			Files.write(inputFilePath, new byte[4096]);
+			final Path outputFilePath = tmpFolderPath.resolve("VID_" + standInBehavior + "_out.mp4");
+
+			final VideoTranscodeScheduler videoTranscodeScheduler = FactoryVideoTranscodeScheduler.newInstance(
+					executablePath.toString(), 2, 2_000, 1, false);
+			final VideoTranscodeJobStats videoTranscodeJobStats =
+					videoTranscodeScheduler.transcode(inputFilePath.toString(), outputFilePath.toString());
+
+			Assertions.assertEquals(4096, videoTranscodeJobStats.inputByteCount());
+			if ("copy".equals(standInBehavior)) {
+
+				Assertions.assertTrue(videoTranscodeJobStats.success());
+				Assertions.assertEquals(1, videoTranscodeJobStats.attemptCount());
+				Assertions.assertEquals(4096, videoTranscodeJobStats.outputByteCount());
+
+			} else if ("fail".equals(standInBehavior)) {
+
+				Assertions.assertFalse(videoTranscodeJobStats.success());
+				Assertions.assertEquals(1, videoTranscodeJobStats.attemptCount());
+				Assertions.assertEquals(0, videoTranscodeJobStats.outputByteCount());
+
+			} else {
+				Assertions.assertFalse(videoTranscodeJobStats.success());
+				Assertions.assertEquals(2, videoTranscodeJobStats.attemptCount());
+				Assertions.assertEquals(0, videoTranscodeJobStats.outputByteCount());
+			}
+
+		} catch (final Exception exc) {
+			Assertions.fail(exc);
+		}
+	}
+
+	/**
+	 * Writes a script that takes the place of ffmpeg: it copies the input file to the output file, fails on
+	 * its input, fails for lack of memory or hangs.
+	 */
+	private Path writeStandInExecutable(
+			final String standInBehavior) throws Exception {
+
+		final Path executablePath;
+		final String script;
+		if (SystemUtils.IS_OS_WINDOWS) {
+
+			executablePath = tmpFolderPath.resolve("ffmpeg_" + standInBehavior + ".cmd");
+			if ("copy".equals(standInBehavior)) {
+				script = "@echo off\r\n" +
+						":loop\r\n" +
+						"if \"%~2\"==\"\" goto done\r\n" +
+						"if \"%~1\"==\"-i\" set \"IN=%~2\"\r\n" +
+						"shift\r\n" +
+						"goto loop\r\n" +
+						":done\r\n" +
+						"copy /y \"%IN%\" \"%~1\" >nul\r\n";
+			} else if ("fail".equals(standInBehavior)) {
+				script = "@echo off\r\necho stand-in failure 1>&2\r\nexit /b 1\r\n";
+			} else if ("transient".equals(standInBehavior)) {
+				script = "@echo off\r\necho Cannot allocate memory 1>&2\r\nexit /b 1\r\n";
+			} else {
+				script = "@echo off\r\nping -n 60 127.0.0.1 >nul\r\n";
+			}
+
+		} else {
+			executablePath = tmpFolderPath.resolve("ffmpeg_" + standInBehavior + ".sh");
+			if ("copy".equals(standInBehavior)) {
+				script = "#!/bin/sh\n" +
+						"while [ \"$#\" -gt 1 ]; do\n" +
+						"  if [ \"$1\" = \"-i\" ]; then IN=\"$2\"; fi\n" +
+						"  shift\n" +
+						"done\n" +
+						"cp \"$IN\" \"$1\"\n";
+			} else if ("fail".equals(standInBehavior)) {
+				script = "#!/bin/sh\necho stand-in failure >&2\nexit 1\n";
+			} else if ("transient".equals(standInBehavior)) {
+				script = "#!/bin/sh\necho Cannot allocate memory >&2\nexit 1\n";
+			} else {
+				script = "#!/bin/sh\nsleep 60\n";
+			}
+		}
+		Files.writeString(executablePath, script, StandardCharsets.US_ASCII);
+		executablePath.toFile().setExecutable(true);
+		return executablePath;
+	}
+}
@@ -0,0 +1,616 @@
+package com.personal.g_photos.corpus;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.lang3.Strings;
+
+import com.utils.io.folder_deleters.FactoryFolderDeleter;
+import com.utils.string.StrUtils;
+
+/**
+ * Writes a tree that looks like a Google Takeout export of Google Photos, of any size, so that the organizer can be
+ * tested and benchmarked on any machine. The media files go to the "Photos from" folders of their years, and some of
+ * them are also copied to nested album folders, as Takeout does for the photos that are in albums.
+ * <p>
+ * The tree has the names that the sidecar matching has to handle: the sidecar names cut to 51 characters, the "(1)"
+ * counters of the names that are taken, the "-edited" copies that share the sidecar of their original, the videos of
+ * the live photos without a sidecar of their own, and the screenshot names with a narrow no-break space before "PM",
+ * where the file names can have one.
+ * <p>
+ * Everything is drawn from a single random generator, on a single thread, so the same options always give the same
+ * names, the same contents and the same last modified times. The images are small, valid JPEG and PNG files, encoded
+ * once and made distinct by a comment, so that they are not taken for duplicates, and the videos are MP4 boxes with a
+ * creation time, so that writing a million files takes minutes and not hours.
+ */
+public final class TakeoutCorpusGenerator {
+
+	private static final String SUPPLEMENTAL_METADATA_SUFFIX = ".supplemental-metadata";
+	private static final String SIDECAR_EXTENSION = ".json";
+	private static final int MAX_SIDECAR_BASE_NAME_LENGTH = 46;
+	private static final int IMAGE_TEMPLATE_COUNT = 8;
+
+	/**
+	 * The photos are taken between 2012-01-01 and the end of 2023.
+	 */
+	private static final long START_EPOCH_SECOND = 1_325_376_000L;
+	private static final long TIME_RANGE_SECONDS = 12L * 365 * 24 * 60 * 60;
+
+	/**
+	 * The seconds between 1904-01-01, where the MP4 times start, and 1970-01-01.
+	 */
+	private static final long MP4_EPOCH_OFFSET_SECONDS = 2_082_844_800L;
+
+	private static final ZoneId UTC_ZONE_ID = ZoneId.of("UTC");
+	private static final DateTimeFormatter FORMATTED_TIME_FORMATTER =
+			DateTimeFormatter.ofPattern("MMM d, yyyy, h:mm:ss\u202Fa z", Locale.ENGLISH).withZone(UTC_ZONE_ID);
+	private static final DateTimeFormatter PIXEL_TIME_FORMATTER =
+			DateTimeFormatter.ofPattern("yyyyMMdd_HHmmssSSS", Locale.ROOT).withZone(UTC_ZONE_ID);
+	private static final DateTimeFormatter VIDEO_TIME_FORMATTER =
+			DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss", Locale.ROOT).withZone(UTC_ZONE_ID);
+	private static final DateTimeFormatter SCREENSHOT_TIME_FORMATTER =
+			DateTimeFormatter.ofPattern("yyyy-MM-dd 'at' h.mm.ss" + computeScreenshotAmPmSeparator() + "a",
+					Locale.ENGLISH).withZone(UTC_ZONE_ID);
+
+	private final TakeoutCorpusOptions takeoutCorpusOptions;
+
+	private Random random;
+	private Map<Path, Set<String>> fileNameSetsByFolderPath;
+	private List<byte[]> jpegTemplateList;
+	private List<byte[]> pngTemplateList;
+	private long contentSerialNumber;
+	private int mediaFileCount;
+	private int livePhotoVideoCount;
+	private int orphanFileCount;
+	private int sidecarFileCount;
+	private long byteCount;
+
+	public TakeoutCorpusGenerator(
+			final TakeoutCorpusOptions takeoutCorpusOptions) {
+
+		this.takeoutCorpusOptions = takeoutCorpusOptions;
+	}
+
+	/**
+	 * The JVM cannot put a narrow no-break space in a file name when the encoding of the file names is ASCII, as with
+	 * the C locale, so the screenshot names get a plain space then.
+	 */
+	private static String computeScreenshotAmPmSeparator() {
+
+		String screenshotAmPmSeparator;
+		try {
+			Paths.get("Screenshot\u202FPM.png");
+			screenshotAmPmSeparator = "\u202F";
+
+		} catch (final InvalidPathException ignored) {
+			screenshotAmPmSeparator = " ";
+		}
+		return screenshotAmPmSeparator;
+	}
+
+	/**
+	 * Generates the tree in a sibling ".partial" folder and moves it to its place only when it is complete, so that a
+	 * tree that exists can be reused by the tests and the benchmarks, even after an interrupted generation.
+	 *
+	 * @return the folder of the tree
+	 */
+	public static Path generateIfMissing(
+			final Path rootFolderPath,
+			final TakeoutCorpusOptions takeoutCorpusOptions) throws Exception {
+
+		if (!Files.isDirectory(rootFolderPath)) {
+
+			final Path partialFolderPath =
+					rootFolderPath.resolveSibling(rootFolderPath.getFileName() + ".partial");
+			if (Files.exists(partialFolderPath)) {
+
+				final boolean success = FactoryFolderDeleter.getInstance()
+						.deleteFolder(partialFolderPath.toString(), false, false);
+				if (!success) {
+					throw new IOException("failed to delete folder:" + System.lineSeparator() + partialFolderPath);
+				}
+			}
+			Files.createDirectories(partialFolderPath);
+
+			new TakeoutCorpusGenerator(takeoutCorpusOptions).generate(partialFolderPath);
+			Files.move(partialFolderPath, rootFolderPath, StandardCopyOption.ATOMIC_MOVE);
+		}
+		return rootFolderPath;
+	}
+
+	/**
+	 * @param rootFolderPath
+	 *            the folder that gets the "Takeout" folder; it should be empty
+	 */
+	public TakeoutCorpusSummary generate(
+			final Path rootFolderPath) throws Exception {
+
+		random = new Random(takeoutCorpusOptions.seed());
+		fileNameSetsByFolderPath = new HashMap<>();
+		contentSerialNumber = 0;
+		mediaFileCount = 0;
+		livePhotoVideoCount = 0;
+		orphanFileCount = 0;
+		sidecarFileCount = 0;
+		byteCount = 0;
+
+		jpegTemplateList = new ArrayList<>();
+		pngTemplateList = new ArrayList<>();
+		for (int i = 0; i < IMAGE_TEMPLATE_COUNT; i++) {
+
+			final BufferedImage image = createTemplateImage();
+			jpegTemplateList.add(encodeImage(image, "jpeg"));
+			pngTemplateList.add(encodeImage(image, "png"));
+		}
+
+		final Path googlePhotosFolderPath = rootFolderPath.resolve("Takeout").resolve("Google Photos");
+		final List<Path> albumFolderPathList = createAlbumFolders(googlePhotosFolderPath);
+
+		int photoIndex = 0;
+		while (mediaFileCount < takeoutCorpusOptions.mediaFileCount()) {
+
+			final long epochSecond = START_EPOCH_SECOND + (long) (random.nextDouble() * TIME_RANGE_SECONDS);
+			final Instant instant = Instant.ofEpochSecond(epochSecond, 1_000_000L * random.nextInt(1000));
+			final int year = ZonedDateTime.ofInstant(instant, UTC_ZONE_ID).getYear();
+			final Path folderPath = googlePhotosFolderPath.resolve("Photos from " + year);
+
+			final MediaKind mediaKind = drawMediaKind();
+			final String fileName = createFileName(mediaKind, photoIndex, instant);
+			final byte[] content = createContent(mediaKind, instant);
+			photoIndex++;
+
+			final boolean orphan = random.nextInt(100) < takeoutCorpusOptions.orphanPercent();
+			final boolean livePhoto = random.nextInt(100) < takeoutCorpusOptions.livePhotoPercent();
+			final boolean edited = random.nextInt(100) < takeoutCorpusOptions.editedPercent();
+			final boolean duplicate = random.nextInt(100) < takeoutCorpusOptions.duplicatePercent();
+
+			final String mediaFileName = writeMediaWithSidecar(folderPath, fileName, content, instant, orphan);
+
+			if (mediaKind == MediaKind.PHOTO && !orphan && mediaFileName.equals(fileName)) {
+
+				final String stem = fileName.substring(0, fileName.lastIndexOf('.'));
+				// the live photos come from iPhones, whose names are short enough to keep their sidecar names whole
+				if (livePhoto && fileName.startsWith("IMG_") &&
+						mediaFileCount < takeoutCorpusOptions.mediaFileCount()) {
+
+					final String videoFileName = stem + ".MP4";
+					if (reserveFileName(folderPath, videoFileName)) {
+
+						writeFile(folderPath.resolve(videoFileName), createMp4(instant), instant);
+						mediaFileCount++;
+						livePhotoVideoCount++;
+					}
+				}
+				if (edited && mediaFileCount < takeoutCorpusOptions.mediaFileCount()) {
+
+					final String editedFileName = stem + "-edited" + fileName.substring(stem.length());
+					if (reserveFileName(folderPath, editedFileName)) {
+
+						writeFile(folderPath.resolve(editedFileName), createContent(mediaKind, instant), instant);
+						mediaFileCount++;
+					}
+				}
+			}
+
+			if (duplicate && !albumFolderPathList.isEmpty() &&
+					mediaFileCount < takeoutCorpusOptions.mediaFileCount()) {
+
+				final Path albumFolderPath = albumFolderPathList.get(random.nextInt(albumFolderPathList.size()));
+				writeMediaWithSidecar(albumFolderPath, fileName, content, instant, orphan);
+			}
+		}
+
+		return new TakeoutCorpusSummary(mediaFileCount, livePhotoVideoCount, orphanFileCount, sidecarFileCount,
+				byteCount);
+	}
+
+	private List<Path> createAlbumFolders(
+			final Path googlePhotosFolderPath) throws Exception {
+
+		final List<Path> albumFolderPathList = new ArrayList<>();
+		for (int i = 0; i < takeoutCorpusOptions.albumCount(); i++) {
+
+			Path albumFolderPath = googlePhotosFolderPath.resolve(String.format(Locale.ROOT, "Album %03d", i + 1));
+			final int depth = 1 + random.nextInt(Math.max(1, takeoutCorpusOptions.maxAlbumDepth()));
+			for (int j = 1; j < depth; j++) {
+				albumFolderPath = albumFolderPath.resolve("Part " + j);
+			}
+			Files.createDirectories(albumFolderPath);
+
+			final String albumMetadata = "{" + System.lineSeparator() +
+					"  \"title\": \"" + albumFolderPath.getFileName() + "\"," + System.lineSeparator() +
+					"  \"description\": \"\"," + System.lineSeparator() +
+					"  \"access\": \"protected\"" + System.lineSeparator() +
+					"}" + System.lineSeparator();
+			writeFile(albumFolderPath.resolve("metadata.json"), albumMetadata.getBytes(StandardCharsets.UTF_8),
+					Instant.ofEpochSecond(START_EPOCH_SECOND + TIME_RANGE_SECONDS));
+			albumFolderPathList.add(albumFolderPath);
+		}
+		return albumFolderPathList;
+	}
+
+	private MediaKind drawMediaKind() {
+
+		final int roll = random.nextInt(100);
+		int threshold = takeoutCorpusOptions.videoPercent();
+		final MediaKind mediaKind;
+		if (roll < threshold) {
+			mediaKind = MediaKind.VIDEO;
+
+		} else {
+			threshold += takeoutCorpusOptions.screenshotPercent();
+			if (roll < threshold) {
+				mediaKind = MediaKind.SCREENSHOT;
+
+			} else {
+				threshold += takeoutCorpusOptions.otherPercent();
+				if (roll < threshold) {
+					mediaKind = MediaKind.OTHER;
+				} else {
+					mediaKind = MediaKind.PHOTO;
+				}
+			}
+		}
+		return mediaKind;
+	}
+
+	/**
+	 * The photo names wrap around every 10000 photos, as the camera counters do, so the "Photos from" folders get
+	 * names that are taken, and some names are long enough to have their sidecar names cut.
+	 */
+	private String createFileName(
+			final MediaKind mediaKind,
+			final int photoIndex,
+			final Instant instant) {
+
+		final String fileName;
+		if (mediaKind == MediaKind.VIDEO) {
+
+			String extension = ".mp4";
+			if (random.nextInt(4) == 0) {
+				extension = ".MOV";
+			}
+			fileName = "VID_" + VIDEO_TIME_FORMATTER.format(instant) + extension;
+
+		} else if (mediaKind == MediaKind.SCREENSHOT) {
+			fileName = "Screenshot " + SCREENSHOT_TIME_FORMATTER.format(instant) + ".png";
+
+		} else if (mediaKind == MediaKind.OTHER) {
+			fileName = String.format(Locale.ROOT, "animation_%d.gif", photoIndex);
+
+		} else {
+			final int style = random.nextInt(5);
+			if (style == 0) {
+				fileName = String.format(Locale.ROOT, "IMG_%04d.JPG", photoIndex % 10_000);
+			} else if (style == 1) {
+				fileName = "PXL_" + PIXEL_TIME_FORMATTER.format(instant) + ".jpg";
+			} else if (style == 2) {
+				fileName = "PXL_" + PIXEL_TIME_FORMATTER.format(instant) + ".PORTRAIT.ORIGINAL.jpg";
+			} else if (style == 3) {
+				fileName = String.format(Locale.ROOT, "received_%d_%018d%018d.jpeg", photoIndex,
+						Math.floorMod(random.nextLong(), 1_000_000_000_000_000_000L),
+						Math.floorMod(random.nextLong(), 1_000_000_000_000_000_000L));
+			} else {
+				fileName = String.format(Locale.ROOT, "IMG_%04d.jpg", photoIndex % 10_000);
+			}
+		}
+		return fileName;
+	}
+
+	private byte[] createContent(
+			final MediaKind mediaKind,
+			final Instant instant) {
+
+		final byte[] content;
+		if (mediaKind == MediaKind.VIDEO) {
+			content = createMp4(instant);
+		} else if (mediaKind == MediaKind.SCREENSHOT) {
+			content = createPng();
+		} else if (mediaKind == MediaKind.OTHER) {
+			content = createGif();
+		} else {
+			content = createJpeg();
+		}
+		return content;
+	}
+
+	/**
+	 * Writes the media file, with a "(n)" counter if its name is taken in the folder, and its sidecar, unless it is an
+	 * orphan.
+	 *
+	 * @return the name that the media file was written with
+	 */
+	private String writeMediaWithSidecar(
+			final Path folderPath,
+			final String fileName,
+			final byte[] content,
+			final Instant instant,
+			final boolean orphan) throws Exception {
+
+		final int extensionDotIndex = fileName.lastIndexOf('.');
+		final String stem = fileName.substring(0, extensionDotIndex);
+		final String extension = fileName.substring(extensionDotIndex);
+
+		String counter = "";
+		String mediaFileName = fileName;
+		for (int i = 1; !reserveFileName(folderPath, mediaFileName); i++) {
+
+			counter = "(" + i + ")";
+			mediaFileName = stem + counter + extension;
+		}
+
+		writeFile(folderPath.resolve(mediaFileName), content, instant);
+		mediaFileCount++;
+
+		if (orphan) {
+			orphanFileCount++;
+
+		} else {
+			final String sidecarFileName = createSidecarFileName(fileName, counter);
+			if (reserveFileName(folderPath, sidecarFileName)) {
+
+				writeFile(folderPath.resolve(sidecarFileName), createSidecar(fileName, instant), instant);
+				sidecarFileCount++;
+			} else {
+				orphanFileCount++;
+			}
+		}
+		return mediaFileName;
+	}
+
+	/**
+	 * Older exports name the sidecar after the media file followed by ".json", and newer ones insert
+	 * ".supplemental-metadata" before it. The name before the counter and the extension is cut to 46 characters, and
+	 * the counter goes after the extensions.
+	 */
+	private String createSidecarFileName(
+			final String fileName,
+			final String counter) {
+
+		String baseName = fileName;
+		if (random.nextInt(3) != 0) {
+			baseName += SUPPLEMENTAL_METADATA_SUFFIX;
+		}
+		final int maxBaseNameLength = MAX_SIDECAR_BASE_NAME_LENGTH - counter.length();
+		if (baseName.length() > maxBaseNameLength) {
+			baseName = Strings.CS.removeEnd(baseName.substring(0, maxBaseNameLength), ".");
+		}
+		return baseName + counter + SIDECAR_EXTENSION;
+	}
+
+	/**
+	 * Half of the photos have a location, and the sidecars are uploaded a few minutes to a few days after the photos
+	 * were taken.
+	 */
+	private byte[] createSidecar(
+			final String fileName,
+			final Instant instant) {
+
+		final Instant creationInstant = instant.plusSeconds(60 + random.nextInt(3 * 24 * 60 * 60));
+		double latitude = 0;
+		double longitude = 0;
+		double altitude = 0;
+		if (random.nextBoolean()) {
+
+			latitude = -60 + 130 * random.nextDouble();
+			longitude = -180 + 360 * random.nextDouble();
+			altitude = 1000 * random.nextDouble();
+		}
+
+		final String lineSeparator = System.lineSeparator();
+		final String sidecar = "{" + lineSeparator +
+				"  \"title\": \"" + escapeJson(fileName) + "\"," + lineSeparator +
+				"  \"description\": \"\"," + lineSeparator +
+				"  \"imageViews\": \"" + random.nextInt(100) + "\"," + lineSeparator +
+				"  \"creationTime\": {" + lineSeparator +
+				"    \"timestamp\": \"" + creationInstant.getEpochSecond() + "\"," + lineSeparator +
+				"    \"formatted\": \"" + FORMATTED_TIME_FORMATTER.format(creationInstant) + "\"" + lineSeparator +
+				"  }," + lineSeparator +
+				"  \"photoTakenTime\": {" + lineSeparator +
+				"    \"timestamp\": \"" + instant.getEpochSecond() + "\"," + lineSeparator +
+				"    \"formatted\": \"" + FORMATTED_TIME_FORMATTER.format(instant) + "\"" + lineSeparator +
+				"  }," + lineSeparator +
+				"  \"geoData\": {" + lineSeparator +
+				"    \"latitude\": " + formatCoordinate(latitude) + "," + lineSeparator +
+				"    \"longitude\": " + formatCoordinate(longitude) + "," + lineSeparator +
+				"    \"altitude\": " + formatCoordinate(altitude) + "," + lineSeparator +
+				"    \"latitudeSpan\": 0.0," + lineSeparator +
+				"    \"longitudeSpan\": 0.0" + lineSeparator +
+				"  }," + lineSeparator +
+				"  \"googlePhotosOrigin\": {" + lineSeparator +
+				"    \"mobileUpload\": {" + lineSeparator +
+				"      \"deviceType\": \"ANDROID_PHONE\"" + lineSeparator +
+				"    }" + lineSeparator +
+				"  }" + lineSeparator +
+				"}" + lineSeparator;
+		return sidecar.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String escapeJson(
+			final String value) {
+
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private static String formatCoordinate(
+			final double coordinate) {
+
+		return String.format(Locale.ROOT, "%.7f", coordinate);
+	}
+
+	/**
+	 * The names are compared ignoring the case, as Takeout does, so that the tree is the same on every file system.
+	 *
+	 * @return true if the name was free in the folder, false otherwise
+	 */
+	private boolean reserveFileName(
+			final Path folderPath,
+			final String fileName) {
+
+		return fileNameSetsByFolderPath.computeIfAbsent(folderPath, key -> new HashSet<>())
+				.add(fileName.toLowerCase(Locale.ROOT));
+	}
+
+	private void writeFile(
+			final Path filePath,
+			final byte[] content,
+			final Instant instant) throws Exception {
+
+		Files.createDirectories(filePath.getParent());
+		Files.write(filePath, content);
+		Files.setLastModifiedTime(filePath, FileTime.from(instant));
+		byteCount += content.length;
+	}
+
+	/**
+	 * A few blocks of random colors, so that the templates do not look alike to the near-duplicate detection.
+	 */
+	private BufferedImage createTemplateImage() {
+
+		final int edgeLength = Math.max(8, takeoutCorpusOptions.imageEdgeLength());
+		final BufferedImage image = new BufferedImage(edgeLength, edgeLength, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D graphics = image.createGraphics();
+		try {
+			final int blockLength = edgeLength / 4;
+			for (int x = 0; x < edgeLength; x += blockLength) {
+				for (int y = 0; y < edgeLength; y += blockLength) {
+
+					graphics.setColor(new Color(random.nextInt(0x1000000)));
+					graphics.fillRect(x, y, blockLength, blockLength);
+				}
+			}
+
+		} finally {
+			graphics.dispose();
+		}
+		return image;
+	}
+
+	private static byte[] encodeImage(
+			final BufferedImage image,
+			final String formatName) throws Exception {
+
+		final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		ImageIO.write(image, formatName, byteArrayOutputStream);
+		return byteArrayOutputStream.toByteArray();
+	}
+
+	/**
+	 * Inserts a comment segment after the start of image marker of a template.
+	 */
+	private byte[] createJpeg() {
+
+		final byte[] template = jpegTemplateList.get(random.nextInt(jpegTemplateList.size()));
+		final byte[] comment = createContentComment();
+		final ByteBuffer byteBuffer = ByteBuffer.allocate(template.length + 4 + comment.length);
+		byteBuffer.put(template, 0, 2);
+		byteBuffer.put((byte) 0xFF).put((byte) 0xFE).putShort((short) (2 + comment.length)).put(comment);
+		byteBuffer.put(template, 2, template.length - 2);
+		return byteBuffer.array();
+	}
+
+	/**
+	 * Inserts a "tEXt" chunk after the "IHDR" chunk of a template, which ends 33 bytes into the file.
+	 */
+	private byte[] createPng() {
+
+		final byte[] template = pngTemplateList.get(random.nextInt(pngTemplateList.size()));
+		final byte[] chunkType = "tEXt".getBytes(StandardCharsets.US_ASCII);
+		final byte[] chunkData = ("Comment\0" + new String(createContentComment(), StandardCharsets.US_ASCII))
+				.getBytes(StandardCharsets.ISO_8859_1);
+		final CRC32 crc32 = new CRC32();
+		crc32.update(chunkType);
+		crc32.update(chunkData);
+
+		final int ihdrEndIndex = 33;
+		final ByteBuffer byteBuffer = ByteBuffer.allocate(template.length + 12 + chunkData.length);
+		byteBuffer.put(template, 0, ihdrEndIndex);
+		byteBuffer.putInt(chunkData.length).put(chunkType).put(chunkData).putInt((int) crc32.getValue());
+		byteBuffer.put(template, ihdrEndIndex, template.length - ihdrEndIndex);
+		return byteBuffer.array();
+	}
+
+	/**
+	 * A 1 by 1 GIF with a comment extension.
+	 */
+	private byte[] createGif() {
+
+		final byte[] comment = createContentComment();
+		final ByteBuffer byteBuffer = ByteBuffer.allocate(6 + 7 + 6 + 3 + comment.length + 1 + 10 + 5 + 1);
+		byteBuffer.put("GIF89a".getBytes(StandardCharsets.US_ASCII));
+		byteBuffer.put(new byte[] { 1, 0, 1, 0, (byte) 0x80, 0, 0 });
+		byteBuffer.put(new byte[] { 0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF });
+		byteBuffer.put((byte) 0x21).put((byte) 0xFE).put((byte) comment.length).put(comment).put((byte) 0);
+		byteBuffer.put(new byte[] { 0x2C, 0, 0, 0, 0, 1, 0, 1, 0, 0 });
+		byteBuffer.put(new byte[] { 2, 2, 0x44, 1, 0 });
+		byteBuffer.put((byte) 0x3B);
+		return byteBuffer.array();
+	}
+
+	/**
+	 * An "ftyp" box, a "moov" box with a version 0 "mvhd" box that holds the creation time, and an "mdat" box of
+	 * random bytes.
+	 */
+	private byte[] createMp4(
+			final Instant instant) {
+
+		final int mdatLength = Math.max(8, takeoutCorpusOptions.videoByteCount() - 16 - 116);
+		final ByteBuffer byteBuffer = ByteBuffer.allocate(16 + 116 + mdatLength);
+		byteBuffer.putInt(16).put("ftypisom".getBytes(StandardCharsets.US_ASCII)).putInt(0x200);
+		byteBuffer.putInt(116).put("moov".getBytes(StandardCharsets.US_ASCII));
+		byteBuffer.putInt(108).put("mvhd".getBytes(StandardCharsets.US_ASCII));
+		byteBuffer.putInt(0);
+		byteBuffer.putInt((int) (instant.getEpochSecond() + MP4_EPOCH_OFFSET_SECONDS));
+		byteBuffer.position(16 + 116);
+
+		final byte[] mdatContent = new byte[mdatLength - 8];
+		random.nextBytes(mdatContent);
+		byteBuffer.putInt(mdatLength).put("mdat".getBytes(StandardCharsets.US_ASCII)).put(mdatContent);
+		return byteBuffer.array();
+	}
+
+	private byte[] createContentComment() {
+
+		contentSerialNumber++;
+		return ("takeout corpus " + contentSerialNumber).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@Override
+	public String toString() {
+		return StrUtils.reflectionToString(this);
+	}
+
+	private enum MediaKind {
+
+		PHOTO,
+		VIDEO,
+		SCREENSHOT,
+		OTHER
+	}
+}
@@ -0,0 +1,46 @@
+package com.personal.g_photos.corpus;
+
+/**
+ * The shape of a generated Takeout tree. The percentages are the chances that a generated photo gets the matching
+ * trait, drawn independently for every photo.
+ *
+ * @param seed
+ *            the seed that the whole tree follows; the same options always give the same tree
+ * @param mediaFileCount
+ *            the number of media files to write, not counting the sidecars
+ * @param albumCount
+ *            the number of album folders, next to the "Photos from" year folders
+ * @param maxAlbumDepth
+ *            the deepest nesting of the album folders
+ * @param imageEdgeLength
+ *            the edge of the generated images, in pixels
+ * @param videoByteCount
+ *            the size of the generated videos
+ */
+public record TakeoutCorpusOptions(
+		long seed,
+		int mediaFileCount,
+		int albumCount,
+		int maxAlbumDepth,
+		int imageEdgeLength,
+		int videoByteCount,
+		int videoPercent,
+		int screenshotPercent,
+		int otherPercent,
+		int livePhotoPercent,
+		int editedPercent,
+		int duplicatePercent,
+		int orphanPercent) {
+
+	/**
+	 * @return the options of a tree that looks like a phone library: mostly photos, with a few videos, screenshots,
+	 *         live photos, edited copies, photos that are also in albums, and media files without sidecars
+	 */
+	public static TakeoutCorpusOptions createDefault(
+			final long seed,
+			final int mediaFileCount) {
+
+		return new TakeoutCorpusOptions(seed, mediaFileCount, Math.max(1, mediaFileCount / 200), 3,
+				32, 4096, 8, 6, 3, 5, 4, 10, 2);
+	}
+}
@@ -0,0 +1,21 @@
+package com.personal.g_photos.corpus;
+
+/**
+ * @param mediaFileCount
+ *            the number of media files that were written
+ * @param livePhotoVideoCount
+ *            the number of videos of live photos, which have no sidecar of their own
+ * @param orphanFileCount
+ *            the number of the other media files that have no sidecar
+ * @param sidecarFileCount
+ *            the number of sidecars that were written
+ * @param byteCount
+ *            the size of all the files that were written
+ */
+public record TakeoutCorpusSummary(
+		int mediaFileCount,
+		int livePhotoVideoCount,
+		int orphanFileCount,
+		int sidecarFileCount,
+		long byteCount) {
+}